@@ -30,6 +30,17 @@ public class App
          * Thread-Safety:
          * - Any list from the collections framework can be made thread safe via "Collections.synchronizedList(LIST_INSTANCE)"
          * - CopyOnWriteArrayList
+         * Primitive Specializations (see "primitive" package):
+         * - IntArrayList/LongArrayList: ArrayList<Integer/Long> boxes every element into its own object. These store the raw int[]/long[] instead.
+         * Chunked (see "list" package):
+         * - LinkedList's node per element and pointer chasing make it the slowest list for almost everything. ChunkedList is an unrolled
+         *   list (64 element arrays + a chunk index) that implements List and Deque: O(1) amortized at both ends, binary searched
+         *   get(i), allocation-free ListIterator. Benchmarked in ChunkedListBenchmark.
+         * Cost (see "footprint" package; bytes per element incl. the boxed element, as measured on your JVM by
+         *   java -cp target/classes work.aaronskeels.javaknowledgedemos.footprint.FootprintReport footprint.json):
+         * - LinkedList costs about twice what ArrayList/Stack/CopyOnWriteArrayList do (a node per element); ChunkedList stays close
+         *   to ArrayList. IntArrayList/LongArrayList store no Integer/Long objects at all, so they are several times smaller still.
+         * - FootprintReport covers every type here; CollectionCatalogBenchmark does add/get/iterate/remove throughput.
          */
     }
 
@@ -50,6 +61,22 @@ public class App
          * - PriorityBlockingQueue
          * - SynchronousQueue: NOT a normal queue. Intended to facilitate a single item hand-off between a single producer and single consumer.
          * - TransferQueue: SynchrounousQueue with better capacity and ability to be blocking or non-blocking (just better)
+         * Lock-Free Ring Buffers (see "queue" package):
+         * - MpmcRingQueue: Bounded BlockingQueue over a pre-allocated array where each slot has a sequence number. One CAS per offer/poll,
+         *   no locks, no per-element nodes. Head/tail counters are padded onto their own cache lines to avoid false sharing.
+         * - SpscRingQueue: Same idea for exactly one producer + one consumer thread. No CAS at all, and drainTo() is a true batch.
+         * - Both block via a WaitStrategy (SPIN/YIELD/PARK) instead of Lock+Condition. Compared in QueueContentionBenchmark.
+         * Timing Wheel (see "timer" package):
+         * - DelayQueue/ScheduledThreadPoolExecutor keep a heap behind one lock: O(log n) per schedule AND per cancel, and
+         *   DelayQueue.remove(o) is a linear scan. Painful with a million mostly-cancelled timeouts.
+         * - HierarchicalTimingWheel: Time cut into ticks, timers hashed into buckets of a circular array (O(1) schedule/cancel).
+         *   Far-off timers sit in coarser wheels and cascade down as their time approaches. One driver thread fires them,
+         *   at most one tick late (never early). Resolution is the price.
+         * - TimingWheelDelayQueue: BlockingQueue adapter with DelayQueue semantics on top. Compared in TimingWheelBenchmark.
+         * Cost (see "footprint" package; bytes per element incl. the element object, from FootprintReport):
+         * - Array backed (ArrayDeque, ArrayBlockingQueue, PriorityQueue, SpscRingQueue) cost least; MpmcRingQueue adds a sequence per slot.
+         * - Node backed (Linked*Queue/Deque, ConcurrentLinked*, LinkedTransferQueue) roughly double that. TimingWheelDelayQueue is
+         *   several times larger again (a timer object plus an index entry per element).
          */
     }
 
@@ -66,6 +93,25 @@ public class App
          * - Any sorted set from the collections framework can be made thread safe via "Collections.synchronizedSortedSet(LIST_INSTANCE)"
          * - ConcurrentSkipListSet: "SkipList" is the specific implementation method. Read as "ConcurrentSet". Thread-safe and non-blocking
          * - CopyOnWriteArraySet: Each write creates an entire clone of the set. Inferior implementation imo. Use ConcurrentSkipListSet instead.
+         * Persistent (Immutable + Structural Sharing) (see "persistent" package):
+         * - PersistentHashSet/PersistentHashMap: Hash array mapped trie. plus()/minus() return a new version in O(log32 n) that shares all
+         *   untouched nodes with the old one. asTransient() gives a mutable builder for bulk loads.
+         * - AtomicPersistentSet/AtomicPersistentMap: AtomicReference to the current version. Lock-free reads + free snapshots like
+         *   CopyOnWrite, but writes are a CAS of a cheap new version instead of a full clone.
+         * Probabilistic Membership (see "filter" package):
+         * - Not a Set (can't iterate, may answer "maybe" for keys never added), but answers "definitely not present" in a handful
+         *   of bits per key (bitSize() tells how many) instead of a HashSet node. Put one in front of a database or disk lookup to
+         *   skip most misses.
+         * - BlockedBloomFilter: All of a key's bits share one cache line. Lock-free concurrent put(), union(), no delete.
+         * - CuckooFilter: Stores fingerprints in two candidate buckets, so it supports delete(). Compared in MembershipFilterBenchmark.
+         * Compressed Bitmaps (see "bitmap" package):
+         * - BitSet is 1 bit per possible value, so a few sparse ids near 2^31 cost 256 MB. HashSet<Integer> pays for a node and a box per id.
+         * - RoaringBitmap: Splits ints by their high 16 bits into containers that are each a sorted array, a bitmap or a run-length list,
+         *   whichever is smallest. Fast and/or/andNot/andCardinality, unboxed iteration, compact serialization. See RoaringBitmapBenchmark.
+         * Cost (see "footprint" package; bytes per element incl. the boxed Integer, from FootprintReport):
+         * - HashSet, LinkedHashSet, TreeSet and ConcurrentSkipListSet pay for a node per element; PersistentHashSet for less, and
+         *   CopyOnWriteArraySet (one bare array) least. IntHashSet is a fraction of any of them. RoaringBitmap is a few bits per int
+         *   when they cluster, but not much better than PersistentHashSet for ints spread over the whole range (a container each).
          */
     }
 
@@ -84,6 +130,26 @@ public class App
          * - ConcurrentHashMap
          * - ConcurrentMap: Interface methods are all atomic in nature and non-blocking
          * - HashTable: Use ConcurrentHashMap instead, this is an older implementation.
+         * Primitive Specializations (see "primitive" package):
+         * - IntIntHashMap/LongObjectHashMap/IntHashSet: Open addressing over primitive arrays. No Node per entry and no boxed keys,
+         *   so several times smaller than HashMap/HashSet and no allocation on get/put. Benchmarked in PrimitiveCollectionsBenchmark.
+         * Off-Heap (see "offheap" package):
+         * - OffHeapHashMap: long key -> fixed size byte record, stored in direct ByteBuffers. The GC never sees the entries, so huge
+         *   lookup tables cost ~nothing in pause time. Must be close()d. Has a read-mostly concurrent mode (optimistic StampedLock reads).
+         * Bounded Caches (see "cache" package):
+         * - LinkedHashMap(accessOrder=true) + removeEldestEntry() is the textbook LRU cache, but it isn't thread-safe and LRU gets flushed by scans.
+         * - BoundedCache/LoadingBoundedCache: ConcurrentHashMap + W-TinyLFU eviction (count-min sketch decides if a new key is worth
+         *   evicting an old one). Size or weight bound, expireAfterWrite/Access, async refresh, and CacheStats (hit rate, evictions, load time).
+         * B+Tree (see "btree" package):
+         * - BPlusTreeMap: NavigableMap drop-in for TreeMap. 64 keys per node and linked leaves, so subMap/headMap/tailMap scans walk
+         *   arrays instead of chasing one pointer per entry. LongBPlusTreeMap keeps keys unboxed. Benchmarked in BPlusTreeBenchmark.
+         * Counting (see "counter" package):
+         * - CHM<K, AtomicLong> / merge(key, 1L, Long::sum) serialize every thread on a hot key's one word. StripedCounterMap gives each
+         *   key a LongAdder (cache-line-padded cells per thread) plus topK(); heavyHitters(capacity) bounds memory with Space-Saving.
+         * Cost (see "footprint" package; bytes per entry incl. one boxed Integer for key and value, from FootprintReport):
+         * - HashMap/ConcurrentHashMap, LinkedHashMap, TreeMap and Hashtable pay for a node per entry; IdentityHashMap has none.
+         * - IntIntHashMap and BPlusTreeMap take about half of HashMap's bytes, PersistentHashMap and LongObjectHashMap somewhat less
+         *   than HashMap. OffHeapHashMap's bytes are all native memory, which the GC never scans.
          */
     }
 }
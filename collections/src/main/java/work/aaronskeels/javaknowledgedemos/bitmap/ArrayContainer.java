@@ -0,0 +1,199 @@
+package work.aaronskeels.javaknowledgedemos.bitmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Sparse container: the values as a sorted char[], grown like an ArrayList up to {@link Container#MAX_ARRAY_SIZE}.
+ */
+final class ArrayContainer extends Container {
+    private char[] values;
+    private int size;
+
+    ArrayContainer() {
+        this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    static int serializedSize(int cardinality) {
+        return 2 + 2 * cardinality;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    @Override
+    Container add(char value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return this;
+        }
+        if (size == MAX_ARRAY_SIZE) {
+            return toBitmap().add(value);
+        }
+        index = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, size + (size >> 1) + 1));
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return this;
+    }
+
+    @Override
+    Container remove(char value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+        return this;
+    }
+
+    @Override
+    int cardinality() {
+        return size;
+    }
+
+    @Override
+    Container copy() {
+        return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size);
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        BitmapContainer bitmap = new BitmapContainer();
+        for (int i = 0; i < size; i++) {
+            bitmap.set(values[i]);
+        }
+        return bitmap;
+    }
+
+    /** Keeps the values "other" contains (retain = true) or doesn't contain (retain = false). */
+    ArrayContainer filter(Container other, boolean retain) {
+        char[] result = new char[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (other.contains(values[i]) == retain) {
+                result[count++] = values[i];
+            }
+        }
+        return new ArrayContainer(result, count);
+    }
+
+    /** Merge of two sorted arrays; caller guarantees the result fits. */
+    ArrayContainer union(ArrayContainer other) {
+        char[] result = new char[size + other.size];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < size && j < other.size) {
+            char a = values[i];
+            char b = other.values[j];
+            if (a < b) {
+                result[count++] = a;
+                i++;
+            } else if (a > b) {
+                result[count++] = b;
+                j++;
+            } else {
+                result[count++] = a;
+                i++;
+                j++;
+            }
+        }
+        while (i < size) {
+            result[count++] = values[i++];
+        }
+        while (j < other.size) {
+            result[count++] = other.values[j++];
+        }
+        return new ArrayContainer(result, count);
+    }
+
+    @Override
+    CharIterator iterator() {
+        return new CharIterator() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public char next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return values[index++];
+            }
+        };
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(high | values[i]);
+        }
+    }
+
+    @Override
+    int numberOfRuns() {
+        if (size == 0) {
+            return 0;
+        }
+        int runs = 1;
+        for (int i = 1; i < size; i++) {
+            if (values[i] != values[i - 1] + 1) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    char valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    byte type() {
+        return ARRAY;
+    }
+
+    @Override
+    int serializedSizeInBytes() {
+        return serializedSize(size);
+    }
+
+    @Override
+    void writeBody(DataOutputStream out) throws IOException {
+        out.writeShort(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(values[i]);
+        }
+    }
+
+    static ArrayContainer readBody(DataInputStream in) throws IOException {
+        int size = in.readUnsignedShort();
+        if (size > MAX_ARRAY_SIZE) {
+            throw new IOException("Corrupt array container size: " + size);
+        }
+        char[] values = new char[Math.max(size, 1)];
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readChar();
+        }
+        return new ArrayContainer(values, size);
+    }
+}
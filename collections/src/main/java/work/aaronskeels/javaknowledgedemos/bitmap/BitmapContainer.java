@@ -0,0 +1,289 @@
+package work.aaronskeels.javaknowledgedemos.bitmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Dense container: one bit per possible low value. AND/OR/ANDNOT against another bitmap is 1024 word operations, which the JIT
+ * unrolls and vectorizes.
+ */
+final class BitmapContainer extends Container {
+    static final int WORDS = VALUES / Long.SIZE;
+    static final int SERIALIZED_SIZE = WORDS * Long.BYTES;
+
+    private final long[] words;
+    private int cardinality;
+
+    BitmapContainer() {
+        this(new long[WORDS], 0);
+    }
+
+    private BitmapContainer(long[] words, int cardinality) {
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    /** Sets a bit during bulk construction. */
+    void set(char value) {
+        long before = words[value >>> 6];
+        long after = before | (1L << value);
+        words[value >>> 6] = after;
+        cardinality += (int) ((before ^ after) >>> value);
+    }
+
+    @Override
+    Container add(char value) {
+        set(value);
+        return this;
+    }
+
+    @Override
+    Container remove(char value) {
+        long before = words[value >>> 6];
+        long after = before & ~(1L << value);
+        words[value >>> 6] = after;
+        cardinality -= (int) ((before ^ after) >>> value);
+        return cardinality <= MAX_ARRAY_SIZE ? toArray() : this;
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    Container copy() {
+        return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        return this;
+    }
+
+    @Override
+    Container repair() {
+        return cardinality <= MAX_ARRAY_SIZE ? toArray() : this;
+    }
+
+    private ArrayContainer toArray() {
+        char[] values = new char[Math.max(cardinality, 1)];
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                values[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return new ArrayContainer(values, count);
+    }
+
+    /** Sets [from, toExclusive). */
+    void setRange(int from, int toExclusive) {
+        if (from >= toExclusive) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (toExclusive - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -toExclusive;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+        } else {
+            words[first] |= firstMask;
+            Arrays.fill(words, first + 1, last, -1L);
+            words[last] |= lastMask;
+        }
+        recount();
+    }
+
+    /** Clears [from, toExclusive). */
+    void clearRange(int from, int toExclusive) {
+        if (from >= toExclusive) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (toExclusive - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -toExclusive;
+        if (first == last) {
+            words[first] &= ~(firstMask & lastMask);
+        } else {
+            words[first] &= ~firstMask;
+            Arrays.fill(words, first + 1, last, 0L);
+            words[last] &= ~lastMask;
+        }
+        recount();
+    }
+
+    private void recount() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        cardinality = count;
+    }
+
+    void andInPlace(BitmapContainer other) {
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i] & other.words[i];
+            words[i] = word;
+            count += Long.bitCount(word);
+        }
+        cardinality = count;
+    }
+
+    void orInPlace(Container other) {
+        if (other instanceof BitmapContainer bitmap) {
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i] | bitmap.words[i];
+                words[i] = word;
+                count += Long.bitCount(word);
+            }
+            cardinality = count;
+        } else if (other instanceof RunContainer run) {
+            for (int i = 0; i < run.runCount(); i++) {
+                setRange(run.runStart(i), run.runStart(i) + run.runLength(i));
+            }
+        } else {
+            ArrayContainer array = (ArrayContainer) other;
+            for (int i = 0; i < array.cardinality(); i++) {
+                set(array.valueAt(i));
+            }
+        }
+    }
+
+    void andNotInPlace(Container other) {
+        if (other instanceof BitmapContainer bitmap) {
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i] & ~bitmap.words[i];
+                words[i] = word;
+                count += Long.bitCount(word);
+            }
+            cardinality = count;
+        } else if (other instanceof RunContainer run) {
+            for (int i = 0; i < run.runCount(); i++) {
+                clearRange(run.runStart(i), run.runStart(i) + run.runLength(i));
+            }
+        } else {
+            ArrayContainer array = (ArrayContainer) other;
+            for (int i = 0; i < array.cardinality(); i++) {
+                char value = array.valueAt(i);
+                long before = words[value >>> 6];
+                long after = before & ~(1L << value);
+                words[value >>> 6] = after;
+                cardinality -= (int) ((before ^ after) >>> value);
+            }
+        }
+    }
+
+    /** Popcount of this AND other without materializing the result. */
+    int andCardinality(BitmapContainer other) {
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+
+    @Override
+    CharIterator iterator() {
+        return new CharIterator() {
+            private int wordIndex = -1;
+            private long word;
+
+            {
+                advance();
+            }
+
+            private void advance() {
+                while (word == 0 && ++wordIndex < WORDS) {
+                    word = words[wordIndex];
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return wordIndex < WORDS;
+            }
+
+            @Override
+            public char next() {
+                if (wordIndex >= WORDS) {
+                    throw new NoSuchElementException();
+                }
+                char value = (char) ((wordIndex << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+                advance();
+                return value;
+            }
+        };
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                action.accept(high | ((i << 6) + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    int numberOfRuns() {
+        // A run starts at every set bit whose lower neighbour is clear
+        int runs = 0;
+        long previousTop = 0;
+        for (long word : words) {
+            runs += Long.bitCount(word & ~((word << 1) | previousTop));
+            previousTop = word >>> 63;
+        }
+        return runs;
+    }
+
+    long word(int index) {
+        return words[index];
+    }
+
+    @Override
+    byte type() {
+        return BITMAP;
+    }
+
+    @Override
+    int serializedSizeInBytes() {
+        return SERIALIZED_SIZE;
+    }
+
+    @Override
+    void writeBody(DataOutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_SIZE);
+        buffer.asLongBuffer().put(words);
+        out.write(buffer.array());
+    }
+
+    static BitmapContainer readBody(DataInputStream in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_SIZE);
+        in.readFully(buffer.array());
+        BitmapContainer bitmap = new BitmapContainer();
+        buffer.asLongBuffer().get(bitmap.words);
+        bitmap.recount();
+        return bitmap;
+    }
+}
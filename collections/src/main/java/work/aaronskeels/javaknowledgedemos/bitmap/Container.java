@@ -0,0 +1,137 @@
+package work.aaronskeels.javaknowledgedemos.bitmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.function.IntConsumer;
+
+/**
+ * Holds the low 16 bits of every value that shares one high 16 bit key. Three representations, chosen by density:
+ * - ArrayContainer: sorted char[] of up to 4096 values (2 bytes each, so never more than 8 KiB)
+ * - BitmapContainer: 65536 bits in a long[1024] (always 8 KiB, so only worth it above 4096 values)
+ * - RunContainer: sorted (start, length - 1) pairs, for values that come in long consecutive runs
+ *
+ * Mutators return the container to use from then on, which is "this" unless the representation had to change. Binary operations
+ * never modify their inputs. The mixed-type cases that don't have a cheap direct algorithm go through a BitmapContainer copy and
+ * then {@link #repair()} back down to the smallest fitting form.
+ */
+abstract class Container {
+    static final int MAX_ARRAY_SIZE = 4096;
+    static final int VALUES = 1 << 16;
+
+    static final byte ARRAY = 0;
+    static final byte BITMAP = 1;
+    static final byte RUN = 2;
+
+    /** Iterates the low 16 bits of a container's values in ascending order. */
+    interface CharIterator {
+        boolean hasNext();
+
+        char next();
+    }
+
+    abstract boolean contains(char value);
+
+    abstract Container add(char value);
+
+    abstract Container remove(char value);
+
+    abstract int cardinality();
+
+    abstract Container copy();
+
+    /** Read-only bitmap view: the container itself if it already is one, otherwise a new bitmap. */
+    abstract BitmapContainer toBitmap();
+
+    abstract CharIterator iterator();
+
+    /** Calls "action" with (high | value) for every value. */
+    abstract void forEach(int high, IntConsumer action);
+
+    abstract byte type();
+
+    abstract int serializedSizeInBytes();
+
+    abstract void writeBody(DataOutputStream out) throws IOException;
+
+    /** Number of runs of consecutive values; what a RunContainer of the same values would need. */
+    abstract int numberOfRuns();
+
+    BitmapContainer toBitmapCopy() {
+        BitmapContainer bitmap = toBitmap();
+        return bitmap == this ? (BitmapContainer) bitmap.copy() : bitmap;
+    }
+
+    /** Smallest non-run representation for the current cardinality. */
+    Container repair() {
+        return this;
+    }
+
+    /** Adds [from, toExclusive), both within 0..65536. */
+    Container addRange(int from, int toExclusive) {
+        if (from == 0 && toExclusive == VALUES) {
+            return RunContainer.full();
+        }
+        BitmapContainer result = toBitmapCopy();
+        result.setRange(from, toExclusive);
+        return result.repair();
+    }
+
+    Container and(Container other) {
+        if (this instanceof ArrayContainer array) {
+            return array.filter(other, true);
+        }
+        if (other instanceof ArrayContainer array) {
+            return array.filter(this, true);
+        }
+        BitmapContainer result = toBitmapCopy();
+        result.andInPlace(other.toBitmap());
+        return result.repair();
+    }
+
+    Container or(Container other) {
+        if (this instanceof RunContainer run && run.isFull()) {
+            return run.copy();
+        }
+        if (other instanceof RunContainer run && run.isFull()) {
+            return run.copy();
+        }
+        if (this instanceof ArrayContainer left && other instanceof ArrayContainer right
+                && left.cardinality() + right.cardinality() <= MAX_ARRAY_SIZE) {
+            return left.union(right);
+        }
+        BitmapContainer result = toBitmapCopy();
+        result.orInPlace(other);
+        return result.repair();
+    }
+
+    Container andNot(Container other) {
+        if (this instanceof ArrayContainer array) {
+            return array.filter(other, false);
+        }
+        BitmapContainer result = toBitmapCopy();
+        result.andNotInPlace(other);
+        return result.repair();
+    }
+
+    /** Switches to a RunContainer if that is smaller than the current form (or away from one if it no longer is). */
+    Container runOptimize() {
+        int runs = numberOfRuns();
+        int runBytes = RunContainer.serializedSize(runs);
+        int cardinality = cardinality();
+        int otherBytes = cardinality <= MAX_ARRAY_SIZE ? ArrayContainer.serializedSize(cardinality) : BitmapContainer.SERIALIZED_SIZE;
+        if (runBytes < otherBytes) {
+            return this instanceof RunContainer ? this : RunContainer.from(this, runs);
+        }
+        return this instanceof RunContainer run ? run.toEfficientNonRun() : this;
+    }
+
+    static Container read(byte type, DataInputStream in) throws IOException {
+        return switch (type) {
+            case ARRAY -> ArrayContainer.readBody(in);
+            case BITMAP -> BitmapContainer.readBody(in);
+            case RUN -> RunContainer.readBody(in);
+            default -> throw new IOException("Unknown container type: " + type);
+        };
+    }
+}
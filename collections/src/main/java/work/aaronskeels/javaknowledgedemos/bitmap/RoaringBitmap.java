@@ -0,0 +1,422 @@
+package work.aaronskeels.javaknowledgedemos.bitmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of 32-bit ints, after Roaring bitmaps (Lemire et al.). HashSet&lt;Integer&gt;/TreeSet&lt;Integer&gt; pay ~40-50
+ * bytes per element; this pays ~2 bytes for sparse data, 1 bit for dense data and next to nothing for long runs of IDs.
+ *
+ * Values are split by their high 16 bits into up to 65536 containers, kept in a sorted char[] of keys next to a Container[]. Each
+ * container picks its own representation (sorted array, 8 KiB bitmap or run-length, see {@link Container}), so one set can be
+ * sparse in one region and dense in another. and/or/andNot walk both key arrays in step and combine matching containers.
+ *
+ * Values are treated as unsigned: iteration goes 0, 1, ..., Integer.MAX_VALUE, Integer.MIN_VALUE, ..., -1. Not thread-safe.
+ */
+public final class RoaringBitmap {
+    private static final int MAGIC = 0x524f4152; // "ROAR"
+
+    private char[] keys;
+    private Container[] containers;
+    private int size; // Number of containers
+
+    public RoaringBitmap() {
+        this(new char[4], new Container[4], 0);
+    }
+
+    private RoaringBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    private static char high(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    private int indexOf(char key) {
+        // Sequential appends (the common bulk-load case) hit the last container, so check it before binary searching
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    // ---- Point operations ----
+
+    public boolean contains(int value) {
+        int index = indexOf(high(value));
+        return index >= 0 && containers[index].contains(low(value));
+    }
+
+    /**
+     * @return true if the value was not already present
+     */
+    public boolean add(int value) {
+        char key = high(value);
+        int index = indexOf(key);
+        if (index >= 0) {
+            Container container = containers[index];
+            int before = container.cardinality();
+            containers[index] = container.add(low(value));
+            return containers[index].cardinality() != before;
+        }
+        insertContainerAt(-index - 1, key, new ArrayContainer().add(low(value)));
+        return true;
+    }
+
+    /**
+     * Adds every value in [from, toExclusive), treating both as unsigned 32-bit values (so toExclusive may be up to 2^32).
+     * Whole containers covered by the range become a 4 byte run.
+     */
+    public void addRange(long from, long toExclusive) {
+        if (from < 0 || toExclusive > 1L << 32 || from > toExclusive) {
+            throw new IllegalArgumentException("Invalid range: [" + from + ", " + toExclusive + ")");
+        }
+        if (from == toExclusive) {
+            return;
+        }
+        int firstKey = (int) (from >>> 16);
+        int lastKey = (int) ((toExclusive - 1) >>> 16);
+        for (int key = firstKey; key <= lastKey; key++) {
+            int start = key == firstKey ? (int) (from & 0xffff) : 0;
+            int end = key == lastKey ? (int) ((toExclusive - 1) & 0xffff) + 1 : Container.VALUES;
+            int index = indexOf((char) key);
+            if (index >= 0) {
+                containers[index] = containers[index].addRange(start, end);
+            } else {
+                insertContainerAt(-index - 1, (char) key, new ArrayContainer().addRange(start, end));
+            }
+        }
+    }
+
+    /**
+     * @return true if the value was present
+     */
+    public boolean remove(int value) {
+        int index = indexOf(high(value));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        container = container.remove(low(value));
+        if (container.cardinality() == 0) {
+            removeContainerAt(index);
+        } else {
+            containers[index] = container;
+        }
+        return container.cardinality() != before;
+    }
+
+    public void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    private void insertContainerAt(int index, char key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.min(Container.VALUES, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainerAt(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /** Appends during a sorted merge; keys arrive in increasing order. */
+    private void append(char key, Container container) {
+        if (container.cardinality() > 0) {
+            insertContainerAt(size, key, container);
+        }
+    }
+
+    // ---- Whole-set queries ----
+
+    /** Number of values; a long because a full bitmap holds 2^32. */
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @throws NoSuchElementException if empty
+     */
+    public int first() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0] << 16 | containers[0].iterator().next();
+    }
+
+    // ---- Set algebra ----
+
+    /** Values in both a and b. Neither input is modified. */
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            char keyA = a.keys[i];
+            char keyB = b.keys[j];
+            if (keyA < keyB) {
+                i++;
+            } else if (keyA > keyB) {
+                j++;
+            } else {
+                result.append(keyA, a.containers[i++].and(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /** Values in a or b (or both). Neither input is modified. */
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap(new char[Math.max(4, a.size + b.size)], new Container[Math.max(4, a.size + b.size)], 0);
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i++].copy());
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j++].copy());
+            } else {
+                result.append(a.keys[i], a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /** Values in a but not in b. Neither input is modified. */
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            char key = a.keys[i];
+            while (j < b.size && b.keys[j] < key) {
+                j++;
+            }
+            if (j < b.size && b.keys[j] == key) {
+                result.append(key, a.containers[i].andNot(b.containers[j]));
+            } else {
+                result.append(key, a.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /** |a AND b| without building the intersection (bitmap pairs are just popcounts). */
+    public static long andCardinality(RoaringBitmap a, RoaringBitmap b) {
+        long cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            char keyA = a.keys[i];
+            char keyB = b.keys[j];
+            if (keyA < keyB) {
+                i++;
+            } else if (keyA > keyB) {
+                j++;
+            } else {
+                Container left = a.containers[i++];
+                Container right = b.containers[j++];
+                if (left instanceof BitmapContainer x && right instanceof BitmapContainer y) {
+                    cardinality += x.andCardinality(y);
+                } else {
+                    cardinality += left.and(right).cardinality();
+                }
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Converts each container to run-length form where that is smaller (and back where it no longer is). Worth calling after bulk
+     * loading mostly-consecutive IDs.
+     *
+     * @return true if any container changed representation
+     */
+    public boolean runOptimize() {
+        boolean changed = false;
+        for (int i = 0; i < size; i++) {
+            Container optimized = containers[i].runOptimize();
+            changed |= optimized != containers[i];
+            containers[i] = optimized;
+        }
+        return changed;
+    }
+
+    // ---- Iteration ----
+
+    /** Ascending (unsigned) iteration with no boxing; use nextInt(). */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index;
+            private Container.CharIterator current = size > 0 ? containers[0].iterator() : null;
+
+            @Override
+            public boolean hasNext() {
+                while (current != null && !current.hasNext()) {
+                    current = ++index < size ? containers[index].iterator() : null;
+                }
+                return current != null;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return keys[index] << 16 | current.next();
+            }
+        };
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public int[] toArray() {
+        long cardinality = cardinality();
+        if (cardinality > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many values for an array: " + cardinality);
+        }
+        int[] values = new int[(int) cardinality];
+        int[] count = new int[1];
+        forEach(value -> values[count[0]++] = value);
+        return values;
+    }
+
+    // ---- Serialization ----
+
+    /** Exact size of {@link #writeTo(OutputStream)}'s output. */
+    public long serializedSizeInBytes() {
+        long bytes = 2 * Integer.BYTES;
+        for (int i = 0; i < size; i++) {
+            bytes += Character.BYTES + 1 + containers[i].serializedSizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes a compact binary form: a header, then per container its key, type and body (array: count + values; bitmap: 1024
+     * longs; run: count + pairs). Does not close "out".
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            data.writeChar(keys[i]);
+            data.writeByte(containers[i].type());
+            containers[i].writeBody(data);
+        }
+        data.flush();
+    }
+
+    public static RoaringBitmap readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a RoaringBitmap stream");
+        }
+        int size = data.readInt();
+        if (size < 0 || size > Container.VALUES) {
+            throw new IOException("Corrupt container count: " + size);
+        }
+        char[] keys = new char[Math.max(size, 4)];
+        Container[] containers = new Container[keys.length];
+        for (int i = 0; i < size; i++) {
+            keys[i] = data.readChar();
+            if (i > 0 && keys[i] <= keys[i - 1]) {
+                throw new IOException("Container keys out of order");
+            }
+            containers[i] = Container.read(data.readByte(), data);
+        }
+        return new RoaringBitmap(keys, containers, size);
+    }
+
+    // ---- Object ----
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RoaringBitmap other) || other.size != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != other.keys[i] || containers[i].cardinality() != other.containers[i].cardinality()) {
+                return false;
+            }
+            Container.CharIterator left = containers[i].iterator();
+            Container.CharIterator right = other.containers[i].iterator();
+            while (left.hasNext()) {
+                if (left.next() != right.next()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {1};
+        forEach(value -> hash[0] = 31 * hash[0] + value);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        PrimitiveIterator.OfInt iterator = iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (i == 100) {
+                builder.append(", ...");
+                break;
+            }
+            builder.append(i == 0 ? "" : ", ").append(Integer.toUnsignedString(iterator.nextInt()));
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,195 @@
+package work.aaronskeels.javaknowledgedemos.bitmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Run-length container: sorted, non-adjacent (start, length - 1) pairs packed into one char[]. 0..65535 is a single run of 4 bytes.
+ *
+ * Only created by runOptimize()/addRange() and deserialization. Point updates that change the content convert back to an array or
+ * bitmap container first, since editing runs in place is rarely worth it; call runOptimize() again after bulk changes.
+ */
+final class RunContainer extends Container {
+    private final char[] runs;
+    private final int runCount;
+
+    private RunContainer(char[] runs, int runCount) {
+        this.runs = runs;
+        this.runCount = runCount;
+    }
+
+    static int serializedSize(int runs) {
+        return 2 + 4 * runs;
+    }
+
+    static RunContainer full() {
+        return new RunContainer(new char[] {0, (char) (VALUES - 1)}, 1);
+    }
+
+    /** Builds the run form of "container", which has exactly "runs" runs. */
+    static RunContainer from(Container container, int runs) {
+        char[] pairs = new char[2 * runs];
+        int count = 0;
+        int start = -1;
+        int previous = -2;
+        CharIterator iterator = container.iterator();
+        while (iterator.hasNext()) {
+            int value = iterator.next();
+            if (value != previous + 1) {
+                if (start >= 0) {
+                    pairs[2 * count] = (char) start;
+                    pairs[2 * count + 1] = (char) (previous - start);
+                    count++;
+                }
+                start = value;
+            }
+            previous = value;
+        }
+        if (start >= 0) {
+            pairs[2 * count] = (char) start;
+            pairs[2 * count + 1] = (char) (previous - start);
+            count++;
+        }
+        return new RunContainer(pairs, count);
+    }
+
+    int runCount() {
+        return runCount;
+    }
+
+    int runStart(int index) {
+        return runs[2 * index];
+    }
+
+    int runLength(int index) {
+        return runs[2 * index + 1] + 1;
+    }
+
+    boolean isFull() {
+        return runCount == 1 && runs[0] == 0 && runs[1] == VALUES - 1;
+    }
+
+    @Override
+    boolean contains(char value) {
+        // Last run starting at or before "value"
+        int low = 0;
+        int high = runCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (runs[2 * mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && value - runs[2 * high] <= runs[2 * high + 1];
+    }
+
+    @Override
+    Container add(char value) {
+        return contains(value) ? this : toEfficientNonRun().add(value);
+    }
+
+    @Override
+    Container remove(char value) {
+        return contains(value) ? toEfficientNonRun().remove(value) : this;
+    }
+
+    @Override
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < runCount; i++) {
+            cardinality += runs[2 * i + 1] + 1;
+        }
+        return cardinality;
+    }
+
+    @Override
+    Container copy() {
+        // Never mutated in place, so sharing is safe
+        return this;
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        BitmapContainer bitmap = new BitmapContainer();
+        bitmap.orInPlace(this);
+        return bitmap;
+    }
+
+    Container toEfficientNonRun() {
+        return toBitmap().repair();
+    }
+
+    @Override
+    CharIterator iterator() {
+        return new CharIterator() {
+            private int run;
+            private int offset;
+
+            @Override
+            public boolean hasNext() {
+                return run < runCount;
+            }
+
+            @Override
+            public char next() {
+                if (run >= runCount) {
+                    throw new NoSuchElementException();
+                }
+                char value = (char) (runs[2 * run] + offset);
+                if (offset++ == runs[2 * run + 1]) {
+                    run++;
+                    offset = 0;
+                }
+                return value;
+            }
+        };
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+        for (int i = 0; i < runCount; i++) {
+            int start = high | runs[2 * i];
+            int end = start + runs[2 * i + 1];
+            for (int value = start; value <= end; value++) {
+                action.accept(value);
+            }
+        }
+    }
+
+    @Override
+    int numberOfRuns() {
+        return runCount;
+    }
+
+    @Override
+    byte type() {
+        return RUN;
+    }
+
+    @Override
+    int serializedSizeInBytes() {
+        return serializedSize(runCount);
+    }
+
+    @Override
+    void writeBody(DataOutputStream out) throws IOException {
+        out.writeShort(runCount);
+        for (int i = 0; i < 2 * runCount; i++) {
+            out.writeChar(runs[i]);
+        }
+    }
+
+    static RunContainer readBody(DataInputStream in) throws IOException {
+        int runCount = in.readUnsignedShort(); // At most 32768 (every other value set)
+        char[] runs = new char[2 * runCount];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = in.readChar();
+        }
+        return new RunContainer(runs, runCount);
+    }
+}
@@ -0,0 +1,615 @@
+package work.aaronskeels.javaknowledgedemos.btree;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * NavigableMap backed by a B+tree: a drop-in for TreeMap when you do a lot of range queries.
+ *
+ * TreeMap is a red-black tree with one node object per entry, so scanning a key range means chasing a pointer to a new (usually
+ * cold) cache line per entry. Here every node holds up to 64 keys in one array, all entries live in the leaves, and the leaves are
+ * linked to each other. A subMap()/headMap()/tailMap() scan is therefore one O(log n) descent followed by walking arrays in order,
+ * and point lookups touch ~log64 n nodes instead of ~log2 n.
+ *
+ * Not thread-safe (same as TreeMap). Views returned by subMap/headMap/tailMap/descendingMap/keySet are live and support removal.
+ * Entries handed out are immutable snapshots, so Entry.setValue() is not supported; use put().
+ */
+public class BPlusTreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    static final int LEAF_MAX = 64;
+    static final int INNER_MAX = 64;
+    private static final int LEAF_MIN = LEAF_MAX / 2;
+    private static final int INNER_MIN = INNER_MAX / 2;
+
+    abstract static class Node {
+        int size; // Number of keys
+    }
+
+    static final class Leaf extends Node {
+        final Object[] keys = new Object[LEAF_MAX + 1];
+        final Object[] values = new Object[LEAF_MAX + 1];
+        Leaf prev;
+        Leaf next;
+    }
+
+    static final class Inner extends Node {
+        final Object[] keys = new Object[INNER_MAX + 1];
+        final Node[] children = new Node[INNER_MAX + 2];
+    }
+
+    /** A (leaf, index) pair pointing at one entry. */
+    record Position(Leaf leaf, int index) {
+        Object key() {
+            return leaf.keys[index];
+        }
+
+        Position next() {
+            if (index + 1 < leaf.size) {
+                return new Position(leaf, index + 1);
+            }
+            return leaf.next == null ? null : new Position(leaf.next, 0);
+        }
+
+        Position prev() {
+            if (index > 0) {
+                return new Position(leaf, index - 1);
+            }
+            return leaf.prev == null ? null : new Position(leaf.prev, leaf.prev.size - 1);
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final BPlusTreeView<K, V> view;
+    private Node root;
+    private Leaf firstLeaf;
+    private Leaf lastLeaf;
+    private int size;
+    int modCount;
+
+    public BPlusTreeMap() {
+        this((Comparator<? super K>) null);
+    }
+
+    public BPlusTreeMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        this.view = new BPlusTreeView<>(this, true, null, true, true, null, true, false);
+    }
+
+    public BPlusTreeMap(Map<? extends K, ? extends V> map) {
+        this(map instanceof SortedMap<?, ?> sorted ? sortedComparator(sorted) : null);
+        putAll(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Comparator<? super K> sortedComparator(SortedMap<?, ?> map) {
+        return (Comparator<? super K>) map.comparator();
+    }
+
+    // ---- Core operations ----
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(Object key) {
+        Leaf leaf = findLeaf(key);
+        if (leaf == null) {
+            return null;
+        }
+        int index = search(leaf.keys, leaf.size, key);
+        @SuppressWarnings("unchecked")
+        V value = index >= 0 ? (V) leaf.values[index] : null;
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Leaf leaf = findLeaf(key);
+        return leaf != null && search(leaf.keys, leaf.size, key) >= 0;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null && comparator == null) {
+            throw new NullPointerException("Natural ordering does not permit null keys");
+        }
+        if (root == null) {
+            compare(key, key); // Type check, like TreeMap
+            Leaf leaf = new Leaf();
+            root = firstLeaf = lastLeaf = leaf;
+        }
+        Object[] previous = new Object[1];
+        Object[] split = insert(root, key, value, previous);
+        if (split != null) {
+            Inner newRoot = new Inner();
+            newRoot.keys[0] = split[0];
+            newRoot.children[0] = root;
+            newRoot.children[1] = (Node) split[1];
+            newRoot.size = 1;
+            root = newRoot;
+        }
+        @SuppressWarnings("unchecked")
+        V old = (V) previous[0];
+        return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Object[] removed = new Object[2]; // [found marker, old value]
+        delete(root, key, removed);
+        if (removed[0] == null) {
+            return null;
+        }
+        if (root instanceof Inner inner && inner.size == 0) {
+            root = inner.children[0];
+        } else if (root instanceof Leaf leaf && leaf.size == 0) {
+            root = firstLeaf = lastLeaf = null;
+        }
+        @SuppressWarnings("unchecked")
+        V old = (V) removed[1];
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        root = firstLeaf = lastLeaf = null;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    // ---- Insert ----
+
+    /**
+     * @return null, or {separator key, new right sibling} if "node" split
+     */
+    private Object[] insert(Node node, K key, V value, Object[] previous) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf.keys, leaf.size, key);
+            if (index >= 0) {
+                previous[0] = leaf.values[index];
+                leaf.values[index] = value;
+                return null;
+            }
+            index = -index - 1;
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+            System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.size - index);
+            leaf.keys[index] = key;
+            leaf.values[index] = value;
+            leaf.size++;
+            size++;
+            modCount++;
+            return leaf.size > LEAF_MAX ? splitLeaf(leaf) : null;
+        }
+        Inner inner = (Inner) node;
+        int childIndex = childIndex(inner, key);
+        Object[] split = insert(inner.children[childIndex], key, value, previous);
+        if (split == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, childIndex, inner.keys, childIndex + 1, inner.size - childIndex);
+        System.arraycopy(inner.children, childIndex + 1, inner.children, childIndex + 2, inner.size - childIndex);
+        inner.keys[childIndex] = split[0];
+        inner.children[childIndex + 1] = (Node) split[1];
+        inner.size++;
+        return inner.size > INNER_MAX ? splitInner(inner) : null;
+    }
+
+    private Object[] splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf();
+        int mid = leaf.size / 2;
+        right.size = leaf.size - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.size);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.size);
+        clear(leaf.keys, leaf.values, mid, leaf.size);
+        leaf.size = mid;
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        } else {
+            lastLeaf = right;
+        }
+        leaf.next = right;
+        return new Object[] {right.keys[0], right};
+    }
+
+    private static Object[] splitInner(Inner inner) {
+        Inner right = new Inner();
+        int mid = inner.size / 2;
+        Object separator = inner.keys[mid];
+        right.size = inner.size - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.size);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.size + 1);
+        for (int i = mid; i < inner.size; i++) {
+            inner.keys[i] = null;
+            inner.children[i + 1] = null;
+        }
+        inner.size = mid;
+        return new Object[] {separator, right};
+    }
+
+    // ---- Delete ----
+
+    private void delete(Node node, Object key, Object[] removed) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf.keys, leaf.size, key);
+            if (index < 0) {
+                return;
+            }
+            removed[0] = Boolean.TRUE;
+            removed[1] = leaf.values[index];
+            System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.size - index - 1);
+            System.arraycopy(leaf.values, index + 1, leaf.values, index, leaf.size - index - 1);
+            leaf.size--;
+            leaf.keys[leaf.size] = null;
+            leaf.values[leaf.size] = null;
+            size--;
+            modCount++;
+            return;
+        }
+        Inner inner = (Inner) node;
+        int childIndex = childIndex(inner, key);
+        Node child = inner.children[childIndex];
+        delete(child, key, removed);
+        if (removed[0] != null && child.size < (child instanceof Leaf ? LEAF_MIN : INNER_MIN)) {
+            rebalance(inner, childIndex);
+        }
+    }
+
+    /*
+     * Child "index" of "parent" dropped below half full: borrow one entry from a sibling that can spare it, otherwise merge with a
+     * sibling (which removes one separator from the parent, possibly making the parent underflow in turn).
+     */
+    private void rebalance(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node left = index > 0 ? parent.children[index - 1] : null;
+        Node right = index < parent.size ? parent.children[index + 1] : null;
+        if (child instanceof Leaf leaf) {
+            Leaf leftLeaf = (Leaf) left;
+            Leaf rightLeaf = (Leaf) right;
+            if (leftLeaf != null && leftLeaf.size > LEAF_MIN) {
+                System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.size);
+                System.arraycopy(leaf.values, 0, leaf.values, 1, leaf.size);
+                leftLeaf.size--;
+                leaf.keys[0] = leftLeaf.keys[leftLeaf.size];
+                leaf.values[0] = leftLeaf.values[leftLeaf.size];
+                leftLeaf.keys[leftLeaf.size] = null;
+                leftLeaf.values[leftLeaf.size] = null;
+                leaf.size++;
+                parent.keys[index - 1] = leaf.keys[0];
+            } else if (rightLeaf != null && rightLeaf.size > LEAF_MIN) {
+                leaf.keys[leaf.size] = rightLeaf.keys[0];
+                leaf.values[leaf.size] = rightLeaf.values[0];
+                leaf.size++;
+                rightLeaf.size--;
+                System.arraycopy(rightLeaf.keys, 1, rightLeaf.keys, 0, rightLeaf.size);
+                System.arraycopy(rightLeaf.values, 1, rightLeaf.values, 0, rightLeaf.size);
+                rightLeaf.keys[rightLeaf.size] = null;
+                rightLeaf.values[rightLeaf.size] = null;
+                parent.keys[index] = rightLeaf.keys[0];
+            } else if (leftLeaf != null) {
+                mergeLeaves(leftLeaf, leaf);
+                removeFromParent(parent, index - 1);
+            } else if (rightLeaf != null) {
+                mergeLeaves(leaf, rightLeaf);
+                removeFromParent(parent, index);
+            }
+            return;
+        }
+        Inner inner = (Inner) child;
+        Inner leftInner = (Inner) left;
+        Inner rightInner = (Inner) right;
+        if (leftInner != null && leftInner.size > INNER_MIN) {
+            System.arraycopy(inner.keys, 0, inner.keys, 1, inner.size);
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.size + 1);
+            inner.keys[0] = parent.keys[index - 1];
+            inner.children[0] = leftInner.children[leftInner.size];
+            parent.keys[index - 1] = leftInner.keys[leftInner.size - 1];
+            leftInner.keys[leftInner.size - 1] = null;
+            leftInner.children[leftInner.size] = null;
+            leftInner.size--;
+            inner.size++;
+        } else if (rightInner != null && rightInner.size > INNER_MIN) {
+            inner.keys[inner.size] = parent.keys[index];
+            inner.children[inner.size + 1] = rightInner.children[0];
+            inner.size++;
+            parent.keys[index] = rightInner.keys[0];
+            System.arraycopy(rightInner.keys, 1, rightInner.keys, 0, rightInner.size - 1);
+            System.arraycopy(rightInner.children, 1, rightInner.children, 0, rightInner.size);
+            rightInner.size--;
+            rightInner.keys[rightInner.size] = null;
+            rightInner.children[rightInner.size + 1] = null;
+        } else if (leftInner != null) {
+            mergeInners(leftInner, parent.keys[index - 1], inner);
+            removeFromParent(parent, index - 1);
+        } else if (rightInner != null) {
+            mergeInners(inner, parent.keys[index], rightInner);
+            removeFromParent(parent, index);
+        }
+    }
+
+    private void mergeLeaves(Leaf left, Leaf right) {
+        System.arraycopy(right.keys, 0, left.keys, left.size, right.size);
+        System.arraycopy(right.values, 0, left.values, left.size, right.size);
+        left.size += right.size;
+        left.next = right.next;
+        if (right.next != null) {
+            right.next.prev = left;
+        } else {
+            lastLeaf = left;
+        }
+        right.prev = right.next = null;
+        right.size = 0;
+    }
+
+    private static void mergeInners(Inner left, Object separator, Inner right) {
+        left.keys[left.size] = separator;
+        System.arraycopy(right.keys, 0, left.keys, left.size + 1, right.size);
+        System.arraycopy(right.children, 0, left.children, left.size + 1, right.size + 1);
+        left.size += 1 + right.size;
+    }
+
+    /** Removes separator "keyIndex" and the child to its right. */
+    private static void removeFromParent(Inner parent, int keyIndex) {
+        System.arraycopy(parent.keys, keyIndex + 1, parent.keys, keyIndex, parent.size - keyIndex - 1);
+        System.arraycopy(parent.children, keyIndex + 2, parent.children, keyIndex + 1, parent.size - keyIndex - 1);
+        parent.size--;
+        parent.keys[parent.size] = null;
+        parent.children[parent.size + 1] = null;
+    }
+
+    private static void clear(Object[] keys, Object[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            keys[i] = null;
+            values[i] = null;
+        }
+    }
+
+    // ---- Search ----
+
+    private Leaf findLeaf(Object key) {
+        Node node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node instanceof Inner inner) {
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    /** Separators are the smallest key of their right subtree, so go right of every separator <= key. */
+    private int childIndex(Inner inner, Object key) {
+        int low = 0;
+        int high = inner.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(inner.keys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /** Arrays.binarySearch contract: index if found, else -(insertion point) - 1. */
+    private int search(Object[] keys, int length, Object key) {
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(keys[mid], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    int compare(Object a, Object b) {
+        return comparator == null ? ((Comparable<Object>) a).compareTo(b) : comparator.compare((K) a, (K) b);
+    }
+
+    Position firstPosition() {
+        return firstLeaf == null || firstLeaf.size == 0 ? null : new Position(firstLeaf, 0);
+    }
+
+    Position lastPosition() {
+        return lastLeaf == null || lastLeaf.size == 0 ? null : new Position(lastLeaf, lastLeaf.size - 1);
+    }
+
+    /** Smallest entry >= key (or > key when !inclusive). */
+    Position ceilingPosition(Object key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        if (leaf == null) {
+            return null;
+        }
+        int index = search(leaf.keys, leaf.size, key);
+        index = index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+        if (index < leaf.size) {
+            return new Position(leaf, index);
+        }
+        return leaf.next == null ? null : new Position(leaf.next, 0);
+    }
+
+    /** Largest entry <= key (or < key when !inclusive). */
+    Position floorPosition(Object key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        if (leaf == null) {
+            return null;
+        }
+        int index = search(leaf.keys, leaf.size, key);
+        index = index >= 0 ? (inclusive ? index : index - 1) : -index - 2;
+        if (index >= 0) {
+            return new Position(leaf, index);
+        }
+        return leaf.prev == null ? null : new Position(leaf.prev, leaf.prev.size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    Entry<K, V> entryAt(Position position) {
+        return position == null ? null : new SimpleImmutableEntry<>((K) position.leaf.keys[position.index], (V) position.leaf.values[position.index]);
+    }
+
+    // ---- NavigableMap (the unbounded view does the work) ----
+
+    @Override
+    public Entry<K, V> firstEntry() {
+        return entryAt(firstPosition());
+    }
+
+    @Override
+    public Entry<K, V> lastEntry() {
+        return entryAt(lastPosition());
+    }
+
+    @Override
+    public K firstKey() {
+        return view.firstKey();
+    }
+
+    @Override
+    public K lastKey() {
+        return view.lastKey();
+    }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) {
+        return entryAt(floorPosition(key, false));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) {
+        return entryAt(floorPosition(key, true));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) {
+        return entryAt(ceilingPosition(key, true));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) {
+        return entryAt(ceilingPosition(key, false));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> pollFirstEntry() {
+        return view.pollFirstEntry();
+    }
+
+    @Override
+    public Entry<K, V> pollLastEntry() {
+        return view.pollLastEntry();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return view.entrySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return view.descendingMap();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return view.navigableKeySet();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return view.navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return view.descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return view.subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return view.headMap(toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return view.tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * Height of the tree (1 for a single leaf), for tests and curiosity.
+     */
+    int height() {
+        int height = 0;
+        for (Node node = root; node != null; node = node instanceof Inner inner ? inner.children[0] : null) {
+            height++;
+        }
+        return height;
+    }
+
+    static <K> K keyOrNull(Entry<K, ?> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+}
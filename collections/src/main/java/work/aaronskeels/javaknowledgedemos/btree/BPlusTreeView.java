@@ -0,0 +1,577 @@
+package work.aaronskeels.javaknowledgedemos.btree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import work.aaronskeels.javaknowledgedemos.btree.BPlusTreeMap.Position;
+
+/*
+ * A live, optionally bounded and optionally descending window onto a BPlusTreeMap. Serves as the map's own unbounded view as well as
+ * every subMap/headMap/tailMap/descendingMap, the same way TreeMap's NavigableSubMap does. All "abs" helpers work in ascending
+ * key order; the public methods swap them around when the view is descending.
+ */
+final class BPlusTreeView<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private final BPlusTreeMap<K, V> tree;
+    private final boolean fromStart;
+    private final Object low;
+    private final boolean lowInclusive;
+    private final boolean toEnd;
+    private final Object high;
+    private final boolean highInclusive;
+    private final boolean descending;
+
+    BPlusTreeView(BPlusTreeMap<K, V> tree, boolean fromStart, Object low, boolean lowInclusive, boolean toEnd, Object high, boolean highInclusive,
+            boolean descending) {
+        if (!fromStart && !toEnd && tree.compare(low, high) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        this.tree = tree;
+        this.fromStart = fromStart;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.toEnd = toEnd;
+        this.high = high;
+        this.highInclusive = highInclusive;
+        this.descending = descending;
+    }
+
+    // ---- Range checks ----
+
+    private boolean tooLow(Object key) {
+        if (fromStart) {
+            return false;
+        }
+        int cmp = tree.compare(key, low);
+        return cmp < 0 || (cmp == 0 && !lowInclusive);
+    }
+
+    private boolean tooHigh(Object key) {
+        if (toEnd) {
+            return false;
+        }
+        int cmp = tree.compare(key, high);
+        return cmp > 0 || (cmp == 0 && !highInclusive);
+    }
+
+    private boolean inRange(Object key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    private boolean inClosedRange(Object key) {
+        return (fromStart || tree.compare(key, low) >= 0) && (toEnd || tree.compare(high, key) >= 0);
+    }
+
+    private boolean inRange(Object key, boolean inclusive) {
+        return inclusive ? inRange(key) : inClosedRange(key);
+    }
+
+    // ---- Ascending-order navigation within the bounds ----
+
+    private Position absLowest() {
+        Position position = fromStart ? tree.firstPosition() : tree.ceilingPosition(low, lowInclusive);
+        return position == null || tooHigh(position.key()) ? null : position;
+    }
+
+    private Position absHighest() {
+        Position position = toEnd ? tree.lastPosition() : tree.floorPosition(high, highInclusive);
+        return position == null || tooLow(position.key()) ? null : position;
+    }
+
+    private Position absCeiling(Object key, boolean inclusive) {
+        if (tooLow(key)) {
+            return absLowest();
+        }
+        Position position = tree.ceilingPosition(key, inclusive);
+        return position == null || tooHigh(position.key()) ? null : position;
+    }
+
+    private Position absFloor(Object key, boolean inclusive) {
+        if (tooHigh(key)) {
+            return absHighest();
+        }
+        Position position = tree.floorPosition(key, inclusive);
+        return position == null || tooLow(position.key()) ? null : position;
+    }
+
+    // ---- Map ----
+
+    @Override
+    public V get(Object key) {
+        return inRange(key) ? tree.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return inRange(key) && tree.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (!inRange(key)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        return tree.put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return inRange(key) ? tree.remove(key) : null;
+    }
+
+    @Override
+    public int size() {
+        if (fromStart && toEnd) {
+            return tree.size();
+        }
+        int count = 0;
+        for (Iterator<Entry<K, V>> iterator = entryIterator(); iterator.hasNext(); iterator.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return absLowest() == null;
+    }
+
+    @Override
+    public void clear() {
+        if (fromStart && toEnd) {
+            tree.clear();
+        } else {
+            super.clear();
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return entryIterator();
+            }
+
+            @Override
+            public int size() {
+                return BPlusTreeView.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry<?, ?> entry) || !containsKey(entry.getKey())) {
+                    return false;
+                }
+                return Objects.equals(get(entry.getKey()), entry.getValue());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (contains(o)) {
+                    BPlusTreeView.this.remove(((Entry<?, ?>) o).getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ---- NavigableMap ----
+
+    @Override
+    public Comparator<? super K> comparator() {
+        Comparator<? super K> comparator = tree.comparator();
+        if (!descending) {
+            return comparator;
+        }
+        return comparator == null ? reverseNatural() : Collections.reverseOrder(comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Comparator<K> reverseNatural() {
+        return (Comparator<K>) Collections.reverseOrder();
+    }
+
+    @Override
+    public Entry<K, V> firstEntry() {
+        return tree.entryAt(descending ? absHighest() : absLowest());
+    }
+
+    @Override
+    public Entry<K, V> lastEntry() {
+        return tree.entryAt(descending ? absLowest() : absHighest());
+    }
+
+    @Override
+    public K firstKey() {
+        return keyOrThrow(firstEntry());
+    }
+
+    @Override
+    public K lastKey() {
+        return keyOrThrow(lastEntry());
+    }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) {
+        return tree.entryAt(descending ? absCeiling(key, false) : absFloor(key, false));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return BPlusTreeMap.keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) {
+        return tree.entryAt(descending ? absCeiling(key, true) : absFloor(key, true));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return BPlusTreeMap.keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) {
+        return tree.entryAt(descending ? absFloor(key, true) : absCeiling(key, true));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return BPlusTreeMap.keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) {
+        return tree.entryAt(descending ? absFloor(key, false) : absCeiling(key, false));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return BPlusTreeMap.keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public Entry<K, V> pollFirstEntry() {
+        Entry<K, V> entry = firstEntry();
+        if (entry != null) {
+            tree.remove(entry.getKey());
+        }
+        return entry;
+    }
+
+    @Override
+    public Entry<K, V> pollLastEntry() {
+        Entry<K, V> entry = lastEntry();
+        if (entry != null) {
+            tree.remove(entry.getKey());
+        }
+        return entry;
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new BPlusTreeView<>(tree, fromStart, low, lowInclusive, toEnd, high, highInclusive, !descending);
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return new KeySet<>((BPlusTreeView<K, V>) descendingMap());
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (!inRange(fromKey, fromInclusive)) {
+            throw new IllegalArgumentException("fromKey out of range");
+        }
+        if (!inRange(toKey, toInclusive)) {
+            throw new IllegalArgumentException("toKey out of range");
+        }
+        if (descending) {
+            return new BPlusTreeView<>(tree, false, toKey, toInclusive, false, fromKey, fromInclusive, true);
+        }
+        return new BPlusTreeView<>(tree, false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        if (!inRange(toKey, inclusive)) {
+            throw new IllegalArgumentException("toKey out of range");
+        }
+        if (descending) {
+            return new BPlusTreeView<>(tree, false, toKey, inclusive, toEnd, high, highInclusive, true);
+        }
+        return new BPlusTreeView<>(tree, fromStart, low, lowInclusive, false, toKey, inclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        if (!inRange(fromKey, inclusive)) {
+            throw new IllegalArgumentException("fromKey out of range");
+        }
+        if (descending) {
+            return new BPlusTreeView<>(tree, fromStart, low, lowInclusive, false, fromKey, inclusive, true);
+        }
+        return new BPlusTreeView<>(tree, false, fromKey, inclusive, toEnd, high, highInclusive, false);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    // ---- Iteration ----
+
+    Iterator<Entry<K, V>> entryIterator() {
+        return new ViewIterator<>(this, descending ? absHighest() : absLowest());
+    }
+
+    /*
+     * Walks the linked leaves directly. After remove() the tree may have been rebalanced under us, so the iterator re-seeks its
+     * next position by key (one O(log n) descent) rather than trusting the old leaf/index.
+     */
+    private static final class ViewIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final BPlusTreeView<K, V> view;
+        private Position next;
+        private Entry<K, V> lastReturned;
+        private int expectedModCount;
+
+        ViewIterator(BPlusTreeView<K, V> view, Position first) {
+            this.view = view;
+            this.next = first;
+            this.expectedModCount = view.tree.modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (view.tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = view.tree.entryAt(next);
+            Position following = view.descending ? next.prev() : next.next();
+            if (following != null && (view.descending ? view.tooLow(following.key()) : view.tooHigh(following.key()))) {
+                following = null;
+            }
+            next = following;
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (view.tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Object nextKey = next == null ? null : next.key();
+            view.tree.remove(lastReturned.getKey());
+            lastReturned = null;
+            expectedModCount = view.tree.modCount;
+            if (nextKey != null) {
+                next = view.descending ? view.tree.floorPosition(nextKey, true) : view.tree.ceilingPosition(nextKey, true);
+            }
+        }
+    }
+
+    private static <K> K keyOrThrow(Entry<K, ?> entry) {
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.getKey();
+    }
+
+    /*
+     * NavigableSet of a view's keys; every call forwards to the view.
+     */
+    static final class KeySet<K, V> extends AbstractSet<K> implements NavigableSet<K> {
+        private final BPlusTreeView<K, V> map;
+
+        KeySet(BPlusTreeView<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            Iterator<Entry<K, V>> entries = map.entryIterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return entries.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    entries.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            boolean present = map.containsKey(o);
+            map.remove(o);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            boolean changed = false;
+            for (Object o : c) {
+                changed |= remove(o);
+            }
+            return changed;
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public K first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public K lower(K e) {
+            return map.lowerKey(e);
+        }
+
+        @Override
+        public K floor(K e) {
+            return map.floorKey(e);
+        }
+
+        @Override
+        public K ceiling(K e) {
+            return map.ceilingKey(e);
+        }
+
+        @Override
+        public K higher(K e) {
+            return map.higherKey(e);
+        }
+
+        @Override
+        public K pollFirst() {
+            return BPlusTreeMap.keyOrNull(map.pollFirstEntry());
+        }
+
+        @Override
+        public K pollLast() {
+            return BPlusTreeMap.keyOrNull(map.pollLastEntry());
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return map.descendingKeySet();
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return map.subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return map.headMap(toElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return map.tailMap(fromElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
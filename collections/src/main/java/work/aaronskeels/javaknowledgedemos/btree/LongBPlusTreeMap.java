@@ -0,0 +1,451 @@
+package work.aaronskeels.javaknowledgedemos.btree;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import work.aaronskeels.javaknowledgedemos.primitive.LongObjConsumer;
+
+/**
+ * TreeMap&lt;Long, V&gt; equivalent built on the same B+tree as {@link BPlusTreeMap}, but with keys stored unboxed in long[] node
+ * arrays. Key comparisons are plain long compares on a contiguous array (no Long.compareTo() through a pointer per probe), and a
+ * range scan via {@link #forEachInRange(long, long, LongObjConsumer)} walks the linked leaves without allocating anything.
+ *
+ * Like LongObjectHashMap, null values are not allowed so get() returning null always means "absent". Not thread-safe.
+ */
+public class LongBPlusTreeMap<V> {
+    private static final int LEAF_MAX = BPlusTreeMap.LEAF_MAX;
+    private static final int INNER_MAX = BPlusTreeMap.INNER_MAX;
+    private static final int LEAF_MIN = LEAF_MAX / 2;
+    private static final int INNER_MIN = INNER_MAX / 2;
+
+    private abstract static class Node {
+        final long[] keys;
+        int size;
+
+        Node(int capacity) {
+            this.keys = new long[capacity];
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] values = new Object[LEAF_MAX + 1];
+        Leaf prev;
+        Leaf next;
+
+        Leaf() {
+            super(LEAF_MAX + 1);
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children = new Node[INNER_MAX + 2];
+
+        Inner() {
+            super(INNER_MAX + 1);
+        }
+    }
+
+    private Node root;
+    private Leaf firstLeaf;
+    private Leaf lastLeaf;
+    private int size;
+    /*
+     * Separator handed up by the most recent inner split. Leaf splits just use the right leaf's first key, but an inner split moves
+     * its middle key up and out of both halves, so it has to be carried separately.
+     */
+    private long pendingSeparator;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        Leaf leaf = findLeaf(key);
+        if (leaf == null) {
+            return defaultValue;
+        }
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        @SuppressWarnings("unchecked")
+        V value = index >= 0 ? (V) leaf.values[index] : defaultValue;
+        return value;
+    }
+
+    public boolean containsKey(long key) {
+        Leaf leaf = findLeaf(key);
+        return leaf != null && Arrays.binarySearch(leaf.keys, 0, leaf.size, key) >= 0;
+    }
+
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (root == null) {
+            root = firstLeaf = lastLeaf = new Leaf();
+        }
+        Object[] previous = new Object[1];
+        Node split = insert(root, key, value, previous);
+        if (split != null) {
+            Inner newRoot = new Inner();
+            newRoot.keys[0] = separatorOf(split);
+            newRoot.children[0] = root;
+            newRoot.children[1] = split;
+            newRoot.size = 1;
+            root = newRoot;
+        }
+        @SuppressWarnings("unchecked")
+        V old = (V) previous[0];
+        return old;
+    }
+
+    public V remove(long key) {
+        if (root == null) {
+            return null;
+        }
+        Object[] removed = new Object[1];
+        delete(root, key, removed);
+        if (root instanceof Inner inner && inner.size == 0) {
+            root = inner.children[0];
+        } else if (root instanceof Leaf leaf && leaf.size == 0) {
+            root = firstLeaf = lastLeaf = null;
+        }
+        @SuppressWarnings("unchecked")
+        V old = (V) removed[0];
+        return old;
+    }
+
+    public void clear() {
+        root = firstLeaf = lastLeaf = null;
+        size = 0;
+    }
+
+    /**
+     * @throws NoSuchElementException if the map is empty
+     */
+    public long firstKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return firstLeaf.keys[0];
+    }
+
+    /**
+     * @throws NoSuchElementException if the map is empty
+     */
+    public long lastKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return lastLeaf.keys[lastLeaf.size - 1];
+    }
+
+    /**
+     * @return the smallest key >= "key", or "defaultKey" if there is none
+     */
+    public long ceilingKey(long key, long defaultKey) {
+        Leaf leaf = findLeaf(key);
+        if (leaf == null) {
+            return defaultKey;
+        }
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        if (index < leaf.size) {
+            return leaf.keys[index];
+        }
+        return leaf.next == null ? defaultKey : leaf.next.keys[0];
+    }
+
+    /**
+     * @return the largest key <= "key", or "defaultKey" if there is none
+     */
+    public long floorKey(long key, long defaultKey) {
+        Leaf leaf = findLeaf(key);
+        if (leaf == null) {
+            return defaultKey;
+        }
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        if (index >= 0) {
+            return leaf.keys[index];
+        }
+        return leaf.prev == null ? defaultKey : leaf.prev.keys[leaf.prev.size - 1];
+    }
+
+    /**
+     * Visits every entry with fromInclusive <= key < toExclusive in ascending key order.
+     *
+     * @return number of entries visited
+     */
+    @SuppressWarnings("unchecked")
+    public int forEachInRange(long fromInclusive, long toExclusive, LongObjConsumer<? super V> action) {
+        Leaf leaf = findLeaf(fromInclusive);
+        if (leaf == null || fromInclusive >= toExclusive) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, fromInclusive);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        int visited = 0;
+        while (leaf != null) {
+            long[] keys = leaf.keys;
+            Object[] values = leaf.values;
+            for (int end = leaf.size; index < end; index++) {
+                if (keys[index] >= toExclusive) {
+                    return visited;
+                }
+                action.accept(keys[index], (V) values[index]);
+                visited++;
+            }
+            leaf = leaf.next;
+            index = 0;
+        }
+        return visited;
+    }
+
+    /** Visits every entry in ascending key order. */
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjConsumer<? super V> action) {
+        for (Leaf leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; i++) {
+                action.accept(leaf.keys[i], (V) leaf.values[i]);
+            }
+        }
+    }
+
+    // ---- Insert ----
+
+    private long separatorOf(Node split) {
+        return split instanceof Leaf leaf ? leaf.keys[0] : pendingSeparator;
+    }
+
+    /**
+     * @return null, or the new right sibling if "node" split (its separator is {@link #separatorOf(Node)})
+     */
+    private Node insert(Node node, long key, V value, Object[] previous) {
+        if (node instanceof Leaf leaf) {
+            int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+            if (index >= 0) {
+                previous[0] = leaf.values[index];
+                leaf.values[index] = value;
+                return null;
+            }
+            index = -index - 1;
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+            System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.size - index);
+            leaf.keys[index] = key;
+            leaf.values[index] = value;
+            leaf.size++;
+            size++;
+            return leaf.size > LEAF_MAX ? splitLeaf(leaf) : null;
+        }
+        Inner inner = (Inner) node;
+        int childIndex = childIndex(inner, key);
+        Node split = insert(inner.children[childIndex], key, value, previous);
+        if (split == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, childIndex, inner.keys, childIndex + 1, inner.size - childIndex);
+        System.arraycopy(inner.children, childIndex + 1, inner.children, childIndex + 2, inner.size - childIndex);
+        inner.keys[childIndex] = separatorOf(split);
+        inner.children[childIndex + 1] = split;
+        inner.size++;
+        return inner.size > INNER_MAX ? splitInner(inner) : null;
+    }
+
+    private Leaf splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf();
+        int mid = leaf.size / 2;
+        right.size = leaf.size - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.size);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.size);
+        Arrays.fill(leaf.values, mid, leaf.size, null);
+        leaf.size = mid;
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        } else {
+            lastLeaf = right;
+        }
+        leaf.next = right;
+        return right;
+    }
+
+    private Inner splitInner(Inner inner) {
+        Inner right = new Inner();
+        int mid = inner.size / 2;
+        pendingSeparator = inner.keys[mid];
+        right.size = inner.size - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.size);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.size + 1);
+        Arrays.fill(inner.children, mid + 1, inner.size + 1, null);
+        inner.size = mid;
+        return right;
+    }
+
+    // ---- Delete ----
+
+    private void delete(Node node, long key, Object[] removed) {
+        if (node instanceof Leaf leaf) {
+            int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+            if (index < 0) {
+                return;
+            }
+            removed[0] = leaf.values[index];
+            System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.size - index - 1);
+            System.arraycopy(leaf.values, index + 1, leaf.values, index, leaf.size - index - 1);
+            leaf.size--;
+            leaf.values[leaf.size] = null;
+            size--;
+            return;
+        }
+        Inner inner = (Inner) node;
+        int childIndex = childIndex(inner, key);
+        Node child = inner.children[childIndex];
+        delete(child, key, removed);
+        if (removed[0] != null && child.size < (child instanceof Leaf ? LEAF_MIN : INNER_MIN)) {
+            rebalance(inner, childIndex);
+        }
+    }
+
+    /* Same borrow-or-merge strategy as BPlusTreeMap.rebalance(). */
+    private void rebalance(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node left = index > 0 ? parent.children[index - 1] : null;
+        Node right = index < parent.size ? parent.children[index + 1] : null;
+        if (child instanceof Leaf leaf) {
+            Leaf leftLeaf = (Leaf) left;
+            Leaf rightLeaf = (Leaf) right;
+            if (leftLeaf != null && leftLeaf.size > LEAF_MIN) {
+                System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.size);
+                System.arraycopy(leaf.values, 0, leaf.values, 1, leaf.size);
+                leftLeaf.size--;
+                leaf.keys[0] = leftLeaf.keys[leftLeaf.size];
+                leaf.values[0] = leftLeaf.values[leftLeaf.size];
+                leftLeaf.values[leftLeaf.size] = null;
+                leaf.size++;
+                parent.keys[index - 1] = leaf.keys[0];
+            } else if (rightLeaf != null && rightLeaf.size > LEAF_MIN) {
+                leaf.keys[leaf.size] = rightLeaf.keys[0];
+                leaf.values[leaf.size] = rightLeaf.values[0];
+                leaf.size++;
+                rightLeaf.size--;
+                System.arraycopy(rightLeaf.keys, 1, rightLeaf.keys, 0, rightLeaf.size);
+                System.arraycopy(rightLeaf.values, 1, rightLeaf.values, 0, rightLeaf.size);
+                rightLeaf.values[rightLeaf.size] = null;
+                parent.keys[index] = rightLeaf.keys[0];
+            } else if (leftLeaf != null) {
+                mergeLeaves(leftLeaf, leaf);
+                removeFromParent(parent, index - 1);
+            } else if (rightLeaf != null) {
+                mergeLeaves(leaf, rightLeaf);
+                removeFromParent(parent, index);
+            }
+            return;
+        }
+        Inner inner = (Inner) child;
+        Inner leftInner = (Inner) left;
+        Inner rightInner = (Inner) right;
+        if (leftInner != null && leftInner.size > INNER_MIN) {
+            System.arraycopy(inner.keys, 0, inner.keys, 1, inner.size);
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.size + 1);
+            inner.keys[0] = parent.keys[index - 1];
+            inner.children[0] = leftInner.children[leftInner.size];
+            parent.keys[index - 1] = leftInner.keys[leftInner.size - 1];
+            leftInner.children[leftInner.size] = null;
+            leftInner.size--;
+            inner.size++;
+        } else if (rightInner != null && rightInner.size > INNER_MIN) {
+            inner.keys[inner.size] = parent.keys[index];
+            inner.children[inner.size + 1] = rightInner.children[0];
+            inner.size++;
+            parent.keys[index] = rightInner.keys[0];
+            System.arraycopy(rightInner.keys, 1, rightInner.keys, 0, rightInner.size - 1);
+            System.arraycopy(rightInner.children, 1, rightInner.children, 0, rightInner.size);
+            rightInner.size--;
+            rightInner.children[rightInner.size + 1] = null;
+        } else if (leftInner != null) {
+            mergeInners(leftInner, parent.keys[index - 1], inner);
+            removeFromParent(parent, index - 1);
+        } else if (rightInner != null) {
+            mergeInners(inner, parent.keys[index], rightInner);
+            removeFromParent(parent, index);
+        }
+    }
+
+    private void mergeLeaves(Leaf left, Leaf right) {
+        System.arraycopy(right.keys, 0, left.keys, left.size, right.size);
+        System.arraycopy(right.values, 0, left.values, left.size, right.size);
+        left.size += right.size;
+        left.next = right.next;
+        if (right.next != null) {
+            right.next.prev = left;
+        } else {
+            lastLeaf = left;
+        }
+        right.prev = right.next = null;
+        right.size = 0;
+    }
+
+    private static void mergeInners(Inner left, long separator, Inner right) {
+        left.keys[left.size] = separator;
+        System.arraycopy(right.keys, 0, left.keys, left.size + 1, right.size);
+        System.arraycopy(right.children, 0, left.children, left.size + 1, right.size + 1);
+        left.size += 1 + right.size;
+    }
+
+    private static void removeFromParent(Inner parent, int keyIndex) {
+        System.arraycopy(parent.keys, keyIndex + 1, parent.keys, keyIndex, parent.size - keyIndex - 1);
+        System.arraycopy(parent.children, keyIndex + 2, parent.children, keyIndex + 1, parent.size - keyIndex - 1);
+        parent.size--;
+        parent.children[parent.size + 1] = null;
+    }
+
+    // ---- Search ----
+
+    private Leaf findLeaf(long key) {
+        Node node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node instanceof Inner inner) {
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    /** Separators are the smallest key of their right subtree, so go right of every separator <= key. */
+    private static int childIndex(Inner inner, long key) {
+        long[] keys = inner.keys;
+        int low = 0;
+        int high = inner.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    int height() {
+        int height = 0;
+        for (Node node = root; node != null; node = node instanceof Inner inner ? inner.children[0] : null) {
+            height++;
+        }
+        return height;
+    }
+}
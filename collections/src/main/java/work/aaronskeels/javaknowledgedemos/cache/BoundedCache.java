@@ -0,0 +1,794 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import work.aaronskeels.javaknowledgedemos.queue.MpmcRingQueue;
+
+/**
+ * Bounded, thread-safe cache using the W-TinyLFU policy (the one Caffeine uses).
+ *
+ * Data lives in a ConcurrentHashMap so reads/writes never block each other. The eviction policy is NOT thread-safe and lives behind
+ * one lock, so instead of touching it on every operation:
+ * - Reads record the hit in a lossy {@link StripedReadBuffer}.
+ * - Writes enqueue an add/update/remove task on a bounded {@link MpmcRingQueue} (from the "queue" package) that is never lossy.
+ * Whoever next wins tryLock() on the eviction lock replays both buffers ("maintenance"). This is amortized onto caller threads.
+ *
+ * Policy: a small LRU "window" (1% of capacity) admits every new entry, and the rest is a segmented LRU (probation + protected).
+ * When the window overflows, its oldest entry becomes a candidate to enter the main space and must beat the main space's victim on
+ * estimated frequency ({@link FrequencySketch}). That keeps one-hit wonders from flushing popular entries, which plain LRU
+ * (LinkedHashMap in access order) can't do.
+ *
+ * Expiration is checked lazily on read (expired entries read as absent) and swept during maintenance.
+ * Create one via {@link #newBuilder()}.
+ */
+public class BoundedCache<K, V> {
+    static final int WRITE_BUFFER_CAPACITY = 1024;
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final double PROTECTED_PERCENT = 0.80;
+    private static final int ADMIT_HASHDOS_THRESHOLD = 5;
+
+    enum QueueType { WINDOW, PROBATION, PROTECTED }
+
+    /*
+     * One per entry. "value"/"weight"/times are written under the map's bin lock (compute) and read racily by get().
+     * Queue links, queueType and policyWeight are only touched under the eviction lock.
+     */
+    static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile boolean retired;
+
+        QueueType queueType;
+        int policyWeight;
+        boolean linked;
+        Node<K, V> prev;
+        Node<K, V> next;
+        Node<K, V> writePrev;
+        Node<K, V> writeNext;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /*
+     * Intrusive doubly linked list so moving a node to the back is O(1) with no allocation. The same class serves the three
+     * access-ordered LRU queues and the write-ordered queue used for expireAfterWrite, picking link fields by "writeOrder".
+     */
+    static final class NodeDeque<K, V> {
+        private final boolean writeOrder;
+        Node<K, V> first;
+        Node<K, V> last;
+
+        NodeDeque(boolean writeOrder) {
+            this.writeOrder = writeOrder;
+        }
+
+        void addLast(Node<K, V> node) {
+            setPrev(node, last);
+            setNext(node, null);
+            if (last == null) {
+                first = node;
+            } else {
+                setNext(last, node);
+            }
+            last = node;
+        }
+
+        void remove(Node<K, V> node) {
+            Node<K, V> prev = getPrev(node);
+            Node<K, V> next = getNext(node);
+            if (prev == null) {
+                if (first != node) {
+                    return; // Not in this deque
+                }
+                first = next;
+            } else {
+                setNext(prev, next);
+            }
+            if (next == null) {
+                last = prev;
+            } else {
+                setPrev(next, prev);
+            }
+            setPrev(node, null);
+            setNext(node, null);
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        private Node<K, V> getPrev(Node<K, V> node) {
+            return writeOrder ? node.writePrev : node.prev;
+        }
+
+        private Node<K, V> getNext(Node<K, V> node) {
+            return writeOrder ? node.writeNext : node.next;
+        }
+
+        private void setPrev(Node<K, V> node, Node<K, V> prev) {
+            if (writeOrder) {
+                node.writePrev = prev;
+            } else {
+                node.prev = prev;
+            }
+        }
+
+        private void setNext(Node<K, V> node, Node<K, V> next) {
+            if (writeOrder) {
+                node.writeNext = next;
+            } else {
+                node.next = next;
+            }
+        }
+    }
+
+    protected final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    protected final LongSupplier ticker;
+    protected final Executor executor;
+
+    private final long maximum;
+    private final Weigher<? super K, ? super V> weigher;
+    private final boolean weighted;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final StripedReadBuffer<Node<K, V>> readBuffer = new StripedReadBuffer<>();
+    private final MpmcRingQueue<Runnable> writeBuffer = new MpmcRingQueue<>(WRITE_BUFFER_CAPACITY);
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final NodeDeque<K, V> window = new NodeDeque<>(false);
+    private final NodeDeque<K, V> probation = new NodeDeque<>(false);
+    private final NodeDeque<K, V> protectedQueue = new NodeDeque<>(false);
+    private final NodeDeque<K, V> writeOrder = new NodeDeque<>(true);
+    private long weightedSize;
+    private long windowWeight;
+    private long protectedWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    BoundedCache(Builder<? super K, ? super V> builder) {
+        this.maximum = builder.maximum;
+        this.weigher = builder.weigher;
+        this.weighted = builder.weigher != null;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.ticker = builder.ticker;
+        this.executor = builder.executor;
+        this.windowMaximum = Math.max(1, (long) (maximum * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((maximum - windowMaximum) * PROTECTED_PERCENT);
+        if (!weighted) {
+            sketch.ensureCapacity(maximum);
+        }
+    }
+
+    public static Builder<Object, Object> newBuilder() {
+        return new Builder<>();
+    }
+
+    // ---- Public API ----
+
+    /**
+     * @return the cached value, or null if absent or expired
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(Objects.requireNonNull(key));
+        long now = ticker.getAsLong();
+        if (node == null || isExpired(node, now)) {
+            missCount.increment();
+            if (node != null) {
+                scheduleMaintenance();
+            }
+            return null;
+        }
+        V value = node.value;
+        hitCount.increment();
+        afterRead(node, now);
+        return value;
+    }
+
+    /**
+     * Returns the cached value, computing it with "mappingFunction" on a miss. Concurrent callers for the same key wait for one load
+     * rather than all hitting the backing store (the loader runs inside ConcurrentHashMap.compute, so keep it free of cache calls).
+     */
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return load(key, mappingFunction);
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        long now = ticker.getAsLong();
+        int weight = weigh(key, value);
+        Object[] replaced = new Object[1];
+        Node<K, V> node = data.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return new Node<>(k, value, weight, now);
+            }
+            if (isExpired(existing, now)) {
+                retire(existing);
+                replaced[0] = existing;
+                return new Node<>(k, value, weight, now);
+            }
+            existing.value = value;
+            existing.weight = weight;
+            existing.writeTime = now;
+            existing.accessTime = now;
+            replaced[0] = existing; // Marker meaning "updated in place" when it is the same node
+            return existing;
+        });
+        afterPut(node, replaced[0]);
+    }
+
+    public void invalidate(K key) {
+        Node<K, V>[] removed = newNodeHolder();
+        data.computeIfPresent(Objects.requireNonNull(key), (k, existing) -> {
+            retire(existing);
+            removed[0] = existing;
+            return null;
+        });
+        if (removed[0] != null) {
+            Node<K, V> node = removed[0];
+            afterWrite(() -> onRemove(node));
+        }
+    }
+
+    public void invalidateAll() {
+        for (K key : data.keySet()) {
+            invalidate(key);
+        }
+        cleanUp();
+    }
+
+    /**
+     * Number of mappings; may briefly include entries that are expired or about to be evicted.
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Sum of entry weights as of the last maintenance run (equals the entry count when no weigher was configured).
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Runs pending maintenance (buffer replay, expiration, eviction) on the calling thread right now.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTime.sum(),
+                evictionCount.sum(), evictionWeight.sum(), expirationCount.sum());
+    }
+
+    // ---- Loading (shared with LoadingBoundedCache) ----
+
+    V load(K key, Function<? super K, ? extends V> mappingFunction) {
+        Object[] replaced = new Object[1];
+        boolean[] loaded = new boolean[1];
+        Node<K, V> node = data.compute(key, (k, existing) -> {
+            long now = ticker.getAsLong();
+            if (existing != null && !isExpired(existing, now)) {
+                return existing; // Somebody else loaded it while we waited on the bin lock
+            }
+            V value = timedLoad(k, mappingFunction);
+            loaded[0] = true;
+            if (existing != null) {
+                retire(existing);
+                replaced[0] = existing;
+            }
+            return value == null ? null : new Node<>(k, value, weigh(k, value), ticker.getAsLong());
+        });
+        if (replaced[0] != null) {
+            @SuppressWarnings("unchecked")
+            Node<K, V> old = (Node<K, V>) replaced[0];
+            afterWrite(() -> onRemove(old));
+        }
+        if (node == null) {
+            return null;
+        }
+        if (loaded[0]) {
+            afterPut(node, null);
+        } else {
+            afterRead(node, ticker.getAsLong());
+        }
+        return node.value;
+    }
+
+    private V timedLoad(K key, Function<? super K, ? extends V> mappingFunction) {
+        long start = ticker.getAsLong();
+        try {
+            V value = mappingFunction.apply(key);
+            recordLoad(value != null, ticker.getAsLong() - start);
+            return value;
+        } catch (RuntimeException | Error e) {
+            recordLoad(false, ticker.getAsLong() - start);
+            throw e;
+        }
+    }
+
+    void recordLoad(boolean success, long nanos) {
+        (success ? loadSuccessCount : loadFailureCount).increment();
+        totalLoadTime.add(nanos);
+    }
+
+    /**
+     * Swaps in a refreshed value only if "expected" is still the live node for the key (otherwise the refresh lost a race
+     * with a put/invalidate and is dropped).
+     */
+    void replaceIfSame(Node<K, V> expected, V value) {
+        long now = ticker.getAsLong();
+        if (value == null) {
+            boolean[] removed = new boolean[1];
+            data.computeIfPresent(expected.key, (k, existing) -> {
+                if (existing != expected) {
+                    return existing;
+                }
+                retire(existing);
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                afterWrite(() -> onRemove(expected));
+            }
+            return;
+        }
+        int weight = weigh(expected.key, value);
+        boolean[] updated = new boolean[1];
+        data.computeIfPresent(expected.key, (k, existing) -> {
+            if (existing == expected) {
+                existing.value = value;
+                existing.weight = weight;
+                existing.writeTime = now;
+                updated[0] = true;
+            }
+            return existing;
+        });
+        if (updated[0]) {
+            afterWrite(() -> onUpdate(expected));
+        }
+    }
+
+    // ---- Hooks into the policy ----
+
+    private void afterPut(Node<K, V> node, Object replaced) {
+        if (replaced == node) {
+            afterWrite(() -> onUpdate(node));
+        } else {
+            if (replaced != null) {
+                @SuppressWarnings("unchecked")
+                Node<K, V> old = (Node<K, V>) replaced;
+                afterWrite(() -> onRemove(old));
+            }
+            afterWrite(() -> onAdd(node));
+        }
+    }
+
+    void afterRead(Node<K, V> node, long now) {
+        if (expireAfterAccessNanos > 0) {
+            node.accessTime = now;
+        }
+        if (readBuffer.offer(node)) {
+            tryMaintenance();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        for (int attempt = 0; !writeBuffer.offer(task); attempt++) {
+            // Buffer full: writers are outpacing maintenance, so help out (blocking) rather than drop a task
+            cleanUp();
+            if (attempt > 0) {
+                Thread.yield();
+            }
+        }
+        scheduleMaintenance();
+    }
+
+    private void scheduleMaintenance() {
+        tryMaintenance();
+    }
+
+    private void tryMaintenance() {
+        // Loop so a task enqueued while we held the lock (whose owner then failed tryLock) isn't stranded
+        while (evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            if (writeBuffer.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    // ---- Everything below runs under evictionLock ----
+
+    private void maintenance() {
+        readBuffer.drainTo(this::onAccess);
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+        if (weighted) {
+            sketch.ensureCapacity(data.mappingCount());
+        }
+        expireEntries();
+        evictEntries();
+    }
+
+    private void onAdd(Node<K, V> node) {
+        if (node.retired || node.linked) {
+            return; // Removed (or re-added) before the add was replayed
+        }
+        node.linked = true;
+        node.queueType = QueueType.WINDOW;
+        node.policyWeight = node.weight;
+        weightedSize += node.policyWeight;
+        windowWeight += node.policyWeight;
+        window.addLast(node);
+        writeOrder.addLast(node);
+        sketch.increment(node.key);
+    }
+
+    private void onUpdate(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        int delta = node.weight - node.policyWeight;
+        node.policyWeight = node.weight;
+        weightedSize += delta;
+        if (node.queueType == QueueType.WINDOW) {
+            windowWeight += delta;
+        } else if (node.queueType == QueueType.PROTECTED) {
+            protectedWeight += delta;
+        }
+        writeOrder.moveToBack(node);
+        onAccess(node);
+    }
+
+    private void onRemove(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        unlink(node);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.queueType) {
+            case WINDOW -> window.moveToBack(node);
+            case PROBATION -> {
+                // Second hit while on probation: promote, and demote protected's LRU entries if that overflows it
+                probation.remove(node);
+                node.queueType = QueueType.PROTECTED;
+                protectedQueue.addLast(node);
+                protectedWeight += node.policyWeight;
+                while (protectedWeight > protectedMaximum && protectedQueue.first != null && protectedQueue.first != node) {
+                    Node<K, V> demoted = protectedQueue.first;
+                    protectedQueue.remove(demoted);
+                    protectedWeight -= demoted.policyWeight;
+                    demoted.queueType = QueueType.PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+            case PROTECTED -> protectedQueue.moveToBack(node);
+        }
+    }
+
+    private void expireEntries() {
+        long now = ticker.getAsLong();
+        if (expireAfterWriteNanos > 0) {
+            while (writeOrder.first != null && now - writeOrder.first.writeTime >= expireAfterWriteNanos) {
+                if (!expire(writeOrder.first)) {
+                    break;
+                }
+            }
+        }
+        if (expireAfterAccessNanos > 0) {
+            // Each LRU queue is in access order, so only its head can be the next to expire
+            for (NodeDeque<K, V> queue : List.of(window, probation, protectedQueue)) {
+                while (queue.first != null && now - queue.first.accessTime >= expireAfterAccessNanos) {
+                    if (!expire(queue.first)) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the node is still live (refreshed by a write we haven't replayed yet), so the sweep should stop here
+     */
+    private boolean expire(Node<K, V> node) {
+        long now = ticker.getAsLong();
+        if (removeFromMap(node, current -> isExpired(current, now))) {
+            expirationCount.increment();
+        }
+        return !node.linked;
+    }
+
+    private void evictEntries() {
+        // Step 1: window overflow turns the window's oldest entries into candidates at the back of probation
+        int candidates = 0;
+        while (windowWeight > windowMaximum && window.first != null) {
+            Node<K, V> node = window.first;
+            window.remove(node);
+            windowWeight -= node.policyWeight;
+            node.queueType = QueueType.PROBATION;
+            probation.addLast(node);
+            candidates++;
+        }
+        // Step 2: while over budget, candidates (newest end of probation) duel victims (oldest end of probation)
+        while (weightedSize > maximum) {
+            Node<K, V> victim = probation.first;
+            Node<K, V> candidate = candidates > 0 ? probation.last : null;
+            if (victim == null) {
+                victim = protectedQueue.first != null ? protectedQueue.first : window.first;
+                if (victim == null) {
+                    break;
+                }
+            }
+            if (candidate == null || candidate == victim) {
+                if (candidate == victim) {
+                    candidates--;
+                }
+                evict(victim);
+            } else if (admit(candidate.key, victim.key)) {
+                evict(victim);
+            } else {
+                candidates--;
+                evict(candidate);
+            }
+        }
+    }
+
+    /*
+     * TinyLFU admission. Ties go to the incumbent. Past a small frequency, a candidate that loses still gets in 1/128 of the time,
+     * so an attacker can't pin the victim by hammering keys that collide with it in the sketch.
+     */
+    private boolean admit(K candidateKey, K victimKey) {
+        int candidateFrequency = sketch.frequency(candidateKey);
+        int victimFrequency = sketch.frequency(victimKey);
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        }
+        if (candidateFrequency <= ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextInt(128) == 0;
+    }
+
+    private void evict(Node<K, V> node) {
+        int weight = node.policyWeight;
+        if (removeFromMap(node, current -> true)) {
+            evictionCount.increment();
+            evictionWeight.add(weight);
+        } else {
+            unlink(node); // Already gone from the map; just drop it from the policy
+        }
+    }
+
+    /**
+     * Removes "node" from the map if it is still the live mapping and "condition" holds, and from the policy either way it is retired.
+     */
+    private boolean removeFromMap(Node<K, V> node, Predicate<Node<K, V>> condition) {
+        boolean[] removed = new boolean[1];
+        data.computeIfPresent(node.key, (k, current) -> {
+            if (current == node && condition.test(current)) {
+                retire(current);
+                removed[0] = true;
+                return null;
+            }
+            return current;
+        });
+        if (removed[0] || node.retired) {
+            unlink(node);
+        }
+        return removed[0];
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        node.linked = false;
+        switch (node.queueType) {
+            case WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.policyWeight;
+            }
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> {
+                protectedQueue.remove(node);
+                protectedWeight -= node.policyWeight;
+            }
+        }
+        writeOrder.remove(node);
+        weightedSize -= node.policyWeight;
+    }
+
+    // ---- Helpers ----
+
+    boolean isExpired(Node<K, V> node, long now) {
+        return (expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    private static void retire(Node<?, ?> node) {
+        node.retired = true;
+    }
+
+    private int weigh(K key, V value) {
+        if (!weighted) {
+            return 1;
+        }
+        @SuppressWarnings("unchecked")
+        Weigher<K, V> typed = (Weigher<K, V>) weigher;
+        int weight = typed.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weigher returned a negative weight: " + weight);
+        }
+        return weight;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] newNodeHolder() {
+        return (Node<K, V>[]) new Node<?, ?>[1];
+    }
+
+    /**
+     * Settings for {@link BoundedCache}/{@link LoadingBoundedCache}. One of maximumSize/maximumWeight is required.
+     */
+    public static final class Builder<K, V> {
+        private long maximum = -1;
+        private Weigher<? super K, ? super V> weigher;
+        private long expireAfterWriteNanos;
+        private long expireAfterAccessNanos;
+        private long refreshAfterWriteNanos;
+        private LongSupplier ticker = System::nanoTime;
+        private Executor executor = ForkJoinPool.commonPool();
+
+        private Builder() {
+        }
+
+        public Builder<K, V> maximumSize(long maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("maximumSize must be >= 0: " + maximumSize);
+            }
+            if (weigher != null) {
+                throw new IllegalStateException("maximumSize cannot be combined with a weigher");
+            }
+            this.maximum = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bounds the cache by total weight instead of entry count.
+         */
+        public <K1 extends K, V1 extends V> Builder<K1, V1> maximumWeight(long maximumWeight, Weigher<? super K1, ? super V1> weigher) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException("maximumWeight must be >= 0: " + maximumWeight);
+            }
+            @SuppressWarnings("unchecked")
+            Builder<K1, V1> self = (Builder<K1, V1>) this;
+            self.maximum = maximumWeight;
+            self.weigher = Objects.requireNonNull(weigher);
+            return self;
+        }
+
+        public Builder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteNanos = positiveNanos(duration, unit);
+            return this;
+        }
+
+        public Builder<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+            this.expireAfterAccessNanos = positiveNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Loading caches only: a read of an entry older than this returns the current value and triggers an async reload.
+         */
+        public Builder<K, V> refreshAfterWrite(long duration, TimeUnit unit) {
+            this.refreshAfterWriteNanos = positiveNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Time source in nanoseconds; swap in a fake one for tests.
+         */
+        public Builder<K, V> ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        /**
+         * Where async refreshes run. Defaults to the common ForkJoinPool.
+         */
+        public Builder<K, V> executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        public <K1 extends K, V1 extends V> BoundedCache<K1, V1> build() {
+            validate();
+            if (refreshAfterWriteNanos > 0) {
+                throw new IllegalStateException("refreshAfterWrite requires a loader; use build(CacheLoader)");
+            }
+            return new BoundedCache<>(this);
+        }
+
+        public <K1 extends K, V1 extends V> LoadingBoundedCache<K1, V1> build(CacheLoader<? super K1, V1> loader) {
+            validate();
+            return new LoadingBoundedCache<>(this, Objects.requireNonNull(loader), refreshAfterWriteNanos);
+        }
+
+        private void validate() {
+            if (maximum < 0) {
+                throw new IllegalStateException("maximumSize or maximumWeight is required");
+            }
+        }
+
+        private static long positiveNanos(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("duration must be > 0: " + duration);
+            }
+            return unit.toNanos(duration);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Computes values for a {@link LoadingBoundedCache}. Returning null means "no value", and nothing gets cached.
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+    V load(K key) throws Exception;
+
+    /**
+     * Used by refresh(). Defaults to running load() on the cache's executor; override when the backing store
+     * has a cheaper "has this changed since oldValue?" call.
+     */
+    default CompletableFuture<V> asyncReload(K key, V oldValue, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(key);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,50 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+/**
+ * Immutable point-in-time snapshot of a {@link BoundedCache}'s counters. Subtract two snapshots with {@link #minus(CacheStats)}
+ * to get the numbers for an interval (which is what a metrics exporter would publish).
+ */
+public record CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTimeNanos,
+        long evictionCount, long evictionWeight, long expirationCount) {
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 1.0 when there were no requests, same convention as Guava/Caffeine.
+     */
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public double missRate() {
+        long requests = requestCount();
+        return requests == 0 ? 0.0 : (double) missCount / requests;
+    }
+
+    public long loadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * Mean nanoseconds spent per load (including failed ones).
+     */
+    public double averageLoadPenalty() {
+        long loads = loadCount();
+        return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+    }
+
+    public CacheStats minus(CacheStats other) {
+        return new CacheStats(
+                Math.max(0, hitCount - other.hitCount),
+                Math.max(0, missCount - other.missCount),
+                Math.max(0, loadSuccessCount - other.loadSuccessCount),
+                Math.max(0, loadFailureCount - other.loadFailureCount),
+                Math.max(0, totalLoadTimeNanos - other.totalLoadTimeNanos),
+                Math.max(0, evictionCount - other.evictionCount),
+                Math.max(0, evictionWeight - other.evictionWeight),
+                Math.max(0, expirationCount - other.expirationCount));
+    }
+}
@@ -0,0 +1,105 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+/**
+ * Count-min sketch of 4-bit counters used as TinyLFU's admission filter: "has the incoming key been asked for more often
+ * (recently) than the key we would evict for it?". Four counters per key are packed as 16 nibbles into each long, so
+ * tracking popularity costs ~8 bytes per cached entry rather than a counter object per key ever seen.
+ * 
+ * Counters saturate at 15 and every "sampleSize" increments all of them are halved, so old popularity decays (aging).
+ * Not thread-safe; the cache only touches it while holding its eviction lock.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private long[] table = new long[0];
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    /**
+     * Grows the sketch so it can track "maximumSize" keys with a low error rate. Growing discards the current counts.
+     */
+    void ensureCapacity(long maximumSize) {
+        int maximum = (int) Math.min(Math.max(maximumSize, 1), Integer.MAX_VALUE >>> 1);
+        if (table.length >= maximum) {
+            return;
+        }
+        table = new long[Math.max(1, Integer.highestOneBit(maximum - 1) << 1)];
+        tableMask = Math.max(0, table.length - 1);
+        sampleSize = (maximumSize == 0) ? 10 : (10 * maximum);
+        if (sampleSize <= 0) {
+            sampleSize = Integer.MAX_VALUE;
+        }
+        size = 0;
+    }
+
+    boolean isNotInitialized() {
+        return table.length == 0;
+    }
+
+    int frequency(Object e) {
+        if (isNotInitialized()) {
+            return 0;
+        }
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object e) {
+        if (isNotInitialized()) {
+            return;
+        }
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Halve every counter. Odd counters lose their low bit, which the size adjustment accounts for.
+     */
+    private void reset() {
+        int oddCount = 0;
+        for (int i = 0; i < table.length; i++) {
+            oddCount += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (oddCount >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
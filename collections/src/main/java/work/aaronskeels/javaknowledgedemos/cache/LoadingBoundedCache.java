@@ -0,0 +1,102 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link BoundedCache} that knows how to compute its own values.
+ * 
+ * With refreshAfterWrite configured, a read that finds an entry older than the refresh interval still returns the (stale) value
+ * immediately and kicks off an asynchronous reload on the cache's executor, so hot keys never make a caller wait on the backing
+ * store after the first load. At most one refresh per key is in flight at a time.
+ */
+public class LoadingBoundedCache<K, V> extends BoundedCache<K, V> {
+    private final CacheLoader<? super K, V> loader;
+    private final long refreshAfterWriteNanos;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> refreshes = new ConcurrentHashMap<>();
+
+    LoadingBoundedCache(Builder<? super K, ? super V> builder, CacheLoader<? super K, V> loader, long refreshAfterWriteNanos) {
+        super(builder);
+        this.loader = loader;
+        this.refreshAfterWriteNanos = refreshAfterWriteNanos;
+    }
+
+    /**
+     * Returns the cached value, loading it on a miss. Checked exceptions from the loader are wrapped in CompletionException.
+     */
+    public V get(K key) {
+        V value = getIfPresent(key);
+        return value != null ? value : load(key, this::loadUnchecked);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        V value = super.getIfPresent(key);
+        if (value != null && refreshAfterWriteNanos > 0) {
+            Node<K, V> node = data.get(key);
+            if (node != null && ticker.getAsLong() - node.writeTime >= refreshAfterWriteNanos) {
+                refresh(node);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Reloads "key" asynchronously; the current value (if any) keeps being served until the reload completes.
+     * If the key is absent this behaves like an async get(). A failed reload keeps the old value.
+     */
+    public CompletableFuture<V> refresh(K key) {
+        Node<K, V> node = data.get(Objects.requireNonNull(key));
+        if (node == null) {
+            return CompletableFuture.supplyAsync(() -> get(key), executor);
+        }
+        return refresh(node);
+    }
+
+    private CompletableFuture<V> refresh(Node<K, V> node) {
+        K key = node.key;
+        CompletableFuture<V> refresh = refreshes.get(key);
+        if (refresh != null) {
+            return refresh;
+        }
+        // Claim the key first and start the reload outside the map operation: a reload that completes right away (a
+        // same-thread executor, a failure) would otherwise call refreshes.remove() from inside computeIfAbsent()
+        CompletableFuture<V> claimed = new CompletableFuture<>();
+        refresh = refreshes.putIfAbsent(key, claimed);
+        if (refresh != null) {
+            return refresh;
+        }
+        long start = ticker.getAsLong();
+        CompletableFuture<V> reload;
+        try {
+            reload = loader.asyncReload(key, node.value, executor);
+        } catch (RuntimeException e) {
+            reload = CompletableFuture.failedFuture(e);
+        }
+        reload.whenComplete((value, failure) -> {
+            recordLoad(failure == null && value != null, ticker.getAsLong() - start);
+            if (failure == null) {
+                replaceIfSame(node, value);
+            }
+            refreshes.remove(key, claimed);
+            if (failure == null) {
+                claimed.complete(value);
+            } else {
+                claimed.completeExceptionally(failure);
+            }
+        });
+        return claimed;
+    }
+
+    private V loadUnchecked(K key) {
+        try {
+            return loader.load(key);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Where cache hits record "this entry was read" without taking the eviction lock. Each thread hashes to one of several small
+ * ring buffers (stripes) so readers rarely contend on the same counter. The buffers are lossy on purpose: if a stripe is full
+ * the read is simply dropped, since losing a few access-order hints costs far less hit ratio than making readers wait.
+ * A single drainer (whoever holds the eviction lock) replays them into the LRU queues and frequency sketch.
+ */
+final class StripedReadBuffer<E> {
+    static final int STRIPE_CAPACITY = 16;
+    private static final int STRIPE_MASK = STRIPE_CAPACITY - 1;
+    /** A random stripe hash per thread, fixed for its lifetime so a thread keeps to its stripe. */
+    private static final ThreadLocal<Integer> PROBE = ThreadLocal.withInitial(() -> ThreadLocalRandom.current().nextInt());
+
+    private final Stripe<E>[] stripes;
+    private final int stripeMask;
+
+    private static final class Stripe<E> {
+        final AtomicLong writeCounter = new AtomicLong();
+        final AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(STRIPE_CAPACITY);
+        long readCounter; // Only touched by the drainer
+        volatile long drainedUpTo;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    StripedReadBuffer() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        stripeMask = count - 1;
+    }
+
+    /**
+     * @return true if the stripe is (now) full and the caller should try to drain
+     */
+    boolean offer(E e) {
+        Stripe<E> stripe = stripes[probe() & stripeMask];
+        long head = stripe.writeCounter.get();
+        long size = head - stripe.drainedUpTo;
+        if (size >= STRIPE_CAPACITY) {
+            return true;
+        }
+        if (stripe.writeCounter.compareAndSet(head, head + 1)) {
+            stripe.slots.lazySet((int) (head & STRIPE_MASK), e);
+            return size + 1 >= STRIPE_CAPACITY;
+        }
+        return false; // Lost a race with another reader on this stripe: drop the hint
+    }
+
+    void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            long end = stripe.writeCounter.get();
+            long position = stripe.readCounter;
+            for (; position < end; position++) {
+                int index = (int) (position & STRIPE_MASK);
+                E e = stripe.slots.get(index);
+                if (e == null) {
+                    break; // Claimed but not written yet; pick it up next drain
+                }
+                stripe.slots.lazySet(index, null);
+                consumer.accept(e);
+            }
+            stripe.readCounter = position;
+            stripe.drainedUpTo = position;
+        }
+    }
+
+    private static int probe() {
+        return PROBE.get();
+    }
+}
@@ -0,0 +1,13 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+/**
+ * Relative cost of an entry for weight-based eviction (e.g. bytes). Must be >= 0 and must not change while the entry is cached.
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+    int weigh(K key, V value);
+
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
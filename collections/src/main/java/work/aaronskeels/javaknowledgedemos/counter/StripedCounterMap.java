@@ -0,0 +1,260 @@
+package work.aaronskeels.javaknowledgedemos.counter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent per-key event counter for very high update rates.
+ *
+ * ConcurrentHashMap&lt;K, AtomicLong&gt; (or merge(key, 1L, Long::sum)) makes every thread counting the same hot key CAS the same
+ * word, so the cache line ping-pongs between cores and the hottest key caps throughput. Here each key's counter is a LongAdder:
+ * it starts as one word and, once threads collide on it, stripes into cache-line-padded cells picked per thread, so a hot key
+ * scales with cores. Reads add up the cells, which is why they cost more than an AtomicLong read. Once a key exists, increments
+ * never touch the map's structure, only its counter.
+ *
+ * Modes:
+ * - {@link #unbounded()}: one counter per distinct key, ever. sum() is exact: it includes every increment that completed before
+ *   the call (increments still in flight may or may not be included).
+ * - {@link #heavyHitters(int)}: at most "capacity" keys, for unbounded key spaces (URLs, user ids, IPs). Uses the Space-Saving
+ *   algorithm (Metwally et al.): an unmonitored key replaces the monitored key with the smallest count and inherits that count
+ *   as its possible overestimate ("error"). Counts are then approximate, but any key seen more than total()/capacity times is
+ *   guaranteed to be monitored, and count - error &lt;= true count &lt;= count. Monitored keys keep the lock-free fast path; only
+ *   replacing a key takes a lock.
+ */
+public final class StripedCounterMap<K> {
+    /**
+     * A key's counted value. In heavy-hitter mode the true count is somewhere in [count - error, count]; error is always 0 in
+     * unbounded mode.
+     */
+    public record Count<K>(K key, long count, long error) {
+        public long guaranteedCount() {
+            return count - error;
+        }
+    }
+
+    private static final class Counter<K> {
+        final K key;
+        final LongAdder adder = new LongAdder();
+        final long error;
+        long recorded; // Heavy-hitter heap ordering, guarded by evictionLock; never above adder.sum()
+
+        Counter(K key, long floor) {
+            this.key = key;
+            this.error = floor;
+            this.recorded = floor;
+            if (floor > 0) {
+                adder.add(floor);
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<K, Counter<K>> counters = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private final int capacity;
+    // Heavy-hitter mode only
+    private final ReentrantLock evictionLock;
+    private final PriorityQueue<Counter<K>> smallest;
+
+    private StripedCounterMap(int capacity) {
+        this.capacity = capacity;
+        if (capacity == Integer.MAX_VALUE) {
+            this.evictionLock = null;
+            this.smallest = null;
+        } else {
+            this.evictionLock = new ReentrantLock();
+            this.smallest = new PriorityQueue<>(capacity, Comparator.comparingLong(counter -> counter.recorded));
+        }
+    }
+
+    /** Exact counts; one counter per distinct key. */
+    public static <K> StripedCounterMap<K> unbounded() {
+        return new StripedCounterMap<>(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Approximate counts with at most "capacity" keys tracked. A bigger capacity tightens the error (at most total()/capacity
+     * per key).
+     */
+    public static <K> StripedCounterMap<K> heavyHitters(int capacity) {
+        if (capacity <= 0 || capacity == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity must be > 0 and < Integer.MAX_VALUE: " + capacity);
+        }
+        return new StripedCounterMap<>(capacity);
+    }
+
+    public boolean isBounded() {
+        return smallest != null;
+    }
+
+    public void increment(K key) {
+        increment(key, 1);
+    }
+
+    /**
+     * Adds "delta" to the key's count.
+     *
+     * @throws IllegalArgumentException if delta is negative; these are frequency counts, and Space-Saving relies on counts
+     *                                  only growing
+     */
+    public void increment(K key, long delta) {
+        Objects.requireNonNull(key);
+        if (delta < 0) {
+            throw new IllegalArgumentException("delta must be >= 0: " + delta);
+        }
+        Counter<K> counter = counters.get(key);
+        if (counter == null) {
+            counter = smallest == null ? counters.computeIfAbsent(key, k -> new Counter<>(k, 0)) : monitor(key);
+        }
+        counter.adder.add(delta);
+        total.add(delta);
+    }
+
+    /*
+     * Space-Saving replacement. Heap entries are ordered by "recorded", a lower bound of each adder that is only refreshed when
+     * an entry reaches the top. If the top's recorded value is current it is the true minimum (every other adder is at least
+     * its own recorded value, which is at least the top's); otherwise refresh it, push it back and look again.
+     *
+     * An increment racing with the eviction of its own key can land on the evicted counter and be dropped. The evicted key is
+     * the least counted one, so this only nudges the inherited floor.
+     */
+    private Counter<K> monitor(K key) {
+        evictionLock.lock();
+        try {
+            Counter<K> counter = counters.get(key);
+            if (counter != null) {
+                return counter;
+            }
+            long floor = 0;
+            if (counters.size() >= capacity) {
+                Counter<K> minimum;
+                while (true) {
+                    minimum = smallest.poll();
+                    long current = minimum.adder.sum();
+                    if (current == minimum.recorded) {
+                        break;
+                    }
+                    minimum.recorded = current;
+                    smallest.add(minimum);
+                }
+                counters.remove(minimum.key, minimum);
+                floor = minimum.recorded;
+            }
+            counter = new Counter<>(key, floor);
+            counters.put(key, counter);
+            smallest.add(counter);
+            return counter;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * The key's count: exact in unbounded mode, an upper bound in heavy-hitter mode (see {@link #estimate}). 0 for keys never
+     * counted or no longer monitored.
+     */
+    public long sum(K key) {
+        Counter<K> counter = counters.get(key);
+        return counter == null ? 0 : counter.adder.sum();
+    }
+
+    /**
+     * The key's count with its error bound. For an unmonitored key in heavy-hitter mode the count is 0 but the true count may be
+     * up to the smallest monitored count, which is reported as the error.
+     */
+    public Count<K> estimate(K key) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            return new Count<>(key, counter.adder.sum(), counter.error);
+        }
+        return new Count<>(key, 0, smallest == null ? 0 : minimumCount());
+    }
+
+    private long minimumCount() {
+        if (counters.size() < capacity) {
+            return 0; // Nothing has been evicted yet, so an unmonitored key was never seen
+        }
+        long minimum = Long.MAX_VALUE;
+        for (Counter<K> counter : counters.values()) {
+            minimum = Math.min(minimum, counter.adder.sum());
+        }
+        return minimum == Long.MAX_VALUE ? 0 : minimum;
+    }
+
+    /** Sum of every delta ever added, including those of keys evicted in heavy-hitter mode. */
+    public long total() {
+        return total.sum();
+    }
+
+    /** Keys currently counted (at most capacity in heavy-hitter mode). */
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * The k largest counts, largest first, from a weakly consistent pass over all keys (O(n log k)). In heavy-hitter mode an
+     * entry is certainly among the true top k if its guaranteedCount() is at least the (k+1)th count.
+     */
+    public List<Count<K>> topK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be > 0: " + k);
+        }
+        PriorityQueue<Count<K>> top = new PriorityQueue<>(k + 1, Comparator.comparingLong(Count::count));
+        for (Counter<K> counter : counters.values()) {
+            long count = counter.adder.sum();
+            if (top.size() < k || count > top.peek().count()) {
+                top.add(new Count<>(counter.key, count, counter.error));
+                if (top.size() > k) {
+                    top.poll();
+                }
+            }
+        }
+        List<Count<K>> sorted = new ArrayList<>(top);
+        sorted.sort(Comparator.comparingLong(Count<K>::count).reversed());
+        return sorted;
+    }
+
+    /**
+     * Stops counting the key and returns its last count (0 if absent). Increments racing with the removal may be lost.
+     */
+    public long remove(K key) {
+        if (smallest == null) {
+            Counter<K> removed = counters.remove(key);
+            return removed == null ? 0 : removed.adder.sum();
+        }
+        evictionLock.lock();
+        try {
+            Counter<K> removed = counters.remove(key);
+            if (removed == null) {
+                return 0;
+            }
+            smallest.remove(removed);
+            return removed.adder.sum();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /** Forgets every key and resets total(). */
+    public void clear() {
+        if (evictionLock != null) {
+            evictionLock.lock();
+        }
+        try {
+            counters.clear();
+            if (smallest != null) {
+                smallest.clear();
+            }
+            total.reset();
+        } finally {
+            if (evictionLock != null) {
+                evictionLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package work.aaronskeels.javaknowledgedemos.filter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bloom filter where all k bits of a key fall inside one 512-bit block (= one 64 byte cache line), so put/mightContain cost a
+ * single cache miss instead of k of them. The price is a worse false positive rate than a classic Bloom filter of the same size
+ * (keys don't spread perfectly evenly over blocks), which create() compensates for by sizing against the blocked formula.
+ *
+ * Bits live in a plain long[] updated with VarHandle getAndBitwiseOr, so concurrent put() calls are lock-free and never lose a
+ * bit. Up to ~2^37 bits (16 GiB), i.e. billions of keys at typical rates. No deletion; see {@link CuckooFilter} for that.
+ */
+public final class BlockedBloomFilter implements MembershipFilter {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MAGIC = 0x424c4f4d; // "BLOM"
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / Long.SIZE;
+    private static final int MAX_HASHES = 16;
+    private static final int MAX_BLOCKS = Integer.MAX_VALUE / BLOCK_WORDS;
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+    private final double fpp;
+
+    private BlockedBloomFilter(long[] words, int hashes, double fpp) {
+        this.words = words;
+        this.blocks = words.length / BLOCK_WORDS;
+        this.hashes = hashes;
+        this.fpp = fpp;
+    }
+
+    /**
+     * @param expectedInsertions number of distinct keys the filter is sized for; inserting more raises the false positive rate
+     * @param fpp target false positive rate, in (0, 1)
+     */
+    public static BlockedBloomFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be > 0: " + expectedInsertions);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+        }
+        // Start from the classic optimum (m = -n ln(p) / ln(2)^2 bits) and grow until the blocked rate meets the target
+        double bitsPerKey = -Math.log(fpp) / (Math.log(2) * Math.log(2));
+        while (blockedFpp(bitsPerKey, hashesFor(bitsPerKey)) > fpp) {
+            bitsPerKey *= 1.02;
+        }
+        int hashes = hashesFor(bitsPerKey);
+        double bits = expectedInsertions * bitsPerKey;
+        long blocks = Math.max(1, (long) Math.ceil(bits / BLOCK_BITS));
+        if (blocks > MAX_BLOCKS) {
+            throw new IllegalArgumentException("Filter too large: " + expectedInsertions + " insertions at fpp " + fpp);
+        }
+        return new BlockedBloomFilter(new long[(int) blocks * BLOCK_WORDS], hashes, fpp);
+    }
+
+    /** k = (m / n) ln(2) hash functions. */
+    private static int hashesFor(double bitsPerKey) {
+        return (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    /*
+     * Expected false positive rate of a blocked filter: the number of keys landing in a block is Poisson distributed around
+     * BLOCK_BITS / bitsPerKey, and each block behaves like a small classic Bloom filter with that many keys. Overfull blocks
+     * dominate, which is why blocking needs more bits than the classic formula at low rates.
+     */
+    private static double blockedFpp(double bitsPerKey, int hashes) {
+        double mean = BLOCK_BITS / bitsPerKey;
+        double probability = Math.exp(-mean);
+        double fpp = 0;
+        for (int keys = 0; keys < mean + 20 * Math.sqrt(mean) + 20; keys++) {
+            if (keys > 0) {
+                probability *= mean / keys;
+            }
+            fpp += probability * Math.pow(1 - Math.exp(-(double) hashes * keys / BLOCK_BITS), hashes);
+        }
+        return fpp;
+    }
+
+    @Override
+    public boolean put(long key) {
+        long hash = FilterSupport.mix(key);
+        int base = blockOf(hash) * BLOCK_WORDS;
+        long probe = hash;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            probe = nextProbe(probe, i);
+            int bit = (int) probe & (BLOCK_BITS - 1);
+            int index = base + (bit >>> 6);
+            long mask = 1L << bit; // Shift uses the low 6 bits
+            if (((long) WORDS.getOpaque(words, index) & mask) == 0) {
+                WORDS.getAndBitwiseOr(words, index, mask);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean mightContain(long key) {
+        long hash = FilterSupport.mix(key);
+        int base = blockOf(hash) * BLOCK_WORDS;
+        long probe = hash;
+        for (int i = 0; i < hashes; i++) {
+            probe = nextProbe(probe, i);
+            int bit = (int) probe & (BLOCK_BITS - 1);
+            if (((long) WORDS.getOpaque(words, base + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Each bit position is 9 bits of a freshly mixed hash, and one 64-bit mix yields 7 of them before the next re-mix. Double
+     * hashing (a + i*b) looks cheaper, but within a 512-bit block its positions are correlated enough to roughly double the
+     * false positive rate at 0.1%.
+     */
+    private static long nextProbe(long probe, int i) {
+        return i % 7 == 0 ? FilterSupport.mix(probe + i) : probe >>> 9;
+    }
+
+    /** Maps the top 32 bits onto [0, blocks) with a multiply instead of a modulo. */
+    private int blockOf(long hash) {
+        return (int) (((hash >>> 32) * blocks) >>> 32);
+    }
+
+    /**
+     * ORs "other" into this filter, making it answer true for every key either filter saw. Both must have been created with the
+     * same expectedInsertions and fpp (same size and hash count). Safe to call while other threads put() into either filter.
+     */
+    public void union(BlockedBloomFilter other) {
+        if (other.words.length != words.length || other.hashes != hashes) {
+            throw new IllegalArgumentException("Filters are not compatible: " + this + " vs " + other);
+        }
+        for (int i = 0; i < words.length; i++) {
+            long bits = (long) WORDS.getOpaque(other.words, i);
+            if (bits != 0) {
+                WORDS.getAndBitwiseOr(words, i, bits);
+            }
+        }
+    }
+
+    /** Estimated number of distinct keys inserted, from the fraction of bits set (Swamidass & Baldi). */
+    public long approximateElementCount() {
+        long set = 0;
+        for (int i = 0; i < words.length; i++) {
+            set += Long.bitCount((long) WORDS.getOpaque(words, i));
+        }
+        double bits = bitSize();
+        return Math.round(-bits / hashes * Math.log1p(-set / bits));
+    }
+
+    public int hashFunctions() {
+        return hashes;
+    }
+
+    @Override
+    public long bitSize() {
+        return (long) words.length * Long.SIZE;
+    }
+
+    @Override
+    public double expectedFpp() {
+        return fpp;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(hashes);
+        data.writeDouble(fpp);
+        data.writeInt(words.length);
+        FilterSupport.writeLongs(data, words);
+        data.flush();
+    }
+
+    public static BlockedBloomFilter readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a BlockedBloomFilter stream");
+        }
+        int hashes = data.readInt();
+        double fpp = data.readDouble();
+        int length = data.readInt();
+        if (hashes < 1 || hashes > MAX_HASHES || length <= 0 || length % BLOCK_WORDS != 0) {
+            throw new IOException("Corrupt BlockedBloomFilter header");
+        }
+        long[] words = new long[length];
+        FilterSupport.readLongs(data, words);
+        return new BlockedBloomFilter(words, hashes, fpp);
+    }
+
+    @Override
+    public String toString() {
+        return "BlockedBloomFilter[bits=" + bitSize() + ", hashes=" + hashes + ", fpp=" + fpp + "]";
+    }
+}
@@ -0,0 +1,347 @@
+package work.aaronskeels.javaknowledgedemos.filter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Cuckoo filter (Fan et al.): stores a small fingerprint of each key in one of two candidate buckets. Unlike a Bloom filter it
+ * supports {@link #delete(long)}. It costs more memory per key here, mostly because the bucket count is rounded up to a power
+ * of two (anywhere from 1x to 2x what the fingerprints need).
+ *
+ * Each bucket is exactly one long of a long[], split into 64 / f fingerprint slots of f bits (e.g. 5 slots of 11 bits at 1%). So
+ * a lookup reads two longs, and adding or removing a fingerprint is a single CAS on one long.
+ *
+ * Concurrency: put() and delete() normally just CAS one bucket while holding a StampedLock read lock (shared, so they run in
+ * parallel). When both buckets are full, put() takes the write lock and relocates ("kicks") fingerprints between buckets; during
+ * that a fingerprint is briefly in neither bucket, so mightContain() reads optimistically and, only on a miss, re-checks under the
+ * read lock if a kick happened meanwhile. That keeps the no-false-negatives guarantee without locking the common path.
+ *
+ * Deleting a key that was never put() may remove another key's fingerprint (a false negative for that key), same as any
+ * cuckoo filter. Duplicate put()s of one key store duplicate fingerprints and need as many delete()s.
+ */
+public final class CuckooFilter implements MembershipFilter {
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MAGIC = 0x4355434b; // "CUCK"
+    private static final int MIN_FINGERPRINT_BITS = 4;
+    private static final int MAX_FINGERPRINT_BITS = 32;
+    private static final int MAX_BUCKETS = 1 << 30;
+    private static final int MAX_KICKS = 500;
+    private static final double LOAD_FACTOR = 0.95;
+
+    private final long[] buckets;
+    private final int bucketMask;
+    private final int fingerprintBits;
+    private final long fingerprintMask;
+    private final int slots;
+    private final double fpp;
+    private final LongAdder size = new LongAdder();
+    private final StampedLock kickLock = new StampedLock();
+
+    private CuckooFilter(long[] buckets, int fingerprintBits, double fpp) {
+        this.buckets = buckets;
+        this.bucketMask = buckets.length - 1;
+        this.fingerprintBits = fingerprintBits;
+        this.fingerprintMask = (1L << fingerprintBits) - 1;
+        this.slots = Long.SIZE / fingerprintBits;
+        this.fpp = fpp;
+    }
+
+    /**
+     * @param expectedInsertions number of keys the filter is sized for; put() starts failing somewhat above this
+     * @param fpp target false positive rate, in (0, 1)
+     */
+    public static CuckooFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be > 0: " + expectedInsertions);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+        }
+        // A lookup compares against 2 buckets * b slots, so fpp ~= 2b / 2^f. Fewer bits per fingerprint mean more slots per long
+        // (and more comparisons), so take the smallest f that still meets the target.
+        int bits = MIN_FINGERPRINT_BITS;
+        while (bits < MAX_FINGERPRINT_BITS && 2.0 * (Long.SIZE / bits) / Math.pow(2, bits) > fpp) {
+            bits++;
+        }
+        int slots = Long.SIZE / bits;
+        long needed = (long) Math.ceil(expectedInsertions / (slots * LOAD_FACTOR));
+        if (needed > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Filter too large: " + expectedInsertions + " insertions at fpp " + fpp);
+        }
+        int bucketCount = Math.max(2, Integer.highestOneBit((int) Math.max(1, needed - 1)) << 1);
+        return new CuckooFilter(new long[bucketCount], bits, fpp);
+    }
+
+    @Override
+    public boolean put(long key) {
+        long hash = FilterSupport.mix(key);
+        long fingerprint = fingerprintOf(hash);
+        int first = (int) hash & bucketMask;
+        int second = alternate(first, fingerprint);
+        long stamp = kickLock.readLock();
+        try {
+            if (tryAdd(first, fingerprint) || tryAdd(second, fingerprint)) {
+                size.increment();
+                return true;
+            }
+        } finally {
+            kickLock.unlockRead(stamp);
+        }
+        stamp = kickLock.writeLock();
+        try {
+            if (tryAdd(first, fingerprint) || tryAdd(second, fingerprint)
+                    || kick(ThreadLocalRandom.current().nextBoolean() ? first : second, fingerprint)) {
+                size.increment();
+                return true;
+            }
+            return false;
+        } finally {
+            kickLock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean mightContain(long key) {
+        long hash = FilterSupport.mix(key);
+        long fingerprint = fingerprintOf(hash);
+        int first = (int) hash & bucketMask;
+        int second = alternate(first, fingerprint);
+        long stamp = kickLock.tryOptimisticRead();
+        if (contains(first, fingerprint) || contains(second, fingerprint)) {
+            return true;
+        }
+        if (kickLock.validate(stamp)) {
+            return false;
+        }
+        stamp = kickLock.readLock();
+        try {
+            return contains(first, fingerprint) || contains(second, fingerprint);
+        } finally {
+            kickLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Removes one copy of the key's fingerprint. Only call this for keys that were actually put().
+     *
+     * @return false if no matching fingerprint was found
+     */
+    public boolean delete(long key) {
+        long hash = FilterSupport.mix(key);
+        long fingerprint = fingerprintOf(hash);
+        int first = (int) hash & bucketMask;
+        int second = alternate(first, fingerprint);
+        long stamp = kickLock.readLock();
+        try {
+            if (tryRemove(first, fingerprint) || tryRemove(second, fingerprint)) {
+                size.decrement();
+                return true;
+            }
+            return false;
+        } finally {
+            kickLock.unlockRead(stamp);
+        }
+    }
+
+    public boolean delete(byte[] key) {
+        return delete(FilterSupport.hash(key));
+    }
+
+    public boolean delete(CharSequence key) {
+        return delete(FilterSupport.hash(key));
+    }
+
+    /**
+     * Adds every fingerprint of "other" (created with the same expectedInsertions and fpp) to this filter. Fingerprints can be
+     * copied bucket for bucket because both filters derive bucket indexes the same way.
+     *
+     * @return false if this filter filled up part way through; the fingerprints merged so far stay merged
+     */
+    public boolean union(CuckooFilter other) {
+        if (other.buckets.length != buckets.length || other.fingerprintBits != fingerprintBits) {
+            throw new IllegalArgumentException("Filters are not compatible: " + this + " vs " + other);
+        }
+        for (int index = 0; index < other.buckets.length; index++) {
+            long bucket = (long) BUCKETS.getVolatile(other.buckets, index);
+            for (int slot = 0; slot < slots; slot++) {
+                long fingerprint = (bucket >>> (slot * fingerprintBits)) & fingerprintMask;
+                if (fingerprint != 0 && !putFingerprint(index, fingerprint)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean putFingerprint(int index, long fingerprint) {
+        int other = alternate(index, fingerprint);
+        long stamp = kickLock.writeLock();
+        try {
+            if (tryAdd(index, fingerprint) || tryAdd(other, fingerprint) || kick(index, fingerprint)) {
+                size.increment();
+                return true;
+            }
+            return false;
+        } finally {
+            kickLock.unlockWrite(stamp);
+        }
+    }
+
+    /** Number of fingerprints stored (put() calls that succeeded minus delete() calls that did). */
+    public long size() {
+        return size.sum();
+    }
+
+    /** Fraction of slots in use. put() failures become likely above ~0.95. */
+    public double loadFactor() {
+        return (double) size() / ((long) buckets.length * slots);
+    }
+
+    public int fingerprintBits() {
+        return fingerprintBits;
+    }
+
+    @Override
+    public long bitSize() {
+        return (long) buckets.length * Long.SIZE;
+    }
+
+    @Override
+    public double expectedFpp() {
+        return fpp;
+    }
+
+    // ---- Buckets ----
+
+    /** f bits from the top of the hash (the bucket index uses the bottom). 0 means "empty slot", so it is remapped. */
+    private long fingerprintOf(long hash) {
+        long fingerprint = (hash >>> (Long.SIZE - fingerprintBits)) & fingerprintMask;
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    /** Partial-key cuckoo hashing: i2 = i1 ^ h(fingerprint), which is its own inverse, so either bucket leads to the other. */
+    private int alternate(int index, long fingerprint) {
+        return (index ^ (int) FilterSupport.mix(fingerprint)) & bucketMask;
+    }
+
+    private boolean contains(int index, long fingerprint) {
+        long bucket = (long) BUCKETS.getVolatile(buckets, index);
+        for (int slot = 0; slot < slots; slot++, bucket >>>= fingerprintBits) {
+            if ((bucket & fingerprintMask) == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAdd(int index, long fingerprint) {
+        while (true) {
+            long bucket = (long) BUCKETS.getVolatile(buckets, index);
+            int slot = findSlot(bucket, 0);
+            if (slot < 0) {
+                return false;
+            }
+            int shift = slot * fingerprintBits;
+            if (BUCKETS.compareAndSet(buckets, index, bucket, bucket | (fingerprint << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private boolean tryRemove(int index, long fingerprint) {
+        while (true) {
+            long bucket = (long) BUCKETS.getVolatile(buckets, index);
+            int slot = findSlot(bucket, fingerprint);
+            if (slot < 0) {
+                return false;
+            }
+            int shift = slot * fingerprintBits;
+            if (BUCKETS.compareAndSet(buckets, index, bucket, bucket & ~(fingerprintMask << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private int findSlot(long bucket, long fingerprint) {
+        for (int slot = 0; slot < slots; slot++) {
+            if (((bucket >>> (slot * fingerprintBits)) & fingerprintMask) == fingerprint) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Must hold the write lock, which excludes every other writer, so plain read-modify-write of a bucket is safe (readers are
+     * optimistic and re-validate). Evicts a random victim, moves it to its alternate bucket, and repeats. If the chain gets too
+     * long the filter is effectively full: every swap is undone so the filter is exactly as it was, and put() reports failure.
+     */
+    private boolean kick(int index, long fingerprint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] pathIndex = new int[MAX_KICKS];
+        long[] pathBucket = new long[MAX_KICKS];
+        for (int kicks = 0; kicks < MAX_KICKS; kicks++) {
+            long bucket = (long) BUCKETS.getVolatile(buckets, index);
+            int shift = random.nextInt(slots) * fingerprintBits;
+            long victim = (bucket >>> shift) & fingerprintMask;
+            pathIndex[kicks] = index;
+            pathBucket[kicks] = bucket;
+            BUCKETS.setVolatile(buckets, index, (bucket & ~(fingerprintMask << shift)) | (fingerprint << shift));
+            fingerprint = victim;
+            index = alternate(index, fingerprint);
+            if (tryAdd(index, fingerprint)) {
+                return true;
+            }
+        }
+        for (int kicks = MAX_KICKS - 1; kicks >= 0; kicks--) {
+            BUCKETS.setVolatile(buckets, pathIndex[kicks], pathBucket[kicks]);
+        }
+        return false;
+    }
+
+    // ---- Serialization ----
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(fingerprintBits);
+        data.writeDouble(fpp);
+        data.writeInt(buckets.length);
+        data.writeLong(size());
+        FilterSupport.writeLongs(data, buckets);
+        data.flush();
+    }
+
+    public static CuckooFilter readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a CuckooFilter stream");
+        }
+        int fingerprintBits = data.readInt();
+        double fpp = data.readDouble();
+        int length = data.readInt();
+        long size = data.readLong();
+        if (fingerprintBits < MIN_FINGERPRINT_BITS || fingerprintBits > MAX_FINGERPRINT_BITS || length < 2 || Integer.bitCount(length) != 1) {
+            throw new IOException("Corrupt CuckooFilter header");
+        }
+        long[] buckets = new long[length];
+        FilterSupport.readLongs(data, buckets);
+        CuckooFilter filter = new CuckooFilter(buckets, fingerprintBits, fpp);
+        filter.size.add(size);
+        return filter;
+    }
+
+    @Override
+    public String toString() {
+        return "CuckooFilter[buckets=" + buckets.length + ", fingerprintBits=" + fingerprintBits + ", slots=" + slots + ", fpp=" + fpp + "]";
+    }
+}
@@ -0,0 +1,66 @@
+package work.aaronskeels.javaknowledgedemos.filter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Hashing and stream helpers shared by the filters.
+ */
+final class FilterSupport {
+    private static final int IO_CHUNK_LONGS = 1024;
+
+    private FilterSupport() {
+    }
+
+    /** MurmurHash3's 64-bit finalizer: a bijection, so distinct long keys stay distinct, with good avalanche. */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** FNV-1a over the bytes, then mixed. Not cryptographic; don't use filters keyed by attacker-chosen input. */
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    static long hash(CharSequence chars) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, length = chars.length(); i < length; i++) {
+            h ^= chars.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /** Writes the array in chunks rather than one writeLong() call per word. */
+    static void writeLongs(DataOutputStream out, long[] words) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(IO_CHUNK_LONGS * Long.BYTES);
+        for (int i = 0; i < words.length; i += IO_CHUNK_LONGS) {
+            int count = Math.min(IO_CHUNK_LONGS, words.length - i);
+            chunk.clear();
+            chunk.asLongBuffer().put(words, i, count);
+            out.write(chunk.array(), 0, count * Long.BYTES);
+        }
+    }
+
+    static void readLongs(DataInputStream in, long[] words) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(IO_CHUNK_LONGS * Long.BYTES);
+        for (int i = 0; i < words.length; i += IO_CHUNK_LONGS) {
+            int count = Math.min(IO_CHUNK_LONGS, words.length - i);
+            in.readFully(chunk.array(), 0, count * Long.BYTES);
+            chunk.clear();
+            chunk.asLongBuffer().get(words, i, count);
+        }
+    }
+}
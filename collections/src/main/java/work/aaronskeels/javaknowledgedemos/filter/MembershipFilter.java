@@ -0,0 +1,49 @@
+package work.aaronskeels.javaknowledgedemos.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Approximate set membership: mightContain() can return a false positive (at roughly {@link #expectedFpp()}) but never a false
+ * negative. Meant to sit in front of something expensive (a database, a disk read, a huge HashSet) to answer "definitely not
+ * present" in a few nanoseconds and a handful of bits per element.
+ *
+ * Keys are 64-bit values; byte[] and CharSequence keys are hashed to 64 bits first. put() and mightContain() are thread-safe.
+ */
+public interface MembershipFilter {
+    /**
+     * @return true if the filter changed (a Bloom filter returns false if every bit was already set; a cuckoo filter returns false
+     *         if it is too full to take the key)
+     */
+    boolean put(long key);
+
+    boolean mightContain(long key);
+
+    default boolean put(byte[] key) {
+        return put(FilterSupport.hash(key));
+    }
+
+    default boolean mightContain(byte[] key) {
+        return mightContain(FilterSupport.hash(key));
+    }
+
+    default boolean put(CharSequence key) {
+        return put(FilterSupport.hash(key));
+    }
+
+    default boolean mightContain(CharSequence key) {
+        return mightContain(FilterSupport.hash(key));
+    }
+
+    /** Size of the underlying bit array. Divide by the number of insertions for bits per element. */
+    long bitSize();
+
+    /** False positive rate the filter was sized for. */
+    double expectedFpp();
+
+    /**
+     * Writes the filter in a compact binary form readable by the implementation's static readFrom(InputStream). Does not close
+     * "out". Concurrent puts during the write may or may not be included.
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,763 @@
+package work.aaronskeels.javaknowledgedemos.footprint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Stack;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import work.aaronskeels.javaknowledgedemos.bitmap.RoaringBitmap;
+import work.aaronskeels.javaknowledgedemos.btree.BPlusTreeMap;
+import work.aaronskeels.javaknowledgedemos.btree.LongBPlusTreeMap;
+import work.aaronskeels.javaknowledgedemos.list.ChunkedList;
+import work.aaronskeels.javaknowledgedemos.offheap.OffHeapHashMap;
+import work.aaronskeels.javaknowledgedemos.persistent.AtomicPersistentMap;
+import work.aaronskeels.javaknowledgedemos.persistent.AtomicPersistentSet;
+import work.aaronskeels.javaknowledgedemos.primitive.IntArrayList;
+import work.aaronskeels.javaknowledgedemos.primitive.IntHashSet;
+import work.aaronskeels.javaknowledgedemos.primitive.IntIntHashMap;
+import work.aaronskeels.javaknowledgedemos.primitive.LongArrayList;
+import work.aaronskeels.javaknowledgedemos.primitive.LongObjectHashMap;
+import work.aaronskeels.javaknowledgedemos.queue.MpmcRingQueue;
+import work.aaronskeels.javaknowledgedemos.queue.SpscRingQueue;
+import work.aaronskeels.javaknowledgedemos.timer.HierarchicalTimingWheel;
+import work.aaronskeels.javaknowledgedemos.timer.TimingWheelDelayQueue;
+
+/**
+ * Every concrete collection named in App's exemplifyList/Queue/Set/Map notes, behind a {@link CollectionHandle} so they can all be
+ * measured the same way (FootprintReport for retained bytes, CollectionCatalogBenchmark for throughput).
+ *
+ * Not included: interfaces (NavigableSet, BlockingQueue, ...), SynchronousQueue (never holds an element), BoundedCache (evicts, so
+ * it never reaches a given size) and the Bloom/cuckoo filters (can't iterate; MembershipFilterBenchmark covers their footprint).
+ * Boxed collections hold the shared {@link Elements} Integers and maps map each element to itself, so every candidate retains one
+ * Integer per element, same as a real program that keeps its keys alive.
+ */
+public final class CollectionCatalog {
+    public enum Category {
+        LIST, QUEUE, SET, MAP
+    }
+
+    @FunctionalInterface
+    public interface Factory {
+        /**
+         * @param capacity the most elements the handle will hold; only bounded collections use it
+         */
+        CollectionHandle create(Elements elements, int capacity);
+    }
+
+    /**
+     * @param threadSafe whether it can be shared by several threads without external locking
+     * @param maxSize    largest size worth measuring; copy-on-write types are O(n^2) to fill
+     */
+    public record Candidate(String name, Category category, boolean threadSafe, int maxSize, Factory factory) {
+        public CollectionHandle create(Elements elements, int capacity) {
+            return factory.create(elements, capacity);
+        }
+    }
+
+    private static final int COPY_ON_WRITE_MAX = 10_000;
+    private static final List<Candidate> CANDIDATES = List.of(
+            // exemplifyList
+            new Candidate("ArrayList", Category.LIST, false, Integer.MAX_VALUE, (e, c) -> new ListHandle(new ArrayList<>(), e)),
+            new Candidate("LinkedList", Category.LIST, false, Integer.MAX_VALUE, (e, c) -> new ListHandle(new LinkedList<>(), e)),
+            new Candidate("ChunkedList", Category.LIST, false, Integer.MAX_VALUE, (e, c) -> new ListHandle(new ChunkedList<>(), e)),
+            new Candidate("Stack", Category.LIST, false, Integer.MAX_VALUE, (e, c) -> new ListHandle(new Stack<>(), e)),
+            new Candidate("SynchronizedList", Category.LIST, true, Integer.MAX_VALUE,
+                    (e, c) -> new ListHandle(Collections.synchronizedList(new ArrayList<>()), e)),
+            new Candidate("CopyOnWriteArrayList", Category.LIST, true, COPY_ON_WRITE_MAX,
+                    (e, c) -> new ListHandle(new CopyOnWriteArrayList<>(), e)),
+            new Candidate("IntArrayList", Category.LIST, false, Integer.MAX_VALUE, (e, c) -> new IntArrayListHandle(e)),
+            new Candidate("LongArrayList", Category.LIST, false, Integer.MAX_VALUE, (e, c) -> new LongArrayListHandle(e)),
+            // exemplifyQueue
+            new Candidate("ArrayDeque", Category.QUEUE, false, Integer.MAX_VALUE, (e, c) -> new QueueHandle(new ArrayDeque<>(), e)),
+            new Candidate("PriorityQueue", Category.QUEUE, false, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new PriorityQueue<>(), e)),
+            new Candidate("ArrayBlockingQueue", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new ArrayBlockingQueue<>(Math.max(1, c)), e)),
+            new Candidate("LinkedBlockingDeque", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new LinkedBlockingDeque<>(), e)),
+            new Candidate("ConcurrentLinkedDeque", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new ConcurrentLinkedDeque<>(), e)),
+            new Candidate("ConcurrentLinkedQueue", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new ConcurrentLinkedQueue<>(), e)),
+            new Candidate("DelayQueue", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new DelayQueueHandle(new DelayQueue<>(), e, null)),
+            new Candidate("LinkedBlockingQueue", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new LinkedBlockingQueue<>(), e)),
+            new Candidate("LinkedTransferQueue", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new LinkedTransferQueue<>(), e)),
+            new Candidate("PriorityBlockingQueue", Category.QUEUE, true, Integer.MAX_VALUE,
+                    (e, c) -> new QueueHandle(new PriorityBlockingQueue<>(), e)),
+            new Candidate("MpmcRingQueue", Category.QUEUE, true, 1 << 29,
+                    (e, c) -> new QueueHandle(new MpmcRingQueue<>(Math.max(2, c)), e)),
+            new Candidate("SpscRingQueue", Category.QUEUE, false, 1 << 29,
+                    (e, c) -> new QueueHandle(new SpscRingQueue<>(Math.max(2, c)), e)),
+            new Candidate("TimingWheelDelayQueue", Category.QUEUE, true, Integer.MAX_VALUE, (e, c) -> {
+                HierarchicalTimingWheel wheel = HierarchicalTimingWheel.newBuilder().tickDuration(1, TimeUnit.MILLISECONDS).build();
+                return new DelayQueueHandle(new TimingWheelDelayQueue<>(wheel), e, wheel);
+            }),
+            // exemplifySet
+            new Candidate("HashSet", Category.SET, false, Integer.MAX_VALUE, (e, c) -> new SetHandle(new HashSet<>(), e)),
+            new Candidate("LinkedHashSet", Category.SET, false, Integer.MAX_VALUE, (e, c) -> new SetHandle(new LinkedHashSet<>(), e)),
+            new Candidate("TreeSet", Category.SET, false, Integer.MAX_VALUE, (e, c) -> new SetHandle(new TreeSet<>(), e)),
+            new Candidate("SynchronizedSet", Category.SET, true, Integer.MAX_VALUE,
+                    (e, c) -> new SetHandle(Collections.synchronizedSet(new HashSet<>()), e)),
+            new Candidate("SynchronizedSortedSet", Category.SET, true, Integer.MAX_VALUE,
+                    (e, c) -> new SetHandle(Collections.synchronizedSortedSet(new TreeSet<>()), e)),
+            new Candidate("ConcurrentSkipListSet", Category.SET, true, Integer.MAX_VALUE,
+                    (e, c) -> new SetHandle(new ConcurrentSkipListSet<>(), e)),
+            new Candidate("CopyOnWriteArraySet", Category.SET, true, COPY_ON_WRITE_MAX,
+                    (e, c) -> new SetHandle(new CopyOnWriteArraySet<>(), e)),
+            new Candidate("AtomicPersistentSet", Category.SET, true, Integer.MAX_VALUE,
+                    (e, c) -> new SetHandle(new AtomicPersistentSet<>(), e)),
+            new Candidate("IntHashSet", Category.SET, false, Integer.MAX_VALUE, (e, c) -> new IntHashSetHandle(e)),
+            new Candidate("RoaringBitmap", Category.SET, false, Integer.MAX_VALUE, (e, c) -> new RoaringBitmapHandle(e)),
+            // exemplifyMap
+            new Candidate("HashMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new MapHandle(new HashMap<>(), e)),
+            new Candidate("IdentityHashMap", Category.MAP, false, Integer.MAX_VALUE,
+                    (e, c) -> new MapHandle(new IdentityHashMap<>(), e)),
+            new Candidate("LinkedHashMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new MapHandle(new LinkedHashMap<>(), e)),
+            new Candidate("TreeMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new MapHandle(new TreeMap<>(), e)),
+            new Candidate("SynchronizedMap", Category.MAP, true, Integer.MAX_VALUE,
+                    (e, c) -> new MapHandle(Collections.synchronizedMap(new HashMap<>()), e)),
+            new Candidate("SynchronizedSortedMap", Category.MAP, true, Integer.MAX_VALUE,
+                    (e, c) -> new MapHandle(Collections.synchronizedSortedMap(new TreeMap<>()), e)),
+            new Candidate("ConcurrentHashMap", Category.MAP, true, Integer.MAX_VALUE,
+                    (e, c) -> new MapHandle(new ConcurrentHashMap<>(), e)),
+            new Candidate("Hashtable", Category.MAP, true, Integer.MAX_VALUE, (e, c) -> new MapHandle(new Hashtable<>(), e)),
+            new Candidate("IntIntHashMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new IntIntHashMapHandle(e)),
+            new Candidate("LongObjectHashMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new LongObjectHashMapHandle(e)),
+            new Candidate("OffHeapHashMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new OffHeapHashMapHandle(e, c)),
+            new Candidate("AtomicPersistentMap", Category.MAP, true, Integer.MAX_VALUE,
+                    (e, c) -> new MapHandle(new AtomicPersistentMap<>(), e)),
+            new Candidate("BPlusTreeMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new MapHandle(new BPlusTreeMap<>(), e)),
+            new Candidate("LongBPlusTreeMap", Category.MAP, false, Integer.MAX_VALUE, (e, c) -> new LongBPlusTreeMapHandle(e)));
+
+    private CollectionCatalog() {
+    }
+
+    public static List<Candidate> all() {
+        return CANDIDATES;
+    }
+
+    public static Candidate named(String name) {
+        for (Candidate candidate : CANDIDATES) {
+            if (candidate.name().equals(name)) {
+                return candidate;
+            }
+        }
+        throw new NoSuchElementException("No candidate named " + name);
+    }
+
+    // ---- Handles ----
+
+    private static final class ListHandle implements CollectionHandle {
+        private final List<Integer> list;
+        private final Elements elements;
+
+        ListHandle(List<Integer> list, Elements elements) {
+            this.list = list;
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            list.add(elements.boxed(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return list.get(i) == elements.boxed(i);
+        }
+
+        /** remove(Object): a scan from the front, which is what removing a specific element from a List costs. */
+        @Override
+        public boolean remove(int i) {
+            return list.remove(elements.boxed(i));
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (Integer element : list) {
+                sum += element;
+            }
+            return sum;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public Object root() {
+            return list;
+        }
+    }
+
+    private static final class QueueHandle implements CollectionHandle {
+        private final Queue<Integer> queue;
+        private final Elements elements;
+
+        QueueHandle(Queue<Integer> queue, Elements elements) {
+            this.queue = queue;
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            if (!queue.offer(elements.boxed(i))) {
+                throw new IllegalStateException("Queue is full: " + queue.size());
+            }
+        }
+
+        @Override
+        public boolean get(int i) {
+            return queue.peek() != null;
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return queue.poll() != null;
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (Integer element : queue) {
+                sum += element;
+            }
+            return sum;
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        @Override
+        public Object root() {
+            return queue;
+        }
+    }
+
+    /**
+     * Delay queues only hand out expired elements (TimingWheelDelayQueue doesn't even peek() at unexpired ones), so get(i) and
+     * remove(i) look up element i by equals() instead: the cancel-a-timeout pattern.
+     */
+    private static final class DelayQueueHandle implements CollectionHandle {
+        private final Queue<Elements.Expiry> queue;
+        private final Elements.Expiry[] expiries;
+        private final HierarchicalTimingWheel wheel;
+
+        DelayQueueHandle(Queue<Elements.Expiry> queue, Elements elements, HierarchicalTimingWheel wheel) {
+            this.queue = queue;
+            this.expiries = elements.expiries();
+            this.wheel = wheel;
+        }
+
+        @Override
+        public void add(int i) {
+            queue.offer(expiries[i]);
+        }
+
+        @Override
+        public boolean get(int i) {
+            return queue.contains(expiries[i]);
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return queue.remove(expiries[i]);
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (Elements.Expiry element : queue) {
+                sum += element.value();
+            }
+            return sum;
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        @Override
+        public Object root() {
+            return queue;
+        }
+
+        @Override
+        public void close() {
+            if (wheel != null) {
+                wheel.close();
+            }
+        }
+    }
+
+    private static final class SetHandle implements CollectionHandle {
+        private final Set<Integer> set;
+        private final Elements elements;
+
+        SetHandle(Set<Integer> set, Elements elements) {
+            this.set = set;
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            set.add(elements.boxed(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return set.contains(elements.boxed(i));
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return set.remove(elements.boxed(i));
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (Integer element : set) {
+                sum += element;
+            }
+            return sum;
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+
+        @Override
+        public Object root() {
+            return set;
+        }
+    }
+
+    private static final class MapHandle implements CollectionHandle {
+        private final Map<Integer, Integer> map;
+        private final Elements elements;
+
+        MapHandle(Map<Integer, Integer> map, Elements elements) {
+            this.map = map;
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            Integer element = elements.boxed(i);
+            map.put(element, element);
+        }
+
+        @Override
+        public boolean get(int i) {
+            return map.get(elements.boxed(i)) != null;
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return map.remove(elements.boxed(i)) != null;
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+                sum += entry.getKey() ^ entry.getValue();
+            }
+            return sum;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Object root() {
+            return map;
+        }
+    }
+
+    private static final class IntArrayListHandle implements CollectionHandle {
+        private final IntArrayList list = new IntArrayList();
+        private final Elements elements;
+
+        IntArrayListHandle(Elements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            list.add(elements.value(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return list.get(i) == elements.value(i);
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return list.removeValue(elements.value(i));
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (int i = 0, size = list.size(); i < size; i++) {
+                sum += list.get(i);
+            }
+            return sum;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public Object root() {
+            return list;
+        }
+    }
+
+    private static final class LongArrayListHandle implements CollectionHandle {
+        private final LongArrayList list = new LongArrayList();
+        private final Elements elements;
+
+        LongArrayListHandle(Elements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            list.add(elements.value(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return list.get(i) == elements.value(i);
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return list.removeValue(elements.value(i));
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (int i = 0, size = list.size(); i < size; i++) {
+                sum += list.get(i);
+            }
+            return sum;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public Object root() {
+            return list;
+        }
+    }
+
+    private static final class IntHashSetHandle implements CollectionHandle {
+        private final IntHashSet set = new IntHashSet();
+        private final Elements elements;
+
+        IntHashSetHandle(Elements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            set.add(elements.value(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return set.contains(elements.value(i));
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return set.remove(elements.value(i));
+        }
+
+        @Override
+        public long iterate() {
+            long[] sum = {0};
+            set.forEach(value -> sum[0] += value);
+            return sum[0];
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+
+        @Override
+        public Object root() {
+            return set;
+        }
+    }
+
+    private static final class RoaringBitmapHandle implements CollectionHandle {
+        private final RoaringBitmap bitmap = new RoaringBitmap();
+        private final Elements elements;
+
+        RoaringBitmapHandle(Elements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            bitmap.add(elements.value(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return bitmap.contains(elements.value(i));
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return bitmap.remove(elements.value(i));
+        }
+
+        @Override
+        public long iterate() {
+            long[] sum = {0};
+            bitmap.forEach(value -> sum[0] += value);
+            return sum[0];
+        }
+
+        @Override
+        public int size() {
+            return (int) bitmap.cardinality();
+        }
+
+        @Override
+        public Object root() {
+            return bitmap;
+        }
+    }
+
+    private static final class IntIntHashMapHandle implements CollectionHandle {
+        private final IntIntHashMap map = new IntIntHashMap();
+        private final Elements elements;
+
+        IntIntHashMapHandle(Elements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            int element = elements.value(i);
+            map.put(element, element);
+        }
+
+        @Override
+        public boolean get(int i) {
+            return map.containsKey(elements.value(i));
+        }
+
+        @Override
+        public boolean remove(int i) {
+            int element = elements.value(i);
+            return map.containsKey(element) && map.remove(element) == element;
+        }
+
+        @Override
+        public long iterate() {
+            long[] sum = {0};
+            map.forEach((key, value) -> sum[0] += key ^ value);
+            return sum[0];
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Object root() {
+            return map;
+        }
+    }
+
+    private static final class LongObjectHashMapHandle implements CollectionHandle {
+        private final LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        private final Elements elements;
+
+        LongObjectHashMapHandle(Elements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            map.put(elements.value(i), elements.boxed(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return map.get(elements.value(i)) != null;
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return map.remove(elements.value(i)) != null;
+        }
+
+        @Override
+        public long iterate() {
+            long[] sum = {0};
+            map.forEach((key, value) -> sum[0] += key ^ value);
+            return sum[0];
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Object root() {
+            return map;
+        }
+    }
+
+    private static final class LongBPlusTreeMapHandle implements CollectionHandle {
+        private final LongBPlusTreeMap<Integer> map = new LongBPlusTreeMap<>();
+        private final Elements elements;
+
+        LongBPlusTreeMapHandle(Elements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            map.put(elements.value(i), elements.boxed(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return map.get(elements.value(i)) != null;
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return map.remove(elements.value(i)) != null;
+        }
+
+        @Override
+        public long iterate() {
+            long[] sum = {0};
+            map.forEach((key, value) -> sum[0] += key ^ value);
+            return sum[0];
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Object root() {
+            return map;
+        }
+    }
+
+    /** long -> long entries in direct memory; the heap side is a few buffer objects, so offHeapBytes() carries the real cost. */
+    private static final class OffHeapHashMapHandle implements CollectionHandle {
+        private final OffHeapHashMap map;
+        private final Elements elements;
+
+        OffHeapHashMapHandle(Elements elements, int capacity) {
+            this.map = new OffHeapHashMap(Long.BYTES, Math.max(16, capacity));
+            this.elements = elements;
+        }
+
+        @Override
+        public void add(int i) {
+            map.putLong(elements.value(i), elements.value(i));
+        }
+
+        @Override
+        public boolean get(int i) {
+            return map.containsKey(elements.value(i));
+        }
+
+        @Override
+        public boolean remove(int i) {
+            return map.remove(elements.value(i));
+        }
+
+        @Override
+        public long iterate() {
+            long[] sum = {0};
+            map.forEachKey(key -> sum[0] += key);
+            return sum[0];
+        }
+
+        @Override
+        public int size() {
+            return (int) map.size();
+        }
+
+        @Override
+        public Object root() {
+            return map;
+        }
+
+        @Override
+        public long offHeapBytes() {
+            return map.offHeapBytes();
+        }
+
+        @Override
+        public void close() {
+            map.close();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package work.aaronskeels.javaknowledgedemos.footprint;
+
+/**
+ * Uniform add/get/remove/iterate over one collection so every candidate in {@link CollectionCatalog} can be filled, measured and
+ * benchmarked by the same code. Arguments are indexes into {@link Elements}, so no handle boxes or allocates per call.
+ */
+public interface CollectionHandle extends AutoCloseable {
+    /** Inserts element i (list: append, queue: offer, set: add, map: put element i -> element i). */
+    void add(int i);
+
+    /** List: get(i) by position; queue: peek() (contains(element i) for delay queues); set: contains(element i); map: get(element i). True on a hit. */
+    boolean get(int i);
+
+    /** List: remove(element i), a scan; queue: poll() (remove(element i) for delay queues); set/map: remove element i. */
+    boolean remove(int i);
+
+    /** Visits every element; returns a checksum so the JIT can't skip the loop. */
+    long iterate();
+
+    int size();
+
+    /** The collection itself, for {@link ObjectGraphSizer#retainedSize(Object)}. */
+    Object root();
+
+    /** Native memory held outside the Java heap, which {@link ObjectGraphSizer} can't see. */
+    default long offHeapBytes() {
+        return 0;
+    }
+
+    /** Releases threads or native memory; a no-op for plain heap collections. */
+    @Override
+    default void close() {
+    }
+}
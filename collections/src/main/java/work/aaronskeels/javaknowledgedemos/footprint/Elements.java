@@ -0,0 +1,94 @@
+package work.aaronskeels.javaknowledgedemos.footprint;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-built elements shared by every candidate: element i is the same boxed Integer for every collection, so lookups never allocate
+ * and IdentityHashMap behaves like the others. Values are i * golden ratio, a bijection that spreads keys over the whole int range
+ * (sequential keys flatter hash tables and skip the Integer cache's small values).
+ */
+public final class Elements {
+    /** Delayed wrapper for DelayQueue-style candidates; due an hour after creation, so nothing expires during a run. */
+    public static final class Expiry implements Delayed {
+        private final int value;
+        private final long deadlineNanos;
+
+        Expiry(int value, long deadlineNanos) {
+            this.value = value;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public int value() {
+            return value;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineNanos, ((Expiry) other).deadlineNanos);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Expiry other && other.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+
+    private final int[] values;
+    private final Integer[] boxed;
+    private Expiry[] expiries;
+
+    private Elements(int count) {
+        values = new int[count];
+        boxed = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = valueOf(i);
+            boxed[i] = values[i];
+        }
+    }
+
+    public static Elements of(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must be >= 0: " + count);
+        }
+        return new Elements(count);
+    }
+
+    public static int valueOf(int i) {
+        return i * 0x9E3779B9;
+    }
+
+    public int count() {
+        return values.length;
+    }
+
+    public int value(int i) {
+        return values[i];
+    }
+
+    public Integer boxed(int i) {
+        return boxed[i];
+    }
+
+    /** Built on first use (only delay queue candidates need them). Deadlines spread over a second, an hour from now. */
+    synchronized Expiry[] expiries() {
+        if (expiries == null) {
+            expiries = new Expiry[values.length];
+            long base = System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+            for (int i = 0; i < values.length; i++) {
+                expiries[i] = new Expiry(values[i], base + (values[i] & 0x3FFFFFFFL));
+            }
+        }
+        return expiries;
+    }
+}
@@ -0,0 +1,116 @@
+package work.aaronskeels.javaknowledgedemos.footprint;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import work.aaronskeels.javaknowledgedemos.footprint.CollectionCatalog.Candidate;
+
+/**
+ * Fills every {@link CollectionCatalog} candidate to each size and records its retained heap size (plus native memory for the
+ * off-heap map) as JSON, one result per line so two reports diff cleanly, e.g. before and after a JDK upgrade:
+ *
+ *   java -Xmx8g -cp target/classes work.aaronskeels.javaknowledgedemos.footprint.FootprintReport footprint-jdk19.json
+ *   diff footprint-jdk17.json footprint-jdk19.json
+ *
+ * Arguments: [output file (default stdout)] [comma separated sizes (default 10,1000,100000,10000000)]. Sizes above a
+ * candidate's maxSize are skipped. The "jvm" header records what changes the numbers (version, compressed oops, header size).
+ */
+public final class FootprintReport {
+    static final int[] DEFAULT_SIZES = {10, 1_000, 100_000, 10_000_000};
+
+    /** One measurement; bytesPerElement includes the element objects themselves (16 bytes per boxed Integer). */
+    public record Result(String category, String type, int size, long retainedBytes, long offHeapBytes) {
+        public double bytesPerElement() {
+            return size == 0 ? 0 : (double) (retainedBytes + offHeapBytes) / size;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"category\": \"%s\", \"type\": \"%s\", \"size\": %d, \"retainedBytes\": %d, \"offHeapBytes\": %d, "
+                            + "\"bytesPerElement\": %.2f}",
+                    category, type, size, retainedBytes, offHeapBytes, bytesPerElement());
+        }
+    }
+
+    private FootprintReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length > 1
+                ? Arrays.stream(args[1].split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_SIZES;
+        List<Result> results = measure(CollectionCatalog.all(), sizes, System.err);
+        if (args.length > 0) {
+            try (Writer out = Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)) {
+                write(results, out);
+            }
+        } else {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            write(results, out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Measures every candidate at every size it supports, logging progress to "log" (may be null).
+     */
+    public static List<Result> measure(List<Candidate> candidates, int[] sizes, PrintStream log) {
+        int largest = Arrays.stream(sizes).max().orElse(0);
+        Elements elements = Elements.of(largest);
+        List<Result> results = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            for (int size : sizes) {
+                if (size > candidate.maxSize()) {
+                    continue;
+                }
+                results.add(measure(candidate, elements, size));
+                if (log != null) {
+                    log.println(results.get(results.size() - 1).toJson());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Fills a fresh instance with elements [0, size) and sizes it.
+     */
+    public static Result measure(Candidate candidate, Elements elements, int size) {
+        try (CollectionHandle handle = candidate.create(elements, size)) {
+            for (int i = 0; i < size; i++) {
+                handle.add(i);
+            }
+            long retained = ObjectGraphSizer.retainedSize(handle.root());
+            return new Result(candidate.category().name(), candidate.name(), size, retained, handle.offHeapBytes());
+        }
+    }
+
+    public static void write(List<Result> results, Writer out) throws IOException {
+        out.write("{\n");
+        out.write("  \"jvm\": " + jvmJson() + ",\n");
+        out.write("  \"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            out.write("    " + results.get(i).toJson() + (i + 1 < results.size() ? ",\n" : "\n"));
+        }
+        out.write("  ]\n}\n");
+    }
+
+    private static String jvmJson() {
+        return String.format(Locale.ROOT,
+                "{\"version\": \"%s\", \"vm\": \"%s\", \"maxHeapBytes\": %d, \"headerBytes\": %d, \"referenceBytes\": %d, "
+                        + "\"alignmentBytes\": %d, \"inputArguments\": \"%s\"}",
+                System.getProperty("java.version"), System.getProperty("java.vm.name"), Runtime.getRuntime().maxMemory(),
+                ObjectGraphSizer.headerSize(), ObjectGraphSizer.referenceSize(), ObjectGraphSizer.objectAlignment(),
+                String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()).replace("\\", "\\\\").replace("\"", "\\\""));
+    }
+}
@@ -0,0 +1,211 @@
+package work.aaronskeels.javaknowledgedemos.footprint;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import work.aaronskeels.javaknowledgedemos.unsafe.UnsafeAccess;
+
+/**
+ * Measures retained heap size by walking the object graph from a root, i.e. what the GC could free if the root became unreachable
+ * (ignoring anything also referenced from elsewhere).
+ *
+ * Sizes come from the real field layout: sun.misc.Unsafe.objectFieldOffset() gives each field's offset, so header size, field
+ * packing and padding match the running JVM's (compressed oops or not, compact headers or not). The Instrumentation API would give
+ * the same numbers but needs a -javaagent jar; Unsafe also reads fields of JDK classes without --add-opens, which reflection can't.
+ * Records and hidden classes (lambdas) refuse objectFieldOffset(), so their size is estimated from their field types and their
+ * references are followed via reflection where the module system allows it. Unsafe is reached through {@link UnsafeAccess}.
+ *
+ * By default the walk stops at objects shared by the whole JVM: Class objects, threads, thread groups, class loaders and enum
+ * constants.
+ */
+public final class ObjectGraphSizer {
+    private static final int REFERENCE_SIZE = UnsafeAccess.arrayIndexScale(Object[].class);
+    // The int[] length field sits right after the header, so its first element marks header + 4
+    private static final int HEADER_SIZE = UnsafeAccess.arrayBaseOffset(int[].class) - Integer.BYTES;
+    private static final int ALIGNMENT = loadAlignment();
+
+    /** Default boundary: objects shared by the whole JVM rather than owned by any one collection. */
+    public static final Predicate<Object> JVM_SHARED = object -> object instanceof Class<?>
+            || object instanceof Thread
+            || object instanceof ThreadGroup
+            || object instanceof ClassLoader
+            || object instanceof Enum<?>;
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+
+    private ObjectGraphSizer() {
+    }
+
+    /**
+     * Bytes retained by "root" and everything reachable from it, stopping at {@link #JVM_SHARED} objects.
+     */
+    public static long retainedSize(Object root) {
+        return retainedSize(root, JVM_SHARED);
+    }
+
+    /**
+     * Bytes retained by "root" and everything reachable from it. Objects matching "boundary" are neither counted nor walked
+     * (the root itself always is).
+     */
+    public static long retainedSize(Object root, Predicate<Object> boundary) {
+        if (root == null) {
+            return 0;
+        }
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Object> stack = new ArrayDeque<>();
+        visited.add(root);
+        stack.push(root);
+        long total = 0;
+        while (!stack.isEmpty()) {
+            Object object = stack.pop();
+            Class<?> type = object.getClass();
+            if (type.isArray()) {
+                total += arraySize(object, type);
+                if (!type.getComponentType().isPrimitive()) {
+                    for (Object element : (Object[]) object) {
+                        visit(element, boundary, visited, stack);
+                    }
+                }
+            } else {
+                Layout layout = LAYOUTS.get(type);
+                total += layout.shallowSize;
+                for (long offset : layout.referenceOffsets) {
+                    visit(UnsafeAccess.getObject(object, offset), boundary, visited, stack);
+                }
+                for (Field field : layout.reflectedReferences) {
+                    try {
+                        visit(field.get(object), boundary, visited, stack);
+                    } catch (IllegalAccessException e) {
+                        // trySetAccessible() succeeded when the layout was built, so this can't happen
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private static void visit(Object object, Predicate<Object> boundary, Set<Object> visited, ArrayDeque<Object> stack) {
+        if (object != null && !boundary.test(object) && visited.add(object)) {
+            stack.push(object);
+        }
+    }
+
+    /**
+     * Bytes taken by this one object, not counting anything it references.
+     */
+    public static long shallowSize(Object object) {
+        Class<?> type = object.getClass();
+        return type.isArray() ? arraySize(object, type) : LAYOUTS.get(type).shallowSize;
+    }
+
+    private static long arraySize(Object array, Class<?> type) {
+        long length = java.lang.reflect.Array.getLength(array);
+        return align(UnsafeAccess.arrayBaseOffset(type) + length * UnsafeAccess.arrayIndexScale(type));
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return REFERENCE_SIZE;
+        }
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /** Shallow size of instances of one class plus where their reference fields are. */
+    private static final class Layout {
+        final long shallowSize;
+        final long[] referenceOffsets;
+        final Field[] reflectedReferences;
+
+        private Layout(long shallowSize, long[] referenceOffsets, Field[] reflectedReferences) {
+            this.shallowSize = shallowSize;
+            this.referenceOffsets = referenceOffsets;
+            this.reflectedReferences = reflectedReferences;
+        }
+
+        static Layout of(Class<?> type) {
+            long end = HEADER_SIZE;
+            long estimated = HEADER_SIZE;
+            boolean exact = true;
+            List<Long> offsets = new ArrayList<>();
+            List<Field> reflected = new ArrayList<>();
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    int size = fieldSize(field.getType());
+                    estimated += size;
+                    long offset = -1;
+                    try {
+                        offset = UnsafeAccess.objectFieldOffset(field);
+                        end = Math.max(end, offset + size);
+                    } catch (UnsupportedOperationException e) {
+                        exact = false; // Record or hidden class
+                    }
+                    if (field.getType().isPrimitive()) {
+                        continue;
+                    }
+                    if (offset >= 0) {
+                        offsets.add(offset);
+                    } else if (field.trySetAccessible()) {
+                        reflected.add(field);
+                    }
+                }
+            }
+            return new Layout(align(exact ? end : estimated), offsets.stream().mapToLong(Long::longValue).toArray(),
+                    reflected.toArray(new Field[0]));
+        }
+    }
+
+    private static int loadAlignment() {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return Integer.parseInt(hotSpot.getVMOption("ObjectAlignmentInBytes").getValue());
+        } catch (RuntimeException | LinkageError e) {
+            return 8; // HotSpot's default; other VMs may not expose the option
+        }
+    }
+
+    /** Object header bytes on this JVM (12 with compressed class pointers, 16 without). */
+    public static int headerSize() {
+        return HEADER_SIZE;
+    }
+
+    /** Reference field bytes on this JVM (4 with compressed oops, 8 without). */
+    public static int referenceSize() {
+        return REFERENCE_SIZE;
+    }
+
+    public static int objectAlignment() {
+        return ALIGNMENT;
+    }
+}
@@ -0,0 +1,966 @@
+package work.aaronskeels.javaknowledgedemos.list;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * List + Deque stored as a directory of fixed-size array chunks (an "unrolled" linked list): a drop-in for LinkedList, and for
+ * ArrayDeque where indexed access is needed too.
+ *
+ * LinkedList allocates a 24-32 byte node per element and every step through it is a dependent load from a likely cold cache line,
+ * so it loses to ArrayList/ArrayDeque at nearly everything, even the mid-list inserts it is known for (finding the position is the
+ * expensive part). Here up to 64 elements share one array:
+ * - addFirst/addLast/removeFirst/removeLast are O(1) amortized. Chunks keep free space at both ends and a full end chunk just gets
+ *   a new neighbour.
+ * - get/set/add/remove(index) binary search the chunk index (each chunk's starting list index), then shift at most one chunk's
+ *   elements. A full chunk splits in two; a middle chunk under a quarter full merges into a neighbour, so chunks stay dense.
+ * - Iteration walks the arrays in order. The ListIterator is a (chunk, offset) cursor: next()/previous() never allocate or search,
+ *   and its remove()/add() edit the current chunk in place.
+ *
+ * Chunk starts are kept relative to a base that moves with the head, so edits to the first or last chunk never invalidate them.
+ * An edit to a middle chunk invalidates the starts after it; they are recomputed (O(chunks)) on the next indexed access.
+ *
+ * Permits null elements (like LinkedList, unlike ArrayDeque). Not thread-safe; iterators are fail-fast.
+ */
+public class ChunkedList<E> extends AbstractList<E> implements Deque<E> {
+    static final int CHUNK_CAPACITY = 64;
+    private static final int MERGE_THRESHOLD = CHUNK_CAPACITY / 4;
+    private static final int INITIAL_DIRECTORY = 8;
+
+    /** Up to CHUNK_CAPACITY elements in items[lo, hi). */
+    static final class Chunk {
+        final Object[] items = new Object[CHUNK_CAPACITY];
+        int lo;
+        int hi;
+
+        Chunk(int position) {
+            lo = hi = position;
+        }
+
+        int size() {
+            return hi - lo;
+        }
+    }
+
+    private Chunk[] chunks; // Live chunks in [head, tail), none of them empty
+    private long[] starts; // starts[c] = base + list index of chunks[c]'s first element, valid for c in [head, validTo)
+    private int head;
+    private int tail;
+    private int validTo;
+    private long base;
+    private int size;
+
+    public ChunkedList() {
+        reset(INITIAL_DIRECTORY);
+    }
+
+    public ChunkedList(Collection<? extends E> collection) {
+        this();
+        addAll(collection);
+    }
+
+    private void reset(int directoryLength) {
+        chunks = new Chunk[directoryLength];
+        starts = new long[directoryLength];
+        head = tail = validTo = directoryLength / 2;
+        base = 0;
+        size = 0;
+    }
+
+    // ---- Locating elements ----
+
+    private static long position(int chunk, int offset) {
+        return (long) chunk << 32 | offset;
+    }
+
+    private static int chunkOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    /** (chunk, offset within chunk) of list index 0 &lt;= index &lt; size. */
+    private long locate(int index) {
+        Chunk first = chunks[head];
+        if (index < first.size()) {
+            return position(head, index);
+        }
+        int lastStart = size - chunks[tail - 1].size();
+        if (index >= lastStart) {
+            return position(tail - 1, index - lastStart);
+        }
+        if (validTo < tail) {
+            for (int c = validTo; c < tail; c++) {
+                starts[c] = starts[c - 1] + chunks[c - 1].size();
+            }
+            validTo = tail;
+        }
+        // Last chunk in (head, tail - 1) starting at or before the index
+        long target = base + index;
+        int low = head + 1;
+        int high = tail - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= target) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return position(low, (int) (target - starts[low]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E element(Chunk chunk, int offset) {
+        return (E) chunk.items[chunk.lo + offset];
+    }
+
+    // ---- List ----
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        long position = locate(index);
+        return element(chunks[chunkOf(position)], offsetOf(position));
+    }
+
+    @Override
+    public E set(int index, E element) {
+        Objects.checkIndex(index, size);
+        long position = locate(index);
+        Chunk chunk = chunks[chunkOf(position)];
+        E old = element(chunk, offsetOf(position));
+        chunk.items[chunk.lo + offsetOf(position)] = element;
+        return old;
+    }
+
+    @Override
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        Objects.checkIndex(index, size + 1);
+        if (index == size) {
+            addLast(element);
+        } else if (index == 0) {
+            addFirst(element);
+        } else {
+            long position = locate(index);
+            insertAt(chunkOf(position), offsetOf(position), element);
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        long position = locate(index);
+        return removeAt(chunkOf(position), offsetOf(position));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        reset(INITIAL_DIRECTORY);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int index = 0;
+        for (int c = head; c < tail; c++) {
+            Chunk chunk = chunks[c];
+            for (int i = chunk.lo; i < chunk.hi; i++, index++) {
+                if (Objects.equals(o, chunk.items[i])) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        int index = size - 1;
+        for (int c = tail - 1; c >= head; c--) {
+            Chunk chunk = chunks[c];
+            for (int i = chunk.hi - 1; i >= chunk.lo; i--, index--) {
+                if (Objects.equals(o, chunk.items[i])) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        int index = 0;
+        for (int c = head; c < tail; c++) {
+            Chunk chunk = chunks[c];
+            System.arraycopy(chunk.items, chunk.lo, array, index, chunk.size());
+            index += chunk.size();
+        }
+        return array;
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (int c = head; c < tail && modCount == expectedModCount; c++) {
+            Chunk chunk = chunks[c];
+            for (int i = 0; i < chunk.size(); i++) {
+                action.accept(element(chunk, i));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        Objects.checkIndex(index, size + 1);
+        return new Itr(index);
+    }
+
+    // ---- Deque ----
+
+    @Override
+    public void addFirst(E e) {
+        if (size == 0 || chunks[head].lo == 0) {
+            if (head == 0) {
+                makeRoom();
+            }
+            // Filled from the back so later addFirst calls keep going without shifting
+            chunks[--head] = new Chunk(CHUNK_CAPACITY);
+            starts[head] = base;
+        }
+        insertAt(head, 0, e);
+    }
+
+    @Override
+    public void addLast(E e) {
+        if (size == 0 || chunks[tail - 1].hi == CHUNK_CAPACITY) {
+            if (tail == chunks.length) {
+                makeRoom();
+            }
+            if (validTo == tail) {
+                starts[tail] = base + size;
+                validTo++;
+            }
+            chunks[tail++] = new Chunk(0);
+        }
+        insertAt(tail - 1, chunks[tail - 1].size(), e);
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public E removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return removeAt(head, 0);
+    }
+
+    @Override
+    public E removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return removeAt(tail - 1, chunks[tail - 1].size() - 1);
+    }
+
+    @Override
+    public E pollFirst() {
+        return size == 0 ? null : removeAt(head, 0);
+    }
+
+    @Override
+    public E pollLast() {
+        return size == 0 ? null : removeAt(tail - 1, chunks[tail - 1].size() - 1);
+    }
+
+    @Override
+    public E getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return element(chunks[head], 0);
+    }
+
+    @Override
+    public E getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        Chunk last = chunks[tail - 1];
+        return element(last, last.size() - 1);
+    }
+
+    @Override
+    public E peekFirst() {
+        return size == 0 ? null : element(chunks[head], 0);
+    }
+
+    @Override
+    public E peekLast() {
+        if (size == 0) {
+            return null;
+        }
+        Chunk last = chunks[tail - 1];
+        return element(last, last.size() - 1);
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        int index = lastIndexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        Itr itr = new Itr(size);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return itr.hasPrevious();
+            }
+
+            @Override
+            public E next() {
+                return itr.previous();
+            }
+
+            @Override
+            public void remove() {
+                itr.remove();
+            }
+        };
+    }
+
+    /**
+     * Reverse-ordered view: reads and writes go through to this list. Matches List.reversed() and Deque.reversed() from JDK 21
+     * (SequencedCollection), which a List + Deque must override with one type implementing both, as LinkedList does; without it
+     * the two inherited defaults clash and the class doesn't compile there.
+     */
+    public ChunkedList<E> reversed() {
+        return new ReversedView<>(this);
+    }
+
+    // ---- Chunk maintenance ----
+
+    /*
+     * Starts bookkeeping for an edit inside chunks[c]: only elements after the edit change list index. If c is the head, moving
+     * base by one instead shifts everything before the edit, which only the head chunk's own start (always base) sees. If c is the
+     * tail, there are no later chunks. Otherwise the starts after c go stale.
+     */
+
+    /** Inserts before element "offset" of chunks[c]; offset == size appends to that chunk. */
+    private void insertAt(int c, int offset, E e) {
+        boolean first = c == head;
+        boolean last = c == tail - 1;
+        Chunk chunk = chunks[c];
+        if (chunk.size() == CHUNK_CAPACITY) {
+            c = split(c);
+            validTo = Math.min(validTo, c + 1);
+            if (offset > chunk.size()) {
+                offset -= chunk.size();
+                chunk = chunks[++c];
+            }
+        } else if (!first && !last) {
+            validTo = Math.min(validTo, c + 1);
+        }
+        int at = chunk.lo + offset;
+        // Shift whichever side is shorter, if it has room to move into
+        if (chunk.lo > 0 && (chunk.hi == CHUNK_CAPACITY || offset < chunk.size() - offset)) {
+            System.arraycopy(chunk.items, chunk.lo, chunk.items, chunk.lo - 1, offset);
+            chunk.lo--;
+            chunk.items[at - 1] = e;
+        } else {
+            System.arraycopy(chunk.items, at, chunk.items, at + 1, chunk.hi - at);
+            chunk.hi++;
+            chunk.items[at] = e;
+        }
+        if (first) {
+            starts[head] = --base;
+        }
+        size++;
+        modCount++;
+    }
+
+    private E removeAt(int c, int offset) {
+        Chunk chunk = chunks[c];
+        int at = chunk.lo + offset;
+        E removed = element(chunk, offset);
+        if (offset < chunk.size() - 1 - offset) {
+            System.arraycopy(chunk.items, chunk.lo, chunk.items, chunk.lo + 1, offset);
+            chunk.items[chunk.lo++] = null;
+        } else {
+            System.arraycopy(chunk.items, at + 1, chunk.items, at, chunk.hi - at - 1);
+            chunk.items[--chunk.hi] = null;
+        }
+        size--;
+        modCount++;
+        if (size == 0) {
+            chunks[c] = null;
+            head = tail = validTo = chunks.length / 2;
+            base = 0;
+        } else if (c == head) {
+            base++;
+            if (chunk.size() == 0) {
+                chunks[head++] = null;
+                validTo = Math.max(validTo, head + 1);
+            }
+            starts[head] = base;
+        } else if (c == tail - 1) {
+            if (chunk.size() == 0) {
+                chunks[--tail] = null;
+                validTo = Math.min(validTo, tail);
+            }
+        } else if (chunk.size() == 0) {
+            removeChunk(c);
+            validTo = Math.min(validTo, c);
+        } else {
+            validTo = Math.min(validTo, c + 1);
+            if (chunk.size() < MERGE_THRESHOLD) {
+                merge(c);
+            }
+        }
+        return removed;
+    }
+
+    /** Moves the upper half of full chunks[c] into a new chunk after it. Returns c's index, which moves if the directory does. */
+    private int split(int c) {
+        if (tail == chunks.length) {
+            c += makeRoom();
+        }
+        Chunk chunk = chunks[c];
+        Chunk upper = new Chunk(0);
+        int mid = chunk.lo + CHUNK_CAPACITY / 2;
+        upper.hi = chunk.hi - mid;
+        System.arraycopy(chunk.items, mid, upper.items, 0, upper.hi);
+        Arrays.fill(chunk.items, mid, chunk.hi, null);
+        chunk.hi = mid;
+        System.arraycopy(chunks, c + 1, chunks, c + 2, tail - c - 1);
+        chunks[c + 1] = upper;
+        tail++;
+        return c;
+    }
+
+    /** Folds sparse middle chunk c into a neighbour if the two fit in half a chunk. */
+    private void merge(int c) {
+        Chunk chunk = chunks[c];
+        Chunk next = chunks[c + 1];
+        if (chunk.size() + next.size() <= CHUNK_CAPACITY / 2) {
+            appendAll(chunk, next);
+            removeChunk(c + 1);
+            return;
+        }
+        Chunk previous = chunks[c - 1];
+        if (previous.size() + chunk.size() <= CHUNK_CAPACITY / 2) {
+            appendAll(previous, chunk);
+            removeChunk(c);
+            validTo = Math.min(validTo, c);
+        }
+    }
+
+    private static void appendAll(Chunk target, Chunk source) {
+        if (target.hi + source.size() > CHUNK_CAPACITY) {
+            int count = target.size();
+            System.arraycopy(target.items, target.lo, target.items, 0, count);
+            Arrays.fill(target.items, count, target.hi, null);
+            target.lo = 0;
+            target.hi = count;
+        }
+        System.arraycopy(source.items, source.lo, target.items, target.hi, source.size());
+        target.hi += source.size();
+    }
+
+    private void removeChunk(int c) {
+        System.arraycopy(chunks, c + 1, chunks, c, tail - c - 1);
+        chunks[--tail] = null;
+    }
+
+    /** Re-centres the directory (doubling it if over half full) so both ends have free slots. Returns how far indexes moved. */
+    private int makeRoom() {
+        int count = tail - head;
+        int length = count + 2 > chunks.length / 2 ? chunks.length * 2 : chunks.length;
+        Chunk[] newChunks = new Chunk[length];
+        long[] newStarts = new long[length];
+        int newHead = (length - count) / 2;
+        System.arraycopy(chunks, head, newChunks, newHead, count);
+        System.arraycopy(starts, head, newStarts, newHead, validTo - head);
+        int shift = newHead - head;
+        chunks = newChunks;
+        starts = newStarts;
+        head += shift;
+        tail += shift;
+        validTo += shift;
+        return shift;
+    }
+
+    /** Cursor before element "offset" of chunks[chunk] (offset may equal that chunk's size). */
+    private final class Itr implements ListIterator<E> {
+        private int chunk;
+        private int offset;
+        private int nextIndex;
+        private int lastChunk;
+        private int lastOffset;
+        private int lastIndex = -1;
+        private int expectedModCount = modCount;
+
+        Itr(int index) {
+            moveTo(index);
+        }
+
+        private void moveTo(int index) {
+            nextIndex = index;
+            if (index < size) {
+                long position = locate(index);
+                chunk = chunkOf(position);
+                offset = offsetOf(position);
+            } else {
+                chunk = tail - 1;
+                offset = size == 0 ? 0 : chunks[chunk].size();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        @Override
+        public E next() {
+            checkForComodification();
+            if (nextIndex >= size) {
+                throw new NoSuchElementException();
+            }
+            Chunk current = chunks[chunk];
+            if (offset == current.size()) {
+                current = chunks[++chunk];
+                offset = 0;
+            }
+            lastChunk = chunk;
+            lastOffset = offset;
+            lastIndex = nextIndex++;
+            return element(current, offset++);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public E previous() {
+            checkForComodification();
+            if (nextIndex <= 0) {
+                throw new NoSuchElementException();
+            }
+            if (offset == 0) {
+                offset = chunks[--chunk].size();
+            }
+            lastChunk = chunk;
+            lastOffset = --offset;
+            lastIndex = --nextIndex;
+            return element(chunks[chunk], offset);
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastIndex < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            int oldHead = head;
+            int oldTail = tail;
+            removeAt(lastChunk, lastOffset);
+            if (head == oldHead && tail == oldTail) {
+                // Same chunks: the elements after the removed one moved down one offset, so the cursor lands where it was
+                chunk = lastChunk;
+                offset = lastOffset;
+                nextIndex = lastIndex;
+            } else {
+                moveTo(lastIndex);
+            }
+            lastIndex = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(E e) {
+            if (lastIndex < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            Chunk current = chunks[lastChunk];
+            current.items[current.lo + lastOffset] = e;
+        }
+
+        @Override
+        public void add(E e) {
+            checkForComodification();
+            if (nextIndex == 0) {
+                addFirst(e);
+                moveTo(1);
+            } else if (nextIndex == size) {
+                addLast(e);
+                moveTo(size);
+            } else {
+                int oldHead = head;
+                int oldTail = tail;
+                insertAt(chunk, offset, e);
+                if (head == oldHead && tail == oldTail) {
+                    offset++;
+                    nextIndex++;
+                } else {
+                    moveTo(nextIndex + 1);
+                }
+            }
+            lastIndex = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // ---- Reverse-ordered view ----
+
+    /**
+     * Maps every operation onto the mirrored one of the backing list; its own (empty) chunk directory is never used. Queue and stack
+     * methods (offer, poll, push, ...) are inherited: ChunkedList routes them through the first/last methods overridden here.
+     */
+    private static final class ReversedView<E> extends ChunkedList<E> {
+        private final ChunkedList<E> list;
+
+        ReversedView(ChunkedList<E> list) {
+            this.list = list;
+        }
+
+        private int mirror(int index) {
+            return list.size() - 1 - index;
+        }
+
+        @Override
+        public ChunkedList<E> reversed() {
+            return list;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public E get(int index) {
+            Objects.checkIndex(index, list.size());
+            return list.get(mirror(index));
+        }
+
+        @Override
+        public E set(int index, E element) {
+            Objects.checkIndex(index, list.size());
+            return list.set(mirror(index), element);
+        }
+
+        @Override
+        public void add(int index, E element) {
+            Objects.checkIndex(index, list.size() + 1);
+            list.add(list.size() - index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            Objects.checkIndex(index, list.size());
+            return list.remove(mirror(index));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return list.removeLastOccurrence(o);
+        }
+
+        @Override
+        public void clear() {
+            list.clear();
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            int index = list.lastIndexOf(o);
+            return index < 0 ? -1 : mirror(index);
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            int index = list.indexOf(o);
+            return index < 0 ? -1 : mirror(index);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return list.contains(o);
+        }
+
+        @Override
+        public Object[] toArray() {
+            Object[] array = list.toArray();
+            for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+                Object swap = array[i];
+                array[i] = array[j];
+                array[j] = swap;
+            }
+            return array;
+        }
+
+        @Override
+        public void forEach(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            for (Iterator<E> descending = list.descendingIterator(); descending.hasNext();) {
+                action.accept(descending.next());
+            }
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return list.descendingIterator();
+        }
+
+        @Override
+        public ListIterator<E> listIterator(int index) {
+            Objects.checkIndex(index, list.size() + 1);
+            ListIterator<E> backing = list.listIterator(list.size() - index);
+            return new ListIterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return backing.hasPrevious();
+                }
+
+                @Override
+                public E next() {
+                    return backing.previous();
+                }
+
+                @Override
+                public boolean hasPrevious() {
+                    return backing.hasNext();
+                }
+
+                @Override
+                public E previous() {
+                    return backing.next();
+                }
+
+                @Override
+                public int nextIndex() {
+                    return list.size() - backing.nextIndex();
+                }
+
+                @Override
+                public int previousIndex() {
+                    return nextIndex() - 1;
+                }
+
+                @Override
+                public void remove() {
+                    backing.remove();
+                }
+
+                @Override
+                public void set(E e) {
+                    backing.set(e);
+                }
+
+                @Override
+                public void add(E e) {
+                    backing.add(e);
+                    backing.previous(); // So the cursor ends up after e in this view's order, as add() requires
+                }
+            };
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return list.iterator();
+        }
+
+        @Override
+        public void addFirst(E e) {
+            list.addLast(e);
+        }
+
+        @Override
+        public void addLast(E e) {
+            list.addFirst(e);
+        }
+
+        @Override
+        public boolean offerFirst(E e) {
+            return list.offerLast(e);
+        }
+
+        @Override
+        public boolean offerLast(E e) {
+            return list.offerFirst(e);
+        }
+
+        @Override
+        public E removeFirst() {
+            return list.removeLast();
+        }
+
+        @Override
+        public E removeLast() {
+            return list.removeFirst();
+        }
+
+        @Override
+        public E pollFirst() {
+            return list.pollLast();
+        }
+
+        @Override
+        public E pollLast() {
+            return list.pollFirst();
+        }
+
+        @Override
+        public E getFirst() {
+            return list.getLast();
+        }
+
+        @Override
+        public E getLast() {
+            return list.getFirst();
+        }
+
+        @Override
+        public E peekFirst() {
+            return list.peekLast();
+        }
+
+        @Override
+        public E peekLast() {
+            return list.peekFirst();
+        }
+
+        @Override
+        public boolean removeFirstOccurrence(Object o) {
+            return list.removeLastOccurrence(o);
+        }
+
+        @Override
+        public boolean removeLastOccurrence(Object o) {
+            return list.removeFirstOccurrence(o);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package work.aaronskeels.javaknowledgedemos.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import work.aaronskeels.javaknowledgedemos.unsafe.UnsafeAccess;
+
+/**
+ * Allocation/free helpers for direct ByteBuffers.
+ * 
+ * A direct buffer's native memory is normally only returned once the (tiny) on-heap ByteBuffer object is garbage collected,
+ * which defeats the purpose of an explicit close(). sun.misc.Unsafe.invokeCleaner() frees it right away (see UnsafeAccess).
+ */
+final class DirectMemory {
+    private DirectMemory() {
+    }
+
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Frees the buffer's native memory immediately when possible, otherwise leaves it to the GC.
+     * The buffer must never be touched again afterwards (doing so can crash the JVM).
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect()) {
+            UnsafeAccess.invokeCleaner(buffer);
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package work.aaronskeels.javaknowledgedemos.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Hash map of long keys to fixed-size byte records whose data lives entirely outside the Java heap, in direct ByteBuffers.
+ * The GC only ever sees a handful of ByteBuffer objects no matter how many entries there are, so a table with tens of
+ * millions of entries adds nothing to pause times (a HashMap&lt;Long, ...&gt; of that size is tens of millions of objects to trace).
+ * 
+ * Layout: open addressing with linear probing over fixed-size records:
+ *   [long state][long key][value bytes, padded to a multiple of 8]
+ * Records are spread over "pages" of at most 1 GiB each, so the table can exceed the 2 GiB limit of a single ByteBuffer.
+ * Deletes use backward-shift, so there are no tombstones.
+ * 
+ * Modes:
+ * - Single-threaded (default): no locking at all, same contract as HashMap.
+ * - Concurrent read-mostly: writes take a StampedLock write lock, reads are optimistic (no lock, validated afterwards) and only
+ *   fall back to a shared read lock if a write raced them. Because optimistic readers may still be looking at the old pages
+ *   during a resize, concurrent mode leaves retired pages to the GC instead of freeing them eagerly.
+ * 
+ * Must be closed; any use afterwards throws IllegalStateException. Single-threaded, close() frees the native memory
+ * immediately. In concurrent mode an optimistic reader can't be locked out and may still be reading the pages when close()
+ * runs, so close() only drops them: the GC frees them once no reader holds them, so a read racing close() fails cleanly
+ * instead of touching freed memory.
+ */
+public class OffHeapHashMap implements AutoCloseable {
+    private static final long EMPTY = 0L;
+    private static final long OCCUPIED = 1L;
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_PAGE_BYTES = 1 << 30;
+    private static final float DEFAULT_LOAD_FACTOR = 0.6f;
+
+    private final int valueSize;
+    private final int recordSize;
+    private final float loadFactor;
+    private final int maxPageBytes;
+    private final StampedLock lock;
+
+    private volatile Table table;
+    private long size;
+    private volatile boolean closed;
+
+    /*
+     * Everything a reader needs is kept in one immutable holder, so an optimistic reader always sees a consistent
+     * page array/mask pair even if a resize swaps the table under it.
+     */
+    private static final class Table {
+        final ByteBuffer[] pages;
+        final int pageShift;
+        final long pageMask;
+        final long capacity;
+        final long mask;
+        final long resizeThreshold;
+
+        Table(ByteBuffer[] pages, int pageShift, long capacity, float loadFactor) {
+            this.pages = pages;
+            this.pageShift = pageShift;
+            this.pageMask = (1L << pageShift) - 1;
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.resizeThreshold = Math.min(capacity - 1, (long) (capacity * (double) loadFactor));
+        }
+    }
+
+    public OffHeapHashMap(int valueSize, long expectedEntries) {
+        this(valueSize, expectedEntries, DEFAULT_LOAD_FACTOR, false);
+    }
+
+    /**
+     * @param valueSize bytes per value, fixed for every entry
+     * @param concurrent true for the read-mostly concurrent mode described above
+     */
+    public OffHeapHashMap(int valueSize, long expectedEntries, float loadFactor, boolean concurrent) {
+        this(valueSize, expectedEntries, loadFactor, concurrent, MAX_PAGE_BYTES);
+    }
+
+    /**
+     * Package-private so tests can force several small pages without allocating gigabytes.
+     */
+    OffHeapHashMap(int valueSize, long expectedEntries, float loadFactor, boolean concurrent, int maxPageBytes) {
+        if (valueSize <= 0) {
+            throw new IllegalArgumentException("valueSize must be > 0: " + valueSize);
+        }
+        if (expectedEntries < 0) {
+            throw new IllegalArgumentException("expectedEntries must be >= 0: " + expectedEntries);
+        }
+        if (!(loadFactor > 0f && loadFactor < 1f)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1): " + loadFactor);
+        }
+        this.valueSize = valueSize;
+        this.recordSize = HEADER_BYTES + ((valueSize + 7) & ~7);
+        this.loadFactor = loadFactor;
+        this.maxPageBytes = maxPageBytes;
+        this.lock = concurrent ? new StampedLock() : null;
+        long needed = (long) Math.ceil(Math.max(expectedEntries, 2) / (double) loadFactor);
+        this.table = allocateTable(Math.max(16, Long.highestOneBit(needed - 1) << 1));
+    }
+
+    public static OffHeapHashMap concurrent(int valueSize, long expectedEntries) {
+        return new OffHeapHashMap(valueSize, expectedEntries, DEFAULT_LOAD_FACTOR, true);
+    }
+
+    public int valueSize() {
+        return valueSize;
+    }
+
+    public long size() {
+        if (lock == null) {
+            return size;
+        }
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long capacity() {
+        return table.capacity;
+    }
+
+    /**
+     * Native bytes reserved by the table (not counting the negligible on-heap page objects).
+     */
+    public long offHeapBytes() {
+        return table.capacity * recordSize;
+    }
+
+    /**
+     * Copies the value for "key" into dst[0..valueSize) without allocating; dst may be longer than valueSize.
+     * @return false if the key is absent (in concurrent mode dst may then hold bytes from a discarded optimistic read)
+     */
+    public boolean get(long key, byte[] dst) {
+        if (dst.length < valueSize) {
+            throw new IllegalArgumentException("Expected room for a value of " + valueSize + " bytes, got " + dst.length);
+        }
+        if (lock == null) {
+            checkOpen();
+            return readValue(table, key, dst, 0);
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L && !closed) {
+            Table current = table;
+            boolean found = readValue(current, key, dst, current.capacity);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            checkOpen();
+            return readValue(table, key, dst, 0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Convenience for the common "long to long" table. Requires valueSize >= 8; reads the first 8 bytes of the value.
+     */
+    public long getLong(long key, long missingValue) {
+        if (valueSize < Long.BYTES) {
+            throw new IllegalStateException("valueSize " + valueSize + " is too small to hold a long");
+        }
+        if (lock == null) {
+            checkOpen();
+            Table current = table;
+            long slot = findSlot(current, key, 0);
+            return slot < 0 ? missingValue : page(current, slot).getLong(offset(current, slot) + HEADER_BYTES);
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L && !closed) {
+            Table current = table;
+            long slot = findSlot(current, key, current.capacity);
+            long value = slot < 0 ? missingValue : page(current, slot).getLong(offset(current, slot) + HEADER_BYTES);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            checkOpen();
+            Table current = table;
+            long slot = findSlot(current, key, 0);
+            return slot < 0 ? missingValue : page(current, slot).getLong(offset(current, slot) + HEADER_BYTES);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (lock == null) {
+            checkOpen();
+            return findSlot(table, key, 0) >= 0;
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L && !closed) {
+            Table current = table;
+            boolean found = findSlot(current, key, current.capacity) >= 0;
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            checkOpen();
+            return findSlot(table, key, 0) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Inserts or overwrites. value must be exactly valueSize bytes.
+     * @return true if the key was newly added
+     */
+    public boolean put(long key, byte[] value) {
+        checkValueLength(value.length);
+        long stamp = lock == null ? 0L : lock.writeLock();
+        try {
+            checkOpen();
+            long slot = claimSlot(key);
+            boolean added = isEmpty(slot);
+            page(table, slot).put(offset(table, slot) + HEADER_BYTES, value, 0, valueSize);
+            if (added) {
+                publish(slot);
+            }
+            return added;
+        } finally {
+            if (lock != null) {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    public boolean putLong(long key, long value) {
+        if (valueSize < Long.BYTES) {
+            throw new IllegalStateException("valueSize " + valueSize + " is too small to hold a long");
+        }
+        long stamp = lock == null ? 0L : lock.writeLock();
+        try {
+            checkOpen();
+            long slot = claimSlot(key);
+            boolean added = isEmpty(slot);
+            page(table, slot).putLong(offset(table, slot) + HEADER_BYTES, value);
+            if (added) {
+                publish(slot);
+            }
+            return added;
+        } finally {
+            if (lock != null) {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        long stamp = lock == null ? 0L : lock.writeLock();
+        try {
+            checkOpen();
+            Table current = table;
+            long gap = findSlot(current, key, 0);
+            if (gap < 0) {
+                return false;
+            }
+            long index = gap;
+            while (true) {
+                index = (index + 1) & current.mask;
+                ByteBuffer page = page(current, index);
+                int offset = offset(current, index);
+                if (page.getLong(offset) == EMPTY) {
+                    break;
+                }
+                long home = mix(page.getLong(offset + 8)) & current.mask;
+                if (((index - home) & current.mask) >= ((index - gap) & current.mask)) {
+                    copyRecord(current, index, current, gap);
+                    gap = index;
+                }
+            }
+            page(current, gap).putLong(offset(current, gap), EMPTY);
+            size--;
+            return true;
+        } finally {
+            if (lock != null) {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Visits every key. In concurrent mode this holds the read lock for the whole walk.
+     */
+    public void forEachKey(LongConsumer action) {
+        long stamp = lock == null ? 0L : lock.readLock();
+        try {
+            checkOpen();
+            Table current = table;
+            for (long slot = 0; slot < current.capacity; slot++) {
+                ByteBuffer page = page(current, slot);
+                int offset = offset(current, slot);
+                if (page.getLong(offset) == OCCUPIED) {
+                    action.accept(page.getLong(offset + 8));
+                }
+            }
+        } finally {
+            if (lock != null) {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    public void clear() {
+        long stamp = lock == null ? 0L : lock.writeLock();
+        try {
+            checkOpen();
+            Table current = table;
+            for (long slot = 0; slot < current.capacity; slot++) {
+                page(current, slot).putLong(offset(current, slot), EMPTY);
+            }
+            size = 0;
+        } finally {
+            if (lock != null) {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Releases the native memory (see the class comment for when). Idempotent; any later use throws IllegalStateException.
+     */
+    @Override
+    public void close() {
+        long stamp = lock == null ? 0L : lock.writeLock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Table old = table;
+            // Readers that got past the closed check before it was set find an empty table, then fail validation
+            table = new Table(new ByteBuffer[] {ByteBuffer.allocate(recordSize)}, 0, 1, loadFactor);
+            if (lock == null) {
+                for (ByteBuffer page : old.pages) {
+                    DirectMemory.free(page);
+                }
+            }
+            size = 0;
+        } finally {
+            if (lock != null) {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // ---- Internals (callers hold the write lock where one exists) ----
+
+    /**
+     * Finds the slot holding "key", or the empty slot it should go in (with the key already written but the header still EMPTY).
+     */
+    private long claimSlot(long key) {
+        Table current = table;
+        long index = mix(key) & current.mask;
+        while (true) {
+            ByteBuffer page = page(current, index);
+            int offset = offset(current, index);
+            if (page.getLong(offset) == EMPTY) {
+                page.putLong(offset + 8, key);
+                return index;
+            }
+            if (page.getLong(offset + 8) == key) {
+                return index;
+            }
+            index = (index + 1) & current.mask;
+        }
+    }
+
+    private boolean isEmpty(long slot) {
+        return page(table, slot).getLong(offset(table, slot)) == EMPTY;
+    }
+
+    /**
+     * Marks a freshly claimed slot occupied once its value is in place, then grows if needed.
+     */
+    private void publish(long slot) {
+        page(table, slot).putLong(offset(table, slot), OCCUPIED);
+        if (++size > table.resizeThreshold) {
+            rehash(table.capacity << 1);
+        }
+    }
+
+    private void rehash(long newCapacity) {
+        Table old = table;
+        Table grown = allocateTable(newCapacity);
+        for (long slot = 0; slot < old.capacity; slot++) {
+            ByteBuffer page = page(old, slot);
+            int offset = offset(old, slot);
+            if (page.getLong(offset) == OCCUPIED) {
+                long index = mix(page.getLong(offset + 8)) & grown.mask;
+                while (page(grown, index).getLong(offset(grown, index)) != EMPTY) {
+                    index = (index + 1) & grown.mask;
+                }
+                copyRecord(old, slot, grown, index);
+            }
+        }
+        table = grown;
+        if (lock == null) {
+            for (ByteBuffer retired : old.pages) {
+                DirectMemory.free(retired);
+            }
+        }
+    }
+
+    /**
+     * @param probeLimit 0 for unlimited; optimistic readers pass the capacity so a torn table can't loop them forever
+     */
+    private long findSlot(Table current, long key, long probeLimit) {
+        long index = mix(key) & current.mask;
+        for (long probes = 0; probeLimit == 0 || probes < probeLimit; probes++) {
+            ByteBuffer page = page(current, index);
+            int offset = offset(current, index);
+            if (page.getLong(offset) == EMPTY) {
+                return -1;
+            }
+            if (page.getLong(offset + 8) == key) {
+                return index;
+            }
+            index = (index + 1) & current.mask;
+        }
+        return -1;
+    }
+
+    private boolean readValue(Table current, long key, byte[] dst, long probeLimit) {
+        long slot = findSlot(current, key, probeLimit);
+        if (slot < 0) {
+            return false;
+        }
+        page(current, slot).get(offset(current, slot) + HEADER_BYTES, dst, 0, valueSize);
+        return true;
+    }
+
+    private void copyRecord(Table from, long fromSlot, Table to, long toSlot) {
+        ByteBuffer source = page(from, fromSlot);
+        ByteBuffer target = page(to, toSlot);
+        int sourceOffset = offset(from, fromSlot);
+        int targetOffset = offset(to, toSlot);
+        for (int i = 0; i < recordSize; i += Long.BYTES) {
+            target.putLong(targetOffset + i, source.getLong(sourceOffset + i));
+        }
+    }
+
+    private Table allocateTable(long capacity) {
+        int recordsPerPageShift = 63 - Long.numberOfLeadingZeros(Math.max(1, maxPageBytes / recordSize));
+        int pageShift = Math.min(recordsPerPageShift, 63 - Long.numberOfLeadingZeros(capacity));
+        long recordsPerPage = 1L << pageShift;
+        long pageCount = capacity / recordsPerPage;
+        if (pageCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity too large: " + capacity);
+        }
+        ByteBuffer[] pages = new ByteBuffer[(int) pageCount];
+        try {
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = DirectMemory.allocate((int) (recordsPerPage * recordSize)); // Direct memory arrives zeroed, i.e. all EMPTY
+            }
+        } catch (OutOfMemoryError e) {
+            for (ByteBuffer page : pages) {
+                DirectMemory.free(page);
+            }
+            throw e;
+        }
+        return new Table(pages, pageShift, capacity, loadFactor);
+    }
+
+    private static ByteBuffer page(Table current, long slot) {
+        return current.pages[(int) ((slot & current.mask) >>> current.pageShift)];
+    }
+
+    private int offset(Table current, long slot) {
+        return (int) ((slot & current.mask & current.pageMask) * recordSize);
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return h ^ (h >>> 16);
+    }
+
+    private void checkValueLength(int length) {
+        if (length != valueSize) {
+            throw new IllegalArgumentException("Expected a value of " + valueSize + " bytes, got " + length);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("OffHeapHashMap is closed");
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package work.aaronskeels.javaknowledgedemos.persistent;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe ConcurrentMap that holds a {@link PersistentHashMap} in an AtomicReference.
+ * - Reads are a single volatile load followed by a walk of an immutable trie: lock-free, never blocked by writers.
+ * - Writes build the next version with plus()/minus() (O(log32 n), sharing everything else) and publish it with compareAndSet,
+ *   retrying if another writer won. Great for read-mostly data such as configuration; under heavy write contention the retries
+ *   make ConcurrentHashMap the better choice.
+ * {@link #snapshot()} hands out a consistent, immutable view for free (no copying), which is the CopyOnWrite use case.
+ */
+public class AtomicPersistentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    private final AtomicReference<PersistentHashMap<K, V>> current;
+
+    public AtomicPersistentMap() {
+        this(PersistentHashMap.empty());
+    }
+
+    public AtomicPersistentMap(PersistentHashMap<K, V> initial) {
+        this.current = new AtomicReference<>(Objects.requireNonNull(initial));
+    }
+
+    /**
+     * The current version. Never changes after it is returned, no matter what other threads do.
+     */
+    public PersistentHashMap<K, V> snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Applies "function" to the current version and publishes the result atomically, retrying on contention.
+     * "function" may run more than once, so it must be side-effect free.
+     * @return the version that was published
+     */
+    public PersistentHashMap<K, V> update(UnaryOperator<PersistentHashMap<K, V>> function) {
+        while (true) {
+            PersistentHashMap<K, V> before = current.get();
+            PersistentHashMap<K, V> after = Objects.requireNonNull(function.apply(before));
+            if (after == before || current.compareAndSet(before, after)) {
+                return after;
+            }
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        return current.get().get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return current.get().getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return current.get().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return current.get().size();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        while (true) {
+            PersistentHashMap<K, V> before = current.get();
+            if (current.compareAndSet(before, before.plus(key, value))) {
+                return before.get(key);
+            }
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        update(before -> {
+            TransientHashMap<K, V> builder = before.asTransient();
+            map.forEach(builder::put);
+            return builder.persistent();
+        });
+    }
+
+    @Override
+    public V remove(Object key) {
+        while (true) {
+            PersistentHashMap<K, V> before = current.get();
+            PersistentHashMap<K, V> after = before.minus(key);
+            if (after == before || current.compareAndSet(before, after)) {
+                return before.get(key);
+            }
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        while (true) {
+            PersistentHashMap<K, V> before = current.get();
+            V existing = before.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (current.compareAndSet(before, before.plus(key, value))) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        while (true) {
+            PersistentHashMap<K, V> before = current.get();
+            V existing = before.get(key);
+            if (existing == null || !existing.equals(value)) {
+                return false;
+            }
+            if (current.compareAndSet(before, before.minus(key))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(newValue);
+        while (true) {
+            PersistentHashMap<K, V> before = current.get();
+            V existing = before.get(key);
+            if (existing == null || !existing.equals(oldValue)) {
+                return false;
+            }
+            if (current.compareAndSet(before, before.plus(key, newValue))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value);
+        while (true) {
+            PersistentHashMap<K, V> before = current.get();
+            V existing = before.get(key);
+            if (existing == null) {
+                return null;
+            }
+            if (current.compareAndSet(before, before.plus(key, value))) {
+                return existing;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        current.set(PersistentHashMap.empty());
+    }
+
+    /**
+     * Read-only view of the version current at the time of the call.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Collections.unmodifiableSet(current.get().entrySet());
+    }
+}
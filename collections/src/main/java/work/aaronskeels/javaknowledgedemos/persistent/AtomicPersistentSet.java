@@ -0,0 +1,102 @@
+package work.aaronskeels.javaknowledgedemos.persistent;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe set holding a {@link PersistentHashSet} in an AtomicReference. Drop-in for CopyOnWriteArraySet: iteration is over an
+ * immutable snapshot (never throws ConcurrentModificationException), but a write costs O(log32 n) instead of cloning everything.
+ * Iterator.remove() is not supported.
+ */
+public class AtomicPersistentSet<E> extends AbstractSet<E> {
+    private final AtomicReference<PersistentHashSet<E>> current;
+
+    public AtomicPersistentSet() {
+        this.current = new AtomicReference<>(PersistentHashSet.empty());
+    }
+
+    public PersistentHashSet<E> snapshot() {
+        return current.get();
+    }
+
+    /**
+     * See {@link AtomicPersistentMap#update(UnaryOperator)}.
+     */
+    public PersistentHashSet<E> update(UnaryOperator<PersistentHashSet<E>> function) {
+        while (true) {
+            PersistentHashSet<E> before = current.get();
+            PersistentHashSet<E> after = Objects.requireNonNull(function.apply(before));
+            if (after == before || current.compareAndSet(before, after)) {
+                return after;
+            }
+        }
+    }
+
+    @Override
+    public boolean add(E element) {
+        Objects.requireNonNull(element);
+        while (true) {
+            PersistentHashSet<E> before = current.get();
+            PersistentHashSet<E> after = before.plus(element);
+            if (after == before) {
+                return false;
+            }
+            if (current.compareAndSet(before, after)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        int[] sizes = new int[2];
+        update(before -> {
+            PersistentHashSet.Builder<E> builder = before.asTransient();
+            for (E element : elements) {
+                builder.add(element);
+            }
+            sizes[0] = before.size();
+            sizes[1] = builder.size();
+            return builder.persistent();
+        });
+        return sizes[1] != sizes[0];
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        while (true) {
+            PersistentHashSet<E> before = current.get();
+            PersistentHashSet<E> after = before.minus(element);
+            if (after == before) {
+                return false;
+            }
+            if (current.compareAndSet(before, after)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return current.get().contains(element);
+    }
+
+    @Override
+    public int size() {
+        return current.get().size();
+    }
+
+    @Override
+    public void clear() {
+        current.set(PersistentHashSet.empty());
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return current.get().iterator();
+    }
+}
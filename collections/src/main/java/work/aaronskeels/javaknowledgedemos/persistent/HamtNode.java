@@ -0,0 +1,290 @@
+package work.aaronskeels.javaknowledgedemos.persistent;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/*
+ * Trie nodes shared by PersistentHashMap and its transient. Every node stores (key, value) pairs flat in one Object[]; a null key
+ * in a pair means the "value" half is a child node. Each level consumes 5 bits of the hash, so a node has at most 32 slots and the
+ * trie is at most 7 levels deep (log32 n in practice).
+ *
+ * Persistent updates copy only the nodes on the path from the root to the change; every other node is shared with the previous
+ * version. A transient passes a non-null "edit" token, and nodes created under the same token are mutated in place instead of
+ * copied, which is what makes bulk building cheap.
+ */
+abstract class HamtNode<K, V> {
+    static final Object NOT_FOUND = new Object();
+
+    /** Identity token for transient ownership. */
+    static final class Edit {
+    }
+
+    /** Out-parameter for "did this call add/remove an entry", so size can be tracked without a second lookup. */
+    static final class Change {
+        boolean changed;
+    }
+
+    abstract HamtNode<K, V> assoc(Edit edit, int shift, int hash, K key, V value, Change added);
+
+    /**
+     * @return the node without "key", or null if the node became empty
+     */
+    abstract HamtNode<K, V> without(Edit edit, int shift, int hash, Object key, Change removed);
+
+    abstract Object find(int shift, int hash, Object key);
+
+    abstract Object[] array();
+
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    static <K, V> void forEach(HamtNode<K, V> node, BiConsumer<? super K, ? super V> action) {
+        Object[] array = node.array();
+        for (int i = 0; i < array.length; i += 2) {
+            Object key = array[i];
+            if (key != null) {
+                @SuppressWarnings("unchecked")
+                K typedKey = (K) key;
+                @SuppressWarnings("unchecked")
+                V typedValue = (V) array[i + 1];
+                action.accept(typedKey, typedValue);
+            } else if (array[i + 1] != null) {
+                @SuppressWarnings("unchecked")
+                HamtNode<K, V> child = (HamtNode<K, V>) array[i + 1];
+                forEach(child, action);
+            }
+        }
+    }
+
+    static <K, V> HamtNode<K, V> createNode(Edit edit, int shift, K key1, V value1, int hash2, K key2, V value2) {
+        int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode<>(edit, hash1, new Object[] {key1, value1, key2, value2});
+        }
+        Change ignored = new Change();
+        return BitmapIndexedNode.<K, V>empty()
+                .assoc(edit, shift, hash1, key1, value1, ignored)
+                .assoc(edit, shift, hash2, key2, value2, ignored);
+    }
+
+    static final class BitmapIndexedNode<K, V> extends HamtNode<K, V> {
+        private static final BitmapIndexedNode<?, ?> EMPTY = new BitmapIndexedNode<>(null, 0, new Object[0]);
+
+        final Edit edit;
+        int bitmap;
+        Object[] array;
+
+        BitmapIndexedNode(Edit edit, int bitmap, Object[] array) {
+            this.edit = edit;
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <K, V> BitmapIndexedNode<K, V> empty() {
+            return (BitmapIndexedNode<K, V>) EMPTY;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        HamtNode<K, V> assoc(Edit edit, int shift, int hash, K key, V value, Change added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] grown = new Object[array.length + 2];
+                System.arraycopy(array, 0, grown, 0, 2 * index);
+                grown[2 * index] = key;
+                grown[2 * index + 1] = value;
+                System.arraycopy(array, 2 * index, grown, 2 * (index + 1), array.length - 2 * index);
+                added.changed = true;
+                BitmapIndexedNode<K, V> editable = editable(edit);
+                editable.bitmap = bitmap | bit;
+                editable.array = grown;
+                return editable;
+            }
+            Object existingKey = array[2 * index];
+            Object existingValue = array[2 * index + 1];
+            if (existingKey == null) {
+                @SuppressWarnings("unchecked")
+                HamtNode<K, V> child = (HamtNode<K, V>) existingValue;
+                HamtNode<K, V> updated = child.assoc(edit, shift + 5, hash, key, value, added);
+                return updated == child ? this : set(edit, 2 * index + 1, updated);
+            }
+            if (key.equals(existingKey)) {
+                return existingValue == value ? this : set(edit, 2 * index + 1, value);
+            }
+            added.changed = true;
+            @SuppressWarnings("unchecked")
+            HamtNode<K, V> pushedDown = createNode(edit, shift + 5, (K) existingKey, (V) existingValue, hash, key, value);
+            BitmapIndexedNode<K, V> editable = editable(edit);
+            editable.array[2 * index] = null;
+            editable.array[2 * index + 1] = pushedDown;
+            return editable;
+        }
+
+        @Override
+        HamtNode<K, V> without(Edit edit, int shift, int hash, Object key, Change removed) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object existingKey = array[2 * index];
+            Object existingValue = array[2 * index + 1];
+            if (existingKey == null) {
+                @SuppressWarnings("unchecked")
+                HamtNode<K, V> child = (HamtNode<K, V>) existingValue;
+                HamtNode<K, V> updated = child.without(edit, shift + 5, hash, key, removed);
+                if (updated == child) {
+                    return this;
+                }
+                if (updated != null) {
+                    return set(edit, 2 * index + 1, updated);
+                }
+            } else if (!key.equals(existingKey)) {
+                return this;
+            } else {
+                removed.changed = true;
+            }
+            // Drop the slot entirely
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] shrunk = new Object[array.length - 2];
+            System.arraycopy(array, 0, shrunk, 0, 2 * index);
+            System.arraycopy(array, 2 * (index + 1), shrunk, 2 * index, shrunk.length - 2 * index);
+            BitmapIndexedNode<K, V> editable = editable(edit);
+            editable.bitmap = bitmap ^ bit;
+            editable.array = shrunk;
+            return editable;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int index = index(bit);
+            Object existingKey = array[2 * index];
+            Object existingValue = array[2 * index + 1];
+            if (existingKey == null) {
+                return ((HamtNode<?, ?>) existingValue).find(shift + 5, hash, key);
+            }
+            return key.equals(existingKey) ? existingValue : NOT_FOUND;
+        }
+
+        private BitmapIndexedNode<K, V> set(Edit edit, int i, Object value) {
+            BitmapIndexedNode<K, V> editable = editable(edit);
+            editable.array[i] = value;
+            return editable;
+        }
+
+        /*
+         * Owned by this transient: mutate in place. Otherwise: copy (the copy is owned by "edit", so a transient only copies
+         * each node once no matter how many writes land on it).
+         */
+        private BitmapIndexedNode<K, V> editable(Edit edit) {
+            if (edit != null && this.edit == edit) {
+                return this;
+            }
+            return new BitmapIndexedNode<>(edit, bitmap, array.clone());
+        }
+    }
+
+    /*
+     * Keys whose full 32 bit hashes are equal; searched linearly.
+     */
+    static final class CollisionNode<K, V> extends HamtNode<K, V> {
+        final Edit edit;
+        final int hash;
+        Object[] array;
+
+        CollisionNode(Edit edit, int hash, Object[] array) {
+            this.edit = edit;
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        HamtNode<K, V> assoc(Edit edit, int shift, int hash, K key, V value, Change added) {
+            if (hash != this.hash) {
+                // Different hash: nest this node one level down under a bitmap node, then insert alongside it
+                BitmapIndexedNode<K, V> parent = new BitmapIndexedNode<>(edit, 1 << ((this.hash >>> shift) & 31), new Object[] {null, this});
+                return parent.assoc(edit, shift, hash, key, value, added);
+            }
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                Object[] copy = array.clone();
+                copy[index + 1] = value;
+                return withArray(edit, copy);
+            }
+            added.changed = true;
+            Object[] grown = Arrays.copyOf(array, array.length + 2);
+            grown[array.length] = key;
+            grown[array.length + 1] = value;
+            return withArray(edit, grown);
+        }
+
+        @Override
+        HamtNode<K, V> without(Edit edit, int shift, int hash, Object key, Change removed) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            removed.changed = true;
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] shrunk = new Object[array.length - 2];
+            System.arraycopy(array, 0, shrunk, 0, index);
+            System.arraycopy(array, index + 2, shrunk, index, shrunk.length - index);
+            return withArray(edit, shrunk);
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int index = indexOf(key);
+            return index < 0 ? NOT_FOUND : array[index + 1];
+        }
+
+        private CollisionNode<K, V> withArray(Edit edit, Object[] newArray) {
+            if (edit != null && this.edit == edit) {
+                array = newArray;
+                return this;
+            }
+            return new CollisionNode<>(edit, hash, newArray);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package work.aaronskeels.javaknowledgedemos.persistent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import work.aaronskeels.javaknowledgedemos.persistent.HamtNode.BitmapIndexedNode;
+import work.aaronskeels.javaknowledgedemos.persistent.HamtNode.Change;
+
+/**
+ * Immutable hash map (hash array mapped trie). plus()/minus() return a new map in O(log32 n) that shares every untouched node with
+ * this one, so keeping old versions around is cheap and readers of a version never need a lock. Compare to CopyOnWriteArraySet /
+ * copying a HashMap per write, which is O(n) time and memory per change.
+ * 
+ * It is a read-only java.util.Map (put/remove throw UnsupportedOperationException). Null keys and values are not supported.
+ * For many changes at once use {@link #asTransient()}.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final HamtNode<K, V> root;
+    private final int size;
+
+    PersistentHashMap(HamtNode<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap<?, ?>) {
+            @SuppressWarnings("unchecked")
+            PersistentHashMap<K, V> persistent = (PersistentHashMap<K, V>) map;
+            return persistent;
+        }
+        TransientHashMap<K, V> builder = PersistentHashMap.<K, V>empty().asTransient();
+        map.forEach(builder::put);
+        return builder.persistent();
+    }
+
+    /**
+     * @return a map with "key" mapped to "value" (this map if nothing changed)
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        Change added = new Change();
+        HamtNode<K, V> base = root == null ? BitmapIndexedNode.empty() : root;
+        HamtNode<K, V> newRoot = base.assoc(null, 0, HamtNode.hash(key), key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, added.changed ? size + 1 : size);
+    }
+
+    /**
+     * @return a map without "key" (this map if it wasn't present)
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Change removed = new Change();
+        HamtNode<K, V> newRoot = root.without(null, 0, HamtNode.hash(key), key, removed);
+        if (!removed.changed) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Mutable builder starting from this map's contents. This map is unaffected by whatever the builder does.
+     */
+    public TransientHashMap<K, V> asTransient() {
+        return new TransientHashMap<>(root, size);
+    }
+
+    @Override
+    public V get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        if (root == null || key == null) {
+            return defaultValue;
+        }
+        Object found = root.find(0, HamtNode.hash(key), key);
+        if (found == HamtNode.NOT_FOUND) {
+            return defaultValue;
+        }
+        @SuppressWarnings("unchecked")
+        V value = (V) found;
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root != null && key != null && root.find(0, HamtNode.hash(key), key) != HamtNode.NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            HamtNode.forEach(root, action);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /*
+     * Depth-first walk with an explicit stack of (array, position) frames; O(depth) extra memory.
+     */
+    static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final ArrayDeque<Object[]> arrays = new ArrayDeque<>();
+        private final ArrayDeque<int[]> positions = new ArrayDeque<>();
+        private Entry<K, V> next;
+
+        EntryIterator(HamtNode<K, V> root) {
+            if (root != null) {
+                arrays.push(root.array());
+                positions.push(new int[] {0});
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int[] position = positions.peek();
+                if (position[0] >= array.length) {
+                    arrays.pop();
+                    positions.pop();
+                    continue;
+                }
+                Object key = array[position[0]];
+                Object value = array[position[0] + 1];
+                position[0] += 2;
+                if (key != null) {
+                    @SuppressWarnings("unchecked")
+                    Entry<K, V> entry = new SimpleImmutableEntry<>((K) key, (V) value);
+                    next = entry;
+                    return;
+                }
+                if (value != null) {
+                    arrays.push(((HamtNode<?, ?>) value).array());
+                    positions.push(new int[] {0});
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> current = next;
+            advance();
+            return current;
+        }
+    }
+}
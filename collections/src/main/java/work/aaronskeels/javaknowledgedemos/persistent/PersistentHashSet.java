@@ -0,0 +1,95 @@
+package work.aaronskeels.javaknowledgedemos.persistent;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Immutable set on top of {@link PersistentHashMap} (each element maps to itself), with the same O(log32 n) structurally
+ * shared plus()/minus(). Read-only java.util.Set; nulls not supported.
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+    private static final PersistentHashSet<?> EMPTY = new PersistentHashSet<>(PersistentHashMap.empty());
+
+    private final PersistentHashMap<E, E> map;
+
+    private PersistentHashSet(PersistentHashMap<E, E> map) {
+        this.map = map;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> empty() {
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    public static <E> PersistentHashSet<E> copyOf(Collection<? extends E> elements) {
+        Builder<E> builder = PersistentHashSet.<E>empty().asTransient();
+        for (E element : elements) {
+            builder.add(element);
+        }
+        return builder.persistent();
+    }
+
+    public PersistentHashSet<E> plus(E element) {
+        PersistentHashMap<E, E> updated = map.plus(element, element);
+        return updated == map ? this : new PersistentHashSet<>(updated);
+    }
+
+    public PersistentHashSet<E> minus(Object element) {
+        PersistentHashMap<E, E> updated = map.minus(element);
+        return updated == map ? this : new PersistentHashSet<>(updated);
+    }
+
+    public Builder<E> asTransient() {
+        return new Builder<>(map.asTransient());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return map.keySet().iterator();
+    }
+
+    /**
+     * Transient builder for sets; see {@link TransientHashMap}.
+     */
+    public static final class Builder<E> {
+        private final TransientHashMap<E, E> map;
+
+        private Builder(TransientHashMap<E, E> map) {
+            this.map = map;
+        }
+
+        public Builder<E> add(E element) {
+            map.put(element, element);
+            return this;
+        }
+
+        public Builder<E> remove(Object element) {
+            map.remove(element);
+            return this;
+        }
+
+        public boolean contains(Object element) {
+            return map.containsKey(element);
+        }
+
+        public int size() {
+            return map.size();
+        }
+
+        public PersistentHashSet<E> persistent() {
+            PersistentHashMap<E, E> frozen = map.persistent();
+            return frozen.isEmpty() ? empty() : new PersistentHashSet<>(frozen);
+        }
+    }
+}
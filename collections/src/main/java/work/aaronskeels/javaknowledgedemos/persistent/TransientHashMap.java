@@ -0,0 +1,89 @@
+package work.aaronskeels.javaknowledgedemos.persistent;
+
+import java.util.Objects;
+
+import work.aaronskeels.javaknowledgedemos.persistent.HamtNode.BitmapIndexedNode;
+import work.aaronskeels.javaknowledgedemos.persistent.HamtNode.Change;
+import work.aaronskeels.javaknowledgedemos.persistent.HamtNode.Edit;
+
+/**
+ * Single-threaded mutable builder for a {@link PersistentHashMap}. Nodes it has already copied are updated in place, so building a
+ * map of n entries allocates roughly one node per touched slot instead of a fresh root-to-leaf path per put.
+ * Call {@link #persistent()} once at the end; the transient is unusable afterwards. Not thread-safe.
+ */
+public final class TransientHashMap<K, V> {
+    private Edit edit = new Edit();
+    private HamtNode<K, V> root;
+    private int size;
+    private final Change change = new Change();
+
+    TransientHashMap(HamtNode<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public TransientHashMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        ensureEditable();
+        change.changed = false;
+        HamtNode<K, V> base = root == null ? BitmapIndexedNode.empty() : root;
+        root = base.assoc(edit, 0, HamtNode.hash(key), key, value, change);
+        if (change.changed) {
+            size++;
+        }
+        return this;
+    }
+
+    public TransientHashMap<K, V> remove(Object key) {
+        ensureEditable();
+        if (root == null || key == null) {
+            return this;
+        }
+        change.changed = false;
+        root = root.without(edit, 0, HamtNode.hash(key), key, change);
+        if (change.changed) {
+            size--;
+        }
+        return this;
+    }
+
+    public V get(Object key) {
+        ensureEditable();
+        if (root == null || key == null) {
+            return null;
+        }
+        Object found = root.find(0, HamtNode.hash(key), key);
+        if (found == HamtNode.NOT_FOUND) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        V value = (V) found;
+        return value;
+    }
+
+    public boolean containsKey(Object key) {
+        ensureEditable();
+        return root != null && key != null && root.find(0, HamtNode.hash(key), key) != HamtNode.NOT_FOUND;
+    }
+
+    public int size() {
+        ensureEditable();
+        return size;
+    }
+
+    /**
+     * Freezes the contents into a PersistentHashMap. Dropping the edit token means no node can be mutated in place again.
+     */
+    public PersistentHashMap<K, V> persistent() {
+        ensureEditable();
+        edit = null;
+        return size == 0 ? PersistentHashMap.empty() : new PersistentHashMap<>(root, size);
+    }
+
+    private void ensureEditable() {
+        if (edit == null) {
+            throw new IllegalStateException("Transient used after persistent() call");
+        }
+    }
+}
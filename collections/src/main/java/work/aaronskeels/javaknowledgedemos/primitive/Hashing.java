@@ -0,0 +1,55 @@
+package work.aaronskeels.javaknowledgedemos.primitive;
+
+/**
+ * Shared hashing/sizing helpers for the open addressing tables in this package.
+ * Keys are run through a multiplicative mix first so that sequential ids don't pile up in neighbouring slots.
+ */
+final class Hashing {
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private static final int INT_PHI = 0x9E3779B9;
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    private Hashing() {
+    }
+
+    static int mix(int key) {
+        int h = key * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        long h = key * LONG_PHI;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * Smallest power of two able to hold "expectedSize" entries without crossing the load factor.
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be >= 0: " + expectedSize);
+        }
+        if (!(loadFactor > 0f && loadFactor < 1f)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1): " + loadFactor);
+        }
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) loadFactor);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("expectedSize too large for an array backed table: " + expectedSize);
+        }
+        return Math.max(4, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    static int resizeThreshold(int capacity, float loadFactor) {
+        return Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    static int growCapacity(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Table cannot grow past " + MAX_CAPACITY + " slots");
+        }
+        return capacity << 1;
+    }
+}
@@ -0,0 +1,209 @@
+package work.aaronskeels.javaknowledgedemos.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * HashSet&lt;Integer&gt; equivalent. A HashSet is literally a HashMap with a dummy value, so each element costs a Node plus an Integer;
+ * here each element is one int slot in an open addressing table. Same zero-key and backward-shift tricks as {@link IntIntHashMap}.
+ */
+public class IntHashSet {
+    private static final int FREE_KEY = 0;
+
+    private final float loadFactor;
+    private int[] keys;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+    private boolean hasZeroKey;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize) {
+        this(expectedSize, Hashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntHashSet(int expectedSize, float loadFactor) {
+        this.loadFactor = loadFactor;
+        allocate(Hashing.tableSizeFor(expectedSize, loadFactor));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        if (value == FREE_KEY) {
+            return hasZeroKey;
+        }
+        return slotOf(value) >= 0;
+    }
+
+    /**
+     * @return true if the set changed
+     */
+    public boolean add(int value) {
+        if (value == FREE_KEY) {
+            if (hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = true;
+            size++;
+            return true;
+        }
+        int index = Hashing.mix(value) & mask;
+        int candidate;
+        while ((candidate = keys[index]) != FREE_KEY) {
+            if (candidate == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(Hashing.growCapacity(keys.length));
+        }
+        return true;
+    }
+
+    public boolean remove(int value) {
+        if (value == FREE_KEY) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        int gap = slotOf(value);
+        if (gap < 0) {
+            return false;
+        }
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            int key = keys[index];
+            if (key == FREE_KEY) {
+                break;
+            }
+            int home = Hashing.mix(key) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = key;
+                gap = index;
+            }
+        }
+        keys[gap] = FREE_KEY;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (hasZeroKey) {
+            action.accept(FREE_KEY);
+        }
+        int[] localKeys = keys;
+        for (int key : localKeys) {
+            if (key != FREE_KEY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Not fail-fast; don't mutate the set while iterating.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private boolean zeroPending = hasZeroKey;
+            private int cursor = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == FREE_KEY) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return zeroPending || cursor < keys.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (zeroPending) {
+                    zeroPending = false;
+                    return FREE_KEY;
+                }
+                if (cursor >= keys.length) {
+                    throw new NoSuchElementException();
+                }
+                int value = keys[cursor];
+                cursor = advance(cursor + 1);
+                return value;
+            }
+        };
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int[] position = {0};
+        forEach(value -> result[position[0]++] = value);
+        return result;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int slotOf(int value) {
+        int index = Hashing.mix(value) & mask;
+        int candidate;
+        while ((candidate = keys[index]) != FREE_KEY) {
+            if (candidate == value) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = Hashing.resizeThreshold(capacity, loadFactor);
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        allocate(newCapacity);
+        for (int key : oldKeys) {
+            if (key != FREE_KEY) {
+                int index = Hashing.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,9 @@
+package work.aaronskeels.javaknowledgedemos.primitive;
+
+/**
+ * BiConsumer&lt;Integer, Integer&gt; without the boxing. Used by {@link IntIntHashMap#forEach(IntIntConsumer)}.
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+    void accept(int key, int value);
+}
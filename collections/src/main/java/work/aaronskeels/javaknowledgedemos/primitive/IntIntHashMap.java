@@ -0,0 +1,251 @@
+package work.aaronskeels.javaknowledgedemos.primitive;
+
+import java.util.Arrays;
+
+/**
+ * HashMap&lt;Integer, Integer&gt; equivalent using open addressing (linear probing) over two parallel int[] arrays.
+ * No Node objects, no boxing. Key 0 marks a free slot, so a real 0 key is tracked in a separate field.
+ * Removal uses backward-shift deletion, so there are no tombstones slowing down later probes.
+ */
+public class IntIntHashMap {
+    private static final int FREE_KEY = 0;
+
+    private final float loadFactor;
+    private final int missingValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        this(expectedSize, Hashing.DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /**
+     * @param missingValue what get() returns for an absent key, since there is no null to return
+     */
+    public IntIntHashMap(int expectedSize, float loadFactor, int missingValue) {
+        int capacity = Hashing.tableSizeFor(expectedSize, loadFactor);
+        this.loadFactor = loadFactor;
+        this.missingValue = missingValue;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int missingValue() {
+        return missingValue;
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, missingValue);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE_KEY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int[] localKeys = keys;
+        int index = Hashing.mix(key) & mask;
+        int candidate;
+        while ((candidate = localKeys[index]) != FREE_KEY) {
+            if (candidate == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return hasZeroKey;
+        }
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * @return the previous value, or missingValue if there was none
+     */
+    public int put(int key, int value) {
+        if (key == FREE_KEY) {
+            int previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int index = Hashing.mix(key) & mask;
+        int candidate;
+        while ((candidate = keys[index]) != FREE_KEY) {
+            if (candidate == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(Hashing.growCapacity(keys.length));
+        }
+        return missingValue;
+    }
+
+    /**
+     * Adds "delta" to the current value (missingValue if absent) and returns the result. Handy for counting without a get+put pair.
+     */
+    public int addTo(int key, int delta) {
+        if (key == FREE_KEY) {
+            int updated = (hasZeroKey ? zeroValue : missingValue) + delta;
+            put(key, updated);
+            return updated;
+        }
+        int index = Hashing.mix(key) & mask;
+        int candidate;
+        while ((candidate = keys[index]) != FREE_KEY) {
+            if (candidate == key) {
+                return values[index] += delta;
+            }
+            index = (index + 1) & mask;
+        }
+        int updated = missingValue + delta;
+        put(key, updated);
+        return updated;
+    }
+
+    /**
+     * @return the removed value, or missingValue if the key was absent
+     */
+    public int remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey) {
+                return missingValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int index = slotOf(key);
+        if (index < 0) {
+            return missingValue;
+        }
+        int removed = values[index];
+        shiftKeysBack(index);
+        size--;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(IntIntConsumer action) {
+        if (hasZeroKey) {
+            action.accept(FREE_KEY, zeroValue);
+        }
+        int[] localKeys = keys;
+        int[] localValues = values;
+        for (int i = 0; i < localKeys.length; i++) {
+            if (localKeys[i] != FREE_KEY) {
+                action.accept(localKeys[i], localValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Backing table length, exposed so footprint comparisons can report slots vs entries.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int slotOf(int key) {
+        int index = Hashing.mix(key) & mask;
+        int candidate;
+        while ((candidate = keys[index]) != FREE_KEY) {
+            if (candidate == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /*
+     * Backward-shift deletion: walk the cluster after the removed slot and pull back any entry whose home slot
+     * is at or before the gap, so lookups never need tombstones.
+     */
+    private void shiftKeysBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            int key = keys[index];
+            if (key == FREE_KEY) {
+                break;
+            }
+            int home = Hashing.mix(key) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        keys[gap] = FREE_KEY;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = Hashing.resizeThreshold(capacity, loadFactor);
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = Hashing.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,9 @@
+package work.aaronskeels.javaknowledgedemos.primitive;
+
+/**
+ * BiConsumer&lt;Long, V&gt; without boxing the key. Used by {@link LongObjectHashMap#forEach(LongObjConsumer)}.
+ */
+@FunctionalInterface
+public interface LongObjConsumer<V> {
+    void accept(long key, V value);
+}
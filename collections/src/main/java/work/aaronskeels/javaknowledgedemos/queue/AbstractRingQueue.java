@@ -0,0 +1,166 @@
+package work.aaronskeels.javaknowledgedemos.queue;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Shared BlockingQueue plumbing for the array-backed ring buffers in this package. Subclasses only provide the lock-free
+ * offer()/poll()/peek()/drain(); the blocking operations are built on top of those by retrying with a {@link WaitStrategy}
+ * instead of a Lock + Condition (which is exactly what ArrayBlockingQueue does and why it contends).
+ *
+ * Elements only ever leave from the head: remove(Object), removeAll(), retainAll(), removeIf() and iterator().remove() throw
+ * UnsupportedOperationException, since taking one out of the middle of a lock-free ring would need the lock it doesn't have.
+ * Use poll()/drain() (clear() polls until empty).
+ */
+abstract class AbstractRingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    protected final int capacity;
+    protected final int mask;
+    protected final WaitStrategy waitStrategy;
+
+    AbstractRingQueue(int requestedCapacity, WaitStrategy waitStrategy) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("capacity must be >= 2: " + requestedCapacity);
+        }
+        if (requestedCapacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be <= 2^30: " + requestedCapacity);
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1; // Power of two so index = sequence & mask
+        this.mask = capacity - 1;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+    }
+
+    /**
+     * Removes up to "limit" elements and hands each to "action", doing as little shared-counter traffic as the variant allows.
+     * @return how many elements were drained
+     */
+    public abstract int drain(Consumer<? super E> action, int limit);
+
+    /**
+     * Best-effort copy of the current contents; may miss or repeat elements that move while it runs.
+     */
+    protected abstract Object[] snapshot();
+
+    /**
+     * The rounded-up power-of-two capacity actually in use.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        for (int attempt = 0; !offer(e); attempt++) {
+            checkInterrupted();
+            waitStrategy.idle(attempt);
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; !offer(e); attempt++) {
+            checkInterrupted();
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            waitStrategy.idle(attempt);
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        for (int attempt = 0; (e = poll()) == null; attempt++) {
+            checkInterrupted();
+            waitStrategy.idle(attempt);
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        for (int attempt = 0; (e = poll()) == null; attempt++) {
+            checkInterrupted();
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            waitStrategy.idle(attempt);
+        }
+        return e;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException("Cannot drain a queue into itself");
+        }
+        return maxElements <= 0 ? 0 : drain(c::add, maxElements);
+    }
+
+    /**
+     * Weakly consistent, read-only view over a snapshot (no remove()).
+     */
+    @Override
+    public Iterator<E> iterator() {
+        @SuppressWarnings("unchecked")
+        Iterator<E> iterator = (Iterator<E>) Arrays.asList(snapshot()).iterator();
+        return iterator;
+    }
+
+    /** Unsupported: see the class comment. */
+    @Override
+    public boolean remove(Object o) {
+        throw unsupportedRemoval("remove(Object)");
+    }
+
+    /** Unsupported: see the class comment. */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw unsupportedRemoval("removeAll()");
+    }
+
+    /** Unsupported: see the class comment. */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw unsupportedRemoval("retainAll()");
+    }
+
+    /** Unsupported: see the class comment. */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw unsupportedRemoval("removeIf()");
+    }
+
+    private static UnsupportedOperationException unsupportedRemoval(String operation) {
+        return new UnsupportedOperationException(operation + ": ring queues only remove from the head (poll/drain)");
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
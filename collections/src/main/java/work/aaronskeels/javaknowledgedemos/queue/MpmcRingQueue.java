@@ -0,0 +1,155 @@
+package work.aaronskeels.javaknowledgedemos.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer/multi-consumer queue (Dmitry Vyukov's sequence-numbered ring buffer).
+ * 
+ * Each slot carries a sequence number that says whose turn it is:
+ * - seq == pos: slot is free for the producer that claims position "pos"
+ * - seq == pos + 1: slot holds the element written at "pos" and is ready for the consumer that claims it
+ * Producers/consumers claim positions with a single CAS on the padded tail/head counter and then only touch their own slot,
+ * so there is no lock and, unlike ArrayBlockingQueue/LinkedBlockingQueue, nothing is allocated per element.
+ */
+public class MpmcRingQueue<E> extends AbstractRingQueue<E> {
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final PaddedSequence tail = new PaddedSequence(0);
+    private final PaddedSequence head = new PaddedSequence(0);
+    private final long[] sequences;
+    private final Object[] buffer;
+
+    public MpmcRingQueue(int capacity) {
+        this(capacity, WaitStrategy.YIELD);
+    }
+
+    public MpmcRingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.sequences = new long[this.capacity];
+        this.buffer = new Object[this.capacity];
+        for (int i = 0; i < this.capacity; i++) {
+            SEQUENCE.setRelease(sequences, i, (long) i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false; // The slot still holds the element from one lap ago: full
+            } else {
+                position = tail.get(); // Another producer got here first
+            }
+        }
+        ELEMENT.set(buffer, index, e);
+        SEQUENCE.setRelease(sequences, index, position + 1);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long position = head.get();
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+            long difference = sequence - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null; // Not published yet: empty
+            } else {
+                position = head.get();
+            }
+        }
+        @SuppressWarnings("unchecked")
+        E e = (E) ELEMENT.get(buffer, index);
+        ELEMENT.set(buffer, index, null);
+        SEQUENCE.setRelease(sequences, index, position + capacity); // Hand the slot to the producer one lap ahead
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+            if (sequence - (position + 1) < 0) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            E e = (E) ELEMENT.getAcquire(buffer, index);
+            // Only trust the read if no consumer took that slot in the meantime
+            if (e != null && head.get() == position) {
+                return e;
+            }
+        }
+    }
+
+    /**
+     * Consumers still have to claim slots one CAS at a time here (any one of them may be racing us), so this is a poll() loop
+     * that at least avoids drainTo's per-element Collection bookkeeping in AbstractQueue.
+     */
+    @Override
+    public int drain(Consumer<? super E> action, int limit) {
+        int drained = 0;
+        E e;
+        while (drained < limit && (e = poll()) != null) {
+            action.accept(e);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            long before = head.get();
+            long currentTail = tail.get();
+            long after = head.get();
+            if (before == after) {
+                return (int) Math.max(0, Math.min(capacity, currentTail - after));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    @Override
+    protected Object[] snapshot() {
+        List<Object> elements = new ArrayList<>();
+        long end = tail.get();
+        for (long position = head.get(); position < end; position++) {
+            int index = (int) position & mask;
+            Object e = ELEMENT.getAcquire(buffer, index);
+            if (e != null && (long) SEQUENCE.getAcquire(sequences, index) == position + 1) {
+                elements.add(e);
+            }
+        }
+        return elements.toArray();
+    }
+}
@@ -0,0 +1,63 @@
+package work.aaronskeels.javaknowledgedemos.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+ * A long counter padded so it owns a full cache line (on both sides). Producers hammer the tail and consumers hammer the
+ * head; if the two sat on the same 64 byte line every write by one side would invalidate the other side's cache ("false sharing").
+ * The padding lives in superclasses/subclasses because the JVM is free to reorder fields within one class, but always lays out
+ * superclass fields first. Same trick the LMAX Disruptor uses.
+ */
+abstract class LeftPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends LeftPadding {
+    protected volatile long value;
+}
+
+final class PaddedSequence extends SequenceValue {
+    protected long p11, p12, p13, p14, p15, p16, p17;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    PaddedSequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    long get() {
+        return value;
+    }
+
+    long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    long getPlain() {
+        return (long) VALUE.get(this);
+    }
+
+    void setPlain(long newValue) {
+        VALUE.set(this, newValue);
+    }
+
+    /**
+     * Ordered store ("lazySet"): cheaper than a volatile write, still publishes everything written before it.
+     */
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
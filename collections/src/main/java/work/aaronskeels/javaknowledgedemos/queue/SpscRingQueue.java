@@ -0,0 +1,138 @@
+package work.aaronskeels.javaknowledgedemos.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Bounded single-producer/single-consumer ring buffer. Exactly ONE thread may offer/put and exactly ONE (other) thread may
+ * poll/take/drain; size()/isEmpty() are safe from anywhere.
+ * 
+ * With only one writer per counter there's no CAS at all: each side does a plain read of its own counter and publishes it with an
+ * ordered store. Each side also caches the last value it saw of the other side's counter, so it only reads that (contended) cache
+ * line when the cached value says the queue looks full/empty.
+ */
+public class SpscRingQueue<E> extends AbstractRingQueue<E> {
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final PaddedSequence tail = new PaddedSequence(0);
+    private final PaddedSequence headCache = new PaddedSequence(0); // Producer-owned
+    private final PaddedSequence head = new PaddedSequence(0);
+    private final PaddedSequence tailCache = new PaddedSequence(0); // Consumer-owned
+    private final Object[] buffer;
+
+    public SpscRingQueue(int capacity) {
+        this(capacity, WaitStrategy.YIELD);
+    }
+
+    public SpscRingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.buffer = new Object[this.capacity];
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long position = tail.getPlain();
+        if (position - headCache.getPlain() >= capacity) {
+            headCache.setPlain(head.getAcquire());
+            if (position - headCache.getPlain() >= capacity) {
+                return false;
+            }
+        }
+        ELEMENT.set(buffer, (int) position & mask, e);
+        tail.setRelease(position + 1);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long position = head.getPlain();
+        if (!available(position)) {
+            return null;
+        }
+        int index = (int) position & mask;
+        @SuppressWarnings("unchecked")
+        E e = (E) ELEMENT.get(buffer, index);
+        ELEMENT.set(buffer, index, null);
+        head.setRelease(position + 1);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        long position = head.getPlain();
+        if (!available(position)) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        E e = (E) ELEMENT.get(buffer, (int) position & mask);
+        return e;
+    }
+
+    /**
+     * True batching: reads the producer's counter once, hands over everything up to it, then publishes the new head once.
+     */
+    @Override
+    public int drain(Consumer<? super E> action, int limit) {
+        long start = head.getPlain();
+        long end = Math.min(tail.getAcquire(), start + limit);
+        long position = start;
+        try {
+            for (; position < end; position++) {
+                int index = (int) position & mask;
+                @SuppressWarnings("unchecked")
+                E e = (E) ELEMENT.get(buffer, index);
+                ELEMENT.set(buffer, index, null);
+                action.accept(e);
+            }
+        } finally {
+            // Counts the element whose action threw as consumed, like a poll() followed by a failing add() would
+            long consumed = position < end ? position + 1 : position;
+            tailCache.setPlain(Math.max(tailCache.getPlain(), end));
+            head.setRelease(consumed);
+        }
+        return (int) (end - start);
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            long before = head.get();
+            long currentTail = tail.get();
+            long after = head.get();
+            if (before == after) {
+                return (int) Math.max(0, Math.min(capacity, currentTail - after));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    @Override
+    protected Object[] snapshot() {
+        List<Object> elements = new ArrayList<>();
+        long end = tail.get();
+        for (long position = head.get(); position < end; position++) {
+            Object e = ELEMENT.getAcquire(buffer, (int) position & mask);
+            if (e != null) {
+                elements.add(e);
+            }
+        }
+        return elements.toArray();
+    }
+
+    private boolean available(long position) {
+        if (position < tailCache.getPlain()) {
+            return true;
+        }
+        tailCache.setPlain(tail.getAcquire());
+        return position < tailCache.getPlain();
+    }
+}
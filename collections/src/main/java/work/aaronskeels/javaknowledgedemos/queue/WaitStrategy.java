@@ -0,0 +1,52 @@
+package work.aaronskeels.javaknowledgedemos.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a blocking put()/take() does between failed attempts on a lock-free queue. Trades latency for CPU:
+ * - SPIN: Burns a core, lowest hand-off latency. Only for threads pinned to otherwise idle cores.
+ * - YIELD: Spins briefly then Thread.yield()s. Good middle ground when threads <= cores.
+ * - PARK: Spins briefly, yields, then parks with a growing (capped) timeout. Near-zero CPU when idle, slowest to wake.
+ * There are no signals between producers and consumers (that's the point), so PARK polls rather than being woken.
+ */
+public enum WaitStrategy {
+    SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    YIELD {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                int shift = Math.min(attempt - SPIN_TRIES - YIELD_TRIES, MAX_PARK_SHIFT);
+                LockSupport.parkNanos(MIN_PARK_NANOS << shift);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 50;
+    private static final long MIN_PARK_NANOS = 1_000L;
+    private static final int MAX_PARK_SHIFT = 10; // ~1ms cap
+
+    /**
+     * @param attempt how many times in a row the caller has already failed, starting at 0
+     */
+    public abstract void idle(int attempt);
+}
@@ -0,0 +1,348 @@
+package work.aaronskeels.javaknowledgedemos.timer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical hashed timing wheel (Varghese & Lauck), for huge numbers of timeouts that are mostly cancelled before they fire
+ * (request timeouts, idle connection checks, retries).
+ *
+ * DelayQueue and ScheduledThreadPoolExecutor keep a binary heap behind one lock, so every schedule and cancel is O(log n) while
+ * holding it. Here time is cut into ticks and a timer lands in bucket (deadline tick mod wheelSize) of a circular array: O(1).
+ * Timers too far out for one rotation go in a coarser wheel whose buckets span a whole rotation of the wheel below, and so on
+ * (like hours/minutes/seconds hands). When a coarse bucket comes due, its timers "cascade" into the finer wheels.
+ *
+ * Callers never touch the buckets. schedule() enqueues onto a lock-free queue and cancel() just flips a state flag. A single
+ * driver thread wakes once per tick, moves new timers into buckets, unlinks cancelled ones and fires what is due. The trade-off
+ * is resolution: a task runs within one tick after its deadline (never before it). Tasks run on the driver thread unless a
+ * taskExecutor is configured, so they must be short or hand off.
+ */
+public final class HierarchicalTimingWheel implements AutoCloseable {
+    /** Doubly linked list of timeouts; only the driver thread touches it. */
+    static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = timeout.next = null;
+        }
+
+        /** Detaches and returns the whole list (linked through "next"). */
+        Timeout takeAll() {
+            Timeout first = head;
+            head = tail = null;
+            for (Timeout timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+            }
+            return first;
+        }
+    }
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final Bucket[][] levels;
+    private final LongSupplier ticker;
+    private final long startNanos;
+    private final Executor taskExecutor;
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final LongAdder pending = new LongAdder();
+    private final Thread driver;
+    private volatile boolean closed;
+    private long currentTick; // Driver thread only
+
+    private HierarchicalTimingWheel(Builder builder) {
+        this.tickNanos = builder.tickNanos;
+        this.wheelBits = Integer.numberOfTrailingZeros(builder.wheelSize);
+        this.wheelMask = builder.wheelSize - 1;
+        // Enough levels to cover every tick count representable in 63 bits; created lazily
+        this.levels = new Bucket[(62 + wheelBits) / wheelBits][];
+        this.ticker = builder.ticker;
+        this.taskExecutor = builder.taskExecutor;
+        this.startNanos = ticker.getAsLong();
+        this.driver = builder.threadFactory.newThread(this::drive);
+        driver.start();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    long nanoTime() {
+        return ticker.getAsLong();
+    }
+
+    /**
+     * Runs "task" once, no earlier than "delay" from now and at most about one tick later.
+     *
+     * @throws RejectedExecutionException if the wheel has been closed
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Objects.requireNonNull(task);
+        if (closed) {
+            throw new RejectedExecutionException("Timing wheel is closed");
+        }
+        // Capped at ~146 years so nanoTime arithmetic below can't overflow
+        long delayNanos = Math.min(Math.max(0, unit.toNanos(delay)), Long.MAX_VALUE >> 1);
+        long now = ticker.getAsLong();
+        long deadlineNanos = now + delayNanos;
+        // Round up so the tick that fires the task starts at or after the deadline
+        long elapsed = now - startNanos + delayNanos;
+        long deadlineTick = elapsed / tickNanos + (elapsed % tickNanos == 0 ? 0 : 1);
+        Timeout timeout = new Timeout(this, task, deadlineNanos, deadlineTick);
+        pending.increment();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /** Timers scheduled and neither fired nor cancelled yet. */
+    public long pendingTimers() {
+        return pending.sum();
+    }
+
+    public long tickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void cancelled(Timeout timeout) {
+        pending.decrement();
+        cancelled.add(timeout);
+    }
+
+    /**
+     * Stops the driver thread. Timers that haven't fired never will; their Timeout handles stay pending. Waits for the driver to
+     * finish the tick it is on, unless called from a task running on the driver itself.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(driver);
+        if (Thread.currentThread() != driver) {
+            try {
+                driver.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ---- Driver thread ----
+
+    private void drive() {
+        while (!closed) {
+            long nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+            long sleep = nextTickNanos - ticker.getAsLong();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue; // Re-check: parkNanos can return early
+            }
+            long targetTick = (ticker.getAsLong() - startNanos) / tickNanos;
+            transferScheduled();
+            unlinkCancelled();
+            // Catch up tick by tick if we fell behind (GC pause, slow task) so nothing is skipped
+            while (currentTick < targetTick && !closed) {
+                advance();
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (Timeout timeout; (timeout = scheduled.poll()) != null;) {
+            if (!timeout.isCancelled()) {
+                insert(timeout);
+            }
+        }
+    }
+
+    private void unlinkCancelled() {
+        for (Timeout timeout; (timeout = cancelled.poll()) != null;) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /*
+     * Puts the timer on the finest level where its deadline is less than one rotation ahead, comparing whole bucket spans at that
+     * level (so a bucket never receives a timer for its next lap while it is the one currently being processed).
+     */
+    private void insert(Timeout timeout) {
+        long deadline = timeout.deadlineTick;
+        if (deadline <= currentTick) {
+            fire(timeout);
+            return;
+        }
+        for (int level = 0;; level++) {
+            int shift = level * wheelBits;
+            if (level == levels.length - 1 || (deadline >>> shift) - (currentTick >>> shift) <= wheelMask) {
+                bucket(level, (int) (deadline >>> shift) & wheelMask).add(timeout);
+                return;
+            }
+        }
+    }
+
+    private Bucket bucket(int level, int index) {
+        Bucket[] wheel = levels[level];
+        if (wheel == null) {
+            wheel = levels[level] = new Bucket[wheelMask + 1];
+        }
+        Bucket bucket = wheel[index];
+        if (bucket == null) {
+            bucket = wheel[index] = new Bucket();
+        }
+        return bucket;
+    }
+
+    private void advance() {
+        long tick = ++currentTick;
+        // Coarsest wheel whose bucket boundary we just crossed; cascade from there down so timers settle in the finest wheel
+        int top = 0;
+        while (top + 1 < levels.length && (tick & ((1L << (wheelBits * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            if (levels[level] == null) {
+                continue;
+            }
+            Bucket bucket = levels[level][(int) (tick >>> (wheelBits * level)) & wheelMask];
+            if (bucket != null) {
+                reinsert(bucket.takeAll());
+            }
+        }
+        if (levels[0] != null) {
+            Bucket bucket = levels[0][(int) tick & wheelMask];
+            if (bucket != null) {
+                for (Timeout timeout = bucket.takeAll(); timeout != null;) {
+                    Timeout next = timeout.next;
+                    timeout.prev = timeout.next = null;
+                    fire(timeout);
+                    timeout = next;
+                }
+            }
+        }
+    }
+
+    private void reinsert(Timeout first) {
+        for (Timeout timeout = first; timeout != null;) {
+            Timeout next = timeout.next;
+            timeout.prev = timeout.next = null;
+            if (!timeout.isCancelled()) {
+                insert(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        if (!timeout.expire()) {
+            return; // Cancelled
+        }
+        pending.decrement();
+        try {
+            taskExecutor.execute(timeout.task);
+        } catch (Throwable t) {
+            // A failing task must not kill the driver (and with it every other timer)
+            Thread.UncaughtExceptionHandler handler = Thread.currentThread().getUncaughtExceptionHandler();
+            handler.uncaughtException(Thread.currentThread(), t);
+        }
+    }
+
+    /**
+     * Settings for {@link HierarchicalTimingWheel}. Defaults: 1 ms ticks, 512 buckets per wheel, tasks run on the driver thread.
+     */
+    public static final class Builder {
+        private long tickNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        private int wheelSize = 512;
+        private Executor taskExecutor = Runnable::run;
+        private ThreadFactory threadFactory = task -> {
+            Thread thread = new Thread(task, "timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        };
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * Timer resolution. Finer ticks are more precise but wake the driver more often.
+         */
+        public Builder tickDuration(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("duration must be > 0: " + duration);
+            }
+            this.tickNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Buckets per wheel; a power of two between 16 and 65536. One rotation of the finest wheel is wheelSize ticks.
+         */
+        public Builder wheelSize(int wheelSize) {
+            if (wheelSize < 16 || wheelSize > 1 << 16 || Integer.bitCount(wheelSize) != 1) {
+                throw new IllegalArgumentException("wheelSize must be a power of two in [16, 65536]: " + wheelSize);
+            }
+            this.wheelSize = wheelSize;
+            return this;
+        }
+
+        /**
+         * Where fired tasks run. Defaults to the driver thread itself.
+         */
+        public Builder taskExecutor(Executor taskExecutor) {
+            this.taskExecutor = Objects.requireNonNull(taskExecutor);
+            return this;
+        }
+
+        /**
+         * Creates the driver thread. Defaults to a daemon thread named "timing-wheel".
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = Objects.requireNonNull(threadFactory);
+            return this;
+        }
+
+        /**
+         * Time source in nanoseconds.
+         */
+        public Builder ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        public HierarchicalTimingWheel build() {
+            return new HierarchicalTimingWheel(this);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package work.aaronskeels.javaknowledgedemos.timer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handle for one task scheduled on a {@link HierarchicalTimingWheel}. cancel() is O(1) and lock-free: it flips the state and
+ * leaves unlinking from the wheel to the driver thread.
+ */
+public final class Timeout {
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static final int PENDING = 0;
+    static final int EXPIRED = 1;
+    static final int CANCELLED = 2;
+
+    final HierarchicalTimingWheel wheel;
+    final Runnable task;
+    final long deadlineNanos;
+    final long deadlineTick;
+    @SuppressWarnings("unused") // Accessed via STATE
+    private volatile int state;
+
+    // Bucket links, only touched by the driver thread
+    HierarchicalTimingWheel.Bucket bucket;
+    Timeout prev;
+    Timeout next;
+
+    Timeout(HierarchicalTimingWheel wheel, Runnable task, long deadlineNanos, long deadlineTick) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+        this.deadlineTick = deadlineTick;
+    }
+
+    /**
+     * @return true if this call stopped the task from running; false if it already ran (or is running) or was already cancelled
+     */
+    public boolean cancel() {
+        if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+            return false;
+        }
+        wheel.cancelled(this);
+        return true;
+    }
+
+    /** Claims the timeout for execution; only one of expire() and cancel() can win. */
+    boolean expire() {
+        return STATE.compareAndSet(this, PENDING, EXPIRED);
+    }
+
+    public boolean isCancelled() {
+        return (int) STATE.getVolatile(this) == CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return (int) STATE.getVolatile(this) == EXPIRED;
+    }
+
+    /** Time left until the deadline (negative once it has passed). The task may run up to one tick after the deadline. */
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadlineNanos - wheel.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    public Runnable task() {
+        return task;
+    }
+}
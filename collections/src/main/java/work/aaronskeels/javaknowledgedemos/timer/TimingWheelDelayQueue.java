@@ -0,0 +1,239 @@
+package work.aaronskeels.javaknowledgedemos.timer;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drop-in for {@link java.util.concurrent.DelayQueue} backed by a {@link HierarchicalTimingWheel}: offer() schedules a timer that
+ * moves the element to a ready queue when its delay runs out, and take()/poll() read from that ready queue. Pending elements are
+ * indexed by equals()/hashCode(), so remove(o) is O(1) too, where DelayQueue scans its whole heap. That is the common timeout
+ * pattern (most are removed before they expire) and with a million pending it is the difference between nanoseconds and
+ * milliseconds per remove.
+ *
+ * Differences from DelayQueue:
+ * - An element becomes available up to one wheel tick after getDelay() reaches zero, and elements expiring in the same tick may
+ *   come out in any order.
+ * - getDelay() is read once, at offer(); an element whose delay later changes is not re-sorted.
+ * - peek() only sees elements that have already expired (DelayQueue shows the unexpired head).
+ * - Iteration and toArray() are weakly consistent snapshots.
+ */
+public final class TimingWheelDelayQueue<E extends Delayed> extends AbstractQueue<E> implements BlockingQueue<E> {
+    /** One offer() of an element; equal elements offered more than once chain through "next". */
+    private final class Entry implements Runnable {
+        final E element;
+        volatile Entry next; // Written only inside pending.compute*, read by snapshots
+        volatile Timeout timeout;
+
+        Entry(E element) {
+            this.element = element;
+        }
+
+        @Override
+        public void run() {
+            // Whoever unlinks the entry from "pending" owns it, so a racing remove(o) and expiry can't both win
+            if (unlink(this)) {
+                ready.add(element);
+            }
+        }
+    }
+
+    private final HierarchicalTimingWheel wheel;
+    private final ConcurrentHashMap<E, Entry> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final LinkedBlockingQueue<E> ready = new LinkedBlockingQueue<>();
+
+    /**
+     * @param wheel drives expiry and may be shared with other timers. Closing it stops unexpired elements from ever becoming
+     *              available.
+     */
+    public TimingWheelDelayQueue(HierarchicalTimingWheel wheel) {
+        this.wheel = Objects.requireNonNull(wheel);
+    }
+
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        long delay = element.getDelay(TimeUnit.NANOSECONDS);
+        if (delay <= 0) {
+            return ready.add(element);
+        }
+        Entry entry = new Entry(element);
+        pending.compute(element, (key, head) -> {
+            entry.next = head;
+            return entry;
+        });
+        pendingCount.incrementAndGet();
+        entry.timeout = wheel.schedule(entry, delay, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private boolean unlink(Entry entry) {
+        boolean[] unlinked = {false};
+        pending.computeIfPresent(entry.element, (key, head) -> {
+            if (head == entry) {
+                unlinked[0] = true;
+                return head.next;
+            }
+            for (Entry previous = head; previous.next != null; previous = previous.next) {
+                if (previous.next == entry) {
+                    previous.next = entry.next;
+                    unlinked[0] = true;
+                    break;
+                }
+            }
+            return head;
+        });
+        if (unlinked[0]) {
+            pendingCount.decrementAndGet();
+        }
+        return unlinked[0];
+    }
+
+    @Override
+    public void put(E element) {
+        offer(element);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) {
+        return offer(element);
+    }
+
+    @Override
+    public E poll() {
+        return ready.poll();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return ready.take();
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return ready.poll(timeout, unit);
+    }
+
+    /** The next expired element, or null; unlike DelayQueue, never an element that is still delayed. */
+    @Override
+    public E peek() {
+        return ready.peek();
+    }
+
+    /**
+     * Removes one instance of "o", cancelling its timer if it hasn't expired. O(1) for pending elements; expired ones waiting to
+     * be taken are found by a scan of the ready queue, like LinkedBlockingQueue.remove(o).
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        List<Entry> taken = new ArrayList<>(1);
+        pending.computeIfPresent(asKey(o), (key, head) -> {
+            taken.add(head);
+            return head.next;
+        });
+        if (!taken.isEmpty()) {
+            pendingCount.decrementAndGet();
+            cancel(taken.get(0));
+            return true;
+        }
+        return ready.remove(o);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E asKey(Object o) {
+        return (E) o; // Only used for equals()/hashCode() lookups
+    }
+
+    private void cancel(Entry entry) {
+        Timeout timeout = entry.timeout;
+        // Null only while offer() is between linking the entry and scheduling it; the timer then fires into a no-op
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && (pending.containsKey(o) || ready.contains(o));
+    }
+
+    @Override
+    public int size() {
+        return pendingCount.get() + ready.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> sink) {
+        return drainTo(sink, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> sink, int maxElements) {
+        if (sink == this) {
+            throw new IllegalArgumentException("sink must not be this queue");
+        }
+        return ready.drainTo(sink, maxElements);
+    }
+
+    @Override
+    public void clear() {
+        ready.clear();
+        for (E element : pending.keySet()) {
+            while (remove(element)) {
+                // Drop every duplicate
+            }
+        }
+    }
+
+    /** Snapshot of expired then pending elements; remove() through the iterator removes from the queue. */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>(ready);
+        for (Entry head : pending.values()) {
+            for (Entry entry = head; entry != null; entry = entry.next) {
+                snapshot.add(entry.element);
+            }
+        }
+        Iterator<E> delegate = snapshot.iterator();
+        return new Iterator<>() {
+            private E last;
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return last = delegate.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                TimingWheelDelayQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
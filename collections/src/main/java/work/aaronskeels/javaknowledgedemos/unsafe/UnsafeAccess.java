@@ -0,0 +1,129 @@
+package work.aaronskeels.javaknowledgedemos.unsafe;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * The one place this module uses sun.misc.Unsafe, for what the supported APIs on the JDK this repo targets can't do yet:
+ * - invokeCleaner() frees a direct buffer's native memory now rather than whenever the GC gets to it (the Foreign Memory API's
+ *   Arena.close() would, but it is still a preview API there).
+ * - objectFieldOffset(), arrayBaseOffset(), arrayIndexScale() and getObject() expose the running JVM's real object layout.
+ * Unsafe is looked up reflectively and called through MethodHandles instead of being named in the source: javac warns about
+ * every mention of an internal API, and those warnings can't be turned off with @SuppressWarnings.
+ */
+public final class UnsafeAccess {
+    private static final MethodHandle INVOKE_CLEANER;
+    private static final MethodHandle OBJECT_FIELD_OFFSET;
+    private static final MethodHandle ARRAY_BASE_OFFSET;
+    private static final MethodHandle ARRAY_INDEX_SCALE;
+    private static final MethodHandle GET_OBJECT;
+
+    static {
+        MethodHandle invokeCleaner = null;
+        MethodHandle objectFieldOffset = null;
+        MethodHandle arrayBaseOffset = null;
+        MethodHandle arrayIndexScale = null;
+        MethodHandle getObject = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            invokeCleaner = lookup.findVirtual(type, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(unsafe);
+            objectFieldOffset = lookup.findVirtual(type, "objectFieldOffset", MethodType.methodType(long.class, Field.class))
+                    .bindTo(unsafe);
+            arrayBaseOffset = lookup.findVirtual(type, "arrayBaseOffset", MethodType.methodType(int.class, Class.class))
+                    .bindTo(unsafe);
+            arrayIndexScale = lookup.findVirtual(type, "arrayIndexScale", MethodType.methodType(int.class, Class.class))
+                    .bindTo(unsafe);
+            getObject = lookup.findVirtual(type, "getObject", MethodType.methodType(Object.class, Object.class, long.class))
+                    .bindTo(unsafe);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not there (or locked down): isAvailable() says so
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        OBJECT_FIELD_OFFSET = objectFieldOffset;
+        ARRAY_BASE_OFFSET = arrayBaseOffset;
+        ARRAY_INDEX_SCALE = arrayIndexScale;
+        GET_OBJECT = getObject;
+    }
+
+    private UnsafeAccess() {
+    }
+
+    public static boolean isAvailable() {
+        return GET_OBJECT != null;
+    }
+
+    /**
+     * Frees a direct buffer's native memory right away; returns false (leaving it to the GC) if Unsafe isn't available. The
+     * buffer, and any slice or duplicate of it, must never be touched again (doing so can crash the JVM).
+     */
+    public static boolean invokeCleaner(ByteBuffer directBuffer) {
+        if (INVOKE_CLEANER == null) {
+            return false;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(directBuffer);
+            return true;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Offset of an instance field within its object; throws UnsupportedOperationException for records and hidden classes. */
+    public static long objectFieldOffset(Field field) {
+        try {
+            return (long) require(OBJECT_FIELD_OFFSET).invokeExact(field);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    public static int arrayBaseOffset(Class<?> arrayType) {
+        try {
+            return (int) require(ARRAY_BASE_OFFSET).invokeExact(arrayType);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    public static int arrayIndexScale(Class<?> arrayType) {
+        try {
+            return (int) require(ARRAY_INDEX_SCALE).invokeExact(arrayType);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** The reference at "offset" (from objectFieldOffset()) in "object". */
+    public static Object getObject(Object object, long offset) {
+        try {
+            return (Object) require(GET_OBJECT).invokeExact(object, offset);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private static MethodHandle require(MethodHandle handle) {
+        if (handle == null) {
+            throw new IllegalStateException("sun.misc.Unsafe is not available");
+        }
+        return handle;
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(t); // Unsafe declares no checked exceptions
+    }
+}
@@ -0,0 +1,131 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.btree.BPlusTreeMap;
+import work.aaronskeels.javaknowledgedemos.btree.LongBPlusTreeMap;
+
+/**
+ * Point lookups and short range scans (a random window of "rangeLength" keys, summed) over the same sorted long keys in
+ * TreeMap, ConcurrentSkipListMap, BPlusTreeMap and LongBPlusTreeMap. The scans are where the B+tree should win clearly: after one
+ * descent it reads consecutive array slots instead of following a pointer per entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BPlusTreeBenchmark {
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    @Param({"100"})
+    public int rangeLength;
+
+    private TreeMap<Long, Long> treeMap;
+    private ConcurrentSkipListMap<Long, Long> skipList;
+    private BPlusTreeMap<Long, Long> bPlusTree;
+    private LongBPlusTreeMap<Long> longBPlusTree;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        treeMap = new TreeMap<>();
+        skipList = new ConcurrentSkipListMap<>();
+        bPlusTree = new BPlusTreeMap<>();
+        longBPlusTree = new LongBPlusTreeMap<>();
+        // Sparse keys so lookups also miss sometimes
+        for (long i = 0; i < entries; i++) {
+            Long key = i * 2;
+            treeMap.put(key, i);
+            skipList.put(key, i);
+            bPlusTree.put(key, i);
+            longBPlusTree.put(key, i);
+        }
+    }
+
+    private long randomKey() {
+        return random.nextInt(entries * 2);
+    }
+
+    @Benchmark
+    public Long getTreeMap() {
+        return treeMap.get(randomKey());
+    }
+
+    @Benchmark
+    public Long getSkipList() {
+        return skipList.get(randomKey());
+    }
+
+    @Benchmark
+    public Long getBPlusTree() {
+        return bPlusTree.get(randomKey());
+    }
+
+    @Benchmark
+    public Long getLongBPlusTree() {
+        return longBPlusTree.get(randomKey());
+    }
+
+    private static long sum(NavigableMap<Long, Long> map, long from, long to) {
+        long sum = 0;
+        for (Map.Entry<Long, Long> entry : map.subMap(from, true, to, false).entrySet()) {
+            sum += entry.getValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long scanTreeMap() {
+        long from = randomKey();
+        return sum(treeMap, from, from + rangeLength * 2L);
+    }
+
+    @Benchmark
+    public long scanSkipList() {
+        long from = randomKey();
+        return sum(skipList, from, from + rangeLength * 2L);
+    }
+
+    @Benchmark
+    public long scanBPlusTree() {
+        long from = randomKey();
+        return sum(bPlusTree, from, from + rangeLength * 2L);
+    }
+
+    @Benchmark
+    public long scanLongBPlusTree() {
+        long from = randomKey();
+        long[] sum = new long[1];
+        longBPlusTree.forEachInRange(from, from + rangeLength * 2L, (key, value) -> sum[0] += value);
+        return sum[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BPlusTreeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
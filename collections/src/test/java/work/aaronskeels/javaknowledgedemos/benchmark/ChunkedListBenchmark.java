@@ -0,0 +1,145 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.list.ChunkedList;
+
+/**
+ * ChunkedList against the lists/deques it replaces, all holding "size" Integers:
+ * - queue: addLast + removeFirst (FIFO churn); ArrayList pays an O(n) shift here, so it is left out
+ * - iterate: sum every element
+ * - getStrided: get(i) at a stride through the list; ArrayDeque has no get(i)
+ * - insertRemoveMiddle: add(size / 2) then remove(size / 2), LinkedList's supposed strength
+ * - removeEveryOther: Iterator.remove() on alternate elements of a fresh copy (includes the copy)
+ * Combinations that don't apply (queue on ArrayList, get/insert on ArrayDeque) fail their first invocation and JMH moves on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkedListBenchmark {
+    @Param({"ChunkedList", "LinkedList", "ArrayList", "ArrayDeque"})
+    public String type;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private List<Integer> list; // Null for ArrayDeque
+    private Deque<Integer> deque; // Null for ArrayList
+    private Iterable<Integer> iterable;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        list = null;
+        deque = null;
+        switch (type) {
+            case "ChunkedList" -> {
+                ChunkedList<Integer> chunked = new ChunkedList<>();
+                list = chunked;
+                deque = chunked;
+            }
+            case "LinkedList" -> {
+                LinkedList<Integer> linked = new LinkedList<>();
+                list = linked;
+                deque = linked;
+            }
+            case "ArrayList" -> list = new ArrayList<>();
+            case "ArrayDeque" -> deque = new ArrayDeque<>();
+            default -> throw new IllegalArgumentException("Unknown list type: " + type);
+        }
+        iterable = list != null ? list : deque;
+        for (int i = 0; i < size; i++) {
+            if (list != null) {
+                list.add(i);
+            } else {
+                deque.addLast(i);
+            }
+        }
+    }
+
+    private void require(Object collection, String kind) {
+        if (collection == null) {
+            throw new IllegalStateException(type + " is not a " + kind);
+        }
+    }
+
+    @Benchmark
+    public Integer queue() {
+        require(deque, "Deque");
+        deque.addLast(next++);
+        return deque.removeFirst();
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Integer element : iterable) {
+            sum += element;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Integer getStrided() {
+        require(list, "List");
+        next += 0x9E3779B1 >>> 8; // Large odd stride so consecutive calls hit different chunks/nodes
+        return list.get(Math.floorMod(next, size));
+    }
+
+    @Benchmark
+    public Integer insertRemoveMiddle() {
+        require(list, "List");
+        list.add(size / 2, next++);
+        return list.remove(size / 2);
+    }
+
+    @Benchmark
+    public int removeEveryOther() {
+        Iterable<Integer> copy = switch (type) {
+            case "ChunkedList" -> new ChunkedList<>(list);
+            case "LinkedList" -> new LinkedList<>(list);
+            case "ArrayList" -> new ArrayList<>(list);
+            default -> new ArrayDeque<>(deque);
+        };
+        int removed = 0;
+        Iterator<Integer> iterator = copy.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ChunkedListBenchmark.class.getSimpleName()).build()).run();
+    }
+}
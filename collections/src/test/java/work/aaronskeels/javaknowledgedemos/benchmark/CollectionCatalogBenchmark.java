@@ -0,0 +1,163 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.footprint.CollectionCatalog;
+import work.aaronskeels.javaknowledgedemos.footprint.CollectionCatalog.Candidate;
+import work.aaronskeels.javaknowledgedemos.footprint.CollectionHandle;
+import work.aaronskeels.javaknowledgedemos.footprint.Elements;
+
+/**
+ * Throughput of every CollectionCatalog type (everything named in App's exemplify* notes) at sizes 10 to 10M; the footprint side
+ * is FootprintReport. See CollectionHandle for what add/get/remove mean per category.
+ * - fill: build a collection of "size" elements from empty (per invocation, so divide by size for per-add cost)
+ * - get: one lookup in a collection of "size" elements
+ * - iterate: visit all "size" elements
+ * - addThenRemove: add one element and remove one, keeping the size steady
+ *
+ * main() runs everything single-threaded, then get/iterate/addThenRemove again from 4 threads sharing one instance of each
+ * thread-safe type, and writes both result sets as JMH JSON (collection-throughput*.json) for diffing between JDKs. Types whose
+ * maxSize is below a size (copy-on-write ones) fail their setup and JMH moves on. The full matrix takes hours; narrow it with
+ * e.g. "-p type=ArrayList,LinkedList -p size=1000".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CollectionCatalogBenchmark {
+    /** Spare elements past "size" so every thread can add its own without colliding. */
+    static final int SPARE = 64;
+
+    @Param({
+            "ArrayList", "LinkedList", "ChunkedList", "Stack", "SynchronizedList", "CopyOnWriteArrayList", "IntArrayList",
+            "LongArrayList",
+            "ArrayDeque", "PriorityQueue", "ArrayBlockingQueue", "LinkedBlockingDeque", "ConcurrentLinkedDeque",
+            "ConcurrentLinkedQueue", "DelayQueue", "LinkedBlockingQueue", "LinkedTransferQueue", "PriorityBlockingQueue",
+            "MpmcRingQueue", "SpscRingQueue", "TimingWheelDelayQueue",
+            "HashSet", "LinkedHashSet", "TreeSet", "SynchronizedSet", "SynchronizedSortedSet", "ConcurrentSkipListSet",
+            "CopyOnWriteArraySet", "AtomicPersistentSet", "IntHashSet", "RoaringBitmap",
+            "HashMap", "IdentityHashMap", "LinkedHashMap", "TreeMap", "SynchronizedMap", "SynchronizedSortedMap",
+            "ConcurrentHashMap", "Hashtable", "IntIntHashMap", "LongObjectHashMap", "OffHeapHashMap", "AtomicPersistentMap",
+            "BPlusTreeMap", "LongBPlusTreeMap"})
+    public String type;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    private Candidate candidate;
+    private Elements elements;
+    private CollectionHandle handle;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        candidate = CollectionCatalog.named(type);
+        if (size > candidate.maxSize()) {
+            throw new IllegalStateException(type + " is only measured up to " + candidate.maxSize() + " elements");
+        }
+        elements = Elements.of(size + SPARE);
+        handle = filled();
+    }
+
+    private CollectionHandle filled() {
+        CollectionHandle created = candidate.create(elements, size + SPARE);
+        for (int i = 0; i < size; i++) {
+            created.add(i);
+        }
+        return created;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handle.close();
+    }
+
+    /** Per-thread lookup position and spare element. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        int stride;
+        int spare;
+        int size;
+
+        @Setup(Level.Trial)
+        public void setup(CollectionCatalogBenchmark benchmark, ThreadParams threads) {
+            size = benchmark.size;
+            // Golden-ratio steps jump around the collection instead of walking it in order
+            stride = (int) (0x9E3779B1L % size) | 1;
+            spare = size + threads.getThreadIndex() % SPARE;
+            next = threads.getThreadIndex() % size;
+        }
+
+        int next() {
+            next += stride;
+            if (next >= size) {
+                next -= size;
+            }
+            return next;
+        }
+    }
+
+    @Benchmark
+    public int fill() {
+        try (CollectionHandle created = filled()) {
+            return created.size();
+        }
+    }
+
+    @Benchmark
+    public boolean get(Cursor cursor) {
+        return handle.get(cursor.next());
+    }
+
+    @Benchmark
+    public long iterate() {
+        return handle.iterate();
+    }
+
+    @Benchmark
+    public boolean addThenRemove(Cursor cursor) {
+        handle.add(cursor.spare);
+        return handle.remove(cursor.spare);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String name = CollectionCatalogBenchmark.class.getSimpleName();
+        new Runner(new OptionsBuilder()
+                .include(name)
+                .resultFormat(ResultFormatType.JSON)
+                .result("collection-throughput.json")
+                .build()).run();
+        String[] threadSafe = CollectionCatalog.all().stream()
+                .filter(Candidate::threadSafe)
+                .map(Candidate::name)
+                .toArray(String[]::new);
+        new Runner(new OptionsBuilder()
+                .include(name + "\\.(get|iterate|addThenRemove)$")
+                .threads(4)
+                .param("type", threadSafe)
+                .resultFormat(ResultFormatType.JSON)
+                .result("collection-throughput-4-threads.json")
+                .build()).run();
+    }
+}
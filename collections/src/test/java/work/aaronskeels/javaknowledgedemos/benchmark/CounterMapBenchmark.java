@@ -0,0 +1,137 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.counter.StripedCounterMap;
+
+/**
+ * Eight threads counting a Zipf-distributed key stream (a few very hot keys, a long tail), as in per-URL or per-user request
+ * counting. Compares the usual ConcurrentHashMap idioms with StripedCounterMap:
+ * - atomicLong: CHM&lt;K, AtomicLong&gt;; every thread CASes the hot key's one word, so its cache line bounces between cores
+ * - merge: CHM.merge(key, 1L, Long::sum); also locks the key's bin and allocates a Long per increment
+ * - longAdder: CHM&lt;K, LongAdder&gt; by hand, the same striping StripedCounterMap.unbounded() packages up
+ * - striped / heavyHitters: StripedCounterMap, unbounded and with a 1024-key Space-Saving bound
+ * "keys" is the key space; the heavy-hitter bound matters once it is far above the capacity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class CounterMapBenchmark {
+    static final int STREAM = 1 << 16;
+
+    @Param({"1000", "1000000"})
+    public int keys;
+
+    private ConcurrentHashMap<Integer, AtomicLong> atomicLongs;
+    private ConcurrentHashMap<Integer, Long> merged;
+    private ConcurrentHashMap<Integer, LongAdder> adders;
+    private StripedCounterMap<Integer> striped;
+    private StripedCounterMap<Integer> heavyHitters;
+    private Integer[] boxed;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        atomicLongs = new ConcurrentHashMap<>();
+        merged = new ConcurrentHashMap<>();
+        adders = new ConcurrentHashMap<>();
+        striped = StripedCounterMap.unbounded();
+        heavyHitters = StripedCounterMap.heavyHitters(1024);
+        // Box once so the benchmarks measure counting, not Integer.valueOf
+        boxed = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            boxed[i] = i;
+        }
+    }
+
+    /** Per-thread pre-drawn Zipf(s = 1) key stream. */
+    @State(Scope.Thread)
+    public static class Stream {
+        int[] stream = new int[STREAM];
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup(CounterMapBenchmark benchmark, ThreadParams thread) {
+            double[] cumulative = new double[benchmark.keys];
+            double sum = 0;
+            for (int k = 0; k < cumulative.length; k++) {
+                sum += 1.0 / (k + 1);
+                cumulative[k] = sum;
+            }
+            SplittableRandom random = new SplittableRandom(thread.getThreadIndex()); // Distinct, and the same every run
+            for (int i = 0; i < STREAM; i++) {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                stream[i] = index >= 0 ? index : -index - 1;
+            }
+        }
+
+        int next() {
+            return stream[next++ & (STREAM - 1)];
+        }
+    }
+
+    @Benchmark
+    public void atomicLong(Stream stream) {
+        Integer key = boxed[stream.next()];
+        AtomicLong counter = atomicLongs.get(key);
+        if (counter == null) {
+            counter = atomicLongs.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        counter.incrementAndGet();
+    }
+
+    @Benchmark
+    public void merge(Stream stream) {
+        merged.merge(boxed[stream.next()], 1L, Long::sum);
+    }
+
+    @Benchmark
+    public void longAdder(Stream stream) {
+        Integer key = boxed[stream.next()];
+        LongAdder counter = adders.get(key);
+        if (counter == null) {
+            counter = adders.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    @Benchmark
+    public void striped(Stream stream) {
+        striped.increment(boxed[stream.next()]);
+    }
+
+    @Benchmark
+    public void heavyHitters(Stream stream) {
+        heavyHitters.increment(boxed[stream.next()]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CounterMapBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.filter.BlockedBloomFilter;
+import work.aaronskeels.javaknowledgedemos.filter.CuckooFilter;
+
+/**
+ * BlockedBloomFilter and CuckooFilter (at 1% false positives) vs HashSet&lt;Long&gt; as a "have we seen this key?" check.
+ *
+ * Memory per element: the fill* benchmarks build a structure of ENTRIES keys per invocation, so with "-prof gc" (main() turns it
+ * on) gc.alloc.rate.norm reads directly as bytes per element. Expect ~1.25 bytes for Bloom, ~2.1 for cuckoo, ~50+ for HashSet.
+ * Lookup ns/op: the contains* benchmarks probe with a 50/50 mix of present and absent keys, averaged per probe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MembershipFilterBenchmark {
+    static final int ENTRIES = 1_000_000;
+    static final double FPP = 0.01;
+
+    private long[] probes;
+    private HashSet<Long> hashSet;
+    private BlockedBloomFilter bloom;
+    private CuckooFilter cuckoo;
+
+    @Setup
+    public void setup() {
+        probes = new long[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            // Even keys below 2 * ENTRIES are inserted, so alternate hits with keys beyond that range
+            probes[i] = (i & 1) == 0 ? i : ENTRIES * 2L + i;
+        }
+        hashSet = fillHashSet();
+        bloom = fillBloom();
+        cuckoo = fillCuckoo();
+    }
+
+    // ---- Footprint (bytes per element via -prof gc) ----
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public HashSet<Long> fillHashSet() {
+        HashSet<Long> set = new HashSet<>((int) (ENTRIES / 0.75f) + 1);
+        for (long key = 0; key < ENTRIES * 2L; key += 2) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public BlockedBloomFilter fillBloom() {
+        BlockedBloomFilter filter = BlockedBloomFilter.create(ENTRIES, FPP);
+        for (long key = 0; key < ENTRIES * 2L; key += 2) {
+            filter.put(key);
+        }
+        return filter;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public CuckooFilter fillCuckoo() {
+        CuckooFilter filter = CuckooFilter.create(ENTRIES, FPP);
+        for (long key = 0; key < ENTRIES * 2L; key += 2) {
+            filter.put(key);
+        }
+        return filter;
+    }
+
+    // ---- Lookup latency ----
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void containsHashSet(Blackhole blackhole) {
+        for (long probe : probes) {
+            blackhole.consume(hashSet.contains(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void containsBloom(Blackhole blackhole) {
+        for (long probe : probes) {
+            blackhole.consume(bloom.mightContain(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void containsCuckoo(Blackhole blackhole) {
+        for (long probe : probes) {
+            blackhole.consume(cuckoo.mightContain(probe));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MembershipFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
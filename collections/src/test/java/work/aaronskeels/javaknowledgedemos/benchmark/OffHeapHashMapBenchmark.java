@@ -0,0 +1,102 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.offheap.OffHeapHashMap;
+
+/**
+ * Random lookups in a big long->long table: OffHeapHashMap (plain and concurrent read-mostly) vs HashMap/ConcurrentHashMap.
+ * Run with "-prof gc" (main() does) and compare gc.count/gc.time: the heap maps have tens of millions of objects for the
+ * collector to trace while the off-heap one has a few dozen. Needs a large heap and -XX:MaxDirectMemorySize for the 10M case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-XX:MaxDirectMemorySize=4g"})
+@Threads(4)
+public class OffHeapHashMapBenchmark {
+    @Param({"1000000", "10000000"})
+    public int entries;
+
+    private HashMap<Long, Long> hashMap;
+    private ConcurrentHashMap<Long, Long> concurrentHashMap;
+    private OffHeapHashMap offHeap;
+    private OffHeapHashMap offHeapConcurrent;
+
+    @State(Scope.Thread)
+    public static class Probe {
+        private final Random random = new Random();
+    }
+
+    @Setup
+    public void setup() {
+        hashMap = new HashMap<>((int) (entries / 0.75f) + 1);
+        concurrentHashMap = new ConcurrentHashMap<>(entries);
+        offHeap = new OffHeapHashMap(Long.BYTES, entries);
+        offHeapConcurrent = OffHeapHashMap.concurrent(Long.BYTES, entries);
+        for (long key = 0; key < entries; key++) {
+            hashMap.put(key, key);
+            concurrentHashMap.put(key, key);
+            offHeap.putLong(key, key);
+            offHeapConcurrent.putLong(key, key);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        offHeap.close();
+        offHeapConcurrent.close();
+    }
+
+    // HashMap and the plain OffHeapHashMap are only safe here because nothing writes during the measurement
+
+    @Benchmark
+    public Long getHashMap(Probe probe) {
+        return hashMap.get((long) probe.random.nextInt(entries));
+    }
+
+    @Benchmark
+    public Long getConcurrentHashMap(Probe probe) {
+        return concurrentHashMap.get((long) probe.random.nextInt(entries));
+    }
+
+    @Benchmark
+    public long getOffHeap(Probe probe) {
+        return offHeap.getLong(probe.random.nextInt(entries), -1L);
+    }
+
+    @Benchmark
+    public long getOffHeapConcurrent(Probe probe) {
+        return offHeapConcurrent.getLong(probe.random.nextInt(entries), -1L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OffHeapHashMapBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,291 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.primitive.IntArrayList;
+import work.aaronskeels.javaknowledgedemos.primitive.IntHashSet;
+import work.aaronskeels.javaknowledgedemos.primitive.IntIntHashMap;
+import work.aaronskeels.javaknowledgedemos.primitive.LongObjectHashMap;
+
+/**
+ * Primitive collections vs the boxed JDK types listed in App.exemplifyList()/exemplifyMap().
+ * 
+ * Throughput: the get/contains/iterate benchmarks report ops per microsecond over ENTRIES pre-filled keys.
+ * Bytes per entry: the fill* benchmarks build a pre-sized collection of ENTRIES keys per invocation, so with "-prof gc"
+ * the gc.alloc.rate.norm column reads directly as bytes allocated per entry (pre-sizing means no resize garbage,
+ * so allocated ~= retained). main() turns the GC profiler on.
+ * 
+ * Run main() from the test classpath (e.g. via the IDE) after "mvn test-compile" has run the JMH annotation processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveCollectionsBenchmark {
+    static final int ENTRIES = 100_000;
+
+    private int[] keys;
+    private int[] probes;
+
+    private ArrayList<Integer> arrayList;
+    private IntArrayList intArrayList;
+    private HashMap<Integer, Integer> hashMap;
+    private TreeMap<Integer, Integer> treeMap;
+    private IntIntHashMap intIntHashMap;
+    private HashMap<Long, String> longHashMap;
+    private LongObjectHashMap<String> longObjectHashMap;
+    private HashSet<Integer> hashSet;
+    private IntHashSet intHashSet;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1234);
+        keys = new int[ENTRIES];
+        probes = new int[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = random.nextInt();
+            // Half the probes hit, half (very likely) miss
+            probes[i] = (i & 1) == 0 ? keys[random.nextInt(i + 1)] : random.nextInt();
+        }
+        arrayList = fillArrayList();
+        intArrayList = fillIntArrayList();
+        hashMap = fillHashMap();
+        treeMap = fillTreeMap();
+        intIntHashMap = fillIntIntHashMap();
+        longHashMap = fillLongHashMap();
+        longObjectHashMap = fillLongObjectHashMap();
+        hashSet = fillHashSet();
+        intHashSet = fillIntHashSet();
+    }
+
+    // ---- Footprint (bytes per entry via -prof gc) ----
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public ArrayList<Integer> fillArrayList() {
+        ArrayList<Integer> list = new ArrayList<>(ENTRIES);
+        for (int key : keys) {
+            list.add(key);
+        }
+        return list;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public IntArrayList fillIntArrayList() {
+        IntArrayList list = new IntArrayList(ENTRIES);
+        for (int key : keys) {
+            list.add(key);
+        }
+        return list;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public HashMap<Integer, Integer> fillHashMap() {
+        HashMap<Integer, Integer> map = new HashMap<>((int) (ENTRIES / 0.75f) + 1);
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public TreeMap<Integer, Integer> fillTreeMap() {
+        TreeMap<Integer, Integer> map = new TreeMap<>();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public IntIntHashMap fillIntIntHashMap() {
+        IntIntHashMap map = new IntIntHashMap(ENTRIES);
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public HashMap<Long, String> fillLongHashMap() {
+        HashMap<Long, String> map = new HashMap<>((int) (ENTRIES / 0.75f) + 1);
+        for (int key : keys) {
+            map.put((long) key, "");
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public LongObjectHashMap<String> fillLongObjectHashMap() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(ENTRIES);
+        for (int key : keys) {
+            map.put(key, "");
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public HashSet<Integer> fillHashSet() {
+        HashSet<Integer> set = new HashSet<>((int) (ENTRIES / 0.75f) + 1);
+        for (int key : keys) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public IntHashSet fillIntHashSet() {
+        IntHashSet set = new IntHashSet(ENTRIES);
+        for (int key : keys) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    // ---- Throughput ----
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void getHashMap(Blackhole blackhole) {
+        Map<Integer, Integer> map = hashMap;
+        for (int probe : probes) {
+            blackhole.consume(map.get(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void getTreeMap(Blackhole blackhole) {
+        Map<Integer, Integer> map = treeMap;
+        for (int probe : probes) {
+            blackhole.consume(map.get(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void getIntIntHashMap(Blackhole blackhole) {
+        IntIntHashMap map = intIntHashMap;
+        for (int probe : probes) {
+            blackhole.consume(map.get(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void getLongHashMap(Blackhole blackhole) {
+        Map<Long, String> map = longHashMap;
+        for (int probe : probes) {
+            blackhole.consume(map.get((long) probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void getLongObjectHashMap(Blackhole blackhole) {
+        LongObjectHashMap<String> map = longObjectHashMap;
+        for (int probe : probes) {
+            blackhole.consume(map.get(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void containsHashSet(Blackhole blackhole) {
+        Set<Integer> set = hashSet;
+        for (int probe : probes) {
+            blackhole.consume(set.contains(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public void containsIntHashSet(Blackhole blackhole) {
+        IntHashSet set = intHashSet;
+        for (int probe : probes) {
+            blackhole.consume(set.contains(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public long iterateArrayList() {
+        List<Integer> list = arrayList;
+        long sum = 0;
+        for (Integer value : list) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public long iterateIntArrayList() {
+        IntArrayList list = intArrayList;
+        long sum = 0;
+        for (int i = 0, n = list.size(); i < n; i++) {
+            sum += list.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public long iterateHashMap() {
+        long sum = 0;
+        for (Map.Entry<Integer, Integer> entry : hashMap.entrySet()) {
+            sum += entry.getKey() + entry.getValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public long iterateIntIntHashMap() {
+        long[] sum = {0};
+        intIntHashMap.forEach((key, value) -> sum[0] += key + value);
+        return sum[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PrimitiveCollectionsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
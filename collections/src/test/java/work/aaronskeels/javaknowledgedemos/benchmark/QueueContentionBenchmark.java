@@ -0,0 +1,176 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.queue.MpmcRingQueue;
+import work.aaronskeels.javaknowledgedemos.queue.SpscRingQueue;
+import work.aaronskeels.javaknowledgedemos.queue.WaitStrategy;
+
+/**
+ * Producer/consumer hand-off throughput for the ring queues vs every thread-safe queue App.exemplifyQueue() names.
+ * ArrayDeque/PriorityQueue are left out since they aren't thread-safe (and BlockingQueue/BlockingDeque/TransferQueue are
+ * interfaces, covered by their implementations).
+ * 
+ * "mpmc" runs 4 producers against 4 consumers, "spsc" runs 1 against 1 (the only shape SpscRingQueue supports, so its
+ * "mpmc" row is a deliberate no-op and should be ignored).
+ * Blocking queues use 1us timed offer/poll so SynchronousQueue can pair up and nothing hangs when an iteration ends;
+ * DelayQueue/PriorityBlockingQueue/LinkedTransferQueue are unbounded so their producers never see back-pressure.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueContentionBenchmark {
+    static final int CAPACITY = 1024;
+
+    @Param({"MpmcRingQueue", "SpscRingQueue", "ArrayBlockingQueue", "LinkedBlockingQueue", "LinkedBlockingDeque", "ConcurrentLinkedQueue",
+            "ConcurrentLinkedDeque", "LinkedTransferQueue", "PriorityBlockingQueue", "DelayQueue", "SynchronousQueue"})
+    public String queueType;
+
+    @Param({"YIELD"})
+    public WaitStrategy waitStrategy;
+
+    private Queue<Item> queue;
+
+    /*
+     * One element type that every queue accepts: DelayQueue needs Delayed (always expired here), PriorityBlockingQueue needs
+     * Comparable (Delayed already is).
+     */
+    static final class Item implements Delayed {
+        static final Item INSTANCE = new Item();
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return 0;
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = switch (queueType) {
+            case "MpmcRingQueue" -> new MpmcRingQueue<>(CAPACITY, waitStrategy);
+            case "SpscRingQueue" -> new SpscRingQueue<>(CAPACITY, waitStrategy);
+            case "ArrayBlockingQueue" -> new ArrayBlockingQueue<>(CAPACITY);
+            case "LinkedBlockingQueue" -> new LinkedBlockingQueue<>(CAPACITY);
+            case "LinkedBlockingDeque" -> new LinkedBlockingDeque<>(CAPACITY);
+            case "ConcurrentLinkedQueue" -> new ConcurrentLinkedQueue<>();
+            case "ConcurrentLinkedDeque" -> new ConcurrentLinkedDeque<>();
+            case "LinkedTransferQueue" -> new LinkedTransferQueue<>();
+            case "PriorityBlockingQueue" -> new PriorityBlockingQueue<>(CAPACITY);
+            case "DelayQueue" -> new DelayQueue<>();
+            case "SynchronousQueue" -> new SynchronousQueue<>();
+            default -> throw new IllegalArgumentException("Unknown queue type: " + queueType);
+        };
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(4)
+    public boolean mpmcOffer(Control control) throws InterruptedException {
+        return !"SpscRingQueue".equals(queueType) && offer(control);
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(4)
+    public Item mpmcPoll(Control control) throws InterruptedException {
+        return "SpscRingQueue".equals(queueType) ? null : poll(control);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public boolean spscOffer(Control control) throws InterruptedException {
+        return offer(control);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public Item spscPoll(Control control) throws InterruptedException {
+        return poll(control);
+    }
+
+    private boolean offer(Control control) throws InterruptedException {
+        if (queue instanceof BlockingQueue<Item> blockingQueue) {
+            while (!control.stopMeasurement) {
+                if (blockingQueue.offer(Item.INSTANCE, 1, TimeUnit.MICROSECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        while (!control.stopMeasurement) {
+            if (queue.offer(Item.INSTANCE)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        return false;
+    }
+
+    private Item poll(Control control) throws InterruptedException {
+        if (queue instanceof BlockingQueue<Item> blockingQueue) {
+            while (!control.stopMeasurement) {
+                Item item = blockingQueue.poll(1, TimeUnit.MICROSECONDS);
+                if (item != null) {
+                    return item;
+                }
+            }
+            return null;
+        }
+        while (!control.stopMeasurement) {
+            Item item = queue.poll();
+            if (item != null) {
+                return item;
+            }
+            Thread.onSpinWait();
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueueContentionBenchmark.class.getSimpleName())
+                .param("waitStrategy", "SPIN", "YIELD", "PARK")
+                .build()).run();
+    }
+}
@@ -0,0 +1,169 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.bitmap.RoaringBitmap;
+
+/**
+ * RoaringBitmap vs HashSet&lt;Integer&gt;, TreeSet&lt;Integer&gt; and java.util.BitSet over ENTRIES ids drawn from [0, 2^28).
+ * "sparse" spreads them uniformly (~1 in 268), "clustered" packs them into runs of a few hundred consecutive ids.
+ *
+ * Footprint: fill* build a set of ENTRIES ids per invocation, so with "-prof gc" (main() turns it on) gc.alloc.rate.norm is
+ * bytes per id. The BitSet number shows why a plain bitmap is no answer for sparse ids: it always costs 2^28 bits.
+ * Algebra: and/or between two independently drawn sets of the same shape, per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RoaringBitmapBenchmark {
+    static final int ENTRIES = 1_000_000;
+    static final int UNIVERSE = 1 << 28;
+
+    @Param({"sparse", "clustered"})
+    public String distribution;
+
+    private int[] ids;
+    private RoaringBitmap roaringA;
+    private RoaringBitmap roaringB;
+    private BitSet bitSetA;
+    private BitSet bitSetB;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ids = draw(random);
+        roaringA = fillRoaring();
+        bitSetA = fillBitSet();
+        int[] other = draw(random);
+        roaringB = new RoaringBitmap();
+        bitSetB = new BitSet(UNIVERSE);
+        for (int id : other) {
+            roaringB.add(id);
+            bitSetB.set(id);
+        }
+        roaringB.runOptimize();
+    }
+
+    private int[] draw(Random random) {
+        int[] drawn = new int[ENTRIES];
+        if (distribution.equals("sparse")) {
+            for (int i = 0; i < ENTRIES; i++) {
+                drawn[i] = random.nextInt(UNIVERSE);
+            }
+        } else {
+            int i = 0;
+            while (i < ENTRIES) {
+                int start = random.nextInt(UNIVERSE - 1_000);
+                for (int length = 100 + random.nextInt(400); length > 0 && i < ENTRIES; length--) {
+                    drawn[i++] = start++;
+                }
+            }
+        }
+        return drawn;
+    }
+
+    // ---- Footprint (bytes per id via -prof gc) ----
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public RoaringBitmap fillRoaring() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public HashSet<Integer> fillHashSet() {
+        HashSet<Integer> set = new HashSet<>((int) (ENTRIES / 0.75f) + 1);
+        for (int id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public TreeSet<Integer> fillTreeSet() {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public BitSet fillBitSet() {
+        BitSet set = new BitSet(UNIVERSE);
+        for (int id : ids) {
+            set.set(id);
+        }
+        return set;
+    }
+
+    // ---- Algebra ----
+
+    @Benchmark
+    public RoaringBitmap andRoaring() {
+        return RoaringBitmap.and(roaringA, roaringB);
+    }
+
+    @Benchmark
+    public long andCardinalityRoaring() {
+        return RoaringBitmap.andCardinality(roaringA, roaringB);
+    }
+
+    @Benchmark
+    public BitSet andBitSet() {
+        BitSet result = (BitSet) bitSetA.clone();
+        result.and(bitSetB);
+        return result;
+    }
+
+    @Benchmark
+    public RoaringBitmap orRoaring() {
+        return RoaringBitmap.or(roaringA, roaringB);
+    }
+
+    @Benchmark
+    public BitSet orBitSet() {
+        BitSet result = (BitSet) bitSetA.clone();
+        result.or(bitSetB);
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RoaringBitmapBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
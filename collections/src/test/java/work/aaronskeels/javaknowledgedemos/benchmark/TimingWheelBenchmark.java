@@ -0,0 +1,164 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.timer.HierarchicalTimingWheel;
+import work.aaronskeels.javaknowledgedemos.timer.Timeout;
+import work.aaronskeels.javaknowledgedemos.timer.TimingWheelDelayQueue;
+
+/**
+ * The request-timeout pattern with PENDING timers already outstanding: schedule a timeout, then cancel it (the request finished
+ * first). Compared across the timing wheel, its DelayQueue adapter, java.util.concurrent.DelayQueue (offer + remove(o)) and
+ * ScheduledThreadPoolExecutor with removeOnCancelPolicy (so cancelled tasks leave the heap instead of piling up).
+ *
+ * The heaps pay O(log n) under one lock per schedule and per cancel; DelayQueue.remove(o) is even a linear scan, so expect it to
+ * be orders of magnitude behind. Pending timers are set an hour out so none fire during the run. "*Contended" variants run the
+ * same operation from 4 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TimingWheelBenchmark {
+    static final int PENDING = 1_000_000;
+    static final long ONE_HOUR_NANOS = TimeUnit.HOURS.toNanos(1);
+    static final Runnable NOOP = () -> { };
+
+    /** Delayed element whose identity is the id, as DelayQueue.remove(o) goes by equals(). */
+    record Deadline(long id, long deadlineNanos) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineNanos, ((Deadline) other).deadlineNanos);
+        }
+    }
+
+    private HierarchicalTimingWheel wheel;
+    private TimingWheelDelayQueue<Deadline> wheelQueue;
+    private DelayQueue<Deadline> delayQueue;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        wheel = HierarchicalTimingWheel.newBuilder().tickDuration(1, TimeUnit.MILLISECONDS).build();
+        wheelQueue = new TimingWheelDelayQueue<>(wheel);
+        delayQueue = new DelayQueue<>();
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        long now = System.nanoTime();
+        for (long i = 0; i < PENDING; i++) {
+            long delay = delay(i);
+            wheel.schedule(NOOP, delay, TimeUnit.NANOSECONDS);
+            wheelQueue.offer(new Deadline(-i - 1, now + delay));
+            delayQueue.offer(new Deadline(-i - 1, now + delay));
+            executor.schedule(NOOP, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    /** Per-thread ids so concurrent threads never remove each other's elements. */
+    @State(Scope.Thread)
+    public static class Ids {
+        private static long nextBase;
+        long next;
+
+        @Setup
+        public void setup() {
+            synchronized (Ids.class) {
+                next = nextBase;
+                nextBase += 1L << 40;
+            }
+        }
+    }
+
+    /** An hour out, spread over one second so the timers land in many wheel buckets and heap positions. */
+    private static long delay(long id) {
+        return ONE_HOUR_NANOS + Math.floorMod(id, PENDING) * 1_000L;
+    }
+
+    // ---- Schedule then cancel ----
+
+    @Benchmark
+    public boolean wheel(Ids ids) {
+        Timeout timeout = wheel.schedule(NOOP, delay(ids.next++), TimeUnit.NANOSECONDS);
+        return timeout.cancel();
+    }
+
+    @Benchmark
+    public boolean wheelDelayQueue(Ids ids) {
+        long id = ids.next++;
+        Deadline deadline = new Deadline(id, System.nanoTime() + delay(id));
+        wheelQueue.offer(deadline);
+        return wheelQueue.remove(deadline);
+    }
+
+    @Benchmark
+    public boolean delayQueue(Ids ids) {
+        long id = ids.next++;
+        Deadline deadline = new Deadline(id, System.nanoTime() + delay(id));
+        delayQueue.offer(deadline);
+        return delayQueue.remove(deadline);
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor(Ids ids) {
+        ScheduledFuture<?> future = executor.schedule(NOOP, delay(ids.next++), TimeUnit.NANOSECONDS);
+        return future.cancel(false);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean wheelContended(Ids ids) {
+        return wheel(ids);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean wheelDelayQueueContended(Ids ids) {
+        return wheelDelayQueue(ids);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean scheduledExecutorContended(Ids ids) {
+        return scheduledExecutor(ids);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TimingWheelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+package work.aaronskeels.javaknowledgedemos.bitmap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class RoaringBitmapTest
+{
+    /** Mix of sparse, dense and run-heavy regions so all three container types (and their pairings) show up. */
+    private static void fill(Random random, RoaringBitmap bitmap, TreeSet<Long> reference)
+    {
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt();
+            bitmap.add(value);
+            reference.add(Integer.toUnsignedLong(value));
+        }
+        int denseBase = random.nextInt(16) << 16;
+        for (int i = 0; i < 30_000; i++) {
+            int value = denseBase + random.nextInt(1 << 16);
+            bitmap.add(value);
+            reference.add(Integer.toUnsignedLong(value));
+        }
+        long runStart = Integer.toUnsignedLong(random.nextInt()) & ~0xffffL;
+        long runEnd = runStart + random.nextInt(3 << 16);
+        bitmap.addRange(runStart, Math.min(runEnd, 1L << 32));
+        for (long value = runStart; value < Math.min(runEnd, 1L << 32); value++) {
+            reference.add(value);
+        }
+    }
+
+    private static void assertMatches(TreeSet<Long> expected, RoaringBitmap actual)
+    {
+        assertEquals(expected.size(), actual.cardinality());
+        PrimitiveIterator.OfInt iterator = actual.iterator();
+        for (long value : expected) {
+            assertTrue(iterator.hasNext());
+            assertEquals(value, Integer.toUnsignedLong(iterator.nextInt()));
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void pointOperationsMatchTreeSet()
+    {
+        Random random = new Random(9);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Long> reference = new TreeSet<>();
+        fill(random, bitmap, reference);
+        assertMatches(reference, bitmap);
+
+        long[] present = reference.stream().mapToLong(Long::longValue).toArray();
+        for (int i = 0; i < 100_000; i++) {
+            int value = i % 2 == 0 ? random.nextInt() : (int) present[random.nextInt(present.length)];
+            boolean expected = reference.contains(Integer.toUnsignedLong(value));
+            assertEquals(expected, bitmap.contains(value));
+            assertEquals(expected, bitmap.remove(value));
+            reference.remove(Integer.toUnsignedLong(value));
+        }
+        assertMatches(reference, bitmap);
+
+        // Removing every value must drop every container, including dense and run ones
+        for (long value : reference) {
+            assertTrue(bitmap.remove((int) value));
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    public void setAlgebraMatchesTreeSet()
+    {
+        for (int seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            RoaringBitmap a = new RoaringBitmap();
+            RoaringBitmap b = new RoaringBitmap();
+            TreeSet<Long> refA = new TreeSet<>();
+            TreeSet<Long> refB = new TreeSet<>();
+            fill(random, a, refA);
+            fill(random, b, refB);
+            // Share a dense region so dense-vs-dense paths run, and run-optimize one side so run-vs-other paths run
+            for (int i = 0; i < 20_000; i++) {
+                int value = 3 << 16 | random.nextInt(1 << 16);
+                a.add(value);
+                refA.add((long) value);
+                b.add(value + 1);
+                refB.add((long) value + 1);
+            }
+            if (seed % 2 == 0) {
+                a.runOptimize();
+            }
+
+            TreeSet<Long> and = new TreeSet<>(refA);
+            and.retainAll(refB);
+            TreeSet<Long> or = new TreeSet<>(refA);
+            or.addAll(refB);
+            TreeSet<Long> andNot = new TreeSet<>(refA);
+            andNot.removeAll(refB);
+
+            assertMatches(and, RoaringBitmap.and(a, b));
+            assertEquals(and.size(), RoaringBitmap.andCardinality(a, b));
+            assertMatches(or, RoaringBitmap.or(a, b));
+            assertMatches(andNot, RoaringBitmap.andNot(a, b));
+            // Inputs untouched
+            assertMatches(refA, a);
+            assertMatches(refB, b);
+        }
+    }
+
+    @Test
+    public void runOptimizeShrinksConsecutiveIds()
+    {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value = 0; value < 1_000_000; value++) {
+            bitmap.add(value);
+        }
+        long before = bitmap.serializedSizeInBytes();
+        assertTrue(bitmap.runOptimize());
+        long after = bitmap.serializedSizeInBytes();
+        assertTrue(after < before / 100);
+        assertEquals(1_000_000, bitmap.cardinality());
+        assertTrue(bitmap.contains(999_999));
+        assertFalse(bitmap.contains(1_000_000));
+
+        // Point updates on run containers still work
+        assertTrue(bitmap.remove(500_000));
+        assertTrue(bitmap.add(2_000_000));
+        assertEquals(1_000_000, bitmap.cardinality());
+    }
+
+    @Test
+    public void serializationRoundTrip() throws IOException
+    {
+        Random random = new Random(10);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        fill(random, bitmap, new TreeSet<>());
+        bitmap.addRange(0, 1 << 16);
+        bitmap.runOptimize();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.writeTo(bytes);
+        assertEquals(bitmap.serializedSizeInBytes(), bytes.size());
+        RoaringBitmap copy = RoaringBitmap.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(bitmap, copy);
+        assertEquals(bitmap.hashCode(), copy.hashCode());
+        assertArrayEquals(bitmap.toArray(), copy.toArray());
+    }
+
+    @Test
+    public void unsignedOrderAndRanges()
+    {
+        RoaringBitmap bitmap = RoaringBitmap.of(-1, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertArrayEquals(new int[] {0, Integer.MAX_VALUE, Integer.MIN_VALUE, -1}, bitmap.toArray());
+        assertEquals(0, bitmap.first());
+
+        RoaringBitmap all = new RoaringBitmap();
+        all.addRange(0, 1L << 32);
+        assertEquals(1L << 32, all.cardinality());
+        assertEquals(4, RoaringBitmap.andCardinality(all, bitmap));
+        RoaringBitmap union = RoaringBitmap.or(all, bitmap);
+        assertEquals(1L << 32, union.cardinality());
+        assertTrue(union.serializedSizeInBytes() < 65536 * 16); // Still one small run per container
+        assertEquals((1L << 32) - 4, RoaringBitmap.andNot(all, bitmap).cardinality());
+    }
+}
@@ -0,0 +1,199 @@
+package work.aaronskeels.javaknowledgedemos.btree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class BPlusTreeMapTest
+{
+    @Test
+    public void matchesTreeMapUnderRandomOperations()
+    {
+        Random random = new Random(6);
+        BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>();
+        TreeMap<Integer, Integer> reference = new TreeMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(20_000);
+            if (random.nextInt(3) > 0) {
+                assertEquals(reference.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+            if (i % 1_000 == 0) {
+                int probe = random.nextInt(20_000);
+                assertEquals(reference.ceilingKey(probe), map.ceilingKey(probe));
+                assertEquals(reference.higherKey(probe), map.higherKey(probe));
+                assertEquals(reference.floorKey(probe), map.floorKey(probe));
+                assertEquals(reference.lowerKey(probe), map.lowerKey(probe));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        assertEquals(reference, map);
+        assertEquals(new ArrayList<>(reference.keySet()), new ArrayList<>(map.keySet()));
+        assertTrue(map.height() <= 4);
+
+        // Drain to empty so every merge path runs
+        for (Integer key : new ArrayList<>(reference.keySet())) {
+            assertEquals(reference.remove(key), map.remove(key));
+        }
+        assertTrue(map.isEmpty());
+        assertNull(map.firstEntry());
+    }
+
+    @Test
+    public void rangeViewsMatchTreeMap()
+    {
+        Random random = new Random(7);
+        BPlusTreeMap<Integer, String> map = new BPlusTreeMap<>();
+        TreeMap<Integer, String> reference = new TreeMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(10_000);
+            map.put(key, "v" + i);
+            reference.put(key, "v" + i);
+        }
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(10_000);
+            int to = from + random.nextInt(2_000);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            NavigableMap<Integer, String> expected = reference.subMap(from, fromInclusive, to, toInclusive);
+            NavigableMap<Integer, String> actual = map.subMap(from, fromInclusive, to, toInclusive);
+            assertSameView(expected, actual);
+            assertSameView(expected.descendingMap(), actual.descendingMap());
+            assertSameView(reference.headMap(to, toInclusive), map.headMap(to, toInclusive));
+            assertSameView(reference.tailMap(from, fromInclusive).descendingMap(), map.tailMap(from, fromInclusive).descendingMap());
+
+            int inner = from + random.nextInt(to - from + 1);
+            assertSameView(expected.descendingMap().headMap(inner, true), actual.descendingMap().headMap(inner, true));
+            assertEquals(expected.descendingMap().ceilingKey(inner), actual.descendingMap().ceilingKey(inner));
+        }
+        assertEquals(new ArrayList<>(reference.descendingKeySet()), new ArrayList<>(map.descendingKeySet()));
+    }
+
+    private static void assertSameView(NavigableMap<Integer, String> expected, NavigableMap<Integer, String> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+        assertEquals(expected.firstEntry(), actual.firstEntry());
+        assertEquals(expected.lastEntry(), actual.lastEntry());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putOutsideSubMapIsRejected()
+    {
+        BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>();
+        map.subMap(10, 20).put(25, 1);
+    }
+
+    @Test
+    public void viewsAreLiveAndSupportIteratorRemove()
+    {
+        BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i, i);
+        }
+        NavigableMap<Integer, Integer> middle = map.subMap(100, true, 900, false);
+        assertEquals(800, middle.size());
+
+        // Remove every even key through the view's iterator; the tree rebalances underneath it
+        for (Iterator<Map.Entry<Integer, Integer>> iterator = middle.entrySet().iterator(); iterator.hasNext();) {
+            if (iterator.next().getKey() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(400, middle.size());
+        assertEquals(600, map.size());
+        assertEquals(Integer.valueOf(101), middle.firstKey());
+        assertTrue(map.containsKey(100 - 2));
+        assertFalse(map.containsKey(100));
+
+        middle.clear();
+        assertEquals(200, map.size());
+        assertEquals(Integer.valueOf(99), map.lowerKey(900));
+
+        map.put(950, 950);
+        assertEquals(Map.entry(999, 999), map.pollLastEntry());
+        assertEquals(Map.entry(0, 0), map.descendingMap().pollLastEntry());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorFailsFastOnOutsideModification()
+    {
+        BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>();
+        map.put(1, 1);
+        map.put(2, 2);
+        Iterator<Integer> iterator = map.keySet().iterator();
+        iterator.next();
+        map.put(3, 3);
+        iterator.next();
+    }
+
+    @Test
+    public void honorsComparator()
+    {
+        BPlusTreeMap<String, Integer> map = new BPlusTreeMap<>(Comparator.reverseOrder());
+        TreeMap<String, Integer> reference = new TreeMap<>(Comparator.reverseOrder());
+        for (int i = 0; i < 500; i++) {
+            map.put("k" + i, i);
+            reference.put("k" + i, i);
+        }
+        assertEquals(new ArrayList<>(reference.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(new ArrayList<>(reference.descendingMap().keySet()), new ArrayList<>(map.descendingMap().keySet()));
+        assertEquals(reference.firstKey(), map.firstKey());
+        assertTrue(map.descendingMap().comparator().compare("k1", "k2") < 0);
+    }
+
+    @Test
+    public void longVariantMatchesTreeMap()
+    {
+        Random random = new Random(8);
+        LongBPlusTreeMap<Long> map = new LongBPlusTreeMap<>();
+        TreeMap<Long, Long> reference = new TreeMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(30_000) - 15_000L;
+            if (random.nextInt(3) > 0) {
+                assertEquals(reference.put(key, (long) i), map.put(key, (long) i));
+            } else {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        assertEquals(reference.firstKey().longValue(), map.firstKey());
+        assertEquals(reference.lastKey().longValue(), map.lastKey());
+        for (int i = 0; i < 1_000; i++) {
+            long probe = random.nextInt(40_000) - 20_000L;
+            Long ceiling = reference.ceilingKey(probe);
+            Long floor = reference.floorKey(probe);
+            assertEquals(ceiling == null ? Long.MAX_VALUE : ceiling, map.ceilingKey(probe, Long.MAX_VALUE));
+            assertEquals(floor == null ? Long.MIN_VALUE : floor, map.floorKey(probe, Long.MIN_VALUE));
+            assertEquals(reference.get(probe), map.get(probe));
+        }
+
+        List<Long> scanned = new ArrayList<>();
+        int visited = map.forEachInRange(-1_000, 2_500, (key, value) -> {
+            scanned.add(key);
+            assertEquals(reference.get(key), value);
+        });
+        assertEquals(new ArrayList<>(reference.subMap(-1_000L, 2_500L).keySet()), scanned);
+        assertEquals(scanned.size(), visited);
+
+        for (Long key : new ArrayList<>(reference.keySet())) {
+            assertEquals(reference.remove(key), map.remove(key));
+        }
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.height());
+    }
+}
@@ -0,0 +1,237 @@
+package work.aaronskeels.javaknowledgedemos.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class BoundedCacheTest 
+{
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    public void staysWithinMaximumSize()
+    {
+        BoundedCache<Integer, Integer> cache = BoundedCache.newBuilder().maximumSize(100).build();
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        cache.cleanUp();
+        assertEquals(100, cache.estimatedSize());
+        assertEquals(100, cache.weightedSize());
+        assertEquals(9_900, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void frequentKeysSurviveAScan()
+    {
+        BoundedCache<Integer, Integer> cache = BoundedCache.newBuilder().maximumSize(100).build();
+        for (int round = 0; round < 20; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                cache.get(hot, key -> key);
+            }
+        }
+        // A one-off scan of 10x the capacity would flush an LRU completely
+        for (int scan = 1_000; scan < 2_000; scan++) {
+            cache.put(scan, scan);
+        }
+        cache.cleanUp();
+        int hotSurvivors = 0;
+        for (int hot = 0; hot < 50; hot++) {
+            if (cache.getIfPresent(hot) != null) {
+                hotSurvivors++;
+            }
+        }
+        assertTrue("only " + hotSurvivors + " hot keys survived", hotSurvivors >= 45);
+    }
+
+    @Test
+    public void evictsByWeight()
+    {
+        BoundedCache<String, String> cache = BoundedCache.newBuilder()
+                .maximumWeight(1_000, (String key, String value) -> value.length())
+                .build();
+        for (int i = 0; i < 200; i++) {
+            cache.put("k" + i, "x".repeat(50));
+        }
+        cache.cleanUp();
+        assertTrue(cache.weightedSize() <= 1_000);
+        assertEquals(cache.weightedSize(), cache.estimatedSize() * 50);
+        assertTrue(cache.stats().evictionWeight() >= 9_000);
+    }
+
+    @Test
+    public void expiresAfterWrite()
+    {
+        BoundedCache<String, String> cache = BoundedCache.newBuilder()
+                .maximumSize(10)
+                .expireAfterWrite(1, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .build();
+        cache.put("a", "1");
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals("1", cache.getIfPresent("a"));
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertNull(cache.getIfPresent("a"));
+        cache.cleanUp();
+        assertEquals(0, cache.estimatedSize());
+        assertEquals(1, cache.stats().expirationCount());
+    }
+
+    @Test
+    public void expiresAfterAccess()
+    {
+        BoundedCache<String, String> cache = BoundedCache.newBuilder()
+                .maximumSize(10)
+                .expireAfterAccess(1, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .build();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        for (int i = 0; i < 5; i++) {
+            time.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+            assertEquals("1", cache.getIfPresent("a"));
+        }
+        cache.cleanUp();
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(1, cache.estimatedSize());
+    }
+
+    @Test
+    public void loadsOnceAndRecordsStats()
+    {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingBoundedCache<Integer, String> cache = BoundedCache.newBuilder()
+                .maximumSize(10)
+                .build((Integer key) -> {
+                    loads.incrementAndGet();
+                    return "v" + key;
+                });
+        assertEquals("v1", cache.get(1));
+        assertEquals("v1", cache.get(1));
+        assertEquals(1, loads.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(0.5, stats.hitRate(), 0.0);
+    }
+
+    @Test(expected = CompletionException.class)
+    public void wrapsCheckedLoaderExceptions()
+    {
+        LoadingBoundedCache<Integer, String> cache = BoundedCache.newBuilder()
+                .maximumSize(10)
+                .build((Integer key) -> {
+                    throw new Exception("backing store down");
+                });
+        cache.get(1);
+    }
+
+    @Test
+    public void refreshesAfterWriteAsynchronously()
+    {
+        AtomicInteger version = new AtomicInteger();
+        LoadingBoundedCache<String, Integer> cache = BoundedCache.newBuilder()
+                .maximumSize(10)
+                .refreshAfterWrite(1, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .executor(Runnable::run) // Runs the reload inline so the test is deterministic
+                .build((String key) -> version.incrementAndGet());
+        assertEquals(Integer.valueOf(1), cache.get("k"));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        // The stale value is served, and the reload swaps the new one in behind it
+        assertEquals(Integer.valueOf(1), cache.get("k"));
+        assertEquals(Integer.valueOf(2), cache.get("k"));
+        assertEquals(2, cache.stats().loadSuccessCount());
+    }
+
+    @Test
+    public void refreshesTheSameKeyRepeatedly()
+    {
+        AtomicInteger version = new AtomicInteger();
+        LoadingBoundedCache<String, Integer> cache = BoundedCache.newBuilder()
+                .maximumSize(10)
+                .refreshAfterWrite(1, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .executor(Runnable::run) // Every reload has completed by the time asyncReload() returns
+                .build((String key) -> version.incrementAndGet());
+        assertEquals(Integer.valueOf(1), cache.get("k"));
+        for (int i = 2; i <= 5; i++) {
+            assertEquals(Integer.valueOf(i), cache.refresh("k").join());
+            assertEquals(Integer.valueOf(i), cache.get("k"));
+        }
+        // And once more through refreshAfterWrite
+        time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(Integer.valueOf(5), cache.get("k"));
+        assertEquals(Integer.valueOf(6), cache.get("k"));
+        assertEquals(6, cache.stats().loadSuccessCount());
+    }
+
+    @Test
+    public void aFailedReloadKeepsTheValueAndTheNextRefreshRuns()
+    {
+        AtomicInteger version = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger(2);
+        LoadingBoundedCache<String, Integer> cache = BoundedCache.newBuilder()
+                .maximumSize(10)
+                .executor(Runnable::run)
+                .build((String key) -> {
+                    if (version.get() > 0 && failures.getAndDecrement() > 0) {
+                        throw new Exception("backing store down");
+                    }
+                    return version.incrementAndGet();
+                });
+        assertEquals(Integer.valueOf(1), cache.get("k"));
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.refresh("k").join();
+                throw new AssertionError("The reload should have failed");
+            } catch (CompletionException expected) {
+            }
+            assertEquals(Integer.valueOf(1), cache.get("k"));
+        }
+        assertEquals(Integer.valueOf(2), cache.refresh("k").join());
+        assertEquals(Integer.valueOf(2), cache.get("k"));
+        assertEquals(2, cache.stats().loadFailureCount());
+    }
+
+    @Test
+    public void survivesConcurrentMixedLoad() throws InterruptedException
+    {
+        BoundedCache<Integer, Integer> cache = BoundedCache.newBuilder().maximumSize(500).build();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 100_000; i++) {
+                    int key = random.nextInt(2_000);
+                    switch (random.nextInt(4)) {
+                        case 0 -> cache.put(key, key);
+                        case 1 -> cache.invalidate(key);
+                        default -> {
+                            Integer value = cache.get(key, k -> k);
+                            assertEquals(Integer.valueOf(key), value);
+                        }
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        cache.cleanUp();
+        assertTrue(cache.estimatedSize() <= 500);
+        assertEquals(cache.estimatedSize(), cache.weightedSize());
+    }
+}
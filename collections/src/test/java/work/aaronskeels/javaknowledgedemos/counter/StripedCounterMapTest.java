@@ -0,0 +1,122 @@
+package work.aaronskeels.javaknowledgedemos.counter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import work.aaronskeels.javaknowledgedemos.counter.StripedCounterMap.Count;
+
+public class StripedCounterMapTest
+{
+    @Test
+    public void concurrentIncrementsAreExact() throws InterruptedException
+    {
+        StripedCounterMap<String> counts = StripedCounterMap.unbounded();
+        int threads = 8;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    counts.increment("hot");
+                    counts.increment("key-" + (i % 100), 2);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals((long) threads * perThread, counts.sum("hot"));
+        assertEquals(2L * threads * perThread / 100, counts.sum("key-7"));
+        assertEquals(3L * threads * perThread, counts.total());
+        assertEquals(101, counts.size());
+        assertEquals(0, counts.sum("missing"));
+    }
+
+    @Test
+    public void topKIsLargestFirst()
+    {
+        StripedCounterMap<Integer> counts = StripedCounterMap.unbounded();
+        for (int key = 1; key <= 100; key++) {
+            counts.increment(key, key);
+        }
+        List<Count<Integer>> top = counts.topK(3);
+        assertEquals(List.of(new Count<>(100, 100, 0), new Count<>(99, 99, 0), new Count<>(98, 98, 0)), top);
+        assertEquals(100, counts.topK(1_000).size());
+
+        assertEquals(100, counts.remove(100));
+        assertEquals(99, (int) counts.topK(1).get(0).key());
+        counts.clear();
+        assertEquals(0, counts.size());
+        assertEquals(0, counts.total());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeDelta()
+    {
+        StripedCounterMap.<String>unbounded().increment("key", -1);
+    }
+
+    /** Space-Saving guarantees on a skewed stream: bounded size, true counts inside [count - error, count], heavy keys kept. */
+    @Test
+    public void heavyHittersBoundMemoryAndError()
+    {
+        int capacity = 64;
+        int keys = 10_000;
+        StripedCounterMap<Integer> counts = StripedCounterMap.heavyHitters(capacity);
+        long[] exact = new long[keys];
+        SplittableRandom random = new SplittableRandom(42);
+        double[] cumulative = zipfCumulative(keys);
+        for (int i = 0; i < 200_000; i++) {
+            int key = zipf(random, cumulative);
+            exact[key]++;
+            counts.increment(key);
+            assertTrue(counts.size() <= capacity);
+        }
+        assertEquals(200_000, counts.total());
+        for (int key = 0; key < keys; key++) {
+            Count<Integer> estimate = counts.estimate(key);
+            assertTrue(key + ": " + estimate + " vs " + exact[key],
+                    estimate.guaranteedCount() <= exact[key] && exact[key] <= Math.max(estimate.count(), estimate.error()));
+        }
+        // Zipf's head dwarfs total()/capacity, so the five most frequent keys (0..4) must be the top five
+        List<Count<Integer>> top = counts.topK(5);
+        for (int rank = 0; rank < 5; rank++) {
+            assertEquals(rank, (int) top.get(rank).key());
+        }
+    }
+
+    /** Zipf(s = 1) over [0, n): key k drawn with probability proportional to 1 / (k + 1). */
+    private static int zipf(SplittableRandom random, double[] cumulative)
+    {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static double[] zipfCumulative(int n)
+    {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / (k + 1);
+            cumulative[k] = sum;
+        }
+        return cumulative;
+    }
+}
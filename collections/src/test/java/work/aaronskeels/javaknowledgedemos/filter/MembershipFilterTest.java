@@ -0,0 +1,186 @@
+package work.aaronskeels.javaknowledgedemos.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import org.junit.Test;
+
+public class MembershipFilterTest
+{
+    private static final int KEYS = 200_000;
+
+    /** Keys 0..n-1 were inserted; probe with keys that weren't and measure how often the filter lies. */
+    private static double measureFpp(LongPredicate mightContain)
+    {
+        int falsePositives = 0;
+        int probes = 500_000;
+        for (long key = KEYS; key < KEYS + probes; key++) {
+            if (mightContain.test(key)) {
+                falsePositives++;
+            }
+        }
+        return (double) falsePositives / probes;
+    }
+
+    @Test
+    public void bloomHasNoFalseNegativesAndMeetsTargetRate()
+    {
+        for (double fpp : new double[] {0.01, 0.001}) {
+            BlockedBloomFilter filter = BlockedBloomFilter.create(KEYS, fpp);
+            for (long key = 0; key < KEYS; key++) {
+                filter.put(key);
+            }
+            for (long key = 0; key < KEYS; key++) {
+                assertTrue(filter.mightContain(key));
+            }
+            double measured = measureFpp(filter::mightContain);
+            assertTrue(filter + " measured " + measured, measured < fpp * 1.5);
+            long estimate = filter.approximateElementCount();
+            assertTrue("estimate " + estimate, Math.abs(estimate - KEYS) < KEYS / 20);
+        }
+    }
+
+    @Test
+    public void cuckooHasNoFalseNegativesMeetsTargetRateAndDeletes()
+    {
+        for (double fpp : new double[] {0.01, 0.001}) {
+            CuckooFilter filter = CuckooFilter.create(KEYS, fpp);
+            for (long key = 0; key < KEYS; key++) {
+                assertTrue(filter.put(key));
+            }
+            for (long key = 0; key < KEYS; key++) {
+                assertTrue(filter.mightContain(key));
+            }
+            double measured = measureFpp(filter::mightContain);
+            assertTrue(filter + " measured " + measured, measured < fpp * 1.5);
+
+            for (long key = 0; key < KEYS; key += 2) {
+                assertTrue(filter.delete(key));
+            }
+            assertEquals(KEYS / 2, filter.size());
+            for (long key = 1; key < KEYS; key += 2) {
+                assertTrue(filter.mightContain(key));
+            }
+            int stillPresent = 0;
+            for (long key = 0; key < KEYS; key += 2) {
+                if (filter.mightContain(key)) {
+                    stillPresent++;
+                }
+            }
+            assertTrue(stillPresent < KEYS / 2 * fpp * 3);
+        }
+    }
+
+    @Test
+    public void cuckooFailsCleanlyWhenFull()
+    {
+        CuckooFilter filter = CuckooFilter.create(1_000, 0.01);
+        List<Long> inserted = new ArrayList<>();
+        for (long key = 0; key < 100_000; key++) {
+            if (!filter.put(key)) {
+                break;
+            }
+            inserted.add(key);
+        }
+        assertTrue(filter.loadFactor() > 0.9);
+        // A failed put() must not have dropped any earlier fingerprint
+        for (long key : inserted) {
+            assertTrue(filter.mightContain(key));
+        }
+    }
+
+    @Test
+    public void concurrentPutsAreNotLost() throws InterruptedException
+    {
+        BlockedBloomFilter bloom = BlockedBloomFilter.create(KEYS, 0.01);
+        CuckooFilter cuckoo = CuckooFilter.create(KEYS, 0.01);
+        int threads = 4;
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                for (long key = offset; key < KEYS; key += threads) {
+                    bloom.put(key);
+                    if (!cuckoo.put(key)) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        // Meanwhile look up keys that are definitely in already
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            cuckoo.mightContain(random.nextLong());
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, failures.get());
+        assertEquals(KEYS, cuckoo.size());
+        for (long key = 0; key < KEYS; key++) {
+            assertTrue(bloom.mightContain(key));
+            assertTrue(cuckoo.mightContain(key));
+        }
+    }
+
+    @Test
+    public void unionAndSerializationRoundTrip() throws IOException
+    {
+        BlockedBloomFilter bloomA = BlockedBloomFilter.create(KEYS, 0.01);
+        BlockedBloomFilter bloomB = BlockedBloomFilter.create(KEYS, 0.01);
+        CuckooFilter cuckooA = CuckooFilter.create(KEYS, 0.01);
+        CuckooFilter cuckooB = CuckooFilter.create(KEYS, 0.01);
+        for (long key = 0; key < KEYS / 2; key++) {
+            bloomA.put("key-" + key);
+            cuckooA.put("key-" + key);
+            bloomB.put("key-" + (key + KEYS / 2));
+            cuckooB.put("key-" + (key + KEYS / 2));
+        }
+        bloomA.union(bloomB);
+        assertTrue(cuckooA.union(cuckooB));
+        assertEquals(KEYS, cuckooA.size());
+
+        ByteArrayOutputStream bloomBytes = new ByteArrayOutputStream();
+        bloomA.writeTo(bloomBytes);
+        BlockedBloomFilter bloomCopy = BlockedBloomFilter.readFrom(new ByteArrayInputStream(bloomBytes.toByteArray()));
+        ByteArrayOutputStream cuckooBytes = new ByteArrayOutputStream();
+        cuckooA.writeTo(cuckooBytes);
+        CuckooFilter cuckooCopy = CuckooFilter.readFrom(new ByteArrayInputStream(cuckooBytes.toByteArray()));
+
+        assertEquals(bloomA.bitSize(), bloomCopy.bitSize());
+        assertEquals(cuckooA.size(), cuckooCopy.size());
+        for (long key = 0; key < KEYS; key++) {
+            assertTrue(bloomCopy.mightContain("key-" + key));
+            assertTrue(cuckooCopy.mightContain("key-" + key));
+        }
+        assertTrue(cuckooCopy.delete("key-0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unionRejectsDifferentGeometry()
+    {
+        BlockedBloomFilter.create(1_000, 0.01).union(BlockedBloomFilter.create(1_000_000, 0.01));
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsOtherStreams() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BlockedBloomFilter.create(1_000, 0.01).writeTo(bytes);
+        assertFalse(bytes.size() == 0);
+        CuckooFilter.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
@@ -0,0 +1,121 @@
+package work.aaronskeels.javaknowledgedemos.footprint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import work.aaronskeels.javaknowledgedemos.footprint.CollectionCatalog.Candidate;
+
+public class FootprintTest
+{
+    private static final class Node
+    {
+        Node next;
+        long payload;
+    }
+
+    private record Pair(Object left, Object right)
+    {
+    }
+
+    @Test
+    public void arraysScaleWithLength()
+    {
+        assertEquals(ObjectGraphSizer.shallowSize(new long[0]) + 80, ObjectGraphSizer.shallowSize(new long[10]));
+        assertEquals(ObjectGraphSizer.shallowSize(new byte[0]) + 1024, ObjectGraphSizer.shallowSize(new byte[1024]));
+        long header = ObjectGraphSizer.headerSize();
+        assertTrue(header == 8 || header == 12 || header == 16);
+        // An object with one long and one reference: header + 8 + reference, rounded up to the alignment
+        long node = ObjectGraphSizer.shallowSize(new Node());
+        assertTrue(node >= header + 8 + ObjectGraphSizer.referenceSize());
+        assertEquals(0, node % ObjectGraphSizer.objectAlignment());
+    }
+
+    @Test
+    public void sharedObjectsAndCyclesCountOnce()
+    {
+        Node first = new Node();
+        Node second = new Node();
+        first.next = second;
+        second.next = first;
+        long node = ObjectGraphSizer.shallowSize(first);
+        assertEquals(2 * node, ObjectGraphSizer.retainedSize(first));
+
+        Integer shared = 1_000_000;
+        List<Integer> list = new ArrayList<>(List.of(shared, shared, shared));
+        Object[] backing = list.toArray(); // Same length as the list's own backing array here
+        assertEquals(ObjectGraphSizer.shallowSize(list) + ObjectGraphSizer.shallowSize(backing)
+                + ObjectGraphSizer.shallowSize(shared), ObjectGraphSizer.retainedSize(list));
+    }
+
+    @Test
+    public void stopsAtJvmSharedObjects()
+    {
+        Pair pair = new Pair(TimeUnit.SECONDS, String.class);
+        // Record layouts are estimated (Unsafe refuses record fields): header + two references
+        long expected = ObjectGraphSizer.shallowSize(pair);
+        assertTrue(expected >= ObjectGraphSizer.headerSize() + 2L * ObjectGraphSizer.referenceSize());
+        assertEquals(expected, ObjectGraphSizer.retainedSize(pair));
+
+        Long boxed = 42L;
+        Pair withBoxed = new Pair(boxed, TimeUnit.SECONDS);
+        assertEquals(ObjectGraphSizer.shallowSize(withBoxed) + ObjectGraphSizer.shallowSize(boxed),
+                ObjectGraphSizer.retainedSize(withBoxed));
+    }
+
+    /** Every handle must implement the same contract or the report and benchmark compare different things. */
+    @Test
+    public void everyCandidateBehaves()
+    {
+        int size = 200;
+        Elements elements = Elements.of(size + 1);
+        for (Candidate candidate : CollectionCatalog.all()) {
+            try (CollectionHandle handle = candidate.create(elements, size + 1)) {
+                for (int i = 0; i < size; i++) {
+                    handle.add(i);
+                }
+                assertEquals(candidate.name(), size, handle.size());
+                for (int i = 0; i < size; i++) {
+                    assertTrue(candidate.name(), handle.get(i));
+                }
+                long checksum = handle.iterate();
+                handle.add(size);
+                assertEquals(candidate.name(), size + 1, handle.size());
+                assertTrue(candidate.name(), handle.remove(size));
+                assertEquals(candidate.name(), size, handle.size());
+                if (candidate.category() != CollectionCatalog.Category.QUEUE) {
+                    // Queues poll() the head instead, which changes what is in them
+                    assertEquals(candidate.name(), checksum, handle.iterate());
+                    assertFalse(candidate.name(), handle.remove(size));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reportIsOneResultPerLine() throws IOException
+    {
+        List<FootprintReport.Result> results = FootprintReport.measure(
+                List.of(CollectionCatalog.named("ArrayList"), CollectionCatalog.named("IntArrayList")), new int[] {10, 1_000}, null);
+        assertEquals(4, results.size());
+        FootprintReport.Result boxed = results.get(1);
+        FootprintReport.Result primitive = results.get(3);
+        assertEquals(1_000, boxed.size());
+        assertTrue(boxed.bytesPerElement() > 3 * primitive.bytesPerElement());
+
+        StringWriter out = new StringWriter();
+        FootprintReport.write(results, out);
+        String[] lines = out.toString().split("\n");
+        assertTrue(lines[1].startsWith("  \"jvm\": {"));
+        assertTrue(lines[3].contains("\"type\": \"ArrayList\", \"size\": 10,"));
+        assertTrue(lines[6].contains("\"type\": \"IntArrayList\", \"size\": 1000,"));
+    }
+}
@@ -0,0 +1,224 @@
+package work.aaronskeels.javaknowledgedemos.list;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ChunkedListTest
+{
+    /** Random mix of every mutating operation, checked against ArrayList; sizes cross many chunk splits and merges. */
+    @Test
+    public void matchesArrayListUnderRandomEdits()
+    {
+        Random random = new Random(7);
+        ChunkedList<Integer> chunked = new ChunkedList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int step = 0; step < 200_000; step++) {
+            int size = expected.size();
+            int op = random.nextInt(size < 2_000 ? 10 : 14);
+            Integer value = step;
+            switch (op) {
+                case 0, 1 -> {
+                    chunked.addFirst(value);
+                    expected.add(0, value);
+                }
+                case 2, 3 -> {
+                    chunked.addLast(value);
+                    expected.add(value);
+                }
+                case 4, 5 -> {
+                    int index = random.nextInt(size + 1);
+                    chunked.add(index, value);
+                    expected.add(index, value);
+                }
+                case 6 -> {
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        assertEquals(expected.set(index, value), chunked.set(index, value));
+                    }
+                }
+                case 7 -> assertEquals(size == 0 ? null : expected.remove(0), chunked.pollFirst());
+                case 8 -> assertEquals(size == 0 ? null : expected.remove(size - 1), chunked.pollLast());
+                default -> {
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        assertEquals(expected.remove(index), chunked.remove(index));
+                    }
+                }
+            }
+            assertEquals(expected.size(), chunked.size());
+            if (size > 0 && step % 7 == 0) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.get(index), chunked.get(index));
+            }
+            if (step % 10_000 == 0) {
+                assertEquals(expected, chunked);
+            }
+        }
+        assertEquals(expected, chunked);
+        while (!chunked.isEmpty()) {
+            int index = random.nextInt(chunked.size());
+            assertEquals(expected.remove(index), chunked.remove(index));
+        }
+        assertEquals(0, expected.size());
+    }
+
+    @Test
+    public void listIteratorEditsInPlace()
+    {
+        ChunkedList<Integer> chunked = new ChunkedList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            chunked.add(i);
+            expected.add(i);
+        }
+        // Drop odd numbers, double multiples of 3, and insert a marker after multiples of 10, walking forward then back
+        for (List<Integer> list : List.of(chunked, expected)) {
+            ListIterator<Integer> iterator = list.listIterator();
+            while (iterator.hasNext()) {
+                int value = iterator.next();
+                if (value % 2 == 1) {
+                    iterator.remove();
+                } else if (value % 3 == 0) {
+                    iterator.set(value * 2);
+                }
+                if (value % 10 == 0) {
+                    iterator.add(-value);
+                }
+            }
+            while (iterator.hasPrevious()) {
+                if (iterator.previous() < 0 && iterator.nextIndex() % 4 == 0) {
+                    iterator.remove();
+                }
+            }
+            iterator.add(-1);
+        }
+        assertEquals(expected, chunked);
+
+        ListIterator<Integer> middle = chunked.listIterator(200);
+        assertEquals(expected.get(200), middle.next());
+        assertEquals(expected.get(200), middle.previous());
+        assertEquals(199, middle.previousIndex());
+        assertTrue(chunked.removeIf(value -> value < 0));
+        expected.removeIf(value -> value < 0);
+        assertEquals(expected, chunked);
+    }
+
+    @Test
+    public void dequeOperations()
+    {
+        ChunkedList<String> deque = new ChunkedList<>();
+        assertNull(deque.peek());
+        assertNull(deque.pollLast());
+        try {
+            deque.pop();
+            fail("pop() on an empty deque");
+        } catch (NoSuchElementException expected) {
+            // Empty
+        }
+        deque.push("b");
+        deque.push("a");
+        deque.offer("c");
+        deque.addLast(null);
+        assertEquals(List.of("a", "b", "c"), deque.subList(0, 3));
+        assertNull(deque.getLast());
+        assertEquals(3, deque.indexOf(null));
+        assertTrue(deque.removeLastOccurrence(null));
+        assertFalse(deque.removeFirstOccurrence("z"));
+
+        Iterator<String> descending = deque.descendingIterator();
+        assertEquals("c", descending.next());
+        descending.remove();
+        assertEquals("b", descending.next());
+        assertEquals(List.of("a", "b"), deque);
+        assertEquals("a", deque.pop());
+        assertEquals("b", deque.element());
+    }
+
+    /** reversed() is what JDK 21's List/Deque.reversed() resolve to: a view, not a copy. */
+    @Test
+    public void reversedIsAWriteThroughView()
+    {
+        ChunkedList<Integer> list = new ChunkedList<>();
+        for (int i = 0; i < 200; i++) {
+            list.add(i);
+        }
+        ChunkedList<Integer> reversed = list.reversed();
+        assertEquals(199, (int) reversed.get(0));
+        assertEquals(199, (int) reversed.peek());
+        assertEquals(0, (int) reversed.getLast());
+        assertEquals(10, reversed.indexOf(189));
+
+        reversed.addFirst(200); // Appends to the list
+        reversed.offer(-1); // Prepends
+        reversed.add(1, 1_000);
+        assertEquals(200, (int) list.getLast());
+        assertEquals(-1, (int) list.getFirst());
+        assertEquals(1_000, (int) list.get(list.size() - 2));
+
+        ListIterator<Integer> iterator = reversed.listIterator(2);
+        assertEquals(1, iterator.previousIndex());
+        assertEquals(199, (int) iterator.next());
+        iterator.remove();
+        iterator.add(5_000);
+        assertEquals(198, (int) iterator.next());
+        assertEquals(198, (int) iterator.previous());
+        assertEquals(5_000, (int) iterator.previous()); // add() put it before the cursor, where 199 was
+        assertEquals(2, iterator.nextIndex());
+
+        List<Integer> expected = new ArrayList<>(list);
+        Collections.reverse(expected);
+        assertEquals(expected, reversed);
+        assertEquals(expected, new ArrayList<>(reversed));
+        assertEquals(expected, List.of(reversed.toArray()));
+        assertTrue(reversed.reversed() == list);
+        assertEquals(-1, (int) reversed.pollLast());
+        assertEquals(200, (int) reversed.pop());
+        assertEquals(list.size(), reversed.size());
+    }
+
+    /** Queue-style use walks through the directory; it must recycle directory slots rather than grow without bound. */
+    @Test
+    public void queueChurnStaysCorrect()
+    {
+        ChunkedList<Integer> queue = new ChunkedList<>();
+        int next = 0;
+        for (int round = 0; round < 100_000; round++) {
+            for (int i = 0; i < 3; i++) {
+                queue.offer(round * 3 + i);
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(next++, (int) queue.poll());
+            }
+            if (round % 1_000 == 0) {
+                for (int i = 0; i < 500; i++) {
+                    queue.addFirst(--next);
+                }
+                assertEquals(next + 250, (int) queue.get(250));
+            }
+        }
+        assertEquals(next + queue.size(), 300_000);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorsFailFast()
+    {
+        ChunkedList<Integer> list = new ChunkedList<>(List.of(1, 2, 3));
+        for (Integer value : list) {
+            list.add(value);
+        }
+    }
+}
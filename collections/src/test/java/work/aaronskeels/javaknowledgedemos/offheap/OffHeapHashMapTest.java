@@ -0,0 +1,157 @@
+package work.aaronskeels.javaknowledgedemos.offheap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class OffHeapHashMapTest 
+{
+    @Test
+    public void matchesHashMapAcrossResizesAndPages()
+    {
+        // 128 byte pages force many pages per table, and starting tiny forces several rehashes
+        try (OffHeapHashMap map = new OffHeapHashMap(12, 2, 0.6f, false, 128)) {
+            Random random = new Random(11);
+            Map<Long, Long> reference = new HashMap<>();
+            for (int i = 0; i < 50_000; i++) {
+                long key = random.nextInt(4_000) - 2_000L;
+                if (random.nextInt(3) > 0) {
+                    boolean added = !reference.containsKey(key);
+                    reference.put(key, (long) i);
+                    assertEquals(added, map.putLong(key, i));
+                } else {
+                    assertEquals(reference.remove(key) != null, map.remove(key));
+                }
+            }
+            assertEquals(reference.size(), map.size());
+            for (Map.Entry<Long, Long> entry : reference.entrySet()) {
+                assertEquals(entry.getValue().longValue(), map.getLong(entry.getKey(), -1));
+            }
+            long[] visited = {0};
+            map.forEachKey(key -> {
+                assertTrue(reference.containsKey(key));
+                visited[0]++;
+            });
+            assertEquals(reference.size(), visited[0]);
+        }
+    }
+
+    @Test
+    public void storesFixedSizeByteRecords()
+    {
+        try (OffHeapHashMap map = new OffHeapHashMap(5, 16)) {
+            map.put(42L, new byte[] {1, 2, 3, 4, 5});
+            byte[] value = new byte[5];
+            assertTrue(map.get(42L, value));
+            assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, value);
+            assertFalse(map.get(43L, value));
+            assertTrue(map.offHeapBytes() > 0);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUseAfterClose()
+    {
+        OffHeapHashMap map = new OffHeapHashMap(8, 16);
+        map.close();
+        map.close(); // Idempotent
+        map.getLong(1L, 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsValuesOfTheWrongLength()
+    {
+        try (OffHeapHashMap map = new OffHeapHashMap(5, 16)) {
+            map.put(42L, new byte[6]);
+        }
+    }
+
+    @Test
+    public void readersRacingCloseFailCleanly() throws Exception
+    {
+        for (int round = 0; round < 20; round++) {
+            OffHeapHashMap map = OffHeapHashMap.concurrent(8, 1_000);
+            for (long key = 0; key < 1_000; key++) {
+                map.putLong(key, key);
+            }
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread[] readers = new Thread[2];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new Thread(() -> {
+                    try {
+                        while (true) {
+                            for (long key = 0; key < 1_000; key++) {
+                                long value = map.getLong(key, key);
+                                if (value != key) {
+                                    throw new AssertionError("Read " + value + " for key " + key);
+                                }
+                            }
+                        }
+                    } catch (IllegalStateException closed) {
+                        // The only way out
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                });
+                readers[i].start();
+            }
+            Thread.sleep(2);
+            map.close();
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            assertEquals(null, failure.get());
+        }
+    }
+
+    @Test
+    public void concurrentReadersSeeConsistentValuesDuringWrites() throws Exception
+    {
+        try (OffHeapHashMap map = OffHeapHashMap.concurrent(16, 4)) {
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                byte[] value = new byte[16];
+                try {
+                    while (!done.get()) {
+                        for (long key = 0; key < 1_000; key++) {
+                            if (map.get(key, value)) {
+                                ByteBuffer buffer = ByteBuffer.wrap(value);
+                                // Writers always store (key, key) so a torn read would show up as a mismatch
+                                if (buffer.getLong(0) != key || buffer.getLong(8) != key) {
+                                    throw new AssertionError("Torn read for key " + key);
+                                }
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            reader.start();
+            byte[] record = new byte[16];
+            for (int round = 0; round < 20; round++) {
+                for (long key = 0; key < 1_000; key++) {
+                    ByteBuffer.wrap(record).putLong(0, key).putLong(8, key);
+                    map.put(key, record);
+                }
+                for (long key = round % 2; key < 1_000; key += 2) {
+                    map.remove(key);
+                }
+            }
+            done.set(true);
+            reader.join();
+            assertEquals(null, failure.get());
+        }
+    }
+}
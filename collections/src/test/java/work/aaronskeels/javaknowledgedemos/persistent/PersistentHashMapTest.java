@@ -0,0 +1,123 @@
+package work.aaronskeels.javaknowledgedemos.persistent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PersistentHashMapTest 
+{
+    /** Key with a deliberately terrible hashCode so collision nodes get exercised. */
+    private record BadKey(int id) {
+        @Override
+        public int hashCode() {
+            return id % 7;
+        }
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations()
+    {
+        Random random = new Random(5);
+        PersistentHashMap<Object, Integer> map = PersistentHashMap.empty();
+        Map<Object, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            Object key = random.nextBoolean() ? (Object) random.nextInt(3_000) : new BadKey(random.nextInt(200));
+            if (random.nextInt(3) > 0) {
+                map = map.plus(key, i);
+                reference.put(key, i);
+            } else {
+                map = map.minus(key);
+                reference.remove(key);
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        assertEquals(reference, map);
+        assertEquals(reference, new HashMap<>(map)); // Exercises the entry iterator
+    }
+
+    @Test
+    public void oldVersionsAreUnaffectedByUpdates()
+    {
+        PersistentHashMap<String, Integer> v1 = PersistentHashMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+        PersistentHashMap<String, Integer> v2 = v1.plus("a", 10).minus("b").plus("c", 3);
+        assertEquals(Map.of("a", 1, "b", 2), v1);
+        assertEquals(Map.of("a", 10, "c", 3), v2);
+        assertSame(v2, v2.minus("missing"));
+        assertSame(v2, v2.plus("c", v2.get("c")));
+    }
+
+    @Test
+    public void transientBuildsSameMapAndIsSealedAfterwards()
+    {
+        PersistentHashMap<Integer, Integer> base = PersistentHashMap.<Integer, Integer>empty().plus(-1, -1);
+        TransientHashMap<Integer, Integer> builder = base.asTransient();
+        for (int i = 0; i < 50_000; i++) {
+            builder.put(i, i * 2);
+        }
+        for (int i = 0; i < 50_000; i += 2) {
+            builder.remove(i);
+        }
+        PersistentHashMap<Integer, Integer> built = builder.persistent();
+        assertEquals(1, base.size()); // The source map never sees transient writes
+        assertEquals(25_001, built.size());
+        assertEquals(Integer.valueOf(2), built.get(1));
+        assertNull(built.get(2));
+        try {
+            builder.put(1, 1);
+            throw new AssertionError("transient should be sealed");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void persistentSetBehavesLikeHashSet()
+    {
+        PersistentHashSet<Integer> set = PersistentHashSet.copyOf(List.of(1, 2, 3));
+        PersistentHashSet<Integer> grown = set.plus(4).minus(1);
+        assertEquals(Set.of(1, 2, 3), set);
+        assertEquals(Set.of(2, 3, 4), grown);
+        assertEquals(Set.of(2, 3, 4), new HashSet<>(grown));
+    }
+
+    @Test
+    public void atomicWrappersApplyConcurrentUpdatesWithoutLoss() throws InterruptedException
+    {
+        AtomicPersistentMap<Integer, Integer> map = new AtomicPersistentMap<>();
+        AtomicPersistentSet<Integer> set = new AtomicPersistentSet<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int base = t * 10_000;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    map.put(base + i, i);
+                    set.add(base + i);
+                    map.merge(-1, 1, Integer::sum); // One hot key, contended through the CAS loop
+                }
+            }));
+        }
+        PersistentHashMap<Integer, Integer> before = map.snapshot();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(before.isEmpty());
+        assertEquals(40_001, map.size());
+        assertEquals(Integer.valueOf(40_000), map.get(-1));
+        assertEquals(40_000, set.size());
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+    }
+}
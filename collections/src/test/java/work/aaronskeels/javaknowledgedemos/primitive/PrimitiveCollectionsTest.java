@@ -0,0 +1,137 @@
+package work.aaronskeels.javaknowledgedemos.primitive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PrimitiveCollectionsTest 
+{
+    @Test
+    public void intArrayListBehavesLikeArrayList()
+    {
+        IntArrayList list = new IntArrayList();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        list.add(0, -1);
+        assertEquals(101, list.size());
+        assertEquals(-1, list.get(0));
+        assertEquals(-1, list.removeAt(0));
+        assertTrue(list.removeValue(50));
+        assertFalse(list.contains(50));
+        assertEquals(99, list.size());
+
+        int sum = 0;
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        while (iterator.hasNext()) {
+            sum += iterator.nextInt();
+        }
+        assertEquals(4950 - 50, sum);
+        assertEquals(IntArrayList.of(1, 2, 3), IntArrayList.of(1, 2, 3));
+    }
+
+    @Test
+    public void longArrayListBehavesLikeArrayList()
+    {
+        LongArrayList list = LongArrayList.of(Long.MAX_VALUE, 0L, -5L);
+        list.set(1, 7L);
+        assertArrayEquals(new long[] {Long.MAX_VALUE, 7L, -5L}, list.toArray());
+        assertEquals(2, list.indexOf(-5L));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void listRejectsOutOfRangeIndex()
+    {
+        IntArrayList.of(1).get(1);
+    }
+
+    @Test
+    public void intIntHashMapMatchesHashMapUnderRandomOperations()
+    {
+        Random random = new Random(42);
+        IntIntHashMap map = new IntIntHashMap(4, 0.5f, -1);
+        Map<Integer, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100; // Includes 0 and negatives on purpose
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                Integer previous = reference.put(key, i);
+                assertEquals(previous == null ? -1 : previous, map.put(key, i));
+            } else if (operation == 1) {
+                Integer removed = reference.remove(key);
+                assertEquals(removed == null ? -1 : removed, map.remove(key));
+            } else {
+                assertEquals(reference.getOrDefault(key, -1).intValue(), map.get(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        Map<Integer, Integer> copied = new HashMap<>();
+        map.forEach(copied::put);
+        assertEquals(reference, copied);
+    }
+
+    @Test
+    public void intIntHashMapAddToCounts()
+    {
+        IntIntHashMap counts = new IntIntHashMap();
+        for (int i = 0; i < 10; i++) {
+            counts.addTo(i % 3, 1);
+        }
+        assertEquals(4, counts.get(0));
+        assertEquals(3, counts.get(2));
+    }
+
+    @Test
+    public void intHashSetMatchesHashSet()
+    {
+        Random random = new Random(7);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> reference = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                assertEquals(reference.add(value), set.add(value));
+            } else {
+                assertEquals(reference.remove(value), set.remove(value));
+            }
+        }
+        Set<Integer> iterated = new HashSet<>();
+        PrimitiveIterator.OfInt iterator = set.iterator();
+        while (iterator.hasNext()) {
+            iterated.add(iterator.nextInt());
+        }
+        assertEquals(reference, iterated);
+        assertEquals(reference.size(), set.toArray().length);
+    }
+
+    @Test
+    public void longObjectHashMapMatchesHashMap()
+    {
+        Random random = new Random(3);
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        Map<Long, String> reference = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(3_000) * 0x1_0000_0000L;
+            if (random.nextInt(3) > 0) {
+                assertEquals(reference.put(key, "v" + i), map.put(key, "v" + i));
+            } else {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        map.forEach((key, value) -> assertEquals(reference.get(key), value));
+        assertNull(map.get(-1L));
+        assertEquals("x", map.computeIfAbsent(-1L, key -> "x"));
+    }
+}
@@ -0,0 +1,161 @@
+package work.aaronskeels.javaknowledgedemos.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+public class RingQueueTest 
+{
+    @Test
+    public void roundsCapacityUpAndRejectsWhenFull()
+    {
+        for (AbstractRingQueue<Integer> queue : List.of(new MpmcRingQueue<Integer>(5), new SpscRingQueue<Integer>(5))) {
+            assertEquals(8, queue.capacity());
+            for (int i = 0; i < 8; i++) {
+                assertTrue(queue.offer(i));
+            }
+            assertFalse(queue.offer(8));
+            assertEquals(8, queue.size());
+            assertEquals(0, queue.remainingCapacity());
+            assertEquals(Integer.valueOf(0), queue.peek());
+            assertEquals(Integer.valueOf(0), queue.poll());
+            assertTrue(queue.offer(8));
+            assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), new ArrayList<>(queue));
+        }
+    }
+
+    @Test
+    public void drainToRespectsLimitAndOrder()
+    {
+        for (BlockingQueue<Integer> queue : List.of(new MpmcRingQueue<Integer>(16), new SpscRingQueue<Integer>(16))) {
+            for (int i = 0; i < 10; i++) {
+                queue.add(i);
+            }
+            List<Integer> drained = new ArrayList<>();
+            assertEquals(4, queue.drainTo(drained, 4));
+            assertEquals(6, queue.drainTo(drained));
+            assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), drained);
+            assertTrue(queue.isEmpty());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void removalFromTheMiddleIsRejectedUpFront()
+    {
+        for (BlockingQueue<Integer> queue : List.of(new MpmcRingQueue<Integer>(16), new SpscRingQueue<Integer>(16))) {
+            for (int i = 0; i < 5; i++) {
+                queue.add(i);
+            }
+            List<Runnable> removals = List.of(() -> queue.remove(Integer.valueOf(3)), () -> queue.removeAll(List.of(1)),
+                    () -> queue.retainAll(List.of(1)), () -> queue.removeIf(e -> e == 2), () -> {
+                        Iterator<Integer> iterator = queue.iterator();
+                        iterator.next();
+                        iterator.remove();
+                    });
+            for (Runnable removal : removals) {
+                try {
+                    removal.run();
+                    throw new AssertionError("Expected UnsupportedOperationException");
+                } catch (UnsupportedOperationException expected) {
+                }
+            }
+            assertEquals(List.of(0, 1, 2, 3, 4), new ArrayList<>(queue));
+            queue.clear();
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void timedOperationsTimeOut() throws InterruptedException
+    {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            MpmcRingQueue<Integer> queue = new MpmcRingQueue<>(2, strategy);
+            assertNull(queue.poll(5, TimeUnit.MILLISECONDS));
+            queue.put(1);
+            queue.put(2);
+            assertFalse(queue.offer(3, 5, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void mpmcDeliversEveryElementExactlyOnce() throws InterruptedException
+    {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 100_000;
+        MpmcRingQueue<Integer> queue = new MpmcRingQueue<>(64, WaitStrategy.YIELD);
+        AtomicIntegerArray seen = new AtomicIntegerArray(producers * perProducer);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.put(base + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        seen.incrementAndGet(queue.take());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < seen.length(); i++) {
+            assertEquals("element " + i, 1, seen.get(i));
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void spscPreservesOrderAcrossThreads() throws InterruptedException
+    {
+        int count = 500_000;
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(128, WaitStrategy.PARK);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    queue.put(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        int expected = 0;
+        List<Integer> batch = new ArrayList<>();
+        while (expected < count) {
+            if (queue.drainTo(batch, 32) == 0) {
+                batch.add(queue.take());
+            }
+            for (int value : batch) {
+                assertEquals(expected++, value);
+            }
+            batch.clear();
+        }
+        producer.join();
+    }
+}
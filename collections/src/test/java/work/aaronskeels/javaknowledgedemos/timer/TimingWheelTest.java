@@ -0,0 +1,160 @@
+package work.aaronskeels.javaknowledgedemos.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TimingWheelTest
+{
+    /** 1 ms ticks on 16-slot wheels: anything past 16 ms starts on a coarser wheel and has to cascade down. */
+    private static HierarchicalTimingWheel smallWheel()
+    {
+        return HierarchicalTimingWheel.newBuilder()
+                .tickDuration(1, TimeUnit.MILLISECONDS)
+                .wheelSize(16)
+                .build();
+    }
+
+    @Test
+    public void firesNeverEarlyAcrossLevels() throws InterruptedException
+    {
+        try (HierarchicalTimingWheel wheel = smallWheel()) {
+            Random random = new Random(11);
+            int count = 500;
+            CountDownLatch done = new CountDownLatch(count);
+            ConcurrentLinkedQueue<String> early = new ConcurrentLinkedQueue<>();
+            for (int i = 0; i < count; i++) {
+                long delayMillis = random.nextInt(600); // Up to ~3 levels deep
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+                wheel.schedule(() -> {
+                    long now = System.nanoTime();
+                    if (now < deadline) {
+                        early.add(delayMillis + "ms timer fired " + (deadline - now) + "ns early");
+                    }
+                    done.countDown();
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(early.toString(), early.isEmpty());
+            assertEquals(0, wheel.pendingTimers());
+        }
+    }
+
+    @Test
+    public void firesInDeadlineOrder() throws InterruptedException
+    {
+        try (HierarchicalTimingWheel wheel = smallWheel()) {
+            List<Integer> fired = new ArrayList<>(); // Tasks run on the single driver thread
+            CountDownLatch done = new CountDownLatch(1);
+            int[] delays = {300, 20, 5, 70, 150, 1, 40};
+            for (int delay : delays) {
+                wheel.schedule(() -> fired.add(delay), delay, TimeUnit.MILLISECONDS);
+            }
+            wheel.schedule(done::countDown, 400, TimeUnit.MILLISECONDS);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of(1, 5, 20, 40, 70, 150, 300), fired);
+        }
+    }
+
+    @Test
+    public void cancelledTimersNeverFire() throws InterruptedException
+    {
+        try (HierarchicalTimingWheel wheel = smallWheel()) {
+            ConcurrentLinkedQueue<Integer> fired = new ConcurrentLinkedQueue<>();
+            List<Timeout> timeouts = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                int id = i;
+                timeouts.add(wheel.schedule(() -> fired.add(id), 100 + i % 200, TimeUnit.MILLISECONDS));
+            }
+            for (int i = 0; i < timeouts.size(); i += 2) {
+                assertTrue(timeouts.get(i).cancel());
+                assertFalse(timeouts.get(i).cancel());
+            }
+            assertEquals(500, wheel.pendingTimers());
+            CountDownLatch done = new CountDownLatch(1);
+            wheel.schedule(done::countDown, 400, TimeUnit.MILLISECONDS);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            assertEquals(500, fired.size());
+            for (int id : fired) {
+                assertEquals(1, id % 2);
+            }
+            for (int i = 0; i < timeouts.size(); i++) {
+                assertEquals(i % 2 == 0, timeouts.get(i).isCancelled());
+                assertEquals(i % 2 == 1, timeouts.get(i).isExpired());
+                assertFalse(timeouts.get(i).cancel());
+            }
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsAfterClose()
+    {
+        HierarchicalTimingWheel wheel = smallWheel();
+        wheel.close();
+        wheel.schedule(() -> { }, 1, TimeUnit.MILLISECONDS);
+    }
+
+    private record Job(String name, long deadlineNanos) implements Delayed
+    {
+        static Job in(String name, long millis)
+        {
+            return new Job(name, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit)
+        {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other)
+        {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Test
+    public void delayQueueAdapterTakesExpiredInOrder() throws InterruptedException
+    {
+        try (HierarchicalTimingWheel wheel = smallWheel()) {
+            TimingWheelDelayQueue<Job> queue = new TimingWheelDelayQueue<>(wheel);
+            Job late = Job.in("late", 600);
+            Job early = Job.in("early", 200);
+            Job removed = Job.in("removed", 400);
+            Job now = Job.in("now", 0);
+            queue.add(late);
+            queue.add(early);
+            queue.add(removed);
+            queue.add(now);
+            assertEquals(4, queue.size());
+            assertTrue(queue.contains(removed));
+
+            assertEquals(now, queue.poll());
+            assertNull(queue.poll()); // Nothing else has expired yet
+            assertTrue(queue.remove(removed));
+            assertFalse(queue.remove(removed));
+            assertEquals(2, queue.size());
+
+            assertEquals(early, queue.take());
+            assertTrue(early.getDelay(TimeUnit.NANOSECONDS) <= 0);
+            assertEquals(late, queue.poll(5, TimeUnit.SECONDS));
+            assertTrue(late.getDelay(TimeUnit.NANOSECONDS) <= 0);
+            assertNull(queue.poll(200, TimeUnit.MILLISECONDS)); // "removed" never shows up
+            assertTrue(queue.isEmpty());
+        }
+    }
+}
@@ -40,6 +40,100 @@ public class App
          * Notes:
          * - Remember to flush streams where applicable.
          * - Remember to close streams unless you try-with-resource
+         *
+         * The sections below compare against JMH benchmarks in the test sources ("benchmark" package); run one's main() for the
+         * numbers on your own hardware and JDK.
+         *
+         * Memory-Mapped Files (see "mmap" package):
+         * - MappedFile: FileChannel.map() windows over a file of any size, with typed positional get/put that are plain memory
+         *   accesses (no read() system call, no copy into a Java buffer). Grows on write, trimmed on close(); force() for durability.
+         * - MappedFileReader/MappedFileWriter: DataInput/DataOutput cursors over it, drop-ins for
+         *   Data*Stream(Buffered*Stream(File*Stream)).
+         * - Benchmarked in MappedFileBenchmark: sequential reads are several times faster than through the buffered streams, and a
+         *   random read is a memory load (nanoseconds) instead of RandomAccessFile's seek + eight read() calls (microseconds).
+         *
+         * Zero-Copy Transfer (see "transfer" package):
+         * - Copying with a read()/write() loop pulls every byte into a Java array and pushes it back out. FileChannel.transferTo()/
+         *   transferFrom() let the kernel move it instead (sendfile(), copy_file_range()).
+         * - ChannelTransfer: chunked transferTo()/transferFrom() for file -> file, file -> socket and socket -> file, with progress
+         *   callbacks, falling back to a direct buffer loop where the kernel can't help (size() of 0, plain streams).
+         * - Benchmarked in TransferBenchmark: about even for small files (fixed costs dominate); on large ones file -> socket gains
+         *   the most and file -> file a smaller but still clear margin.
+         *
+         * Parallel Compression (see "compress" package):
+         * - DeflaterOutputStream/GZIPOutputStream compress on one core, which at the default level is slower than most disks.
+         * - ParallelDeflaterOutputStream: pigz-style, deflates 128 KiB blocks on a worker pool, each primed with the previous
+         *   block's last 32 KiB as a dictionary, and writes one ordinary gzip member (about GZIPOutputStream's ratio).
+         * - independentBlocks(true) writes each block as its own gzip member tagged with its length, which
+         *   ParallelGzipInputStream inflates in parallel too; any other gzip input is inflated sequentially, as GZIPInputStream does.
+         * - ParallelGzipBenchmark gives MB/s per thread count. With one thread both streams keep pace with the JDK ones; extra
+         *   cores add throughput until the writing thread's copy + CRC becomes the limit.
+         *
+         * Byte-Level Parsing (see "csv" package):
+         * - Scanner runs a regex per token and returns each as a String; readLine() + split() allocates per line and per field.
+         * - CsvParser: scans raw bytes in a reused window and passes each record to a RecordVisitor as a CsvRecord view, whose
+         *   getLong()/getDouble() parse straight from the bytes (quoted fields, "" escapes, \r\n handled). parseParallel() splits
+         *   a file at line boundaries across threads, one visitor per part.
+         * - Benchmarked in CsvParserBenchmark (1M records, one core): Scanner is an order of magnitude slower than readLine() +
+         *   split(), and CsvParser takes about half the time of readLine() + split().
+         *
+         * Binary Serialization (see "serial" package):
+         * - ObjectOutputStream writes class descriptors into every stream and reads fields reflectively, so a small object graph
+         *   is mostly metadata.
+         * - SchemaRegistry: each class registers a Schema of (tag, field) pairs up front; values are written protobuf style as
+         *   tagged zigzag varints, fixed-width floats and length-prefixed strings/messages, straight into a ByteBuffer. Fields are
+         *   accessed through MethodHandles resolved once per schema, so nothing is reflective per value.
+         * - Tags make schemas evolvable: unknown tags are skipped, missing ones keep their defaults, fields can be renamed.
+         * - Benchmarked in SerializationBenchmark: for an order with one line the schema encoding is about a tenth of the size and
+         *   an order of magnitude faster both ways; with 100 lines the size gap narrows, but writes and reads are still several
+         *   times faster.
+         *
+         * Buffer Pooling (see "pool" package):
+         * - ByteBuffer.allocate() per request is garbage the size of the buffer; allocateDirect() also zeroes native memory, takes
+         *   a global lock to reserve it, and only frees it after a GC.
+         * - BufferPool: power-of-two size classes, a lock-free per-thread cache per class backed by a shared arena (refilled and
+         *   spilled in batches), reference-counted PooledBuffer handles, metrics (hit rate, bytes in use/idle) and optional
+         *   Cleaner-based leak detection that reports where an unreleased buffer was acquired.
+         * - Benchmarked in BufferPoolBenchmark: a pooled buffer costs the same small time and one small handle per request at any
+         *   size, while allocateDirect() is an order of magnitude slower at 4 KiB and grows with the size (zeroing), and allocate()
+         *   leaves a whole buffer of garbage per request.
+         *
+         * Append-Only Log (see "log" package):
+         * - RandomAccessFile gives positional I/O but no framing, crash detection, record lookup, fsync batching or retention.
+         * - SegmentedLog: length-prefixed, CRC-32C checked records in fixed-size segment files named by first offset, each with a
+         *   sparse memory-mapped offset index (lookup = map floor + binary search + a scan of <= indexInterval bytes). Opening
+         *   truncates a torn tail and rebuilds missing indexes; LogReader streams records across segments and can tail the log.
+         * - SyncPolicy: NONE, EVERY_APPEND, GROUP_COMMIT (one fsync covers every append that arrived while the previous one ran)
+         *   or INTERVAL. Retention deletes whole segments; compact(key) keeps the latest record per key at its original offset.
+         * - Benchmarked in LogAppendBenchmark, 8 threads x 128 byte records: NONE and INTERVAL run at page cache speed and
+         *   EVERY_APPEND at fsync speed; GROUP_COMMIT gives EVERY_APPEND's durability at a few times its throughput. The absolute
+         *   rates mostly follow the disk's fsync latency.
+         *
+         * In-Memory Pipe (see "pipe" package):
+         * - PipedInputStream/PipedOutputStream: a 1 KiB buffer behind one monitor, wait()/notifyAll() hand-off that re-checks
+         *   once a second, and a read() that moves one byte per loop iteration.
+         * - BytePipe: single-producer/single-consumer power-of-two byte ring; each side owns a cache-line-padded counter, copies
+         *   whole runs (two arraycopies at the wrap) and publishes with an ordered VarHandle store. No locks or CAS. Stream and
+         *   ByteBuffer (blocking and try*) APIs, WaitStrategy SPIN/YIELD/PARK for the waiting side.
+         * - Benchmarked in PipeBenchmark, 16 MiB per op on a single core: with 64 byte chunks BytePipe is several times faster than
+         *   default piped streams; with a 64 KiB PipedInputStream and no core contention the monitor is cheap and the two are on par.
+         *
+         * Prefetching Concatenation (see "concat" package):
+         * - SequenceInputStream opens and drains its inputs one after another, so each input's open and read latency adds up.
+         * - PrefetchingSequenceInputStream: lazily opened StreamSources; the next "prefetch" sources are copied by background tasks
+         *   into bounded BytePipes while the current one is read, bytes still come out in order, close() cancels and closes all.
+         * - ChunkReader: the unordered variant; "parallelism" sources read at once into one bounded queue of Chunks (source,
+         *   position, bytes) that any number of consumer threads take from.
+         * - Benchmarked in ConcatenationBenchmark, 16 x 1 MiB sources with 2/10 ms open latency: prefetching 4 ahead takes a third
+         *   or less of SequenceInputStream's time (the higher the latency, the bigger the gap), and ChunkReader a little less again.
+         *
+         * Directory Tree Processing (see "tree" package):
+         * - Files.walk() + Files.readAllBytes() per file runs on one thread and copies every file, however big, onto the heap.
+         * - FileTreePipeline: walkFileTree on the caller's thread feeds batches of files to a ForkJoinPool as it goes; batch tasks
+         *   split in halves for work stealing, read small files into a per-thread buffer and map large ones, run a FileProcessor
+         *   on each and merge results with a user combiner. PipelineStats has walk/read/process counters and rates.
+         * - Benchmarked in FileTreeBenchmark, CRC-32 of 100,000 cached files: even on a single core the pipeline beats the
+         *   sequential walk (no copies of the large files); more cores divide the read/process stages further.
          */
     }
 }
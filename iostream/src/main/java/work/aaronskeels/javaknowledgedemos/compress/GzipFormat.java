@@ -0,0 +1,78 @@
+package work.aaronskeels.javaknowledgedemos.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The bits of RFC 1952 (gzip) shared by the parallel streams, plus the one extension they add: an "extra field" subfield with ID
+ * 'P','Z' holding the number of bytes that follow the header (deflate data + 8 byte trailer). Like BGZF's 'B','C' subfield it
+ * lets a reader find the next member without inflating this one, so members can be handed to different threads. Readers that
+ * don't know the subfield skip it, as RFC 1952 requires.
+ */
+final class GzipFormat {
+    static final int MAGIC = 0x8b1f;
+    static final int DEFLATE = 8;
+    static final int FHCRC = 2;
+    static final int FEXTRA = 4;
+    static final int FNAME = 8;
+    static final int FCOMMENT = 16;
+    static final int OS_UNKNOWN = 255;
+    static final int TRAILER_LENGTH = 8;
+    static final byte SUBFIELD_ID1 = 'P';
+    static final byte SUBFIELD_ID2 = 'Z';
+
+    /** Header without an extra field: what GZIPOutputStream writes. */
+    static final byte[] PLAIN_HEADER = {(byte) MAGIC, (byte) (MAGIC >> 8), DEFLATE, 0, 0, 0, 0, 0, 0, (byte) OS_UNKNOWN};
+    /** Header with the 'P','Z' subfield: 10 fixed bytes, XLEN, then SI1 SI2 LEN(=4) and the size. */
+    static final int INDEXED_HEADER_LENGTH = 10 + 2 + 8;
+
+    private GzipFormat() {
+    }
+
+    /** Writes an indexed member header into bytes[0, INDEXED_HEADER_LENGTH) for "following" bytes of data and trailer. */
+    static void writeIndexedHeader(byte[] bytes, int following) {
+        System.arraycopy(PLAIN_HEADER, 0, bytes, 0, PLAIN_HEADER.length);
+        bytes[3] = FEXTRA;
+        writeShortLE(bytes, 10, 8);
+        bytes[12] = SUBFIELD_ID1;
+        bytes[13] = SUBFIELD_ID2;
+        writeShortLE(bytes, 14, 4);
+        writeIntLE(bytes, 16, following);
+    }
+
+    static void writeShortLE(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    static void writeIntLE(byte[] bytes, int offset, int value) {
+        writeShortLE(bytes, offset, value);
+        writeShortLE(bytes, offset + 2, value >>> 16);
+    }
+
+    static int readIntLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    /** Future.get() with the task's IOException (e.g. a ZipException) rethrown as is. */
+    static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a block");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
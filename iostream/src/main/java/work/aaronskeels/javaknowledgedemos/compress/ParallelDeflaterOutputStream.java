@@ -0,0 +1,322 @@
+package work.aaronskeels.javaknowledgedemos.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import work.aaronskeels.javaknowledgedemos.pool.DaemonThreads;
+
+/**
+ * GZIPOutputStream that compresses on several cores, the way pigz does. DeflaterOutputStream runs one Deflater on the writing
+ * thread, so compression speed is capped at one core (~20-60 MB/s at the default level). Here input is cut into blocks
+ * (128 KiB by default) and each block is deflated by a worker; the writing thread only copies bytes and writes finished
+ * blocks out in order. Output is a standard gzip file (GZIPInputStream, gunzip, zcat all read it).
+ *
+ * Two layouts:
+ * - Default, one gzip member: each block is a raw deflate segment ending in a SYNC_FLUSH (byte aligned, not final), so the
+ *   segments concatenate into one deflate stream. Each block's Deflater is primed with the previous block's last 32 KiB as a
+ *   dictionary, so matches can reach back across block boundaries and the ratio is within a fraction of a percent of
+ *   single-threaded gzip. The CRC is computed on the writing thread (CRC32 is a hardware intrinsic, far faster than deflate).
+ * - independentBlocks(true): each block is a complete gzip member, no dictionary, tagged with its size in a header extra field
+ *   (see GzipFormat). Still one valid gzip file (RFC 1952 allows concatenated members), slightly worse ratio, but
+ *   {@link ParallelGzipInputStream} can then decompress it on several cores too.
+ *
+ * At most 2 * threads blocks are in flight; write() blocks on the oldest beyond that, so memory stays bounded when the workers
+ * fall behind. flush() ends the current block early and waits for everything queued (a full SYNC_FLUSH), which costs ratio if
+ * called often. Not thread-safe, like any OutputStream.
+ */
+public final class ParallelDeflaterOutputStream extends OutputStream {
+    public static final int DEFAULT_BLOCK_SIZE = 128 << 10;
+    private static final int DICTIONARY_SIZE = 32 << 10;
+
+    private final OutputStream out;
+    private final int level;
+    private final int blockSize;
+    private final boolean independentBlocks;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxInFlight;
+    private final ArrayDeque<Future<Compressed>> inFlight = new ArrayDeque<>();
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final CRC32 crc = new CRC32();
+    private long totalIn;
+    private byte[] block;
+    private int blockLength;
+    private byte[] previous;
+    private int previousLength;
+    private boolean started;
+    private boolean finished;
+    private boolean closed;
+
+    private ParallelDeflaterOutputStream(Builder builder) {
+        this.out = builder.out;
+        this.level = builder.level;
+        this.blockSize = builder.blockSize;
+        this.independentBlocks = builder.independentBlocks;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? DaemonThreads.newPool("parallel-deflater", builder.threads) : builder.executor;
+        this.maxInFlight = 2 * builder.threads;
+        this.block = new byte[blockSize];
+    }
+
+    public static Builder newBuilder(OutputStream out) {
+        return new Builder(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submit(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            int count = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+            if (blockLength == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /** Compresses what has been written so far and writes it all out, leaving the stream open for more. */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (blockLength > 0) {
+            submit(false);
+        }
+        while (!inFlight.isEmpty()) {
+            writeOut(inFlight.poll());
+        }
+        out.flush();
+    }
+
+    /** Writes the last block and the gzip trailer without closing the underlying stream, like DeflaterOutputStream.finish(). */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        ensureOpen();
+        if (!independentBlocks || blockLength > 0 || !started) {
+            submit(true);
+        }
+        while (!inFlight.isEmpty()) {
+            writeOut(inFlight.poll());
+        }
+        if (!independentBlocks) {
+            byte[] trailer = new byte[GzipFormat.TRAILER_LENGTH];
+            GzipFormat.writeIntLE(trailer, 0, (int) crc.getValue());
+            GzipFormat.writeIntLE(trailer, 4, (int) totalIn);
+            out.write(trailer);
+        }
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            finish();
+            out.close();
+        } finally {
+            closed = true;
+            for (Future<Compressed> future : inFlight) {
+                future.cancel(true);
+            }
+            if (ownsExecutor) {
+                executor.shutdownNow();
+            }
+            Deflater deflater;
+            while ((deflater = deflaters.poll()) != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed || finished) {
+            throw new IOException(closed ? "Stream closed" : "Stream finished");
+        }
+    }
+
+    /** Hands the current block to a worker and starts a new one; writes out whatever is already done. */
+    private void submit(boolean last) throws IOException {
+        if (!started && !independentBlocks) {
+            out.write(GzipFormat.PLAIN_HEADER);
+        }
+        started = true;
+        byte[] data = block;
+        int length = blockLength;
+        FutureTask<Compressed> task;
+        if (independentBlocks) {
+            task = new FutureTask<>(() -> compressMember(data, length));
+        } else {
+            crc.update(data, 0, length);
+            byte[] dictionary = previous;
+            int dictionaryLength = Math.min(previousLength, DICTIONARY_SIZE);
+            int dictionaryOffset = previousLength - dictionaryLength;
+            task = new FutureTask<>(() -> compressSegment(data, length, dictionary, dictionaryOffset, dictionaryLength, last));
+            previous = data;
+            previousLength = length;
+        }
+        totalIn += length;
+        block = new byte[blockSize]; // The worker owns "data" now, and the next block may use it as a dictionary
+        blockLength = 0;
+        inFlight.add(task);
+        executor.execute(task);
+        while (inFlight.size() >= maxInFlight || (!inFlight.isEmpty() && inFlight.peek().isDone())) {
+            writeOut(inFlight.poll());
+        }
+    }
+
+    private void writeOut(Future<Compressed> future) throws IOException {
+        Compressed compressed = GzipFormat.await(future);
+        out.write(compressed.bytes(), 0, compressed.length());
+    }
+
+    /** A raw deflate segment of the single member: SYNC_FLUSH ended, or final for the last block. Runs on a worker. */
+    private Compressed compressSegment(byte[] data, int length, byte[] dictionary, int dictionaryOffset, int dictionaryLength,
+            boolean last) {
+        Deflater deflater = borrowDeflater();
+        try {
+            if (dictionaryLength > 0) {
+                deflater.setDictionary(dictionary, dictionaryOffset, dictionaryLength);
+            }
+            return deflate(deflater, data, length, new byte[length + (length >> 3) + 64], 0, last);
+        } finally {
+            returnDeflater(deflater);
+        }
+    }
+
+    /** A whole indexed gzip member: header, deflate data, CRC and size. Runs on a worker. */
+    private Compressed compressMember(byte[] data, int length) {
+        Deflater deflater = borrowDeflater();
+        try {
+            int headerLength = GzipFormat.INDEXED_HEADER_LENGTH;
+            byte[] buffer = new byte[headerLength + length + (length >> 3) + 64 + GzipFormat.TRAILER_LENGTH];
+            Compressed compressed = deflate(deflater, data, length, buffer, headerLength, true);
+            byte[] bytes = compressed.bytes();
+            int end = compressed.length();
+            if (end + GzipFormat.TRAILER_LENGTH > bytes.length) {
+                bytes = Arrays.copyOf(bytes, end + GzipFormat.TRAILER_LENGTH);
+            }
+            CRC32 memberCrc = new CRC32();
+            memberCrc.update(data, 0, length);
+            GzipFormat.writeIntLE(bytes, end, (int) memberCrc.getValue());
+            GzipFormat.writeIntLE(bytes, end + 4, length);
+            end += GzipFormat.TRAILER_LENGTH;
+            GzipFormat.writeIndexedHeader(bytes, end - headerLength);
+            return new Compressed(bytes, end);
+        } finally {
+            returnDeflater(deflater);
+        }
+    }
+
+    private static Compressed deflate(Deflater deflater, byte[] data, int length, byte[] buffer, int offset, boolean last) {
+        deflater.setInput(data, 0, length);
+        if (last) {
+            deflater.finish();
+        }
+        int end = offset;
+        do {
+            if (end == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            // With SYNC_FLUSH, output stopping short of the buffer's end means the flush is complete
+            end += deflater.deflate(buffer, end, buffer.length - end, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+        } while (last ? !deflater.finished() : end == buffer.length);
+        return new Compressed(buffer, end);
+    }
+
+    private Deflater borrowDeflater() {
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    private void returnDeflater(Deflater deflater) {
+        deflater.reset();
+        deflaters.offer(deflater);
+    }
+
+    private record Compressed(byte[] bytes, int length) {
+    }
+
+    public static final class Builder {
+        private final OutputStream out;
+        private int level = Deflater.DEFAULT_COMPRESSION;
+        private int blockSize = DEFAULT_BLOCK_SIZE;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private ExecutorService executor;
+        private boolean independentBlocks;
+
+        private Builder(OutputStream out) {
+            this.out = Objects.requireNonNull(out);
+        }
+
+        /** Deflater level, -1 (default, 6) or 0-9. */
+        public Builder level(int level) {
+            if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("level must be between -1 and 9: " + level);
+            }
+            this.level = level;
+            return this;
+        }
+
+        /** Bytes per block, 32 KiB to 64 MiB. Smaller blocks spread better over few MB; larger ones cost less per block. */
+        public Builder blockSize(int blockSize) {
+            if (blockSize < DICTIONARY_SIZE || blockSize > 64 << 20) {
+                throw new IllegalArgumentException("blockSize must be between 32 KiB and 64 MiB: " + blockSize);
+            }
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /** Size of the stream's own worker pool, shut down on close() (default: one per core). */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads must be >= 1: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Runs blocks on a caller-owned executor instead of a pool per stream (not shut down on close()). "threads" still sets
+         * how many blocks may be in flight, as 2 * threads.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        /** Write each block as its own indexed gzip member, so ParallelGzipInputStream can decompress in parallel. */
+        public Builder independentBlocks(boolean independentBlocks) {
+            this.independentBlocks = independentBlocks;
+            return this;
+        }
+
+        public ParallelDeflaterOutputStream build() {
+            return new ParallelDeflaterOutputStream(this);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package work.aaronskeels.javaknowledgedemos.compress;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import work.aaronskeels.javaknowledgedemos.pool.DaemonThreads;
+
+/**
+ * GZIPInputStream that inflates multi-member files on several cores. A deflate stream can only be decoded front to back, so the
+ * unit of parallelism is the gzip member: members written by ParallelDeflaterOutputStream with independentBlocks(true) carry
+ * their length in the header, so this stream reads a member's bytes, hands them to a worker and moves straight on to the next
+ * header, keeping up to 2 * threads members in flight and returning their output in order.
+ *
+ * Any other member (plain gzip, or the single-member default layout of ParallelDeflaterOutputStream) has no length, so it is
+ * inflated on the reading thread as GZIPInputStream would; files mixing both kinds work. Every member's CRC and size are checked
+ * (ZipException on mismatch). Unlike GZIPInputStream, bytes after the last member must be another member: trailing garbage is an
+ * error rather than silently ignored. Not thread-safe, like any InputStream.
+ */
+public final class ParallelGzipInputStream extends InputStream {
+    private final InputStream in;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxInFlight;
+    private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private final byte[] single = new byte[1];
+    private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    // Output of the member being returned
+    private byte[] current = new byte[0];
+    private int currentPosition;
+    // Sequential fallback for a member without a length
+    private Inflater sequential;
+    private final CRC32 sequentialCrc = new CRC32();
+    private long sequentialSize;
+    private boolean sequentialPending;
+    private boolean endOfInput;
+    private boolean closed;
+
+    private ParallelGzipInputStream(Builder builder) {
+        this.in = builder.in;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? DaemonThreads.newPool("parallel-gzip", builder.threads) : builder.executor;
+        this.maxInFlight = 2 * builder.threads;
+        this.buffer = new byte[builder.bufferSize];
+    }
+
+    public static Builder newBuilder(InputStream in) {
+        return new Builder(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (currentPosition < current.length) {
+                int count = Math.min(len, current.length - currentPosition);
+                System.arraycopy(current, currentPosition, b, off, count);
+                currentPosition += count;
+                return count;
+            }
+            if (sequential != null) {
+                int count = inflateSequential(b, off, len);
+                if (count > 0) {
+                    return count;
+                }
+                continue; // Member finished
+            }
+            if (!advance()) {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        return current.length - currentPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Future<byte[]> future : inFlight) {
+            future.cancel(true);
+        }
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+        if (sequential != null) {
+            sequential.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+        in.close();
+    }
+
+    /** Moves on to the next member's output: the oldest in-flight member, or a sequential one. False at end of input. */
+    private boolean advance() throws IOException {
+        while (!sequentialPending && !endOfInput && inFlight.size() < maxInFlight) {
+            readMemberHeader();
+        }
+        if (!inFlight.isEmpty()) {
+            current = GzipFormat.await(inFlight.poll());
+            currentPosition = 0;
+            return true;
+        }
+        if (sequentialPending) {
+            sequentialPending = false;
+            sequential = borrowInflater();
+            sequential.setInput(buffer, position, limit - position);
+            sequentialCrc.reset();
+            sequentialSize = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads one member header. An indexed member's remaining bytes are read too and submitted; for any other member only
+     * "sequentialPending" is set, as its data can't be skipped without inflating it.
+     */
+    private void readMemberHeader() throws IOException {
+        int first = readByte();
+        if (first < 0) {
+            endOfInput = true;
+            return;
+        }
+        if ((first | readByteOrFail() << 8) != GzipFormat.MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readByteOrFail() != GzipFormat.DEFLATE) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = readByteOrFail();
+        skip(6); // MTIME, XFL, OS
+        int following = -1;
+        if ((flags & GzipFormat.FEXTRA) != 0) {
+            int extraLength = readShortLE();
+            while (extraLength >= 4) {
+                int id1 = readByteOrFail();
+                int id2 = readByteOrFail();
+                int length = readShortLE();
+                extraLength -= 4 + length;
+                if (id1 == GzipFormat.SUBFIELD_ID1 && id2 == GzipFormat.SUBFIELD_ID2 && length == 4) {
+                    following = readShortLE() | readShortLE() << 16;
+                } else {
+                    skip(length);
+                }
+            }
+            skip(extraLength);
+        }
+        if ((flags & GzipFormat.FNAME) != 0) {
+            skipZeroTerminated();
+        }
+        if ((flags & GzipFormat.FCOMMENT) != 0) {
+            skipZeroTerminated();
+        }
+        if ((flags & GzipFormat.FHCRC) != 0) {
+            skip(2);
+        }
+        if (following < GzipFormat.TRAILER_LENGTH) {
+            sequentialPending = true;
+            return;
+        }
+        byte[] member = new byte[following];
+        readFully(member);
+        FutureTask<byte[]> task = new FutureTask<>(() -> inflateMember(member));
+        inFlight.add(task);
+        executor.execute(task);
+    }
+
+    /** Inflates one indexed member (deflate data + trailer) and checks it. Runs on a worker. */
+    private byte[] inflateMember(byte[] member) throws IOException {
+        int dataLength = member.length - GzipFormat.TRAILER_LENGTH;
+        int expectedCrc = GzipFormat.readIntLE(member, dataLength);
+        int size = GzipFormat.readIntLE(member, dataLength + 4);
+        if (size < 0) {
+            throw new ZipException("Indexed member too large: " + Integer.toUnsignedString(size) + " bytes");
+        }
+        byte[] output = new byte[size];
+        Inflater inflater = borrowInflater();
+        try {
+            inflater.setInput(member, 0, dataLength);
+            int produced = 0;
+            while (!inflater.finished()) {
+                int count = inflater.inflate(output, produced, output.length - produced);
+                produced += count;
+                if (count == 0 && !inflater.finished() && (inflater.needsInput() || produced == output.length)) {
+                    throw new ZipException("Member size doesn't match its data");
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(output, 0, produced);
+            if (produced != size || inflater.getRemaining() != 0 || (int) crc.getValue() != expectedCrc) {
+                throw new ZipException("Corrupt GZIP member (CRC or size mismatch)");
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            returnInflater(inflater);
+        }
+    }
+
+    /** Inflates the current sequential member into b; 0 once it has ended (trailer checked, inflater released). */
+    private int inflateSequential(byte[] b, int off, int len) throws IOException {
+        while (true) {
+            int count;
+            try {
+                count = sequential.inflate(b, off, len);
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+            if (count > 0) {
+                sequentialCrc.update(b, off, count);
+                sequentialSize += count;
+                return count;
+            }
+            if (sequential.finished()) {
+                position = limit - sequential.getRemaining();
+                returnInflater(sequential);
+                sequential = null;
+                byte[] trailer = new byte[GzipFormat.TRAILER_LENGTH];
+                readFully(trailer);
+                if (GzipFormat.readIntLE(trailer, 0) != (int) sequentialCrc.getValue()
+                        || GzipFormat.readIntLE(trailer, 4) != (int) sequentialSize) {
+                    throw new ZipException("Corrupt GZIP trailer");
+                }
+                return 0;
+            }
+            if (sequential.needsDictionary()) {
+                throw new ZipException("Member needs a preset dictionary");
+            }
+            // needsInput(): the inflater has consumed the whole buffer
+            position = limit;
+            if (!fill()) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            sequential.setInput(buffer, position, limit - position);
+            position = limit;
+        }
+    }
+
+    // ---- Buffered access to the compressed input ----
+
+    private boolean fill() throws IOException {
+        int count = in.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int readByteOrFail() throws IOException {
+        int b = readByte();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of GZIP header");
+        }
+        return b;
+    }
+
+    private int readShortLE() throws IOException {
+        return readByteOrFail() | readByteOrFail() << 8;
+    }
+
+    private void skip(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readByteOrFail();
+        }
+    }
+
+    private void skipZeroTerminated() throws IOException {
+        while (readByteOrFail() != 0) {
+            // Skip
+        }
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int count = Math.min(bytes.length, limit - position);
+        System.arraycopy(buffer, position, bytes, 0, count);
+        position += count;
+        while (count < bytes.length) {
+            int read = in.read(bytes, count, bytes.length - count);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of GZIP member");
+            }
+            count += read;
+        }
+    }
+
+    private Inflater borrowInflater() {
+        Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    private void returnInflater(Inflater inflater) {
+        inflater.reset();
+        inflaters.offer(inflater);
+    }
+
+    public static final class Builder {
+        private final InputStream in;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private ExecutorService executor;
+        private int bufferSize = 64 << 10;
+
+        private Builder(InputStream in) {
+            this.in = Objects.requireNonNull(in);
+        }
+
+        /** Size of the stream's own worker pool, shut down on close() (default: one per core). */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads must be >= 1: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /** Inflates members on a caller-owned executor (not shut down on close()); up to 2 * threads are in flight. */
+        public Builder executor(ExecutorService executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        /** Size of the buffer compressed input is read through (default 64 KiB). */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 512) {
+                throw new IllegalArgumentException("bufferSize must be >= 512: " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public ParallelGzipInputStream build() {
+            return new ParallelGzipInputStream(this);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package work.aaronskeels.javaknowledgedemos.concat;
+
+/**
+ * A run of bytes from one source: bytes [0, length) of "bytes" were at "position" in source number "source". "last" marks the
+ * source's final chunk (empty for an empty source), so every source yields exactly one.
+ */
+public record Chunk(int source, long position, byte[] bytes, int length, boolean last) {
+}
@@ -0,0 +1,208 @@
+package work.aaronskeels.javaknowledgedemos.concat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import work.aaronskeels.javaknowledgedemos.pool.DaemonThreads;
+
+/**
+ * The unordered sibling of PrefetchingSequenceInputStream: reads up to "parallelism" sources at once and hands their chunks to
+ * any number of consumer threads in whatever order they arrive. Each {@link Chunk} says which source it came from and where, so
+ * consumers that don't need the concatenation order (checksumming, indexing, parsing independent files, uploading) scale with
+ * both the readers and themselves instead of being funnelled through one ordered stream.
+ *
+ * Chunks go through one bounded queue (default 16 chunks), so readers block rather than buffer without limit when consumers fall
+ * behind. The first failing source stops the rest and makes next() throw, on every consumer. close() cancels the readers
+ * (interrupting them), closes every open source and makes next() throw, including in consumers already waiting in it. next() is
+ * thread-safe; everything else is a single owner's.
+ */
+public final class ChunkReader implements Closeable {
+    private static final Chunk END = new Chunk(-1, -1, new byte[0], 0, true);
+
+    private final List<? extends StreamSource> sources;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int chunkSize;
+    private final BlockingQueue<Chunk> queue;
+    private final AtomicInteger nextSource = new AtomicInteger();
+    private final AtomicInteger runningReaders;
+    private final List<Future<?>> readers = new ArrayList<>();
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private ChunkReader(Builder builder) {
+        this.sources = builder.sources;
+        this.chunkSize = builder.chunkSize;
+        this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+        int parallelism = Math.max(1, Math.min(builder.parallelism, sources.size()));
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? DaemonThreads.newPool("chunk-reader", parallelism) : builder.executor;
+        this.runningReaders = new AtomicInteger(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            readers.add(executor.submit(this::readSources));
+        }
+    }
+
+    public static Builder newBuilder(List<? extends StreamSource> sources) {
+        return new Builder(sources);
+    }
+
+    /** The next chunk from any source, waiting for one if needed; null once every source has been read. */
+    public Chunk next() throws IOException {
+        if (closed) {
+            throw new IOException("Reader closed");
+        }
+        Chunk chunk;
+        try {
+            chunk = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a chunk");
+        }
+        if (closed) {
+            queue.offer(END); // Passes close() on to the next waiting consumer
+            throw new IOException("Reader closed");
+        }
+        if (chunk != END) {
+            return chunk;
+        }
+        queue.offer(END); // For the other consumers; readers are done, so there is room
+        if (failure != null) {
+            throw new IOException("Failed reading sources", failure);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Future<?> reader : readers) {
+            reader.cancel(true);
+        }
+        queue.clear(); // Unblocks readers waiting for room
+        while (!queue.offer(END)) {
+            queue.clear(); // A reader not yet interrupted took the room first
+        }
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /** A reader task: takes sources in order until none are left, a source fails, or the reader is closed. */
+    private void readSources() {
+        try {
+            int source;
+            while (!stopped() && (source = nextSource.getAndIncrement()) < sources.size()) {
+                readSource(source);
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } catch (IOException | RuntimeException e) {
+            if (!closed && failure == null) {
+                failure = e instanceof IOException io ? io : new IOException(e);
+            }
+        } finally {
+            if (runningReaders.decrementAndGet() == 0 && !closed) {
+                finish();
+            }
+        }
+    }
+
+    /** Run by the last reader to stop: queues the end marker behind the remaining chunks, or in their place after a failure. */
+    private void finish() {
+        if (failure != null) {
+            queue.clear(); // Consumers fail fast rather than drain what is queued
+        }
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // Closed
+        }
+    }
+
+    private void readSource(int source) throws IOException, InterruptedException {
+        try (InputStream in = sources.get(source).open()) {
+            long position = 0;
+            while (!stopped()) {
+                byte[] bytes = new byte[chunkSize];
+                int length = in.readNBytes(bytes, 0, chunkSize);
+                boolean last = length < chunkSize;
+                if (length > 0 || last) {
+                    queue.put(new Chunk(source, position, bytes, length, last));
+                    position += length;
+                }
+                if (last) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException("Failed reading source " + source, e);
+        }
+    }
+
+    private boolean stopped() {
+        return closed || failure != null;
+    }
+
+    public static final class Builder {
+        private final List<? extends StreamSource> sources;
+        private int parallelism = 4;
+        private int chunkSize = 64 << 10;
+        private int queueCapacity = 16;
+        private ExecutorService executor;
+
+        private Builder(List<? extends StreamSource> sources) {
+            this.sources = List.copyOf(sources);
+        }
+
+        /** Sources read at once (default 4). */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /** Bytes per chunk (default 64 KiB); every chunk but a source's last is full. */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize must be >= 1: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /** Chunks read but not yet taken by a consumer (default 16). */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queueCapacity must be >= 1: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /** Reads on a caller-owned executor (not shut down on close()) instead of a pool of "parallelism" daemon threads. */
+        public Builder executor(ExecutorService executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        public ChunkReader build() {
+            return new ChunkReader(this);
+        }
+    }
+}
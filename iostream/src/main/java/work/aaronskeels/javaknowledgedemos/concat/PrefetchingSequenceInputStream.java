@@ -0,0 +1,202 @@
+package work.aaronskeels.javaknowledgedemos.concat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import work.aaronskeels.javaknowledgedemos.pipe.BytePipe;
+import work.aaronskeels.javaknowledgedemos.pool.DaemonThreads;
+
+/**
+ * SequenceInputStream that reads ahead. SequenceInputStream opens and drains its inputs strictly one after another, so every
+ * input's latency (open, first byte, each read() that misses the page cache or waits on the network) adds up in series. This
+ * stream keeps the current source plus the next "prefetch" sources open, each being copied by a background task into its own
+ * bounded BytePipe (default 1 MiB), and returns their bytes in source order. While the caller consumes one source, the next ones
+ * have already paid their latency; a source that is far ahead just fills its pipe and waits.
+ *
+ * A source that fails surfaces its IOException from read() at the point where its bytes stop, as if it had been read in
+ * sequence. close() cancels everything in flight: pipes are closed from the read end (stopping their writers), tasks are
+ * interrupted, and every opened source is closed by its task. Not thread-safe, like any InputStream; for several consumers in no
+ * particular order see {@link ChunkReader}.
+ */
+public final class PrefetchingSequenceInputStream extends InputStream {
+    private final List<? extends StreamSource> sources;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int prefetch;
+    private final int bufferSize;
+    private final int chunkSize;
+    private final ArrayDeque<Prefetch> inFlight = new ArrayDeque<>();
+    private final byte[] single = new byte[1];
+    private int nextSource;
+    private Prefetch current;
+    private boolean closed;
+
+    private PrefetchingSequenceInputStream(Builder builder) {
+        this.sources = builder.sources;
+        this.prefetch = builder.prefetch;
+        this.bufferSize = builder.bufferSize;
+        this.chunkSize = Math.min(builder.bufferSize, 64 << 10);
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? DaemonThreads.newPool("prefetch", prefetch + 1) : builder.executor;
+        fillPipeline();
+    }
+
+    public static Builder newBuilder(List<? extends StreamSource> sources) {
+        return new Builder(sources);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (current == null) {
+                current = inFlight.poll();
+                if (current == null) {
+                    return -1;
+                }
+                fillPipeline();
+            }
+            int count = current.pipe.read(b, off, len);
+            if (count >= 0) {
+                return count;
+            }
+            // Written before the task closed the pipe, so visible now that the pipe reads as ended
+            IOException failure = current.failure;
+            if (failure != null) {
+                throw new IOException("Failed reading source " + current.source, failure);
+            }
+            current = null;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        return current == null ? 0 : current.pipe.available();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            current.cancel();
+        }
+        for (Prefetch prefetched : inFlight) {
+            prefetched.cancel();
+        }
+        inFlight.clear();
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Starts copying sources until "prefetch" are in flight besides the current one. */
+    private void fillPipeline() {
+        while (inFlight.size() < prefetch && nextSource < sources.size()) {
+            Prefetch prefetched = new Prefetch(nextSource, sources.get(nextSource++));
+            inFlight.add(prefetched);
+            prefetched.task = executor.submit(prefetched::copy);
+        }
+    }
+
+    /** One source being copied into its pipe by a background task. */
+    private final class Prefetch {
+        final int source;
+        final StreamSource streamSource;
+        final BytePipe pipe = BytePipe.newBuilder().capacity(bufferSize).build();
+        volatile IOException failure;
+        volatile boolean cancelled;
+        Future<?> task;
+
+        Prefetch(int source, StreamSource streamSource) {
+            this.source = source;
+            this.streamSource = streamSource;
+        }
+
+        void copy() {
+            try (InputStream in = streamSource.open()) {
+                byte[] buffer = new byte[chunkSize];
+                int count;
+                while (!cancelled && (count = in.read(buffer)) >= 0) {
+                    pipe.write(buffer, 0, count);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!cancelled) {
+                    failure = e instanceof IOException io ? io : new IOException(e);
+                }
+            } finally {
+                pipe.closeWrite();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            pipe.closeRead();
+            task.cancel(true);
+        }
+    }
+
+    public static final class Builder {
+        private final List<? extends StreamSource> sources;
+        private int prefetch = 2;
+        private int bufferSize = 1 << 20;
+        private ExecutorService executor;
+
+        private Builder(List<? extends StreamSource> sources) {
+            this.sources = List.copyOf(sources);
+        }
+
+        /** Sources read ahead of the current one (default 2); each holds an open stream, a thread and up to bufferSize bytes. */
+        public Builder prefetch(int prefetch) {
+            if (prefetch < 1) {
+                throw new IllegalArgumentException("prefetch must be >= 1: " + prefetch);
+            }
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /** Bytes buffered per source in flight, rounded up to a power of two (default 1 MiB). */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 4096 || bufferSize > 1 << 30) {
+                throw new IllegalArgumentException("bufferSize must be from 4096 to 2^30: " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Copies sources on a caller-owned executor (not shut down on close()) instead of a pool of prefetch + 1 daemon threads.
+         * Tasks block while their pipe is full, so it must start tasks in submission order (any ThreadPoolExecutor does); on
+         * JDK 21+ a virtual-thread-per-task executor makes the blocked ones cost next to nothing.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        public PrefetchingSequenceInputStream build() {
+            return new PrefetchingSequenceInputStream(this);
+        }
+    }
+}
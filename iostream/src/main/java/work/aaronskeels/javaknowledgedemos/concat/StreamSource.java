@@ -0,0 +1,19 @@
+package work.aaronskeels.javaknowledgedemos.concat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * One input of a concatenation, opened only when its turn to be prefetched comes (SequenceInputStream takes streams that are
+ * already open, so N files means N open descriptors up front). open() runs on a background thread.
+ */
+@FunctionalInterface
+public interface StreamSource {
+    InputStream open() throws IOException;
+
+    static StreamSource of(Path path) {
+        return () -> Files.newInputStream(path);
+    }
+}
@@ -0,0 +1,398 @@
+package work.aaronskeels.javaknowledgedemos.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Delimited-text (CSV, TSV, space separated) parser that works on bytes, for feeds too big for Scanner.
+ *
+ * Scanner matches every token against a regular expression and returns it as a new String; BufferedReader.readLine() +
+ * String.split() + Long.parseLong() decodes every line to chars, allocates a String per line and per field and an array per
+ * line. This parser reads raw bytes into one reused window, finds field boundaries with a byte comparison loop and hands each
+ * record to a {@link RecordVisitor} as a {@link CsvRecord} view whose getLong()/getDouble() parse straight from the window: no
+ * decoding and no per-record allocation.
+ *
+ * Format (RFC 4180 with the usual relaxations):
+ * - Records end at \n or \r\n; the last record needs no line ending. Blank lines are skipped.
+ * - Fields are separated by the delimiter (',' by default). A field starting with the quote ('"') runs to the matching quote
+ *   and may contain delimiters, line breaks and "" (an escaped quote); anything but a delimiter or line ending after the
+ *   closing quote is an error.
+ * - The delimiter, quote and line endings must be single bytes in the charset, which holds for ASCII delimiters in UTF-8 and
+ *   the ISO-8859 family.
+ * - A record longer than the window grows it, so the window only bounds memory for ordinary records.
+ *
+ * parseParallel() splits a file into one part per thread. A part boundary is moved forward to just after the next \n, so it
+ * assumes no quoted field contains a line break; with such files use the sequential parse.
+ *
+ * Instances are immutable and thread-safe. Create one via {@link #newBuilder()}.
+ */
+public final class CsvParser {
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 20;
+
+    private final byte delimiter;
+    private final byte quote;
+    private final boolean header;
+    private final Charset charset;
+    private final int windowSize;
+
+    private CsvParser(Builder builder) {
+        this.delimiter = builder.delimiter;
+        this.quote = builder.quote;
+        this.header = builder.header;
+        this.charset = builder.charset;
+        this.windowSize = builder.windowSize;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** Parses the whole stream, which is not closed. Returns the number of data records visited. */
+    public long parse(InputStream in, RecordVisitor visitor) throws IOException {
+        return run(in::read, visitor, header);
+    }
+
+    public long parse(ReadableByteChannel channel, RecordVisitor visitor) throws IOException {
+        return run((bytes, offset, length) -> channel.read(ByteBuffer.wrap(bytes, offset, length)), visitor, header);
+    }
+
+    public long parse(Path path, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parse(channel, visitor);
+        }
+    }
+
+    /** Parses bytes already in memory, in place: no window, no copy. */
+    public long parse(byte[] bytes, int offset, int length, RecordVisitor visitor) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        Scan scan = new Scan(visitor, header);
+        scan.scan(bytes, offset, offset + length, true);
+        return scan.records;
+    }
+
+    /** Parses the buffer's remaining bytes: in place if it has an accessible array, otherwise copied through a window. */
+    public long parse(ByteBuffer buffer, RecordVisitor visitor) throws IOException {
+        if (buffer.hasArray()) {
+            return parse(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), visitor);
+        }
+        ByteBuffer source = buffer.duplicate();
+        return run((bytes, offset, length) -> {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, source.remaining());
+            source.get(bytes, offset, count);
+            return count;
+        }, visitor, header);
+    }
+
+    /**
+     * Parses "path" on "threads" threads, one contiguous part of the file each, with a visitor per part from "visitors". Returns
+     * the visitors in file order, so per-part results (sums, counts, partial aggregates) can be combined. Each visitor sees its
+     * part's records in order on one thread; see the class comment for the line break restriction.
+     */
+    public <V extends RecordVisitor> List<V> parseParallel(Path path, int threads, Supplier<V> visitors) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        }
+        long[] boundaries = new long[threads + 1];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            boundaries[threads] = size;
+            for (int i = 1; i < threads; i++) {
+                boundaries[i] = Math.max(boundaries[i - 1], nextRecordStart(channel, size * i / threads, size));
+            }
+        }
+        List<V> results = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            results.add(visitors.get());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> parts = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                V visitor = results.get(i);
+                boolean skipHeader = header && i == 0;
+                parts.add(executor.submit(() -> parseRange(path, start, end, visitor, skipHeader)));
+            }
+            for (Future<Long> part : parts) {
+                part.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a part");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /** Offset just after the first \n at or after "from - 1", i.e. "from" itself if a record starts there. */
+    private static long nextRecordStart(FileChannel channel, long from, long size) throws IOException {
+        if (from == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 << 10);
+        for (long position = from - 1; position < size; position += buffer.limit()) {
+            buffer.clear();
+            if (channel.read(buffer, position) < 0) {
+                break;
+            }
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    private long parseRange(Path path, long start, long end, RecordVisitor visitor, boolean skipHeader) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] position = {start};
+            return run((bytes, offset, length) -> {
+                if (position[0] >= end) {
+                    return -1;
+                }
+                int count = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position[0])), position[0]);
+                if (count > 0) {
+                    position[0] += count;
+                }
+                return count;
+            }, visitor, skipHeader);
+        }
+    }
+
+    /** Refills the window from "source" and scans it until the source is exhausted. */
+    private long run(Source source, RecordVisitor visitor, boolean skipHeader) throws IOException {
+        Scan scan = new Scan(visitor, skipHeader);
+        byte[] window = new byte[windowSize];
+        int start = 0;
+        int limit = 0;
+        while (true) {
+            if (start > 0) {
+                System.arraycopy(window, start, window, 0, limit - start); // Keep the partial record
+                limit -= start;
+                start = 0;
+            }
+            if (limit == window.length) {
+                window = Arrays.copyOf(window, window.length * 2); // A record longer than the window
+            }
+            int read = source.read(window, limit, window.length - limit);
+            if (read < 0) {
+                scan.scan(window, start, limit, true);
+                return scan.records;
+            }
+            limit += read;
+            start = scan.scan(window, start, limit, false);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        int read(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    /** State of one parse: the record view handed to the visitor and the record count. */
+    private final class Scan {
+        private final RecordVisitor visitor;
+        private final CsvRecord record = new CsvRecord(charset, quote);
+        private boolean skipNext;
+        private long records;
+
+        Scan(RecordVisitor visitor, boolean skipHeader) {
+            this.visitor = visitor;
+            this.skipNext = skipHeader;
+        }
+
+        /**
+         * Visits every complete record in bytes[from, to) and returns where the first incomplete one starts. With "last" set the
+         * input ends at "to", so whatever is left is the final record.
+         */
+        int scan(byte[] bytes, int from, int to, boolean last) throws IOException {
+            int at = from;
+            while (at < to) {
+                int next = scanRecord(bytes, at, to, last);
+                if (next < 0) {
+                    return at;
+                }
+                at = next;
+            }
+            return at;
+        }
+
+        /** One record starting at "at": visits it and returns the offset after its line ending, or -1 if it is incomplete. */
+        private int scanRecord(byte[] bytes, int at, int to, boolean last) throws IOException {
+            if (bytes[at] == '\n') {
+                return at + 1; // Blank line
+            }
+            if (bytes[at] == '\r' && (at + 1 < to ? bytes[at + 1] == '\n' : last)) {
+                return at + 1 == to ? to : at + 2;
+            }
+            record.reset(bytes, records);
+            while (true) {
+                if (at < to && bytes[at] == quote) {
+                    int close = at + 1;
+                    boolean escapes = false;
+                    while (true) {
+                        while (close < to && bytes[close] != quote) {
+                            close++;
+                        }
+                        if (close + 1 >= to && !last) {
+                            return -1; // Closing quote not seen yet, or can't tell whether it is "" yet
+                        }
+                        if (close == to) {
+                            throw new IOException("Unterminated quoted field in record " + records);
+                        }
+                        if (close + 1 < to && bytes[close + 1] == quote) {
+                            escapes = true;
+                            close += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    record.add(at + 1, close, escapes);
+                    at = close + 1;
+                    if (at < to && bytes[at] != delimiter && bytes[at] != '\n' && bytes[at] != '\r') {
+                        throw new IOException("Unexpected byte after closing quote in record " + records + " at offset " + at);
+                    }
+                } else {
+                    int start = at;
+                    while (at < to && bytes[at] != delimiter && bytes[at] != '\n') {
+                        at++;
+                    }
+                    if (at == to && !last) {
+                        return -1;
+                    }
+                    int end = at;
+                    if (end > start && bytes[end - 1] == '\r' && (end == to || bytes[end] == '\n')) {
+                        end--; // \r of a \r\n line ending (or of the input's last line)
+                    }
+                    record.add(start, end, false);
+                }
+                if (at == to) {
+                    emit();
+                    return to;
+                }
+                if (bytes[at] == delimiter) {
+                    at++;
+                    if (at == to && last) {
+                        record.add(to, to, false); // Trailing delimiter: one more, empty, field
+                        emit();
+                        return to;
+                    }
+                    continue;
+                }
+                if (bytes[at] == '\r') {
+                    if (at + 1 == to) {
+                        if (!last) {
+                            return -1;
+                        }
+                        emit();
+                        return to;
+                    }
+                    if (bytes[at + 1] != '\n') {
+                        throw new IOException("Stray carriage return in record " + records + " at offset " + at);
+                    }
+                    at++;
+                }
+                emit(); // bytes[at] is \n
+                return at + 1;
+            }
+        }
+
+        private void emit() {
+            if (skipNext) {
+                skipNext = false;
+                return;
+            }
+            visitor.record(record);
+            records++;
+        }
+    }
+
+    public static final class Builder {
+        private byte delimiter = ',';
+        private byte quote = '"';
+        private boolean header;
+        private Charset charset = StandardCharsets.UTF_8;
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+
+        private Builder() {
+        }
+
+        /** Field separator, e.g. ',' '\t' ';' '|' ' '. Must be a single byte in the charset and not a quote or line ending. */
+        public Builder delimiter(char delimiter) {
+            this.delimiter = checkSeparator(delimiter, "delimiter");
+            return this;
+        }
+
+        public Builder quote(char quote) {
+            this.quote = checkSeparator(quote, "quote");
+            return this;
+        }
+
+        /** Skip the first record (column names). In parseParallel() only the first part skips one. */
+        public Builder header(boolean header) {
+            this.header = header;
+            return this;
+        }
+
+        /** Charset getString() decodes with (default UTF-8). Numbers and separators are read as ASCII bytes regardless. */
+        public Builder charset(Charset charset) {
+            this.charset = Objects.requireNonNull(charset);
+            return this;
+        }
+
+        /** Bytes read per refill (default 1 MiB); grows on its own for records longer than this. */
+        public Builder windowSize(int windowSize) {
+            if (windowSize < 16) {
+                throw new IllegalArgumentException("windowSize must be >= 16: " + windowSize);
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public CsvParser build() {
+            if (delimiter == quote) {
+                throw new IllegalArgumentException("delimiter and quote must differ: " + (char) delimiter);
+            }
+            return new CsvParser(this);
+        }
+
+        private static byte checkSeparator(char c, String name) {
+            if (c >= 0x80 || c == '\n' || c == '\r') {
+                throw new IllegalArgumentException(name + " must be an ASCII character other than a line ending: " + (int) c);
+            }
+            return (byte) c;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package work.aaronskeels.javaknowledgedemos.csv;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One record of a {@link CsvParser} parse: field offsets into the parser's byte buffer, plus parsers that read ints, longs and
+ * doubles straight from those bytes. Nothing here allocates except getString() (and getDouble() on the rare inputs its fast
+ * path can't handle, see there), so a visitor that only reads numbers parses a file without creating any garbage per record.
+ *
+ * Field values are the bytes between delimiters. Quoted fields have their quotes removed and "" read as ". Numbers must be the
+ * whole field: no surrounding spaces, no thousands separators (NumberFormatException otherwise), the same as Long.parseLong().
+ */
+public final class CsvRecord {
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13,
+            1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Charset charset;
+    private final byte quote;
+    private byte[] bytes;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private int size;
+    private long number;
+
+    CsvRecord(Charset charset, byte quote) {
+        this.charset = charset;
+        this.quote = quote;
+    }
+
+    void reset(byte[] bytes, long number) {
+        this.bytes = bytes;
+        this.number = number;
+        this.size = 0;
+    }
+
+    void add(int start, int end, boolean hasEscapedQuotes) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            escaped = Arrays.copyOf(escaped, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        escaped[size] = hasEscapedQuotes;
+        size++;
+    }
+
+    /** Number of fields. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Index of this record among the data records of its parse, from 0, not counting a skipped header or blank lines. In a
+     * parallel parse it counts within the visitor's own part of the file.
+     */
+    public long number() {
+        return number;
+    }
+
+    public boolean isEmpty(int field) {
+        return starts[check(field)] == ends[field];
+    }
+
+    /** Length in bytes of the field's value (after removing quotes and escapes). */
+    public int length(int field) {
+        int raw = ends[check(field)] - starts[field];
+        return escaped[field] ? raw - countQuotes(field) / 2 : raw;
+    }
+
+    /** Copies the field's value into "destination" at "offset", returning the number of bytes copied. */
+    public int copy(int field, byte[] destination, int offset) {
+        int length = length(field);
+        if (!escaped[field]) {
+            System.arraycopy(bytes, starts[field], destination, offset, length);
+            return length;
+        }
+        int to = offset;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            destination[to++] = bytes[i];
+            if (bytes[i] == quote) {
+                i++; // Skip the second quote of the pair
+            }
+        }
+        return length;
+    }
+
+    /** True if the field's value is exactly "ascii" (compared byte by byte, without decoding the field). */
+    public boolean contentEquals(int field, String ascii) {
+        if (length(field) != ascii.length()) {
+            return false;
+        }
+        int at = starts[field];
+        for (int i = 0; i < ascii.length(); i++, at++) {
+            if (bytes[at] != (byte) ascii.charAt(i)) {
+                return false;
+            }
+            if (escaped[field] && bytes[at] == quote) {
+                at++;
+            }
+        }
+        return true;
+    }
+
+    /** The field decoded with the parser's charset. Allocates; prefer the typed getters for numbers. */
+    public String getString(int field) {
+        if (!escaped[check(field)]) {
+            return new String(bytes, starts[field], ends[field] - starts[field], charset);
+        }
+        byte[] value = new byte[length(field)];
+        copy(field, value, 0);
+        return new String(value, charset);
+    }
+
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value != (int) value) {
+            throw numberFormat(field);
+        }
+        return (int) value;
+    }
+
+    /** Decimal long, optional leading sign, like Long.parseLong() but without a String. */
+    public long getLong(int field) {
+        int at = starts[check(field)];
+        int end = ends[field];
+        boolean negative = false;
+        if (at < end && (bytes[at] == '-' || bytes[at] == '+')) {
+            negative = bytes[at++] == '-';
+        }
+        if (at == end) {
+            throw numberFormat(field);
+        }
+        // Accumulate negatively, as Long.parseLong() does, so Long.MIN_VALUE parses
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; at < end; at++) {
+            int digit = bytes[at] - '0';
+            if (digit < 0 || digit > 9 || value < limit / 10) {
+                throw numberFormat(field);
+            }
+            value *= 10;
+            if (value < limit + digit) {
+                throw numberFormat(field);
+            }
+            value -= digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Decimal double ("-12.5", "3e-4", ".5"). Values with at most 15 significant digits and a decimal exponent within +/-22 -
+     * nearly every price, measurement or timestamp in a feed - are computed exactly from a long and a power of ten (both exactly
+     * representable, so one correctly rounded multiply or divide gives the same result as Double.parseDouble()). Anything else
+     * (more digits, larger exponents, NaN, Infinity, hex) is handed to Double.parseDouble() via a temporary String.
+     */
+    public double getDouble(int field) {
+        int at = starts[check(field)];
+        int end = ends[field];
+        boolean negative = false;
+        if (at < end && (bytes[at] == '-' || bytes[at] == '+')) {
+            negative = bytes[at++] == '-';
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        int digits = 0;
+        for (; at < end && bytes[at] >= '0' && bytes[at] <= '9'; at++, digits++) {
+            if (mantissa != 0 || bytes[at] != '0') {
+                if (++significant > 15) {
+                    return slowDouble(field);
+                }
+                mantissa = mantissa * 10 + (bytes[at] - '0');
+            }
+        }
+        if (at < end && bytes[at] == '.') {
+            for (at++; at < end && bytes[at] >= '0' && bytes[at] <= '9'; at++, digits++) {
+                if (mantissa != 0 || bytes[at] != '0') {
+                    if (++significant > 15) {
+                        return slowDouble(field);
+                    }
+                    mantissa = mantissa * 10 + (bytes[at] - '0');
+                }
+                exponent--;
+            }
+        }
+        if (digits == 0) {
+            return slowDouble(field); // NaN, Infinity, or garbage for Double.parseDouble() to reject
+        }
+        if (at < end && (bytes[at] == 'e' || bytes[at] == 'E')) {
+            at++;
+            boolean negativeExponent = false;
+            if (at < end && (bytes[at] == '-' || bytes[at] == '+')) {
+                negativeExponent = bytes[at++] == '-';
+            }
+            if (at == end) {
+                throw numberFormat(field);
+            }
+            int explicit = 0;
+            for (; at < end && bytes[at] >= '0' && bytes[at] <= '9'; at++) {
+                if (explicit > 10_000) {
+                    return slowDouble(field);
+                }
+                explicit = explicit * 10 + (bytes[at] - '0');
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (at != end) {
+            return slowDouble(field); // Trailing 'd'/'f' suffixes and the like
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return slowDouble(field);
+        }
+        return negative ? -value : value;
+    }
+
+    private double slowDouble(int field) {
+        return Double.parseDouble(new String(bytes, starts[field], ends[field] - starts[field], StandardCharsets.ISO_8859_1));
+    }
+
+    private int countQuotes(int field) {
+        int count = 0;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            if (bytes[i] == quote) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int check(int field) {
+        if (field < 0 || field >= size) {
+            throw new IndexOutOfBoundsException("Field " + field + " of a record with " + size + " fields");
+        }
+        return field;
+    }
+
+    private NumberFormatException numberFormat(int field) {
+        return new NumberFormatException("Record " + number + " field " + field + ": \"" + getString(field) + "\"");
+    }
+
+    /** The fields, comma separated, for debugging. */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            text.append(i == 0 ? "" : ",").append(getString(i));
+        }
+        return text.toString();
+    }
+}
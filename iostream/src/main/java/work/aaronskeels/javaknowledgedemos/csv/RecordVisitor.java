@@ -0,0 +1,11 @@
+package work.aaronskeels.javaknowledgedemos.csv;
+
+/**
+ * Callback for {@link CsvParser}, invoked once per record on the parsing thread. The record is a view over the parser's buffer
+ * and is only valid during the call: read what you need (getLong(), getDouble(), ...) before returning, and don't keep it.
+ * Throwing stops the parse; the exception propagates to the caller.
+ */
+@FunctionalInterface
+public interface RecordVisitor {
+    void record(CsvRecord record);
+}
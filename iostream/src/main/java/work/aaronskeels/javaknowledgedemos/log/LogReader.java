@@ -0,0 +1,144 @@
+package work.aaronskeels.javaknowledgedemos.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads a SegmentedLog's records in offset order, from a starting offset across segments, through one reused buffer (a read()
+ * system call per buffer, not per record). next() returns false at the end of the log; once more records are appended it
+ * returns true again, so a reader can tail the log.
+ *
+ * Not thread-safe: one reader per thread. The reader holds its segment only during next() (see LogSegment's reference
+ * counting), so an abandoned reader pins nothing. If retention or compaction removed the segment since the last call, next()
+ * looks up the next offset again and carries on from wherever it now is.
+ */
+public final class LogReader {
+    private final SegmentedLog log;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buffer;
+    /** Retained during next() only; in between it may be released by the log, which retain() then reports. */
+    private LogSegment segment;
+    /** File position of buffer[0]. */
+    private long chunkPosition;
+    /** Next header within the buffer, and the end of the bytes read. */
+    private int at;
+    private int filled;
+    private long nextOffset;
+    private long offset = -1;
+    private ByteBuffer payload;
+
+    LogReader(SegmentedLog log, long fromOffset, int bufferSize) {
+        this.log = log;
+        this.nextOffset = fromOffset;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /** Moves to the next record; false if there is none (yet). */
+    public boolean next() throws IOException {
+        if (segment != null && !segment.retain()) {
+            segment = null; // Removed (and closed) since the last call
+        }
+        if (segment == null && !seek()) {
+            return false;
+        }
+        try {
+            return advance();
+        } finally {
+            segment.release();
+        }
+    }
+
+    private boolean advance() throws IOException {
+        while (true) {
+            if (!fill(LogSegment.HEADER_SIZE)) {
+                LogSegment following = log.acquireAfter(segment.baseOffset);
+                if (following == null) {
+                    return false;
+                }
+                if (fill(LogSegment.HEADER_SIZE)) {
+                    following.release();
+                    continue; // Appended to before the log rolled; now it's complete
+                }
+                LogSegment previous = segment;
+                segment = following;
+                chunkPosition = 0;
+                at = 0;
+                filled = 0;
+                previous.release();
+                continue;
+            }
+            int length = buffer.getInt(at);
+            if (!fill(LogSegment.HEADER_SIZE + length)) {
+                throw new IOException("Record at " + (chunkPosition + at) + " of " + segment.logPath() + " is cut short");
+            }
+            long recordOffset = buffer.getLong(at + 8);
+            ByteBuffer view = buffer.slice(at + LogSegment.HEADER_SIZE, length);
+            if (LogSegment.checksum(crc, buffer.array(), at + 8, view) != buffer.getInt(at + 4)) {
+                throw new IOException("CRC mismatch in record " + recordOffset + " of " + segment.logPath());
+            }
+            at += LogSegment.HEADER_SIZE + length;
+            if (recordOffset < nextOffset) {
+                continue; // Before the starting offset, in the scan from the index entry
+            }
+            offset = recordOffset;
+            nextOffset = recordOffset + 1;
+            payload = view.asReadOnlyBuffer();
+            return true;
+        }
+    }
+
+    /** Offset of the current record. */
+    public long offset() {
+        if (payload == null) {
+            throw new IllegalStateException("No current record");
+        }
+        return offset;
+    }
+
+    /** The current record's payload, valid until the next call to next(). */
+    public ByteBuffer payload() {
+        if (payload == null) {
+            throw new IllegalStateException("No current record");
+        }
+        return payload;
+    }
+
+    /** Finds and retains the segment holding nextOffset; false if the log has none. */
+    private boolean seek() throws IOException {
+        LogSegment found = log.acquireFor(nextOffset);
+        if (found == null) {
+            return false;
+        }
+        try {
+            chunkPosition = found.position(nextOffset, buffer);
+        } catch (IOException | RuntimeException e) {
+            found.release();
+            throw e;
+        }
+        segment = found;
+        at = 0;
+        filled = 0;
+        return true;
+    }
+
+    /** Makes sure "bytes" bytes from "at" are in the buffer, reading more (and growing it) if needed; false if the file ends. */
+    private boolean fill(int bytes) throws IOException {
+        if (filled - at >= bytes) {
+            return true;
+        }
+        if (bytes > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+            larger.put(0, buffer, at, filled - at);
+            buffer = larger;
+        } else {
+            System.arraycopy(buffer.array(), at, buffer.array(), 0, filled - at);
+        }
+        chunkPosition += at;
+        filled -= at;
+        at = 0;
+        buffer.clear().position(filled);
+        filled += segment.read(buffer, chunkPosition + filled);
+        return filled >= bytes;
+    }
+}
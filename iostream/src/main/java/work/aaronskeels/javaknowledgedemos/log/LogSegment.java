@@ -0,0 +1,337 @@
+package work.aaronskeels.javaknowledgedemos.log;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+import work.aaronskeels.javaknowledgedemos.mmap.MappedFile;
+
+/**
+ * One segment of a SegmentedLog: a file of records, named after the offset of its first one, plus a sparse index file.
+ *
+ * A record is a 16 byte header and the payload:
+ * - length (int): payload bytes
+ * - crc (int): CRC-32C of the offset and payload, so torn writes and bit rot are detected
+ * - offset (long): the record's offset in the whole log
+ * The index holds (offset - baseOffset, file position) int pairs, one per indexInterval bytes of records, memory-mapped (see
+ * MappedFile) so a lookup is a binary search over a few hundred entries in memory plus a scan of at most indexInterval bytes.
+ *
+ * Opening a segment recovers it: records after the last index entry are re-read and their CRCs checked, the file is truncated
+ * at the first incomplete or corrupt one (a write interrupted by a crash), and the index is completed. A missing index is
+ * rebuilt the same way from the start of the file.
+ *
+ * One thread appends (SegmentedLog serializes them); any number may read concurrently, up to the last complete record.
+ *
+ * A segment is shared between the log and the reads in progress, so it is reference counted: the log holds one reference while
+ * the segment is in it, and every read retain()s one and release()s it when done. The files are closed (which unmaps the index)
+ * only once the last reference is released; retain() fails from then on, and the reader looks the offset up again.
+ */
+final class LogSegment implements Closeable {
+    static final int HEADER_SIZE = 16;
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".index";
+    private static final int INDEX_ENTRY_SIZE = 8;
+
+    final long baseOffset;
+    private final Path logPath;
+    private final Path indexPath;
+    private final FileChannel channel;
+    private final MappedFile index;
+    private final int indexInterval;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    private final ByteBuffer[] writes = new ByteBuffer[2];
+    private final CRC32C crc = new CRC32C();
+    private final AtomicInteger references = new AtomicInteger(1); // The log's own
+    private volatile boolean deleteOnRelease;
+    private volatile int indexEntries;
+    private long bytesSinceIndex;
+    /** Bytes of complete records; readers never look past it. */
+    private volatile long size;
+    /** Offset the next appended record will get. */
+    private volatile long nextOffset;
+
+    private LogSegment(Path logPath, Path indexPath, long baseOffset, int segmentSize, int indexInterval) throws IOException {
+        this.baseOffset = baseOffset;
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+        this.indexInterval = indexInterval;
+        this.nextOffset = baseOffset;
+        long indexBytes = ((long) segmentSize / indexInterval + 1) * INDEX_ENTRY_SIZE;
+        int windowSize = (int) Math.min(1 << 30, Math.max(4096, Long.highestOneBit(indexBytes - 1) << 1));
+        this.channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.index = MappedFile.newBuilder(indexPath).writable(true).windowSize(windowSize).open();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Opens the segment starting at "baseOffset" in "directory", creating its files if missing and recovering them if not. */
+    static LogSegment open(Path directory, long baseOffset, String suffix, int segmentSize, int indexInterval)
+            throws IOException {
+        String name = fileName(baseOffset);
+        LogSegment segment = new LogSegment(directory.resolve(name + LOG_SUFFIX + suffix),
+                directory.resolve(name + INDEX_SUFFIX + suffix), baseOffset, segmentSize, indexInterval);
+        try {
+            segment.recover();
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    static String fileName(long baseOffset) {
+        return String.format("%020d", baseOffset);
+    }
+
+    long size() {
+        return size;
+    }
+
+    long nextOffset() {
+        return nextOffset;
+    }
+
+    Path logPath() {
+        return logPath;
+    }
+
+    Path indexPath() {
+        return indexPath;
+    }
+
+    /** Writes a record at the end of the file; the caller checks it fits and serializes appends. */
+    void append(long offset, ByteBuffer payload) throws IOException {
+        long position = size;
+        if (indexEntries == 0 || bytesSinceIndex >= indexInterval) {
+            addIndexEntry(offset, position);
+        }
+        int length = payload.remaining();
+        header.clear();
+        header.putInt(length).putInt(0).putLong(offset).flip();
+        header.putInt(4, checksum(crc, header.array(), 8, payload));
+        writes[0] = header;
+        writes[1] = payload;
+        channel.position(position);
+        while (header.hasRemaining() || payload.hasRemaining()) {
+            channel.write(writes);
+        }
+        writes[1] = null;
+        bytesSinceIndex += HEADER_SIZE + length;
+        nextOffset = offset + 1;
+        size = position + HEADER_SIZE + length;
+    }
+
+    /**
+     * Position of the record with "offset", or of the first one after it if it isn't here (removed by compaction); size() if
+     * there is none. "scratch" is a heap buffer of at least HEADER_SIZE bytes; one of indexInterval bytes or more needs a single
+     * read.
+     */
+    long position(long offset, ByteBuffer scratch) throws IOException {
+        int relative = (int) Math.max(0, Math.min(Integer.MAX_VALUE, offset - baseOffset));
+        // Last index entry at or before "relative"
+        int low = 0;
+        int high = indexEntries - 1;
+        long position = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (index.getInt((long) middle * INDEX_ENTRY_SIZE) <= relative) {
+                position = index.getInt((long) middle * INDEX_ENTRY_SIZE + 4);
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        // Then scan the headers from there, a buffer at a time
+        long end = size;
+        while (position < end) {
+            scratch.clear();
+            read(scratch, position);
+            int at = 0;
+            while (at + HEADER_SIZE <= scratch.position()) {
+                if (scratch.getLong(at + 8) >= offset) {
+                    return position + at;
+                }
+                at += HEADER_SIZE + scratch.getInt(at);
+            }
+            position += at;
+        }
+        return end;
+    }
+
+    /** Fills "dst" from "position", which must lie within size(). */
+    int readFully(ByteBuffer dst, long position) throws IOException {
+        int read = 0;
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, position + read);
+            if (n < 0) {
+                throw new EOFException(logPath + " ends at " + (position + read));
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    /** Reads up to dst.remaining() bytes from "position" (fewer at the end of the segment); returns how many. */
+    int read(ByteBuffer dst, long position) throws IOException {
+        long available = size - position;
+        if (available <= 0) {
+            return 0;
+        }
+        if (dst.remaining() > available) {
+            ByteBuffer slice = dst.slice(dst.position(), (int) available);
+            int read = readFully(slice, position);
+            dst.position(dst.position() + read);
+            return read;
+        }
+        return readFully(dst, position);
+    }
+
+    /**
+     * A record's CRC-32C: of its offset, the 8 bytes at offsetBytes[offsetAt], and of the payload's remaining bytes (its position
+     * is left as it was).
+     */
+    static int checksum(CRC32C crc, byte[] offsetBytes, int offsetAt, ByteBuffer payload) {
+        crc.reset();
+        crc.update(offsetBytes, offsetAt, Long.BYTES);
+        int position = payload.position();
+        crc.update(payload);
+        payload.position(position);
+        return (int) crc.getValue();
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+        index.force();
+    }
+
+    /** Takes a reference for a read; false if the segment is already closed (removed from the log, or the log closed). */
+    boolean retain() {
+        for (int n = references.get(); n > 0; n = references.get()) {
+            if (references.compareAndSet(n, n + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Drops a reference; the last one closes the files, and deletes them if delete() was called. */
+    void release() throws IOException {
+        if (references.decrementAndGet() == 0) {
+            close();
+            if (deleteOnRelease) {
+                Files.deleteIfExists(logPath);
+                Files.deleteIfExists(indexPath);
+            }
+        }
+    }
+
+    /**
+     * Drops the log's reference and deletes the files once no read holds the segment any more, usually right away. The log must
+     * have removed the segment first, so no new reads find it.
+     */
+    void delete() throws IOException {
+        deleteOnRelease = true;
+        release();
+    }
+
+    /** Closes the files regardless of references; only for segments no reader can see (being opened, or compacted into). */
+    @Override
+    public void close() throws IOException {
+        try {
+            index.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void addIndexEntry(long offset, long position) {
+        long at = (long) indexEntries * INDEX_ENTRY_SIZE;
+        index.putInt(at, (int) (offset - baseOffset));
+        index.putInt(at + 4, (int) position);
+        indexEntries++;
+        bytesSinceIndex = 0;
+    }
+
+    /**
+     * Keeps the index entries that are in order and point into the file, then re-reads and indexes the records after the last
+     * of them, truncating the file at the first bad one.
+     */
+    private void recover() throws IOException {
+        long fileSize = channel.size();
+        long indexSize = index.size() / INDEX_ENTRY_SIZE * INDEX_ENTRY_SIZE;
+        int entries = 0;
+        int lastRelative = -1;
+        long position = 0;
+        for (long at = 0; at < indexSize; at += INDEX_ENTRY_SIZE) {
+            int relative = index.getInt(at);
+            int entryPosition = index.getInt(at + 4);
+            if (relative <= lastRelative || entryPosition < position || entryPosition >= fileSize) {
+                break;
+            }
+            entries++;
+            lastRelative = relative;
+            position = entryPosition;
+        }
+        // Scan from the last entry; if its record is bad too (a torn write of an indexed record), from the one before, and so
+        // on, so that the offsets of the records before it are never handed out again
+        long start;
+        do {
+            indexEntries = Math.max(0, entries - 1); // The entry is re-added by the scan, once its record checks out
+            start = indexEntries == 0 ? 0 : index.getInt((long) indexEntries * INDEX_ENTRY_SIZE + 4);
+            position = scan(start, fileSize);
+            entries--;
+        } while (position == start && entries > 0);
+        for (long at = (long) indexEntries * INDEX_ENTRY_SIZE; at < indexSize; at += Long.BYTES) {
+            index.putLong(at, 0); // Stale entries past the recovered ones, e.g. of records lost in a crash
+        }
+        if (fileSize > position) {
+            channel.truncate(position);
+        }
+    }
+
+    /** Indexes the records from "position" up to the first incomplete or corrupt one, whose position it returns. */
+    private long scan(long position, long fileSize) throws IOException {
+        bytesSinceIndex = indexInterval;
+        nextOffset = baseOffset;
+        size = position;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ByteBuffer payload = ByteBuffer.allocate(0);
+        while (position + HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            long offset = header.getLong(8);
+            if (length < 0 || position + HEADER_SIZE + length > fileSize || offset < nextOffset || offset < baseOffset
+                    || offset - baseOffset > Integer.MAX_VALUE) {
+                break;
+            }
+            if (payload.capacity() < length) {
+                payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+            }
+            payload.clear().limit(length);
+            readFully(payload, position + HEADER_SIZE);
+            payload.flip();
+            if (checksum(crc, header.array(), 8, payload) != header.getInt(4)) {
+                break;
+            }
+            if (indexEntries == 0 || bytesSinceIndex >= indexInterval) {
+                addIndexEntry(offset, position);
+            }
+            position += HEADER_SIZE + length;
+            bytesSinceIndex += HEADER_SIZE + length;
+            nextOffset = offset + 1;
+            size = position;
+        }
+        return position;
+    }
+}
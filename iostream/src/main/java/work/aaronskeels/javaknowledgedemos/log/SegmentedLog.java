@@ -0,0 +1,511 @@
+package work.aaronskeels.javaknowledgedemos.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * A durable, append-only log of records (byte strings), each identified by its offset: 0, 1, 2... in append order. For event
+ * capture, write-ahead logs, queues between processes.
+ *
+ * RandomAccessFile can append and read at positions, but leaves everything else to the caller: framing, detecting torn writes
+ * after a crash, finding record n without reading the n - 1 before it, fsync cost, and getting rid of old data without
+ * rewriting the file. Here:
+ * - Records are length-prefixed and CRC-checked (see LogSegment). Opening a log truncates a torn last record, and readers fail
+ *   on corruption instead of returning garbage.
+ * - The log is split into segment files of up to segmentSize bytes, named after their first offset; an append that doesn't fit
+ *   rolls to a new segment. Each segment has a sparse memory-mapped index, so read(offset) and reader(offset) find a record with
+ *   a map lookup, a binary search and a scan of at most indexInterval bytes.
+ * - Durability follows a {@link SyncPolicy}; with GROUP_COMMIT concurrent appenders share fsyncs.
+ * - Old data goes a segment at a time: deleteBefore(offset), and automatically past retentionBytes. compact(key) keeps only
+ *   the latest record per key in full segments, with the remaining records keeping their offsets.
+ *
+ * Thread-safe: appends are serialized, reads run concurrently with them and each other. A segment removed by retention or
+ * compaction stays open until the reads using it are done (see LogSegment). Create one via {@link #newBuilder(Path)}.
+ */
+public final class SegmentedLog implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final int DEFAULT_INDEX_INTERVAL = 4096;
+    static final int MIN_SEGMENT_SIZE = 1024;
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    private static final int READ_BUFFER_SIZE = 64 << 10;
+    private static final System.Logger LOGGER = System.getLogger(SegmentedLog.class.getName());
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int indexInterval;
+    private final SyncPolicy syncPolicy;
+    private final long retentionBytes;
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService syncer;
+    /** Guards appends and changes to "segments". */
+    private final Object writeLock = new Object();
+    private volatile LogSegment active;
+    private volatile boolean closed; // Written under writeLock
+    /** Group commit: one thread forces at a time while the others wait for it on "synced". */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private boolean syncing; // Guarded by syncLock
+    /** Every offset below this has been forced. */
+    private volatile long durableOffset;
+
+    private SegmentedLog(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.indexInterval = builder.indexInterval;
+        this.syncPolicy = builder.syncPolicy;
+        this.retentionBytes = builder.retentionBytes;
+        Files.createDirectories(directory);
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+        this.durableOffset = active.nextOffset();
+        if (syncPolicy == SyncPolicy.INTERVAL) {
+            long interval = builder.syncInterval.toNanos();
+            this.syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "segmented-log-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::backgroundSync, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    public static Builder newBuilder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /** Appends a record and returns its offset. Returns once the record is as durable as the SyncPolicy makes it. */
+    public long append(byte[] record) throws IOException {
+        return append(ByteBuffer.wrap(record));
+    }
+
+    /** Appends the buffer's remaining bytes (its position advances past them); see {@link #append(byte[])}. */
+    public long append(ByteBuffer record) throws IOException {
+        int length = record.remaining();
+        if (LogSegment.HEADER_SIZE + (long) length > segmentSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes doesn't fit in a segment of " + segmentSize);
+        }
+        long offset;
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IllegalStateException("Closed: " + directory);
+            }
+            LogSegment segment = active;
+            if (segment.size() + LogSegment.HEADER_SIZE + length > segmentSize) {
+                segment = roll();
+            }
+            offset = segment.nextOffset();
+            segment.append(offset, record);
+            if (syncPolicy == SyncPolicy.EVERY_APPEND) {
+                segment.force();
+                durableOffset = offset + 1;
+            }
+        }
+        if (syncPolicy == SyncPolicy.GROUP_COMMIT) {
+            awaitDurable(offset + 1);
+        }
+        return offset;
+    }
+
+    /** Forces every record appended so far to the storage device. */
+    public void sync() throws IOException {
+        awaitDurable(nextOffset());
+    }
+
+    /** The record at "offset", or null if there is none (not appended yet, or removed by retention or compaction). */
+    public byte[] read(long offset) throws IOException {
+        LogSegment segment = acquireFor(offset);
+        if (segment == null) {
+            return null;
+        }
+        try {
+            return read(segment, offset);
+        } finally {
+            segment.release();
+        }
+    }
+
+    private byte[] read(LogSegment segment, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Math.min(indexInterval, READ_BUFFER_SIZE) + LogSegment.HEADER_SIZE);
+        long position = segment.position(offset, header); // As scratch space, then for the record's header
+        if (position >= segment.size()) {
+            return null;
+        }
+        header.clear().limit(LogSegment.HEADER_SIZE);
+        segment.readFully(header, position);
+        if (header.getLong(8) != offset) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+        segment.readFully(payload, position + LogSegment.HEADER_SIZE);
+        payload.flip();
+        if (LogSegment.checksum(new CRC32C(), header.array(), 8, payload) != header.getInt(4)) {
+            throw new IOException("CRC mismatch in record " + offset + " of " + segment.logPath());
+        }
+        return payload.array();
+    }
+
+    /** A reader positioned before the first record at or after "offset". */
+    public LogReader reader(long offset) {
+        return new LogReader(this, offset, READ_BUFFER_SIZE);
+    }
+
+    /** No record has an offset below this (the first segment's base offset). */
+    public long firstOffset() {
+        return segments.firstKey();
+    }
+
+    /** The offset the next append will get. */
+    public long nextOffset() {
+        return active.nextOffset();
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /** Bytes of records in all segments. */
+    public long size() {
+        long size = 0;
+        for (LogSegment segment : segments.values()) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Deletes the segments whose records all lie below "offset" (never the segment being appended to). Returns how many were
+     * deleted.
+     */
+    public int deleteBefore(long offset) throws IOException {
+        synchronized (writeLock) {
+            int deleted = 0;
+            for (Map.Entry<Long, LogSegment> entry : segments.entrySet()) {
+                LogSegment segment = entry.getValue();
+                Long following = segments.higherKey(entry.getKey());
+                if (segment == active || following == null || following > offset) {
+                    break;
+                }
+                segments.remove(entry.getKey());
+                segment.delete();
+                deleted++;
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Log compaction, as for a changelog or snapshot topic: in every full segment, removes the records that have a later record
+     * with the same key anywhere in the log, "key" extracting it from a payload (null keys are always kept). The remaining records
+     * keep their offsets. Each segment is rewritten to a new file that then replaces it, so a crash leaves either version; a
+     * segment left with no records is deleted. Appends wait while it runs.
+     */
+    public void compact(Function<ByteBuffer, ?> key) throws IOException {
+        Objects.requireNonNull(key);
+        synchronized (writeLock) {
+            Map<Object, Long> latest = new HashMap<>();
+            LogReader reader = reader(firstOffset());
+            while (reader.next()) {
+                Object recordKey = key.apply(reader.payload().duplicate());
+                if (recordKey != null) {
+                    latest.put(recordKey, reader.offset());
+                }
+            }
+            for (LogSegment segment : new ArrayList<>(segments.headMap(active.baseOffset).values())) {
+                compact(segment, key, latest);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (syncer != null) {
+            syncer.shutdown();
+        }
+        try {
+            active.force();
+        } finally {
+            closeSegments();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentedLog[" + directory + ", " + segments.size() + " segments, next offset " + nextOffset() + "]";
+    }
+
+    /** The segment that holds (or would hold) "offset": the last one starting at or before it, else the first. */
+    private LogSegment segmentFor(long offset) {
+        Map.Entry<Long, LogSegment> entry = segments.floorEntry(offset);
+        if (entry == null) {
+            entry = segments.firstEntry();
+        }
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * segmentFor(offset), retained for the caller to release. A segment that can't be retained has already been removed from
+     * "segments" (or the log closed), so the lookup is simply repeated.
+     */
+    LogSegment acquireFor(long offset) {
+        while (true) {
+            LogSegment segment = segmentFor(offset);
+            if (segment == null || segment.retain()) {
+                return segment;
+            }
+            checkOpen();
+        }
+    }
+
+    /** The segment after the one starting at "baseOffset", retained as by acquireFor(); null if there is none. */
+    LogSegment acquireAfter(long baseOffset) {
+        while (true) {
+            Map.Entry<Long, LogSegment> entry = segments.higherEntry(baseOffset);
+            if (entry == null || entry.getValue().retain()) {
+                return entry == null ? null : entry.getValue();
+            }
+            checkOpen();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Closed: " + directory);
+        }
+    }
+
+    /**
+     * Waits until every offset below "end" is durable. The first waiter forces the active segment for everyone (earlier segments
+     * were forced when the log rolled past them); threads arriving meanwhile wait, and are usually covered by the next force.
+     */
+    private void awaitDurable(long end) throws IOException {
+        syncLock.lock();
+        try {
+            while (durableOffset < end) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                LogSegment segment;
+                long target;
+                syncLock.unlock();
+                try {
+                    synchronized (writeLock) {
+                        checkOpen();
+                        segment = active;
+                        segment.retain(); // Can't fail while open; keeps retention from closing it under force()
+                        target = segment.nextOffset();
+                    }
+                    try {
+                        segment.force();
+                    } finally {
+                        segment.release();
+                    }
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    synced.signalAll();
+                }
+                durableOffset = Math.max(durableOffset, target);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void backgroundSync() {
+        try {
+            sync();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Background sync of " + directory + " failed", e);
+        }
+    }
+
+    /** Seals the active segment (forcing it) and starts the next one; then applies retentionBytes. Holds writeLock. */
+    private LogSegment roll() throws IOException {
+        LogSegment full = active;
+        full.force();
+        LogSegment next = LogSegment.open(directory, full.nextOffset(), "", segmentSize, indexInterval);
+        segments.put(next.baseOffset, next);
+        active = next;
+        long excess = size() - retentionBytes;
+        for (LogSegment oldest : segments.values()) {
+            if (excess <= 0 || oldest == active) {
+                break;
+            }
+            excess -= oldest.size();
+            segments.remove(oldest.baseOffset);
+            oldest.delete();
+        }
+        return next;
+    }
+
+    private void compact(LogSegment segment, Function<ByteBuffer, ?> key, Map<Object, Long> latest) throws IOException {
+        LogSegment compacted = LogSegment.open(directory, segment.baseOffset, COMPACTING_SUFFIX, segmentSize, indexInterval);
+        boolean empty = true;
+        try {
+            LogReader reader = new LogReader(this, segment.baseOffset, READ_BUFFER_SIZE);
+            long end = segment.nextOffset();
+            while (reader.next() && reader.offset() < end) {
+                Object recordKey = key.apply(reader.payload().duplicate());
+                if (recordKey == null || latest.getOrDefault(recordKey, reader.offset()) == reader.offset()) {
+                    compacted.append(reader.offset(), reader.payload().duplicate());
+                    empty = false;
+                }
+            }
+            compacted.force();
+        } finally {
+            compacted.close();
+        }
+        if (empty) {
+            segments.remove(segment.baseOffset); // Reads of its offsets move on to the next segment
+            segment.delete();
+            Files.delete(compacted.logPath());
+            Files.delete(compacted.indexPath());
+            return;
+        }
+        // The old index goes first: a segment without one gets it rebuilt on open, so a crash at any point here leaves either
+        // the old or the new records, correctly indexed (open() deletes leftover .compacting files). Until the new segment
+        // replaces it in "segments", in one put(), readers keep reading the old one through its open channel and mapping, which
+        // outlive the unlinked files; reads still holding it afterwards keep it open until they release it.
+        Files.delete(segment.indexPath());
+        Files.move(compacted.logPath(), segment.logPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(compacted.indexPath(), segment.indexPath(), StandardCopyOption.ATOMIC_MOVE);
+        segments.put(segment.baseOffset, LogSegment.open(directory, segment.baseOffset, "", segmentSize, indexInterval));
+        segment.release();
+    }
+
+    private void load() throws IOException {
+        List<Long> baseOffsets = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(COMPACTING_SUFFIX)) {
+                    Files.delete(file); // An interrupted compaction; the original is still there
+                } else if (name.endsWith(LogSegment.LOG_SUFFIX)) {
+                    baseOffsets.add(Long.parseLong(name.substring(0, name.length() - LogSegment.LOG_SUFFIX.length())));
+                }
+            }
+        }
+        baseOffsets.sort(null);
+        if (baseOffsets.isEmpty()) {
+            baseOffsets.add(0L);
+        }
+        for (long baseOffset : baseOffsets) {
+            LogSegment segment = LogSegment.open(directory, baseOffset, "", segmentSize, indexInterval);
+            segments.put(baseOffset, segment);
+            active = segment;
+        }
+    }
+
+    private void closeSegments() throws IOException {
+        IOException failure = null;
+        for (LogSegment segment : segments.values()) {
+            try {
+                segment.release(); // Reads in progress keep their segment open until they finish
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public static final class Builder {
+        private final Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private int indexInterval = DEFAULT_INDEX_INTERVAL;
+        private SyncPolicy syncPolicy = SyncPolicy.GROUP_COMMIT;
+        private Duration syncInterval = Duration.ofSeconds(1);
+        private long retentionBytes = Long.MAX_VALUE;
+
+        private Builder(Path directory) {
+            this.directory = Objects.requireNonNull(directory);
+        }
+
+        /** Largest segment file, from 1 KiB to 1 GiB (default 64 MiB); also the largest record plus 16 bytes of header. */
+        public Builder segmentSize(int segmentSize) {
+            if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > 1 << 30) {
+                throw new IllegalArgumentException("segmentSize must be from 1 KiB to 1 GiB: " + segmentSize);
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /** Bytes of records between index entries (default 4 KiB): the most a lookup scans, vs. 8 bytes of index per entry. */
+        public Builder indexInterval(int indexInterval) {
+            if (indexInterval <= 0) {
+                throw new IllegalArgumentException("indexInterval must be > 0: " + indexInterval);
+            }
+            this.indexInterval = indexInterval;
+            return this;
+        }
+
+        /** Default GROUP_COMMIT. */
+        public Builder syncPolicy(SyncPolicy syncPolicy) {
+            this.syncPolicy = Objects.requireNonNull(syncPolicy);
+            return this;
+        }
+
+        /** How often SyncPolicy.INTERVAL forces (default 1 second). */
+        public Builder syncInterval(Duration syncInterval) {
+            if (syncInterval.isNegative() || syncInterval.isZero()) {
+                throw new IllegalArgumentException("syncInterval must be > 0: " + syncInterval);
+            }
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        /**
+         * Once the log is larger than this, the oldest segments are deleted when it rolls (default: never). The active segment is
+         * always kept, so the log can exceed it by up to a segment.
+         */
+        public Builder retentionBytes(long retentionBytes) {
+            if (retentionBytes < 0) {
+                throw new IllegalArgumentException("retentionBytes must be >= 0: " + retentionBytes);
+            }
+            this.retentionBytes = retentionBytes;
+            return this;
+        }
+
+        /** Opens the log in the directory, creating it if needed, and recovers its segments. */
+        public SegmentedLog open() throws IOException {
+            return new SegmentedLog(this);
+        }
+    }
+}
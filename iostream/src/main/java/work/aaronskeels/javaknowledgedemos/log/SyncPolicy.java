@@ -0,0 +1,19 @@
+package work.aaronskeels.javaknowledgedemos.log;
+
+/**
+ * When a SegmentedLog forces appended records to the storage device (fsync). Until then they are in the OS page cache: safe if
+ * the process crashes, lost if the machine does. Full segments are forced when the log rolls to the next one, whatever the policy.
+ */
+public enum SyncPolicy {
+    /** Only on sync(), segment rolls and close(): fastest, durability left to the OS's write-back. */
+    NONE,
+    /** Every append forces before returning, one fsync per record: durable, and as slow as the device's fsync latency. */
+    EVERY_APPEND,
+    /**
+     * Every append waits until a force covering it completes, but one fsync covers every record appended while the previous one
+     * ran (group commit): as durable as EVERY_APPEND, with throughput growing with the number of appending threads.
+     */
+    GROUP_COMMIT,
+    /** A background thread forces every syncInterval: appends don't wait, and at most that much is lost in a crash. */
+    INTERVAL
+}
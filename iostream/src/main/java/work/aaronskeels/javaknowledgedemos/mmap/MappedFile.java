@@ -0,0 +1,347 @@
+package work.aaronskeels.javaknowledgedemos.mmap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A file of any size accessed as memory: typed reads and writes at absolute positions, backed by MappedByteBuffer windows.
+ *
+ * BufferedInputStream/RandomAccessFile copy every byte from the kernel's page cache into a Java buffer with a read() system call,
+ * and RandomAccessFile's seek() + readLong() is two or more system calls per value. A mapping makes the page cache itself
+ * addressable: a getLong() is a plain memory load, a page fault the first time a page is touched, and the OS does the read-ahead
+ * and write-back. That also makes random access into a multi-GB file as cheap as the page cache allows.
+ *
+ * One MappedByteBuffer is limited to 2 GiB, so the file is mapped lazily in windows of windowSize bytes (a power of two, default
+ * 64 MiB; mapping only reserves address space, so large windows are cheap). Consecutive windows overlap by 8 bytes so that no
+ * primitive straddles two of them; bulk get/put split across windows as needed.
+ *
+ * Writable files grow on demand: writing past size() extends it, and the mapping extends the file on disk (sparsely where the
+ * filesystem allows). close() trims the file back to size(). Changes reach the page cache immediately and are visible to other
+ * readers of the file; force() makes them durable.
+ *
+ * Positional reads and writes are safe from any number of threads (concurrent writes to the same bytes race, as with any shared
+ * memory). close() unmaps immediately, so no other thread may still be using the file or its readers/writers at that point.
+ * Create one via {@link #newBuilder(Path)}.
+ */
+public final class MappedFile implements AutoCloseable {
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+    static final int MIN_WINDOW_SIZE = 4096;
+    static final int MAX_WINDOW_SIZE = 1 << 30;
+    /** Windows overlap by this much so that a primitive never straddles two of them. */
+    private static final int OVERLAP = Long.BYTES;
+    private static final MappedByteBuffer[] CLOSED = new MappedByteBuffer[0];
+    private static final VarHandle WINDOW = MethodHandles.arrayElementVarHandle(MappedByteBuffer[].class);
+    private static final VarHandle SIZE;
+
+    static {
+        try {
+            SIZE = MethodHandles.lookup().findVarHandle(MappedFile.class, "size", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean writable;
+    private final ByteOrder order;
+    private final int windowSize;
+    private final int windowShift;
+    private final long windowMask;
+    private volatile MappedByteBuffer[] windows;
+    private volatile long size;
+    private boolean closed; // Guarded by this
+
+    private MappedFile(Builder builder) throws IOException {
+        this.path = builder.path;
+        this.writable = builder.writable;
+        this.order = builder.order;
+        this.windowSize = builder.windowSize;
+        this.windowShift = Integer.numberOfTrailingZeros(windowSize);
+        this.windowMask = windowSize - 1;
+        this.channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windows = new MappedByteBuffer[(int) ((size >>> windowShift) + 1)];
+    }
+
+    public static Builder newBuilder(Path path) {
+        return new Builder(path);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** Length of the file's contents: its length when opened, or the end of the furthest write since. */
+    public long size() {
+        return size;
+    }
+
+    public boolean isWritable() {
+        return writable;
+    }
+
+    public ByteOrder order() {
+        return order;
+    }
+
+    /** Sequential DataInput/InputStream view starting at "position"; reads up to size() as it stands at each read. */
+    public MappedFileReader reader(long position) {
+        return new MappedFileReader(this, position);
+    }
+
+    /** Sequential DataOutput/OutputStream view starting at "position", growing the file as it writes. */
+    public MappedFileWriter writer(long position) {
+        checkWritable();
+        return new MappedFileWriter(this, position);
+    }
+
+    // ---- Reads ----
+
+    public byte getByte(long position) {
+        checkRead(position, Byte.BYTES);
+        return window(position).get(offset(position));
+    }
+
+    public short getShort(long position) {
+        checkRead(position, Short.BYTES);
+        return window(position).getShort(offset(position));
+    }
+
+    public char getChar(long position) {
+        checkRead(position, Character.BYTES);
+        return window(position).getChar(offset(position));
+    }
+
+    public int getInt(long position) {
+        checkRead(position, Integer.BYTES);
+        return window(position).getInt(offset(position));
+    }
+
+    public long getLong(long position) {
+        checkRead(position, Long.BYTES);
+        return window(position).getLong(offset(position));
+    }
+
+    public float getFloat(long position) {
+        checkRead(position, Float.BYTES);
+        return window(position).getFloat(offset(position));
+    }
+
+    public double getDouble(long position) {
+        checkRead(position, Double.BYTES);
+        return window(position).getDouble(offset(position));
+    }
+
+    /** Copies "length" bytes starting at "position" into dst[offset...]. */
+    public void get(long position, byte[] dst, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, dst.length);
+        checkRead(position, length);
+        while (length > 0) {
+            int windowOffset = offset(position);
+            int chunk = Math.min(length, windowSize - windowOffset);
+            window(position).get(windowOffset, dst, offset, chunk);
+            position += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    // ---- Writes ----
+
+    public void putByte(long position, byte value) {
+        beforeWrite(position, Byte.BYTES);
+        window(position).put(offset(position), value);
+    }
+
+    public void putShort(long position, short value) {
+        beforeWrite(position, Short.BYTES);
+        window(position).putShort(offset(position), value);
+    }
+
+    public void putChar(long position, char value) {
+        beforeWrite(position, Character.BYTES);
+        window(position).putChar(offset(position), value);
+    }
+
+    public void putInt(long position, int value) {
+        beforeWrite(position, Integer.BYTES);
+        window(position).putInt(offset(position), value);
+    }
+
+    public void putLong(long position, long value) {
+        beforeWrite(position, Long.BYTES);
+        window(position).putLong(offset(position), value);
+    }
+
+    public void putFloat(long position, float value) {
+        beforeWrite(position, Float.BYTES);
+        window(position).putFloat(offset(position), value);
+    }
+
+    public void putDouble(long position, double value) {
+        beforeWrite(position, Double.BYTES);
+        window(position).putDouble(offset(position), value);
+    }
+
+    /** Copies src[offset, offset + length) to the file starting at "position". */
+    public void put(long position, byte[] src, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, src.length);
+        beforeWrite(position, length);
+        while (length > 0) {
+            int windowOffset = offset(position);
+            int chunk = Math.min(length, windowSize - windowOffset);
+            window(position).put(windowOffset, src, offset, chunk);
+            position += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /** Writes every modified page back to the storage device. */
+    public void force() {
+        for (MappedByteBuffer window : windows) {
+            if (window != null) {
+                window.force();
+            }
+        }
+    }
+
+    /** Unmaps every window and, for a writable file, trims the file to size(). */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        MappedByteBuffer[] mapped = windows;
+        windows = CLOSED;
+        try {
+            for (MappedByteBuffer window : mapped) {
+                Unmapper.unmap(window);
+            }
+            if (writable && channel.size() > size) {
+                channel.truncate(size);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFile[" + path + ", size=" + size + (writable ? ", writable]" : "]");
+    }
+
+    // ---- Windows ----
+
+    private int offset(long position) {
+        return (int) (position & windowMask);
+    }
+
+    private void checkRead(long position, int length) {
+        Objects.checkFromIndexSize(position, length, size);
+    }
+
+    private void checkWritable() {
+        if (!writable) {
+            throw new ReadOnlyBufferException();
+        }
+    }
+
+    private void beforeWrite(long position, int length) {
+        checkWritable();
+        Objects.checkFromIndexSize(position, length, Long.MAX_VALUE);
+        long end = position + length;
+        long current = size;
+        while (end > current && !SIZE.weakCompareAndSet(this, current, end)) {
+            current = size;
+        }
+    }
+
+    private MappedByteBuffer window(long position) {
+        int index = (int) (position >>> windowShift);
+        MappedByteBuffer[] current = windows;
+        if (index < current.length) {
+            MappedByteBuffer window = (MappedByteBuffer) WINDOW.getAcquire(current, index);
+            if (window != null) {
+                return window;
+            }
+        }
+        return map(index);
+    }
+
+    private synchronized MappedByteBuffer map(int index) {
+        if (closed) {
+            throw new IllegalStateException("Closed: " + path);
+        }
+        MappedByteBuffer[] current = windows;
+        if (index >= current.length) {
+            current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            windows = current;
+        }
+        MappedByteBuffer window = current[index];
+        if (window == null) {
+            long start = (long) index << windowShift;
+            try {
+                // A read-write mapping past the end of the file extends the file; a read-only one must stop at its end
+                window = writable
+                        ? channel.map(FileChannel.MapMode.READ_WRITE, start, windowSize + OVERLAP)
+                        : channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize + OVERLAP, size - start));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map " + path + " at " + start, e);
+            }
+            window.order(order);
+            WINDOW.setRelease(current, index, window);
+        }
+        return window;
+    }
+
+    public static final class Builder {
+        private final Path path;
+        private boolean writable;
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+        private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+        private Builder(Path path) {
+            this.path = Objects.requireNonNull(path);
+        }
+
+        /** Opens the file for reading and writing, creating it if missing. Read-only by default. */
+        public Builder writable(boolean writable) {
+            this.writable = writable;
+            return this;
+        }
+
+        /** Bytes mapped at a time: a power of two from 4 KiB to 1 GiB. */
+        public Builder windowSize(int windowSize) {
+            if (windowSize < MIN_WINDOW_SIZE || windowSize > MAX_WINDOW_SIZE || Integer.bitCount(windowSize) != 1) {
+                throw new IllegalArgumentException("windowSize must be a power of two from 4 KiB to 1 GiB: " + windowSize);
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /** Byte order of multi-byte values. Big-endian by default, like DataInputStream/RandomAccessFile. */
+        public Builder order(ByteOrder order) {
+            this.order = Objects.requireNonNull(order);
+            return this;
+        }
+
+        public MappedFile open() throws IOException {
+            return new MappedFile(this);
+        }
+    }
+}
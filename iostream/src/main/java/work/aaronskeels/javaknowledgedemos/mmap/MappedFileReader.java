@@ -0,0 +1,205 @@
+package work.aaronskeels.javaknowledgedemos.mmap;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * Sequential cursor over a {@link MappedFile}: a drop-in for DataInputStream(BufferedInputStream(FileInputStream)) that reads
+ * straight out of the mapping, with no read() system calls and no copy into a stream buffer.
+ *
+ * Multi-byte values use the MappedFile's byte order, which is big-endian (what the DataInput contract specifies) unless it was
+ * opened otherwise. close() does nothing; the MappedFile owns the mapping. Not thread-safe, but any number of readers can share
+ * one MappedFile.
+ */
+public final class MappedFileReader extends InputStream implements DataInput {
+    private final MappedFile file;
+    private long position;
+
+    MappedFileReader(MappedFile file, long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position must be >= 0: " + position);
+        }
+        this.file = file;
+        this.position = position;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    /** Moves the cursor; positions past the end simply read as end of file. */
+    public MappedFileReader position(long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position must be >= 0: " + position);
+        }
+        this.position = position;
+        return this;
+    }
+
+    public long remaining() {
+        return Math.max(0, file.size() - position);
+    }
+
+    // ---- InputStream ----
+
+    @Override
+    public int read() {
+        return position < file.size() ? file.getByte(position++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        long remaining = remaining();
+        if (remaining == 0) {
+            return -1;
+        }
+        int count = (int) Math.min(len, remaining);
+        file.get(position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, remaining()));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, remaining());
+    }
+
+    // ---- DataInput ----
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        require(len);
+        file.get(position, b, off, len);
+        position += len;
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        return (int) skip(n);
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(Byte.BYTES);
+        return file.getByte(position++);
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(Short.BYTES);
+        short value = file.getShort(position);
+        position += Short.BYTES;
+        return value;
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        require(Character.BYTES);
+        char value = file.getChar(position);
+        position += Character.BYTES;
+        return value;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(Integer.BYTES);
+        int value = file.getInt(position);
+        position += Integer.BYTES;
+        return value;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(Long.BYTES);
+        long value = file.getLong(position);
+        position += Long.BYTES;
+        return value;
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        require(Float.BYTES);
+        float value = file.getFloat(position);
+        position += Float.BYTES;
+        return value;
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        require(Double.BYTES);
+        double value = file.getDouble(position);
+        position += Double.BYTES;
+        return value;
+    }
+
+    /** Same contract as RandomAccessFile.readLine(): bytes become chars as-is, so only Latin-1 text reads correctly. */
+    @Override
+    public String readLine() {
+        long size = file.size();
+        if (position >= size) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (position < size) {
+            int c = file.getByte(position++) & 0xFF;
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                if (position < size && file.getByte(position) == '\n') {
+                    position++;
+                }
+                break;
+            }
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    private void require(int bytes) throws EOFException {
+        if (remaining() < bytes) {
+            throw new EOFException("Needed " + bytes + " bytes at " + position + " of " + file.path() + ", size " + file.size());
+        }
+    }
+}
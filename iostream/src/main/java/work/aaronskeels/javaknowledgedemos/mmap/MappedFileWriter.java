@@ -0,0 +1,143 @@
+package work.aaronskeels.javaknowledgedemos.mmap;
+
+import java.io.DataOutput;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+
+/**
+ * Sequential cursor that writes into a {@link MappedFile}: a drop-in for DataOutputStream(BufferedOutputStream(FileOutputStream))
+ * that stores straight into the mapping, growing the file as it goes. There is nothing to flush; a write is visible to readers of
+ * the file as soon as it returns. Use MappedFile.force() for durability.
+ *
+ * Multi-byte values use the MappedFile's byte order (big-endian unless opened otherwise). close() does nothing; the MappedFile
+ * owns the mapping. Not thread-safe; give each thread its own writer over its own region.
+ */
+public final class MappedFileWriter extends OutputStream implements DataOutput {
+    private final MappedFile file;
+    private long position;
+
+    MappedFileWriter(MappedFile file, long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position must be >= 0: " + position);
+        }
+        this.file = file;
+        this.position = position;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public MappedFileWriter position(long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position must be >= 0: " + position);
+        }
+        this.position = position;
+        return this;
+    }
+
+    @Override
+    public void write(int b) {
+        file.putByte(position++, (byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        file.put(position, b, off, len);
+        position += len;
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        write(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        write(v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        file.putShort(position, (short) v);
+        position += Short.BYTES;
+    }
+
+    @Override
+    public void writeChar(int v) {
+        file.putChar(position, (char) v);
+        position += Character.BYTES;
+    }
+
+    @Override
+    public void writeInt(int v) {
+        file.putInt(position, v);
+        position += Integer.BYTES;
+    }
+
+    @Override
+    public void writeLong(long v) {
+        file.putLong(position, v);
+        position += Long.BYTES;
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        file.putFloat(position, v);
+        position += Float.BYTES;
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        file.putDouble(position, v);
+        position += Double.BYTES;
+    }
+
+    /** Low byte of each char, as DataOutputStream.writeBytes() does. */
+    @Override
+    public void writeBytes(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void writeChars(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    /** Two byte length then "modified UTF-8", readable by DataInputStream.readUTF()/MappedFileReader.readUTF(). */
+    @Override
+    public void writeUTF(String s) throws UTFDataFormatException {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            length += c != 0 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        if (length > 0xFFFF) {
+            throw new UTFDataFormatException("Encoded string too long: " + length + " bytes");
+        }
+        byte[] bytes = new byte[length + 2];
+        bytes[0] = (byte) (length >>> 8);
+        bytes[1] = (byte) length;
+        int at = 2;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != 0 && c < 0x80) {
+                bytes[at++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[at++] = (byte) (0xC0 | c >> 6);
+                bytes[at++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                bytes[at++] = (byte) (0xE0 | c >> 12);
+                bytes[at++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[at++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        write(bytes, 0, bytes.length);
+    }
+}
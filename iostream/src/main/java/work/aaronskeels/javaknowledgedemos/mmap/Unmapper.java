@@ -0,0 +1,53 @@
+package work.aaronskeels.javaknowledgedemos.mmap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Releases a file mapping immediately instead of whenever the MappedByteBuffer is garbage collected.
+ *
+ * Until then the mapping keeps address space (and on Windows, the file itself) locked, so a long-running process that maps and
+ * closes many files can run out of either. sun.misc.Unsafe.invokeCleaner() unmaps right away. The Foreign Memory API
+ * (Arena.close()) is the supported way to do this, but it is still a preview API on the JDK this repo targets.
+ *
+ * Unsafe is reached through a MethodHandle so the source never names sun.misc.Unsafe, which javac warns about on every mention.
+ */
+public final class Unmapper {
+    private static final MethodHandle INVOKE_CLEANER = lookUpInvokeCleaner();
+
+    private Unmapper() {
+    }
+
+    /**
+     * Unmaps the buffer when possible, otherwise leaves it to the GC. The buffer must never be touched again afterwards (doing so
+     * can crash the JVM).
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER != null && buffer != null) {
+            try {
+                INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t); // invokeCleaner() declares no checked exceptions
+            }
+        }
+    }
+
+    private static MethodHandle lookUpInvokeCleaner() {
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(type, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package work.aaronskeels.javaknowledgedemos.pipe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An in-memory byte stream from one writer thread to one reader thread: a lock-free replacement for PipedOutputStream and
+ * PipedInputStream.
+ *
+ * The piped streams share a 1 KiB circular buffer guarded by synchronized, move one byte per loop iteration in read(), and
+ * hand off with wait()/notifyAll() - where the waiting side re-checks only once a second (wait(1000)), because the other side
+ * may have died. Here the buffer is a power-of-two byte ring (default 64 KiB) with a single-producer/single-consumer protocol:
+ * - The writer owns the tail counter and the reader the head counter, each on its own cache line. Each side copies a whole
+ *   run of bytes (at most two System.arraycopy()s around the wrap) and then publishes its counter with an ordered store
+ *   (VarHandle setRelease), which makes the copied bytes visible to the other side. No locks, no CAS.
+ * - Each side caches the other's counter and only re-reads it (a contended cache line) when the cached value says there is
+ *   less room or data than the current call wants.
+ * - A side that has to wait follows the pipe's {@link WaitStrategy}. With PARK the other side unparks it after publishing,
+ *   paying a memory fence per publish for that.
+ *
+ * The writer uses write()/tryWrite() or outputStream(), and closeWrite() once done; the reader then sees end of stream once it has
+ * read everything. The reader uses read()/tryRead() or inputStream(); closeRead() makes the writer fail instead of blocking
+ * forever. Exactly one thread may write and one (other) thread may read at a time. Create one via {@link #newBuilder()}.
+ */
+public final class BytePipe {
+    public static final int DEFAULT_CAPACITY = 64 << 10;
+
+    private final byte[] buffer;
+    private final int capacity;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final PaddedSequence tail = new PaddedSequence();
+    private final PaddedSequence headCache = new PaddedSequence(); // Writer-owned
+    private final PaddedSequence head = new PaddedSequence();
+    private final PaddedSequence tailCache = new PaddedSequence(); // Reader-owned
+    private volatile boolean writeClosed;
+    private volatile boolean readClosed;
+    private volatile Thread parkedWriter;
+    private volatile Thread parkedReader;
+    private final InputStream inputStream = new PipeInputStream();
+    private final OutputStream outputStream = new PipeOutputStream();
+
+    private BytePipe(Builder builder) {
+        this.capacity = builder.capacity;
+        this.mask = capacity - 1;
+        this.buffer = new byte[capacity];
+        this.waitStrategy = builder.waitStrategy;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // ---- Writer side ----
+
+    /** Writes all of src's remaining bytes, waiting for room as needed. */
+    public void write(ByteBuffer src) throws IOException {
+        int total = src.remaining();
+        while (src.hasRemaining()) {
+            long position = tail.getPlain();
+            int n = Math.min(awaitWritable(position, src.remaining(), total - src.remaining()), src.remaining());
+            int index = (int) position & mask;
+            int first = Math.min(n, capacity - index);
+            src.get(buffer, index, first);
+            src.get(buffer, 0, n - first);
+            publishTail(position + n);
+        }
+    }
+
+    /** Writes all of b[off, off + len), waiting for room as needed. */
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        int written = 0;
+        while (written < len) {
+            long position = tail.getPlain();
+            int n = Math.min(awaitWritable(position, len - written, written), len - written);
+            int index = (int) position & mask;
+            int first = Math.min(n, capacity - index);
+            System.arraycopy(b, off + written, buffer, index, first);
+            System.arraycopy(b, off + written + first, buffer, 0, n - first);
+            written += n;
+            publishTail(position + n);
+        }
+    }
+
+    /** Writes as many of src's remaining bytes as fit right now, possibly none; returns how many. */
+    public int tryWrite(ByteBuffer src) throws IOException {
+        checkWritable();
+        long position = tail.getPlain();
+        int n = Math.min(writable(position, src.remaining()), src.remaining());
+        if (n == 0) {
+            return 0;
+        }
+        int index = (int) position & mask;
+        int first = Math.min(n, capacity - index);
+        src.get(buffer, index, first);
+        src.get(buffer, 0, n - first);
+        publishTail(position + n);
+        return n;
+    }
+
+    /** Ends the stream: the reader gets end of stream after the bytes already written. Idempotent. */
+    public void closeWrite() {
+        writeClosed = true;
+        LockSupport.unpark(parkedReader);
+    }
+
+    /** An OutputStream over write(); close() is closeWrite(). For the writer thread only. */
+    public OutputStream outputStream() {
+        return outputStream;
+    }
+
+    // ---- Reader side ----
+
+    /**
+     * Reads at least one byte into dst (if it has room), waiting for the writer as needed, and as many more as are available.
+     * Returns the number read, or -1 at end of stream.
+     */
+    public int read(ByteBuffer dst) throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        long position = head.getPlain();
+        int available = awaitReadable(position, dst.remaining());
+        if (available < 0) {
+            return -1;
+        }
+        return copyOut(position, Math.min(available, dst.remaining()), dst);
+    }
+
+    /** Like {@link #read(ByteBuffer)}, into b[off, off + len). */
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        long position = head.getPlain();
+        int available = awaitReadable(position, len);
+        if (available < 0) {
+            return -1;
+        }
+        int n = Math.min(available, len);
+        int index = (int) position & mask;
+        int first = Math.min(n, capacity - index);
+        System.arraycopy(buffer, index, b, off, first);
+        System.arraycopy(buffer, 0, b, off + first, n - first);
+        publishHead(position + n);
+        return n;
+    }
+
+    /** Reads what is available right now into dst: the number of bytes read, possibly 0, or -1 at end of stream. */
+    public int tryRead(ByteBuffer dst) throws IOException {
+        checkReadable();
+        long position = head.getPlain();
+        int available = readable(position, dst.remaining());
+        if (available == 0) {
+            return writeClosed && tail.getAcquire() == position ? -1 : 0;
+        }
+        return copyOut(position, Math.min(available, dst.remaining()), dst);
+    }
+
+    /** Bytes that can be read without waiting. */
+    public int available() {
+        return (int) (tail.getAcquire() - head.getPlain());
+    }
+
+    /** Stops reading: pending and later writes fail with an IOException. Idempotent. */
+    public void closeRead() {
+        readClosed = true;
+        LockSupport.unpark(parkedWriter);
+    }
+
+    /** An InputStream over read(); close() is closeRead(). For the reader thread only. */
+    public InputStream inputStream() {
+        return inputStream;
+    }
+
+    @Override
+    public String toString() {
+        return "BytePipe[capacity=" + capacity + ", available=" + available() + ", " + waitStrategy + "]";
+    }
+
+    // ---- Internals ----
+
+    private int copyOut(long position, int n, ByteBuffer dst) {
+        int index = (int) position & mask;
+        int first = Math.min(n, capacity - index);
+        dst.put(buffer, index, first);
+        dst.put(buffer, 0, n - first);
+        publishHead(position + n);
+        return n;
+    }
+
+    /** Free bytes at the writer's "position", re-reading the reader's head only when the cached one says less than "wanted". */
+    private int writable(long position, int wanted) {
+        long free = capacity - (position - headCache.getPlain());
+        if (free < wanted) {
+            headCache.setPlain(head.getAcquire());
+            free = capacity - (position - headCache.getPlain());
+        }
+        return (int) free;
+    }
+
+    /** Unread bytes at the reader's "position", re-reading the writer's tail only when the cached one says less than "wanted". */
+    private int readable(long position, int wanted) {
+        long available = tailCache.getPlain() - position;
+        if (available < wanted) {
+            tailCache.setPlain(tail.getAcquire());
+            available = tailCache.getPlain() - position;
+        }
+        return (int) available;
+    }
+
+    private int awaitWritable(long position, int wanted, int written) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            checkWritable();
+            int free = writable(position, wanted);
+            if (free > 0) {
+                return free;
+            }
+            if (Thread.interrupted()) {
+                InterruptedIOException e = new InterruptedIOException("Interrupted waiting for the reader");
+                e.bytesTransferred = written;
+                throw e;
+            }
+            idle(attempt, true);
+        }
+    }
+
+    /** Unread bytes at "position", waiting for some; -1 at end of stream. */
+    private int awaitReadable(long position, int wanted) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            checkReadable();
+            int available = readable(position, wanted);
+            if (available > 0) {
+                return available;
+            }
+            if (writeClosed) {
+                // The writer may have written more just before closing
+                available = (int) (tail.getAcquire() - position);
+                return available > 0 ? available : -1;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Interrupted waiting for the writer");
+            }
+            idle(attempt, false);
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (writeClosed) {
+            throw new IOException("Pipe closed");
+        }
+        if (readClosed) {
+            throw new IOException("Pipe closed by the reader");
+        }
+    }
+
+    private void checkReadable() throws IOException {
+        if (readClosed) {
+            throw new IOException("Pipe closed");
+        }
+    }
+
+    private void publishTail(long position) {
+        tail.setRelease(position);
+        if (waitStrategy == WaitStrategy.PARK) {
+            VarHandle.fullFence(); // Orders the publish before reading parkedReader; pairs with the fence in park()
+            Thread reader = parkedReader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+        }
+    }
+
+    private void publishHead(long position) {
+        head.setRelease(position);
+        if (waitStrategy == WaitStrategy.PARK) {
+            VarHandle.fullFence();
+            Thread writer = parkedWriter;
+            if (writer != null) {
+                LockSupport.unpark(writer);
+            }
+        }
+    }
+
+    private void idle(int attempt, boolean writer) {
+        if (waitStrategy == WaitStrategy.SPIN || attempt < WaitStrategy.SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (waitStrategy == WaitStrategy.YIELD || attempt < WaitStrategy.SPIN_TRIES + WaitStrategy.YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            park(writer);
+        }
+    }
+
+    /**
+     * Parks until the other side publishes or closes. Registering first and re-checking after a fence means a publish either
+     * happened before the check (so we don't park) or sees the registration (so it unparks us): no lost wake-ups.
+     */
+    private void park(boolean writer) {
+        Thread current = Thread.currentThread();
+        if (writer) {
+            parkedWriter = current;
+            VarHandle.fullFence();
+            if (tail.getPlain() - head.getAcquire() == capacity && !readClosed) {
+                LockSupport.park(this);
+            }
+            parkedWriter = null;
+        } else {
+            parkedReader = current;
+            VarHandle.fullFence();
+            if (tail.getAcquire() == head.getPlain() && !writeClosed) {
+                LockSupport.park(this);
+            }
+            parkedReader = null;
+        }
+    }
+
+    private final class PipeOutputStream extends OutputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            BytePipe.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            BytePipe.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            closeWrite();
+        }
+    }
+
+    private final class PipeInputStream extends InputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            return BytePipe.this.read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return BytePipe.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            return BytePipe.this.available();
+        }
+
+        @Override
+        public void close() {
+            closeRead();
+        }
+    }
+
+    public static final class Builder {
+        private int capacity = DEFAULT_CAPACITY;
+        private WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+        private Builder() {
+        }
+
+        /** Buffer size, rounded up to a power of two (default 64 KiB); from 16 bytes to 1 GiB. */
+        public Builder capacity(int capacity) {
+            if (capacity < 16 || capacity > 1 << 30) {
+                throw new IllegalArgumentException("capacity must be from 16 to 2^30: " + capacity);
+            }
+            this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+            return this;
+        }
+
+        /** Default PARK. */
+        public Builder waitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = Objects.requireNonNull(waitStrategy);
+            return this;
+        }
+
+        public BytePipe build() {
+            return new BytePipe(this);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package work.aaronskeels.javaknowledgedemos.pipe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+ * A long counter padded so it owns a full cache line (on both sides). The writer hammers the tail and the reader the head; if
+ * the two shared a 64 byte line, every write by one side would invalidate the other side's cache ("false sharing"). The
+ * padding lives in superclasses/subclasses because the JVM may reorder fields within a class but lays out superclass fields
+ * first.
+ */
+abstract class LeftPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends LeftPadding {
+    protected volatile long value;
+}
+
+final class PaddedSequence extends SequenceValue {
+    protected long p11, p12, p13, p14, p15, p16, p17;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    long getPlain() {
+        return (long) VALUE.get(this);
+    }
+
+    void setPlain(long newValue) {
+        VALUE.set(this, newValue);
+    }
+
+    /**
+     * Ordered store ("lazySet"): cheaper than a volatile write, still publishes everything written before it.
+     */
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+}
@@ -0,0 +1,17 @@
+package work.aaronskeels.javaknowledgedemos.pipe;
+
+/**
+ * What a BytePipe reader does while the pipe is empty, and a writer while it is full. Trades latency for CPU:
+ * - SPIN: Burns a core, lowest hand-off latency. Only for threads pinned to otherwise idle cores.
+ * - YIELD: Spins briefly then Thread.yield()s. Good middle ground when threads &lt;= cores.
+ * - PARK: Spins briefly, yields, then parks until the other side makes progress and unparks it. Near-zero CPU when idle, slowest
+ *   to wake; the only sensible choice when the pipe can sit idle (as PipedInputStream readers often do).
+ */
+public enum WaitStrategy {
+    SPIN,
+    YIELD,
+    PARK;
+
+    static final int SPIN_TRIES = 100;
+    static final int YIELD_TRIES = 50;
+}
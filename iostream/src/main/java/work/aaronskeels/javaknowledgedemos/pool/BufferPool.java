@@ -0,0 +1,354 @@
+package work.aaronskeels.javaknowledgedemos.pool;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of ByteBuffers (direct by default) in power-of-two size classes, so I/O code can borrow buffers instead of allocating
+ * one per call.
+ *
+ * ByteBuffer.allocate() per read/write turns every request into garbage the GC has to clear; allocateDirect() is worse: it
+ * zeroes native memory, takes a global lock to account for it (Bits.reserveMemory(), which can even force a System.gc() when
+ * MaxDirectMemorySize is reached), and the memory only comes back once the GC has found the buffer unreachable and its Cleaner
+ * has run. Pooling pays those costs once per buffer instead of once per use.
+ *
+ * acquire(n) hands out a buffer of the smallest size class that fits n (minSize to maxSize, defaults 512 bytes and 4 MiB); larger
+ * requests get an exact, unpooled buffer that is simply dropped on release. Free buffers live in two tiers, jemalloc/Netty style:
+ * - a per-thread cache of up to threadCacheSize buffers per class: no locking or CAS, and the same buffers stay hot in that
+ *   core's cache;
+ * - a shared arena per class, which a thread cache refills from and spills to in batches of half its size, so buffers freed
+ *   by one thread (e.g. a writer) flow back to another (e.g. a reader). The arena keeps at most arenaCapacity bytes; buffers
+ *   beyond that are left to the GC.
+ * Buffers cached by a thread that exits are left to the GC too.
+ *
+ * Handles are reference counted (see {@link PooledBuffer}). With leakDetection(true) every handle also registers with a Cleaner
+ * and records where it was acquired: a handle that becomes unreachable without its last release() is counted in
+ * BufferPoolMetrics.leakCount() and logged with that stack trace. That costs a stack trace per acquire, so it's meant for tests
+ * and debugging. A leaked buffer is never put back in the pool, as its ByteBuffer might still be in use.
+ *
+ * Thread-safe. Create one via {@link #newBuilder()}.
+ */
+public final class BufferPool {
+    public static final int DEFAULT_MIN_SIZE = 512;
+    public static final int DEFAULT_MAX_SIZE = 4 << 20;
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 8;
+    public static final long DEFAULT_ARENA_CAPACITY = 64 << 20;
+    static final int MAX_SIZE = 1 << 30;
+    private static final System.Logger LOGGER = System.getLogger(BufferPool.class.getName());
+
+    private final int minShift;
+    private final int maxSize;
+    private final boolean direct;
+    private final int threadCacheSize;
+    private final long arenaCapacity;
+    private final boolean leakDetection;
+    private final ArrayDeque<ByteBuffer>[] arenas; // Each guarded by itself
+    private final ThreadLocal<ThreadCache> threadCaches;
+    private final AtomicLong arenaBytes = new AtomicLong();
+    private final LongAdder inUseBytes = new LongAdder();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder threadCacheHitCount = new LongAdder();
+    private final LongAdder arenaHitCount = new LongAdder();
+    private final LongAdder allocationCount = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder unpooledCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    private BufferPool(Builder builder) {
+        this.minShift = Integer.numberOfTrailingZeros(builder.minSize);
+        this.maxSize = builder.maxSize;
+        this.direct = builder.direct;
+        this.threadCacheSize = builder.threadCacheSize;
+        this.arenaCapacity = builder.arenaCapacity;
+        this.leakDetection = builder.leakDetection;
+        int classes = Integer.numberOfTrailingZeros(maxSize) - minShift + 1;
+        this.arenas = (ArrayDeque<ByteBuffer>[]) new ArrayDeque<?>[classes];
+        for (int i = 0; i < classes; i++) {
+            arenas[i] = new ArrayDeque<>();
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> new ThreadCache(classes, threadCacheSize));
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** A buffer with room for at least "capacity" bytes; see {@link PooledBuffer#buffer()} for its state. */
+    public PooledBuffer acquire(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0: " + capacity);
+        }
+        acquireCount.increment();
+        if (capacity > maxSize) {
+            unpooledCount.increment();
+            return handle(allocate(capacity), -1);
+        }
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = null;
+        if (threadCacheSize > 0) {
+            ThreadCache cache = threadCaches.get();
+            buffer = cache.poll(sizeClass);
+            if (buffer != null) {
+                threadCacheHitCount.increment();
+            } else if (refill(cache, sizeClass)) {
+                buffer = cache.poll(sizeClass);
+                arenaHitCount.increment();
+            }
+        } else {
+            buffer = pollArena(sizeClass);
+            if (buffer != null) {
+                arenaHitCount.increment();
+            }
+        }
+        if (buffer == null) {
+            buffer = allocate(1 << (minShift + sizeClass));
+        }
+        inUseBytes.add(buffer.capacity());
+        buffer.clear().limit(capacity);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return handle(buffer, sizeClass);
+    }
+
+    public BufferPoolMetrics metrics() {
+        return new BufferPoolMetrics(acquireCount.sum(), threadCacheHitCount.sum(), arenaHitCount.sum(), allocationCount.sum(),
+                allocatedBytes.sum(), unpooledCount.sum(), leakCount.sum(), inUseBytes.sum(), arenaBytes.get());
+    }
+
+    /** Called by PooledBuffer.release() for the last reference. */
+    void recycle(PooledBuffer handle, ByteBuffer buffer) {
+        if (handle.tracker != null) {
+            handle.tracker.released = true;
+            handle.tracker.cleanable.clean(); // Runs the (now no-op) cleanup and unregisters it
+        }
+        int sizeClass = handle.sizeClass;
+        if (sizeClass < 0) {
+            return;
+        }
+        inUseBytes.add(-buffer.capacity());
+        if (threadCacheSize == 0) {
+            offerArena(sizeClass, buffer);
+            return;
+        }
+        ThreadCache cache = threadCaches.get();
+        if (cache.isFull(sizeClass)) {
+            spill(cache, sizeClass);
+        }
+        cache.push(sizeClass, buffer);
+    }
+
+    private int sizeClass(int capacity) {
+        int shift = capacity <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return Math.max(shift, minShift) - minShift;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        allocationCount.increment();
+        allocatedBytes.add(capacity);
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private PooledBuffer handle(ByteBuffer buffer, int sizeClass) {
+        if (!leakDetection) {
+            return new PooledBuffer(this, buffer, sizeClass, null);
+        }
+        LeakTracker tracker = new LeakTracker(this, buffer.capacity(), sizeClass >= 0, new Throwable("Acquired here"));
+        PooledBuffer handle = new PooledBuffer(this, buffer, sizeClass, tracker);
+        tracker.cleanable = LeakDetection.CLEANER.register(handle, tracker);
+        return handle;
+    }
+
+    /** Moves up to half a thread cache's worth of buffers from the arena into "cache"; false if the arena had none. */
+    private boolean refill(ThreadCache cache, int sizeClass) {
+        ArrayDeque<ByteBuffer> arena = arenas[sizeClass];
+        int moved = 0;
+        synchronized (arena) {
+            ByteBuffer buffer;
+            while (moved < Math.max(1, threadCacheSize / 2) && (buffer = arena.pollFirst()) != null) {
+                cache.push(sizeClass, buffer);
+                moved++;
+            }
+        }
+        arenaBytes.addAndGet(-((long) moved << (minShift + sizeClass)));
+        return moved > 0;
+    }
+
+    /** Moves half of a full thread cache to the arena, dropping what exceeds arenaCapacity. */
+    private void spill(ThreadCache cache, int sizeClass) {
+        long size = 1L << (minShift + sizeClass);
+        ArrayDeque<ByteBuffer> arena = arenas[sizeClass];
+        synchronized (arena) {
+            for (int i = Math.max(1, threadCacheSize / 2); i > 0; i--) {
+                ByteBuffer buffer = cache.poll(sizeClass);
+                if (arenaBytes.get() + size <= arenaCapacity) {
+                    arena.addFirst(buffer);
+                    arenaBytes.addAndGet(size);
+                }
+            }
+        }
+    }
+
+    private ByteBuffer pollArena(int sizeClass) {
+        ArrayDeque<ByteBuffer> arena = arenas[sizeClass];
+        ByteBuffer buffer;
+        synchronized (arena) {
+            buffer = arena.pollFirst();
+        }
+        if (buffer != null) {
+            arenaBytes.addAndGet(-buffer.capacity());
+        }
+        return buffer;
+    }
+
+    private void offerArena(int sizeClass, ByteBuffer buffer) {
+        ArrayDeque<ByteBuffer> arena = arenas[sizeClass];
+        synchronized (arena) {
+            if (arenaBytes.get() + buffer.capacity() <= arenaCapacity) {
+                arena.addFirst(buffer);
+                arenaBytes.addAndGet(buffer.capacity());
+            }
+        }
+    }
+
+    private void leaked(LeakTracker tracker) {
+        leakCount.increment();
+        if (tracker.pooled) {
+            inUseBytes.add(-tracker.capacity);
+        }
+        LOGGER.log(System.Logger.Level.WARNING, "PooledBuffer of " + tracker.capacity
+                + " bytes was garbage collected without being released", tracker.acquiredAt);
+    }
+
+    /** Free buffers per size class, LIFO so the most recently used (cache-warm) buffer goes out first. Owned by one thread. */
+    private static final class ThreadCache {
+        private final ByteBuffer[][] stacks;
+        private final int[] counts;
+
+        ThreadCache(int classes, int size) {
+            this.stacks = new ByteBuffer[classes][size];
+            this.counts = new int[classes];
+        }
+
+        ByteBuffer poll(int sizeClass) {
+            int count = counts[sizeClass];
+            if (count == 0) {
+                return null;
+            }
+            counts[sizeClass] = --count;
+            ByteBuffer buffer = stacks[sizeClass][count];
+            stacks[sizeClass][count] = null;
+            return buffer;
+        }
+
+        boolean isFull(int sizeClass) {
+            return counts[sizeClass] == stacks[sizeClass].length;
+        }
+
+        void push(int sizeClass, ByteBuffer buffer) {
+            stacks[sizeClass][counts[sizeClass]++] = buffer;
+        }
+    }
+
+    /**
+     * The cleanup action for a handle: runs either from release() (released already set, so it does nothing) or from the
+     * Cleaner's thread once the handle is unreachable. Mustn't reference the handle, or it would never become unreachable.
+     */
+    static final class LeakTracker implements Runnable {
+        private final BufferPool pool;
+        private final int capacity;
+        private final boolean pooled;
+        private final Throwable acquiredAt;
+        volatile boolean released;
+        Cleaner.Cleanable cleanable;
+
+        LeakTracker(BufferPool pool, int capacity, boolean pooled, Throwable acquiredAt) {
+            this.pool = pool;
+            this.capacity = capacity;
+            this.pooled = pooled;
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public void run() {
+            if (!released) {
+                pool.leaked(this);
+            }
+        }
+    }
+
+    /** Holder, so the Cleaner's thread is only started once a pool uses leak detection. */
+    private static final class LeakDetection {
+        static final Cleaner CLEANER = Cleaner.create();
+    }
+
+    public static final class Builder {
+        private int minSize = DEFAULT_MIN_SIZE;
+        private int maxSize = DEFAULT_MAX_SIZE;
+        private boolean direct = true;
+        private int threadCacheSize = DEFAULT_THREAD_CACHE_SIZE;
+        private long arenaCapacity = DEFAULT_ARENA_CAPACITY;
+        private boolean leakDetection;
+
+        private Builder() {
+        }
+
+        /** Smallest size class, a power of two (default 512 bytes); smaller requests are rounded up to it. */
+        public Builder minSize(int minSize) {
+            if (minSize <= 0 || Integer.bitCount(minSize) != 1) {
+                throw new IllegalArgumentException("minSize must be a power of two: " + minSize);
+            }
+            this.minSize = minSize;
+            return this;
+        }
+
+        /** Largest size class, a power of two up to 1 GiB (default 4 MiB); larger requests aren't pooled. */
+        public Builder maxSize(int maxSize) {
+            if (maxSize <= 0 || Integer.bitCount(maxSize) != 1 || maxSize > MAX_SIZE) {
+                throw new IllegalArgumentException("maxSize must be a power of two <= " + MAX_SIZE + ": " + maxSize);
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /** Direct (default) or heap buffers. */
+        public Builder direct(boolean direct) {
+            this.direct = direct;
+            return this;
+        }
+
+        /** Free buffers each thread keeps per size class (default 8); 0 makes every acquire and release go to the arena. */
+        public Builder threadCacheSize(int threadCacheSize) {
+            if (threadCacheSize < 0) {
+                throw new IllegalArgumentException("threadCacheSize must be >= 0: " + threadCacheSize);
+            }
+            this.threadCacheSize = threadCacheSize;
+            return this;
+        }
+
+        /** Most bytes of free buffers the shared arena keeps (default 64 MiB), on top of what the thread caches hold. */
+        public Builder arenaCapacity(long arenaCapacity) {
+            if (arenaCapacity < 0) {
+                throw new IllegalArgumentException("arenaCapacity must be >= 0: " + arenaCapacity);
+            }
+            this.arenaCapacity = arenaCapacity;
+            return this;
+        }
+
+        /** Tracks every handle to report the ones never released (default off). */
+        public Builder leakDetection(boolean leakDetection) {
+            this.leakDetection = leakDetection;
+            return this;
+        }
+
+        public BufferPool build() {
+            if (minSize > maxSize) {
+                throw new IllegalArgumentException("minSize must be <= maxSize: " + minSize + " > " + maxSize);
+            }
+            return new BufferPool(this);
+        }
+    }
+}
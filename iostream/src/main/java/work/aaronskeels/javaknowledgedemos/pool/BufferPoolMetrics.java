@@ -0,0 +1,29 @@
+package work.aaronskeels.javaknowledgedemos.pool;
+
+/**
+ * Point-in-time snapshot of a {@link BufferPool}'s counters (cumulative) and gauges (inUseBytes, arenaBytes). Subtract two
+ * snapshots with {@link #minus(BufferPoolMetrics)} to get the counters for an interval.
+ */
+public record BufferPoolMetrics(long acquireCount, long threadCacheHitCount, long arenaHitCount, long allocationCount,
+        long allocatedBytes, long unpooledCount, long leakCount, long inUseBytes, long arenaBytes) {
+
+    /** Fraction of pooled acquires served without allocating; 1.0 when there were none. */
+    public double hitRate() {
+        long pooled = acquireCount - unpooledCount;
+        return pooled == 0 ? 1.0 : (double) (threadCacheHitCount + arenaHitCount) / pooled;
+    }
+
+    /** Counters are subtracted; the gauges are this snapshot's. */
+    public BufferPoolMetrics minus(BufferPoolMetrics other) {
+        return new BufferPoolMetrics(
+                Math.max(0, acquireCount - other.acquireCount),
+                Math.max(0, threadCacheHitCount - other.threadCacheHitCount),
+                Math.max(0, arenaHitCount - other.arenaHitCount),
+                Math.max(0, allocationCount - other.allocationCount),
+                Math.max(0, allocatedBytes - other.allocatedBytes),
+                Math.max(0, unpooledCount - other.unpooledCount),
+                Math.max(0, leakCount - other.leakCount),
+                inUseBytes,
+                arenaBytes);
+    }
+}
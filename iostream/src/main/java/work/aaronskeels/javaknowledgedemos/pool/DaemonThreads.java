@@ -0,0 +1,24 @@
+package work.aaronskeels.javaknowledgedemos.pool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The thread pool that the module's parallel streams and readers create for themselves when they are given a thread count rather
+ * than an executor. Its threads are daemons, so a caller that forgets close() doesn't keep the JVM alive.
+ */
+public final class DaemonThreads {
+    private DaemonThreads() {
+    }
+
+    /** Fixed pool of "threads" daemon threads named name-1, name-2, ... */
+    public static ExecutorService newPool(String name, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package work.aaronskeels.javaknowledgedemos.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer borrowed from a {@link BufferPool}, reference counted: it starts with one reference, retain() adds one (e.g. before
+ * handing it to another thread or queue), and release() drops one. The release of the last reference returns the buffer to the
+ * pool, after which neither the handle nor any ByteBuffer obtained from it may be used. close() is release(), so a buffer used
+ * in one scope can be a try-with-resources resource.
+ *
+ * retain() and release() are thread-safe; the ByteBuffer itself is not, as usual.
+ */
+public final class PooledBuffer implements AutoCloseable {
+    private static final VarHandle REFERENCES;
+
+    static {
+        try {
+            REFERENCES = MethodHandles.lookup().findVarHandle(PooledBuffer.class, "references", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    /** Index into the pool's size classes, or -1 for a buffer too large to pool. */
+    final int sizeClass;
+    /** Non-null only with leak detection on. */
+    final BufferPool.LeakTracker tracker;
+    private volatile int references = 1;
+
+    PooledBuffer(BufferPool pool, ByteBuffer buffer, int sizeClass, BufferPool.LeakTracker tracker) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+        this.tracker = tracker;
+    }
+
+    /**
+     * The buffer, positioned at 0 with its limit at the requested capacity when acquired and big-endian. Its capacity() is that
+     * of the size class, which can be up to twice as much; clear() makes all of it usable.
+     */
+    public ByteBuffer buffer() {
+        if (references <= 0) {
+            throw new IllegalStateException("Buffer already released");
+        }
+        return buffer;
+    }
+
+    public int referenceCount() {
+        return Math.max(0, references);
+    }
+
+    public PooledBuffer retain() {
+        int current;
+        do {
+            current = references;
+            if (current <= 0) {
+                throw new IllegalStateException("Buffer already released");
+            }
+        } while (!REFERENCES.compareAndSet(this, current, current + 1));
+        return this;
+    }
+
+    /** Drops one reference; returns true if that was the last one and the buffer went back to the pool. */
+    public boolean release() {
+        int current;
+        do {
+            current = references;
+            if (current <= 0) {
+                throw new IllegalStateException("Buffer already released");
+            }
+        } while (!REFERENCES.compareAndSet(this, current, current - 1));
+        if (current > 1) {
+            return false;
+        }
+        pool.recycle(this, buffer);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
@@ -0,0 +1,309 @@
+package work.aaronskeels.javaknowledgedemos.serial;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes one field of a schema: its key (tag and wire type), then its value via MethodHandles bound when the registry
+ * was built. Primitive fields have their own subclasses so values are never boxed for ordinary classes; records are built from
+ * an argument array, so readValue() boxes.
+ *
+ * Primitives are always written, so a zero reads back as zero even where the no-arg constructor initialises the field to
+ * something else. Null references and empty lists are not written, so they read back as whatever the no-arg constructor
+ * leaves in the field (null for a record component).
+ */
+abstract class FieldCodec {
+    final int tag;
+    final String name;
+    final int wireType;
+    final int key;
+    /** (Object)T, T being the field's type adapted for the subclass (int for every int-like primitive). */
+    final MethodHandle getter;
+    /** (Object,T)void, or null for record components. */
+    final MethodHandle setter;
+
+    FieldCodec(int tag, String name, int wireType, MethodHandle getter, MethodHandle setter, Class<?> as) {
+        this.tag = tag;
+        this.name = name;
+        this.wireType = wireType;
+        this.key = tag << 3 | wireType;
+        this.getter = MethodHandles.explicitCastArguments(getter, MethodType.methodType(as, Object.class));
+        this.setter = setter == null ? null
+                : MethodHandles.explicitCastArguments(setter, MethodType.methodType(void.class, Object.class, as));
+    }
+
+    abstract void write(Object owner, WireWriter out);
+
+    /** Reads the value and stores it in "owner" (an ordinary class). */
+    abstract void read(Object owner, WireReader in);
+
+    /** Reads the value for a record's constructor argument; "previous" is what the argument holds so far. */
+    abstract Object readValue(WireReader in, Object previous);
+
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(t);
+    }
+
+    /** boolean, byte, short, char and int: zigzag varints (plain varints for char and boolean, which are never negative). */
+    static final class IntField extends FieldCodec {
+        private final Class<?> type;
+        private final boolean signed;
+
+        IntField(int tag, String name, MethodHandle getter, MethodHandle setter, Class<?> type) {
+            super(tag, name, WireWriter.VARINT, getter, setter, int.class);
+            this.type = type;
+            this.signed = type != char.class && type != boolean.class;
+        }
+
+        @Override
+        void write(Object owner, WireWriter out) {
+            int value;
+            try {
+                value = (int) getter.invokeExact(owner);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            out.writeKey(key);
+            if (signed) {
+                out.writeSignedVarint32(value);
+            } else {
+                out.writeVarint32(value);
+            }
+        }
+
+        @Override
+        void read(Object owner, WireReader in) {
+            int value = signed ? in.readSignedVarint32() : in.readVarint32();
+            try {
+                setter.invokeExact(owner, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        Object readValue(WireReader in, Object previous) {
+            return box(signed ? in.readSignedVarint32() : in.readVarint32());
+        }
+
+        private Object box(int value) {
+            if (type == int.class) {
+                return value;
+            }
+            if (type == short.class) {
+                return (short) value;
+            }
+            if (type == byte.class) {
+                return (byte) value;
+            }
+            if (type == char.class) {
+                return (char) value;
+            }
+            return (value & 1) != 0;
+        }
+    }
+
+    static final class LongField extends FieldCodec {
+        LongField(int tag, String name, MethodHandle getter, MethodHandle setter) {
+            super(tag, name, WireWriter.VARINT, getter, setter, long.class);
+        }
+
+        @Override
+        void write(Object owner, WireWriter out) {
+            long value;
+            try {
+                value = (long) getter.invokeExact(owner);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            out.writeKey(key);
+            out.writeSignedVarint64(value);
+        }
+
+        @Override
+        void read(Object owner, WireReader in) {
+            long value = in.readSignedVarint64();
+            try {
+                setter.invokeExact(owner, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        Object readValue(WireReader in, Object previous) {
+            return in.readSignedVarint64();
+        }
+    }
+
+    static final class FloatField extends FieldCodec {
+        FloatField(int tag, String name, MethodHandle getter, MethodHandle setter) {
+            super(tag, name, WireWriter.FIXED32, getter, setter, float.class);
+        }
+
+        @Override
+        void write(Object owner, WireWriter out) {
+            float value;
+            try {
+                value = (float) getter.invokeExact(owner);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            out.writeKey(key);
+            out.writeFixed32(Float.floatToRawIntBits(value));
+        }
+
+        @Override
+        void read(Object owner, WireReader in) {
+            float value = Float.intBitsToFloat(in.readFixed32());
+            try {
+                setter.invokeExact(owner, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        Object readValue(WireReader in, Object previous) {
+            return Float.intBitsToFloat(in.readFixed32());
+        }
+    }
+
+    static final class DoubleField extends FieldCodec {
+        DoubleField(int tag, String name, MethodHandle getter, MethodHandle setter) {
+            super(tag, name, WireWriter.FIXED64, getter, setter, double.class);
+        }
+
+        @Override
+        void write(Object owner, WireWriter out) {
+            double value;
+            try {
+                value = (double) getter.invokeExact(owner);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            out.writeKey(key);
+            out.writeFixed64(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        void read(Object owner, WireReader in) {
+            double value = Double.longBitsToDouble(in.readFixed64());
+            try {
+                setter.invokeExact(owner, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        Object readValue(WireReader in, Object previous) {
+            return Double.longBitsToDouble(in.readFixed64());
+        }
+    }
+
+    /** A reference to a single value: String, byte[], enum, boxed primitive or registered class. */
+    static final class ObjectField extends FieldCodec {
+        private final ValueCodec codec;
+
+        ObjectField(int tag, String name, MethodHandle getter, MethodHandle setter, ValueCodec codec) {
+            super(tag, name, codec.wireType(), getter, setter, Object.class);
+            this.codec = codec;
+        }
+
+        @Override
+        void write(Object owner, WireWriter out) {
+            Object value;
+            try {
+                value = (Object) getter.invokeExact(owner);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            if (value != null) {
+                out.writeKey(key);
+                codec.write(value, out);
+            }
+        }
+
+        @Override
+        void read(Object owner, WireReader in) {
+            Object value = codec.read(in);
+            try {
+                setter.invokeExact(owner, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        Object readValue(WireReader in, Object previous) {
+            return codec.read(in);
+        }
+    }
+
+    /**
+     * A List, written as one key + value per element (protobuf's "repeated" field) and read back into an ArrayList, or appended
+     * to the list the no-arg constructor put in the field. Null elements aren't supported.
+     */
+    static final class ListField extends FieldCodec {
+        private final ValueCodec codec;
+
+        ListField(int tag, String name, MethodHandle getter, MethodHandle setter, ValueCodec codec) {
+            super(tag, name, codec.wireType(), getter, setter, Object.class);
+            this.codec = codec;
+        }
+
+        @Override
+        void write(Object owner, WireWriter out) {
+            List<?> list;
+            try {
+                list = (List<?>) (Object) getter.invokeExact(owner);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            if (list == null) {
+                return;
+            }
+            for (int i = 0, size = list.size(); i < size; i++) {
+                Object element = list.get(i);
+                if (element == null) {
+                    throw new IllegalArgumentException("Null element " + i + " in list field " + name);
+                }
+                out.writeKey(key);
+                codec.write(element, out);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void read(Object owner, WireReader in) {
+            try {
+                List<Object> list = (List<Object>) (Object) getter.invokeExact(owner);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    setter.invokeExact(owner, (Object) list);
+                }
+                list.add(codec.read(in));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object readValue(WireReader in, Object previous) {
+            List<Object> list = previous == null ? new ArrayList<>() : (List<Object>) previous;
+            list.add(codec.read(in));
+            return list;
+        }
+    }
+}
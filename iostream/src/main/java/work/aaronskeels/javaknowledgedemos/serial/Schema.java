@@ -0,0 +1,272 @@
+package work.aaronskeels.javaknowledgedemos.serial;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The fields of one class that get serialized, each under a numeric tag. Tags, not names or declaration order, identify fields
+ * on the wire, which is what allows schemas to evolve:
+ * - Adding a field with a new tag: old readers skip it, new readers see it missing in old data and leave the default.
+ * - Removing a field: stop registering it and never reuse its tag; readers skip it in old data.
+ * - Renaming a Java field: re-register the same tag under the new name.
+ * - Changing a field's type is only safe between types with the same wire type (int &lt;-&gt; long, String &lt;-&gt; byte[]);
+ *   a value whose wire type doesn't match is skipped like an unknown field.
+ *
+ * Ordinary classes need a no-arg constructor (any visibility) and non-final fields; records are built through their canonical
+ * constructor. Field access is resolved once, here, into MethodHandles (private members included, via privateLookupIn), so
+ * serializing makes no reflective calls. Create one via {@link #newBuilder(Class)} and register it with a SchemaRegistry.
+ */
+public final class Schema<T> {
+    /** Tags are limited so the tag -&gt; field lookup can be a small array. */
+    public static final int MAX_TAG = 1023;
+
+    private final Class<T> type;
+    private final List<FieldSpec> specs;
+    private final MethodHandle constructor;
+    private FieldCodec[] fields;
+    private FieldCodec[] fieldsByTag;
+    private final boolean record;
+    /** For records: constructor argument position of each field, indexed by tag. */
+    private int[] argumentByTag;
+    private Object[] defaults;
+
+    private Schema(Builder<T> builder) throws IllegalAccessException, NoSuchMethodException {
+        this.type = builder.type;
+        this.specs = List.copyOf(builder.specs);
+        this.record = type.isRecord();
+        MethodHandles.Lookup lookup = builder.lookup;
+        if (record) {
+            RecordComponent[] components = type.getRecordComponents();
+            Class<?>[] parameters = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class, parameters))
+                    .asSpreader(Object[].class, parameters.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } else {
+            this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        }
+    }
+
+    public static <T> Builder<T> newBuilder(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    /** Resolves each field's codec, including nested schemas, once all schemas are known. Called by SchemaRegistry.build(). */
+    void link(Map<Class<?>, Schema<?>> schemas) {
+        List<FieldCodec> codecs = new ArrayList<>();
+        for (FieldSpec spec : specs) {
+            codecs.add(spec.codec(schemas));
+        }
+        codecs.sort(Comparator.comparingInt(codec -> codec.tag));
+        fields = codecs.toArray(FieldCodec[]::new);
+        fieldsByTag = new FieldCodec[fields.length == 0 ? 1 : fields[fields.length - 1].tag + 1];
+        for (FieldCodec field : fields) {
+            fieldsByTag[field.tag] = field;
+        }
+        if (record) {
+            RecordComponent[] components = type.getRecordComponents();
+            argumentByTag = new int[fieldsByTag.length];
+            defaults = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                // Array.get() of a new primitive array boxes that type's zero
+                defaults[i] = components[i].getType().isPrimitive() ? Array.get(Array.newInstance(components[i].getType(), 1), 0)
+                        : null;
+                for (FieldCodec field : fields) {
+                    if (field.name.equals(components[i].getName())) {
+                        argumentByTag[field.tag] = i;
+                    }
+                }
+            }
+        }
+    }
+
+    void writeFields(Object value, WireWriter out) {
+        for (FieldCodec field : fields) {
+            field.write(value, out);
+        }
+    }
+
+    /** Reads fields until the reader's limit (the end of this message). */
+    T readFields(WireReader in) {
+        try {
+            if (record) {
+                Object[] arguments = defaults.clone();
+                while (in.hasRemaining()) {
+                    int key = in.readVarint32();
+                    FieldCodec field = field(key);
+                    if (field == null) {
+                        in.skip(key & 7);
+                    } else {
+                        int index = argumentByTag[field.tag];
+                        arguments[index] = field.readValue(in, arguments[index]);
+                    }
+                }
+                return type.cast((Object) constructor.invokeExact(arguments));
+            }
+            Object value = (Object) constructor.invokeExact();
+            while (in.hasRemaining()) {
+                int key = in.readVarint32();
+                FieldCodec field = field(key);
+                if (field == null) {
+                    in.skip(key & 7);
+                } else {
+                    field.read(value, in);
+                }
+            }
+            return type.cast(value);
+        } catch (Throwable t) {
+            throw FieldCodec.rethrow(t);
+        }
+    }
+
+    /** The field for a key, or null if the tag is unknown or its wire type doesn't match (both skipped). */
+    private FieldCodec field(int key) {
+        int tag = key >>> 3;
+        FieldCodec field = tag < fieldsByTag.length ? fieldsByTag[tag] : null;
+        return field != null && field.wireType == (key & 7) ? field : null;
+    }
+
+    /** One registered field, before its codec can be chosen (that needs the other schemas). */
+    private record FieldSpec(int tag, String name, Class<?> rawType, Type genericType, MethodHandle getter,
+            MethodHandle setter) {
+        FieldCodec codec(Map<Class<?>, Schema<?>> schemas) {
+            if (rawType == long.class) {
+                return new FieldCodec.LongField(tag, name, getter, setter);
+            }
+            if (rawType == double.class) {
+                return new FieldCodec.DoubleField(tag, name, getter, setter);
+            }
+            if (rawType == float.class) {
+                return new FieldCodec.FloatField(tag, name, getter, setter);
+            }
+            if (rawType.isPrimitive()) {
+                return new FieldCodec.IntField(tag, name, getter, setter, rawType);
+            }
+            if (rawType == List.class) {
+                if (!(genericType instanceof ParameterizedType parameterized)
+                        || !(parameterized.getActualTypeArguments()[0] instanceof Class<?> element)) {
+                    throw new IllegalArgumentException("List field " + name + " needs a concrete element type: " + genericType);
+                }
+                return new FieldCodec.ListField(tag, name, getter, setter, valueCodec(element, schemas));
+            }
+            return new FieldCodec.ObjectField(tag, name, getter, setter, valueCodec(rawType, schemas));
+        }
+
+        private ValueCodec valueCodec(Class<?> valueType, Map<Class<?>, Schema<?>> schemas) {
+            Schema<?> nested = schemas.get(valueType);
+            if (nested != null) {
+                return ValueCodec.forMessage(nested);
+            }
+            if (valueType.isEnum()) {
+                return ValueCodec.forEnum(valueType);
+            }
+            ValueCodec codec = valueType == String.class ? ValueCodec.STRING
+                    : valueType == byte[].class ? ValueCodec.BYTES
+                    : valueType == Integer.class ? ValueCodec.INTEGER
+                    : valueType == Long.class ? ValueCodec.LONG
+                    : valueType == Double.class ? ValueCodec.DOUBLE
+                    : valueType == Float.class ? ValueCodec.FLOAT
+                    : valueType == Boolean.class ? ValueCodec.BOOLEAN
+                    : valueType == Short.class ? ValueCodec.SHORT
+                    : valueType == Byte.class ? ValueCodec.BYTE
+                    : valueType == Character.class ? ValueCodec.CHARACTER
+                    : null;
+            if (codec == null) {
+                throw new IllegalArgumentException("Field " + name + " has type " + valueType.getName()
+                        + ", which has no registered schema");
+            }
+            return codec;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final Class<T> type;
+        private final MethodHandles.Lookup lookup;
+        private final List<FieldSpec> specs = new ArrayList<>();
+
+        private Builder(Class<T> type) {
+            this.type = Objects.requireNonNull(type);
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isEnum() || type.isArray()) {
+                throw new IllegalArgumentException("Schemas need a concrete class or record: " + type.getName());
+            }
+            try {
+                this.lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can't access " + type.getName() + " (is its package open?)", e);
+            }
+        }
+
+        /** Serializes the field (or record component) "name" under "tag", 1 to MAX_TAG, unique within the schema. */
+        public Builder<T> field(int tag, String name) {
+            if (tag < 1 || tag > MAX_TAG) {
+                throw new IllegalArgumentException("tag must be between 1 and " + MAX_TAG + ": " + tag);
+            }
+            for (FieldSpec spec : specs) {
+                if (spec.tag() == tag || spec.name().equals(name)) {
+                    throw new IllegalArgumentException("Duplicate tag or field: " + tag + " " + name);
+                }
+            }
+            try {
+                specs.add(type.isRecord() ? component(tag, name) : field(tag, name, type));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can't access field " + name + " of " + type.getName(), e);
+            }
+            return this;
+        }
+
+        private FieldSpec component(int tag, String name) throws IllegalAccessException {
+            for (RecordComponent component : type.getRecordComponents()) {
+                if (component.getName().equals(name)) {
+                    return new FieldSpec(tag, name, component.getType(), component.getGenericType(),
+                            lookup.unreflect(component.getAccessor()), null);
+                }
+            }
+            throw new IllegalArgumentException("No component " + name + " in record " + type.getName());
+        }
+
+        private FieldSpec field(int tag, String name, Class<?> declaring) throws IllegalAccessException {
+            for (Class<?> c = declaring; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!field.getName().equals(name)) {
+                        continue;
+                    }
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                        throw new IllegalArgumentException("Field " + name + " of " + type.getName()
+                                + " must be neither static nor final");
+                    }
+                    MethodHandles.Lookup fieldLookup = c == type ? lookup : MethodHandles.privateLookupIn(c, lookup);
+                    return new FieldSpec(tag, name, field.getType(), field.getGenericType(), fieldLookup.unreflectGetter(field),
+                            fieldLookup.unreflectSetter(field));
+                }
+            }
+            throw new IllegalArgumentException("No field " + name + " in " + type.getName());
+        }
+
+        public Schema<T> build() {
+            try {
+                return new Schema<>(this);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(type.getName() + " needs a no-arg constructor", e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can't access the constructor of " + type.getName(), e);
+            }
+        }
+    }
+}
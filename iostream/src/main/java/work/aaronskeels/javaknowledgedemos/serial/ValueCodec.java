@@ -0,0 +1,77 @@
+package work.aaronskeels.javaknowledgedemos.serial;
+
+/**
+ * Encoding of one non-primitive value (a String, a nested object, a boxed number, one list element). Primitive fields don't go
+ * through here; FieldCodec reads and writes them unboxed.
+ */
+interface ValueCodec {
+    ValueCodec STRING = of(WireWriter.LENGTH_DELIMITED, (value, out) -> out.writeString((String) value), WireReader::readString);
+    ValueCodec BYTES = of(WireWriter.LENGTH_DELIMITED, (value, out) -> out.writeBytes((byte[]) value), WireReader::readBytes);
+    ValueCodec INTEGER = of(WireWriter.VARINT, (value, out) -> out.writeSignedVarint32((Integer) value),
+            in -> in.readSignedVarint32());
+    ValueCodec LONG = of(WireWriter.VARINT, (value, out) -> out.writeSignedVarint64((Long) value),
+            in -> in.readSignedVarint64());
+    ValueCodec SHORT = of(WireWriter.VARINT, (value, out) -> out.writeSignedVarint32((Short) value),
+            in -> (short) in.readSignedVarint32());
+    ValueCodec BYTE = of(WireWriter.VARINT, (value, out) -> out.writeSignedVarint32((Byte) value),
+            in -> (byte) in.readSignedVarint32());
+    ValueCodec CHARACTER = of(WireWriter.VARINT, (value, out) -> out.writeVarint32((Character) value),
+            in -> (char) in.readVarint32());
+    ValueCodec BOOLEAN = of(WireWriter.VARINT, (value, out) -> out.writeVarint32((Boolean) value ? 1 : 0),
+            in -> in.readVarint32() != 0);
+    ValueCodec FLOAT = of(WireWriter.FIXED32, (value, out) -> out.writeFixed32(Float.floatToRawIntBits((Float) value)),
+            in -> Float.intBitsToFloat(in.readFixed32()));
+    ValueCodec DOUBLE = of(WireWriter.FIXED64, (value, out) -> out.writeFixed64(Double.doubleToRawLongBits((Double) value)),
+            in -> Double.longBitsToDouble(in.readFixed64()));
+
+    int wireType();
+
+    void write(Object value, WireWriter out);
+
+    Object read(WireReader in);
+
+    /** Enum constants by ordinal: compact, but reordering or removing constants changes the meaning of stored data. */
+    static ValueCodec forEnum(Class<?> type) {
+        Object[] constants = type.getEnumConstants();
+        return of(WireWriter.VARINT, (value, out) -> out.writeVarint32(((Enum<?>) value).ordinal()), in -> {
+            int ordinal = in.readVarint32();
+            if (ordinal >= constants.length) {
+                throw new IllegalArgumentException("No constant " + ordinal + " in " + type.getName());
+            }
+            return constants[ordinal];
+        });
+    }
+
+    static ValueCodec forMessage(Schema<?> schema) {
+        return of(WireWriter.LENGTH_DELIMITED, (value, out) -> out.writeMessage(schema, value), in -> in.readMessage(schema));
+    }
+
+    static ValueCodec of(int wireType, Writer writer, Reader reader) {
+        return new ValueCodec() {
+            @Override
+            public int wireType() {
+                return wireType;
+            }
+
+            @Override
+            public void write(Object value, WireWriter out) {
+                writer.write(value, out);
+            }
+
+            @Override
+            public Object read(WireReader in) {
+                return reader.read(in);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Writer {
+        void write(Object value, WireWriter out);
+    }
+
+    @FunctionalInterface
+    interface Reader {
+        Object read(WireReader in);
+    }
+}
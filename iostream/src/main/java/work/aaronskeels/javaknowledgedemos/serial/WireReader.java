@@ -0,0 +1,114 @@
+package work.aaronskeels.javaknowledgedemos.serial;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes what WireWriter encodes. A nested message is read by narrowing the buffer's limit to its length and restoring it
+ * afterwards, so a message's fields end where its buffer does. Malformed input throws IllegalArgumentException or
+ * BufferUnderflowException.
+ */
+final class WireReader {
+    private final ByteBuffer buffer;
+
+    WireReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    int readVarint32() {
+        long value = readVarint64();
+        if (value >>> 32 != 0) {
+            throw new IllegalArgumentException("Varint too large for an int: " + value);
+        }
+        return (int) value;
+    }
+
+    long readVarint64() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    int readSignedVarint32() {
+        int value = readVarint32();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    long readSignedVarint64() {
+        long value = readVarint64();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    int readFixed32() {
+        return buffer.get() & 0xFF | (buffer.get() & 0xFF) << 8 | (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 24;
+    }
+
+    long readFixed64() {
+        return readFixed32() & 0xFFFFFFFFL | (long) readFixed32() << 32;
+    }
+
+    String readString() {
+        int length = readLength();
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        return new String(readBytes(length), StandardCharsets.UTF_8);
+    }
+
+    byte[] readBytes() {
+        return readBytes(readLength());
+    }
+
+    private byte[] readBytes(int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    <T> T readMessage(Schema<T> schema) {
+        int length = readLength();
+        int limit = buffer.limit();
+        buffer.limit(buffer.position() + length);
+        T value = schema.readFields(this);
+        buffer.limit(limit);
+        return value;
+    }
+
+    /** Skips a value of a field this schema doesn't know (added by a newer writer, or removed from this reader). */
+    void skip(int wireType) {
+        switch (wireType) {
+            case WireWriter.VARINT -> readVarint64();
+            case WireWriter.FIXED64 -> skipBytes(8);
+            case WireWriter.LENGTH_DELIMITED -> skipBytes(readLength());
+            case WireWriter.FIXED32 -> skipBytes(4);
+            default -> throw new IllegalArgumentException("Unknown wire type " + wireType + " at " + buffer.position());
+        }
+    }
+
+    private void skipBytes(int count) {
+        if (count > buffer.remaining()) {
+            throw new IllegalArgumentException("Length " + count + " runs past the end of the message");
+        }
+        buffer.position(buffer.position() + count);
+    }
+
+    private int readLength() {
+        int length = readVarint32();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Length " + Integer.toUnsignedString(length) + " runs past the end of the message");
+        }
+        return length;
+    }
+}
@@ -0,0 +1,145 @@
+package work.aaronskeels.javaknowledgedemos.serial;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes the wire format into a ByteBuffer: varints, zigzag, little-endian fixed32/64 and length-delimited values. A growable
+ * writer swaps in a buffer twice the size when it runs out; a fixed one throws BufferOverflowException.
+ */
+final class WireWriter {
+    static final int VARINT = 0;
+    static final int FIXED64 = 1;
+    static final int LENGTH_DELIMITED = 2;
+    static final int FIXED32 = 5;
+    private static final int MAX_DEPTH = 64;
+
+    private ByteBuffer buffer;
+    private final boolean growable;
+    private int depth;
+
+    WireWriter(ByteBuffer buffer, boolean growable) {
+        this.buffer = buffer;
+        this.growable = growable;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    void writeKey(int key) {
+        writeVarint32(key);
+    }
+
+    void writeVarint32(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    void writeVarint64(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /** Zigzag maps small negative numbers to small varints: 0, -1, 1, -2 ... become 0, 1, 2, 3 ... */
+    void writeSignedVarint32(int value) {
+        writeVarint32(value << 1 ^ value >> 31);
+    }
+
+    void writeSignedVarint64(long value) {
+        writeVarint64(value << 1 ^ value >> 63);
+    }
+
+    void writeFixed32(int value) {
+        ensure(4);
+        buffer.put((byte) value).put((byte) (value >>> 8)).put((byte) (value >>> 16)).put((byte) (value >>> 24));
+    }
+
+    void writeFixed64(long value) {
+        writeFixed32((int) value);
+        writeFixed32((int) (value >>> 32));
+    }
+
+    void writeString(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                writeBytes(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        writeVarint32(length);
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) value.charAt(i)); // ASCII: one byte per char, no encoder and no intermediate array
+        }
+    }
+
+    void writeBytes(byte[] value) {
+        writeVarint32(value.length);
+        ensure(value.length);
+        buffer.put(value);
+    }
+
+    /**
+     * A nested message, length first. The length isn't known until the fields are written, so one byte is reserved for it and
+     * the body is moved along in the rare case the length needs more (messages of 128 bytes and up).
+     */
+    <T> void writeMessage(Schema<T> schema, Object value) {
+        if (++depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Object graph nested deeper than " + MAX_DEPTH + " levels (a cycle?)");
+        }
+        ensure(1);
+        int lengthAt = buffer.position();
+        buffer.put((byte) 0);
+        schema.writeFields(value, this);
+        int length = buffer.position() - lengthAt - 1;
+        int lengthSize = varintSize(length);
+        if (lengthSize > 1) {
+            ensure(lengthSize - 1);
+            if (buffer.hasArray()) {
+                byte[] array = buffer.array();
+                int base = buffer.arrayOffset() + lengthAt;
+                System.arraycopy(array, base + 1, array, base + lengthSize, length);
+            } else {
+                byte[] body = new byte[length];
+                buffer.get(lengthAt + 1, body);
+                buffer.put(lengthAt + lengthSize, body);
+            }
+        }
+        int at = lengthAt;
+        while ((length & ~0x7F) != 0) {
+            buffer.put(at++, (byte) (length & 0x7F | 0x80));
+            length >>>= 7;
+        }
+        buffer.put(at, (byte) length);
+        buffer.position(lengthAt + lengthSize + (buffer.position() - lengthAt - 1));
+        depth--;
+    }
+
+    static int varintSize(int value) {
+        return value >>> 7 == 0 ? 1 : value >>> 14 == 0 ? 2 : value >>> 21 == 0 ? 3 : value >>> 28 == 0 ? 4 : 5;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (!growable) {
+            throw new BufferOverflowException();
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+}
@@ -0,0 +1,273 @@
+package work.aaronskeels.javaknowledgedemos.transfer;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Copies data between files, sockets and streams without passing it through the Java heap where the OS allows.
+ *
+ * The read(byte[]) / write(byte[]) loop (FileInputStream -&gt; FileOutputStream, or InputStream.transferTo()) moves every byte
+ * kernel -&gt; Java array -&gt; kernel: two copies and two system calls per buffer, plus a heap buffer. FileChannel.transferTo()
+ * asks the kernel to move the bytes itself: sendfile() for file -&gt; socket, copy_file_range()/mmap for file -&gt; file, so the
+ * data never enters user space. How each method gets there:
+ * - copy(Path, Path), send(...): FileChannel.transferTo() in chunks of chunkSize, reporting progress after each.
+ * - receive(...): FileChannel.transferFrom(). From another file this is the same kernel copy; from a socket the JDK still reads
+ *   through a native buffer (one copy, but no Java heap).
+ * - transfer(channel, channel) / transfer(stream, stream): picks one of the above when either side is a file (including
+ *   FileInputStream/FileOutputStream, via getChannel()), otherwise falls back to a buffer loop.
+ *
+ * Fallback: if transferTo() stops short of the file's size (a target the kernel can't splice into) the rest is copied through
+ * a direct buffer, so callers never need to special-case it. A file whose size() is 0 (e.g. in /proc) is read until end of file,
+ * first into a small heap buffer so that an empty file costs no direct buffer. A complete zero-copy transfer allocates none.
+ * Channels must be in blocking mode; a non-blocking channel is rejected up front rather than spun on.
+ *
+ * Instances are immutable and thread-safe; build one per listener. Create one via {@link #newBuilder()}.
+ */
+public final class ChannelTransfer {
+    public static final long DEFAULT_CHUNK_SIZE = 8 << 20;
+    /** Fallback copies go through a buffer of at most this size; beyond it larger buffers stop helping. */
+    private static final int MAX_BUFFER_SIZE = 1 << 20;
+    /** First read of a file of unknown size, before a fallback buffer is worth allocating. */
+    private static final int PROBE_SIZE = 8 << 10;
+
+    private final long chunkSize;
+    private final TransferListener listener;
+
+    private ChannelTransfer(Builder builder) {
+        this.chunkSize = builder.chunkSize;
+        this.listener = builder.listener;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** Replaces "target" with a copy of "source". Returns the number of bytes copied. */
+    public long copy(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            return send(in, 0, Long.MAX_VALUE, out);
+        }
+    }
+
+    /** Sends the whole file to "target" (e.g. a connected SocketChannel), which is left open. */
+    public long send(Path source, WritableByteChannel target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            return send(in, 0, Long.MAX_VALUE, target);
+        }
+    }
+
+    /**
+     * Sends up to "count" bytes of "source" starting at "position" (stopping early at end of file) to "target". The source's own
+     * position is not changed; a FileChannel target's position advances.
+     */
+    public long send(FileChannel source, long position, long count, WritableByteChannel target) throws IOException {
+        checkRange(position, count);
+        requireBlocking(target);
+        long size = source.size();
+        long total = size > position ? Math.min(count, size - position) : -1;
+        long done = 0;
+        while (done < total) {
+            long sent = source.transferTo(position + done, Math.min(chunkSize, total - done), target);
+            if (sent <= 0) {
+                break;
+            }
+            done += sent;
+            listener.onProgress(done, total);
+        }
+        if (total < 0) {
+            // Nothing there as far as size() knows, but it can't be trusted for every file: read until end of file
+            done = copyRemaining(source, position, count, target, 0, -1);
+        } else if (done < total) {
+            // transferTo() gave up before the end: copy the rest the slow way
+            done = copyRemaining(source, position, total, target, done, total);
+        }
+        return done;
+    }
+
+    /**
+     * Writes up to "count" bytes read from "source" (until its end of stream) into "target" starting at "position". Pass
+     * Long.MAX_VALUE to copy everything. A FileChannel source's position advances; the target's does not.
+     */
+    public long receive(ReadableByteChannel source, FileChannel target, long position, long count) throws IOException {
+        checkRange(position, count);
+        requireBlocking(source);
+        long total = -1;
+        if (source instanceof FileChannel file) {
+            total = Math.min(count, Math.max(0, file.size() - file.position()));
+        }
+        long done = 0;
+        while (done < count) {
+            long received = target.transferFrom(source, position + done, Math.min(chunkSize, count - done));
+            if (received <= 0) {
+                break; // End of stream (transferFrom can't tell that apart from "nothing available", hence blocking mode only)
+            }
+            done += received;
+            listener.onProgress(done, total);
+        }
+        return done;
+    }
+
+    /**
+     * Copies everything from "source" to "target", zero-copy when either side is a FileChannel. File channels are read/written at
+     * their current positions, which advance past the copied bytes, as a read()/write() loop would leave them.
+     */
+    public long transfer(ReadableByteChannel source, WritableByteChannel target) throws IOException {
+        if (source instanceof FileChannel file) {
+            long start = file.position();
+            long done = send(file, start, Long.MAX_VALUE, target);
+            file.position(start + done);
+            return done;
+        }
+        if (target instanceof FileChannel file) {
+            long start = file.position();
+            long done = receive(source, file, start, Long.MAX_VALUE);
+            file.position(start + done);
+            return done;
+        }
+        requireBlocking(source);
+        requireBlocking(target);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize());
+        long done = 0;
+        long reported = 0;
+        while (source.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                done += target.write(buffer);
+            }
+            buffer.clear();
+            if (done - reported >= chunkSize) {
+                listener.onProgress(done, -1);
+                reported = done;
+            }
+        }
+        if (done != reported) {
+            listener.onProgress(done, -1);
+        }
+        return done;
+    }
+
+    /**
+     * InputStream.transferTo() with progress, upgraded to zero-copy when the streams are FileInputStream/FileOutputStream.
+     * Neither stream is closed or flushed.
+     */
+    public long transfer(InputStream in, OutputStream out) throws IOException {
+        if (in instanceof FileInputStream fileIn && out instanceof FileOutputStream fileOut) {
+            return transfer(fileIn.getChannel(), fileOut.getChannel());
+        }
+        byte[] buffer = new byte[Math.min(bufferSize(), 64 << 10)];
+        long done = 0;
+        long reported = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            done += read;
+            if (done - reported >= chunkSize) {
+                listener.onProgress(done, -1);
+                reported = done;
+            }
+        }
+        if (done != reported) {
+            listener.onProgress(done, -1);
+        }
+        return done;
+    }
+
+    private long copyRemaining(FileChannel source, long position, long count, WritableByteChannel target, long done, long total)
+            throws IOException {
+        ByteBuffer buffer = total < 0
+                ? ByteBuffer.allocate((int) Math.min(PROBE_SIZE, count - done))
+                : directBuffer(count - done);
+        long reported = done;
+        while (done < count) {
+            buffer.clear();
+            if (count - done < buffer.capacity()) {
+                buffer.limit((int) (count - done));
+            }
+            int read = source.read(buffer, position + done);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            done += read;
+            if (!buffer.isDirect() && done < count) {
+                buffer = directBuffer(count - done); // The probe found data, so there is likely more
+            }
+            if (done - reported >= chunkSize) {
+                listener.onProgress(done, total);
+                reported = done;
+            }
+        }
+        if (done != reported) {
+            listener.onProgress(done, total);
+        }
+        return done;
+    }
+
+    private ByteBuffer directBuffer(long remaining) {
+        return ByteBuffer.allocateDirect((int) Math.min(bufferSize(), remaining));
+    }
+
+    private int bufferSize() {
+        return (int) Math.min(chunkSize, MAX_BUFFER_SIZE);
+    }
+
+    private static void checkRange(long position, long count) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position must be >= 0: " + position);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count must be >= 0: " + count);
+        }
+    }
+
+    private static void requireBlocking(Object channel) {
+        if (channel instanceof SelectableChannel selectable && !selectable.isBlocking()) {
+            throw new IllegalArgumentException("Channel must be in blocking mode: " + channel);
+        }
+    }
+
+    public static final class Builder {
+        private long chunkSize = DEFAULT_CHUNK_SIZE;
+        private TransferListener listener = TransferListener.NONE;
+
+        private Builder() {
+        }
+
+        /**
+         * Bytes per transferTo()/transferFrom() call, i.e. how often progress is reported (default 8 MiB). Smaller chunks report
+         * more often at the cost of more system calls.
+         */
+        public Builder chunkSize(long chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be > 0: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder listener(TransferListener listener) {
+            this.listener = Objects.requireNonNull(listener);
+            return this;
+        }
+
+        public ChannelTransfer build() {
+            return new ChannelTransfer(this);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package work.aaronskeels.javaknowledgedemos.transfer;
+
+/**
+ * Progress callback for {@link ChannelTransfer}, invoked on the transferring thread after every chunk and once at the end.
+ * Throwing aborts the transfer (the exception propagates to the caller); so does interrupting the thread, which closes
+ * interruptible channels.
+ */
+@FunctionalInterface
+public interface TransferListener {
+    TransferListener NONE = (transferred, total) -> {
+    };
+
+    /**
+     * @param transferred bytes moved so far
+     * @param total bytes expected in all, or -1 if unknown (streams, sockets, files whose size() is 0 such as /proc entries)
+     */
+    void onProgress(long transferred, long total);
+}
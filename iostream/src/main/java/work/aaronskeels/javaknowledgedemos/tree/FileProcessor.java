@@ -0,0 +1,15 @@
+package work.aaronskeels.javaknowledgedemos.tree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Turns one file's contents into a partial result, on a pool thread. "contents" holds the whole file (position 0, limit = size)
+ * and is only valid during the call: small files come in a per-thread buffer that is reused for the next file, large ones in a
+ * mapping that is released right after. Copy out whatever must outlive the call.
+ */
+@FunctionalInterface
+public interface FileProcessor<R> {
+    R process(Path file, ByteBuffer contents) throws IOException;
+}
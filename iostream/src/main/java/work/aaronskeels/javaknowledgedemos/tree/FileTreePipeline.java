@@ -0,0 +1,347 @@
+package work.aaronskeels.javaknowledgedemos.tree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+import work.aaronskeels.javaknowledgedemos.mmap.Unmapper;
+
+/**
+ * "Process every file under this directory" on all cores. Three stages:
+ * - Walk: Files.walkFileTree on the calling thread. Matching regular files are collected into batches (default 256 files), and
+ *   each full batch goes to the ForkJoinPool right away, so processing overlaps the walk instead of waiting for it.
+ * - Read: a batch task splits itself in halves down to a few files, so idle workers steal from busy ones, and reads each file
+ *   whole. Files under mappedThreshold (default 1 MiB) are read with FileChannel.read() into a reusable per-thread buffer; larger
+ *   ones are memory-mapped and unmapped right after processing, so they are never copied onto the heap.
+ * - Process: the FileProcessor turns each file into a partial result, and partial results are combined pairwise up the task
+ *   tree and then across batches in walk order. The combiner must be associative; identity must be its neutral element.
+ * Each stage's counters are in stats(). The first failing file (or directory) fails run() with its IOException; files not yet
+ * started are then skipped rather than read, and the walk stops submitting batches.
+ *
+ * The pool defaults to one thread per core, which suits CPU-bound processing of cached files. For cold trees on slow or remote
+ * storage, where threads mostly wait on reads, give it more threads than cores. Reusable: call run() as often as needed, then
+ * close() to shut down the pipeline's own pool.
+ */
+public final class FileTreePipeline<R> implements Closeable {
+    private static final int LEAF_FILES = 8;
+
+    private final Path root;
+    private final FileProcessor<R> processor;
+    private final BinaryOperator<R> combiner;
+    private final R identity;
+    private final Predicate<Path> filter;
+    private final int maxDepth;
+    private final int batchSize;
+    private final long mappedThreshold;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final ThreadLocal<ByteBuffer> readBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 << 10));
+    private final LongAdder directoriesWalked = new LongAdder();
+    private final LongAdder filesWalked = new LongAdder();
+    private final LongAdder walkNanos = new LongAdder();
+    private final LongAdder filesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder filesMapped = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder filesProcessed = new LongAdder();
+    private final LongAdder processNanos = new LongAdder();
+
+    private FileTreePipeline(Builder<R> builder) {
+        this.root = builder.root;
+        this.processor = builder.processor;
+        this.combiner = builder.combiner;
+        this.identity = builder.identity;
+        this.filter = builder.filter;
+        this.maxDepth = builder.maxDepth;
+        this.batchSize = builder.batchSize;
+        this.mappedThreshold = builder.mappedThreshold;
+        this.ownsPool = builder.pool == null;
+        this.pool = ownsPool ? new ForkJoinPool(builder.parallelism) : builder.pool;
+    }
+
+    /**
+     * @param processor Maps one file to a partial result.
+     * @param combiner Merges two partial results; must be associative.
+     * @param identity Result of an empty tree, and combiner's neutral element.
+     */
+    public static <R> Builder<R> newBuilder(Path root, FileProcessor<R> processor, BinaryOperator<R> combiner, R identity) {
+        return new Builder<>(root, processor, combiner, identity);
+    }
+
+    /** Walks the tree, processes every matching file and returns the combined result. */
+    public R run() throws IOException {
+        List<ForkJoinTask<R>> batches = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            try {
+                walk(batches, failed);
+            } catch (IOException | RuntimeException e) {
+                failed.set(true); // An unreadable directory fails the run like a file does: submitted batches stop too
+                throw e;
+            }
+            R result = identity;
+            for (ForkJoinTask<R> batch : batches) {
+                result = combiner.apply(result, batch.get());
+            }
+            return result;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Processing failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for file batches");
+        } finally {
+            for (ForkJoinTask<R> batch : batches) {
+                batch.cancel(false); // Only stops batches that haven't started; running ones see "failed"
+            }
+        }
+    }
+
+    public PipelineStats stats() {
+        return new PipelineStats(directoriesWalked.sum(), filesWalked.sum(), walkNanos.sum(), filesRead.sum(), bytesRead.sum(),
+                filesMapped.sum(), readNanos.sum(), filesProcessed.sum(), processNanos.sum());
+    }
+
+    /** Shuts down the pipeline's own pool; a caller-supplied pool is left alone. */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void walk(List<ForkJoinTask<R>> batches, AtomicBoolean failed) throws IOException {
+        long start = System.nanoTime();
+        Walker walker = new Walker(batches, failed);
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), maxDepth, walker);
+        walker.submitPending();
+        walkNanos.add(System.nanoTime() - start);
+    }
+
+    /** Collects matching files into batches and submits each batch as soon as it is full. */
+    private final class Walker extends SimpleFileVisitor<Path> {
+        private final List<ForkJoinTask<R>> batches;
+        private final AtomicBoolean failed;
+        private List<Path> pending = new ArrayList<>(batchSize);
+
+        Walker(List<ForkJoinTask<R>> batches, AtomicBoolean failed) {
+            this.batches = batches;
+            this.failed = failed;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+            directoriesWalked.increment();
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+            if (failed.get()) {
+                return FileVisitResult.TERMINATE; // run() rethrows the failure; the rest of the tree would be skipped anyway
+            }
+            if (attributes.isRegularFile() && filter.test(file)) {
+                filesWalked.increment();
+                pending.add(file);
+                if (pending.size() == batchSize) {
+                    submitPending();
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        void submitPending() {
+            if (!pending.isEmpty()) {
+                batches.add(pool.submit(new BatchTask(pending, 0, pending.size(), failed)));
+                pending = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    /** Reads and processes one file on the current pool thread. */
+    private R processFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size(); // May have changed since the walk
+            if (size >= mappedThreshold) {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("File too large to map (over 2 GiB): " + file);
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                try {
+                    countRead(size, start);
+                    filesMapped.increment();
+                    return processTimed(file, mapped);
+                } finally {
+                    Unmapper.unmap(mapped);
+                }
+            }
+            ByteBuffer buffer = readBuffers.get();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate((int) Math.min(mappedThreshold, Math.max(size, 2L * buffer.capacity())));
+                readBuffers.set(buffer);
+            }
+            buffer.clear().limit((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Until full or a concurrent truncation ends it early
+            }
+            buffer.flip();
+            countRead(buffer.limit(), start);
+            return processTimed(file, buffer);
+        }
+    }
+
+    private void countRead(long bytes, long start) {
+        filesRead.increment();
+        bytesRead.add(bytes);
+        readNanos.add(System.nanoTime() - start);
+    }
+
+    private R processTimed(Path file, ByteBuffer contents) throws IOException {
+        long start = System.nanoTime();
+        R result = processor.process(file, contents);
+        processNanos.add(System.nanoTime() - start);
+        filesProcessed.increment();
+        return result;
+    }
+
+    /**
+     * Files [from, to) of a batch: processed directly when few, otherwise split in two halves that can be stolen. Cancelling a
+     * task doesn't stop its forked halves, so a failure is shared through "failed" and every other leaf skips its remaining files.
+     */
+    private final class BatchTask extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Path> files; // Tasks are never serialized; List itself isn't Serializable
+        private final int from;
+        private final int to;
+        private final AtomicBoolean failed;
+
+        BatchTask(List<Path> files, int from, int to, AtomicBoolean failed) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.failed = failed;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= LEAF_FILES) {
+                R result = identity;
+                for (int i = from; i < to && !failed.get(); i++) { // A skipped file's result is never used: run() throws
+                    try {
+                        result = combiner.apply(result, processFile(files.get(i)));
+                    } catch (IOException e) {
+                        failed.set(true);
+                        throw new UncheckedIOException(e);
+                    } catch (RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            BatchTask left = new BatchTask(files, from, middle, failed);
+            left.fork();
+            R right = new BatchTask(files, middle, to, failed).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    public static final class Builder<R> {
+        private final Path root;
+        private final FileProcessor<R> processor;
+        private final BinaryOperator<R> combiner;
+        private final R identity;
+        private Predicate<Path> filter = file -> true;
+        private int maxDepth = Integer.MAX_VALUE;
+        private int batchSize = 256;
+        private long mappedThreshold = 1 << 20;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private ForkJoinPool pool;
+
+        private Builder(Path root, FileProcessor<R> processor, BinaryOperator<R> combiner, R identity) {
+            this.root = Objects.requireNonNull(root);
+            this.processor = Objects.requireNonNull(processor);
+            this.combiner = Objects.requireNonNull(combiner);
+            this.identity = identity;
+        }
+
+        /** Only files matching it are read (default all regular files). */
+        public Builder<R> filter(Predicate<Path> filter) {
+            this.filter = Objects.requireNonNull(filter);
+            return this;
+        }
+
+        /** As for Files.walkFileTree (default unlimited; 1 = the root's own files). */
+        public Builder<R> maxDepth(int maxDepth) {
+            if (maxDepth < 0) {
+                throw new IllegalArgumentException("maxDepth must be >= 0: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /** Files handed to the pool at a time while walking (default 256). */
+        public Builder<R> batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be >= 1: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /** Files of at least this many bytes are memory-mapped, smaller ones read into a heap buffer (default 1 MiB). */
+        public Builder<R> mappedThreshold(long mappedThreshold) {
+            if (mappedThreshold < 1 || mappedThreshold > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("mappedThreshold must be from 1 to 2^31 - 1: " + mappedThreshold);
+            }
+            this.mappedThreshold = mappedThreshold;
+            return this;
+        }
+
+        /** Threads of the pipeline's own ForkJoinPool, shut down on close() (default: one per core). */
+        public Builder<R> parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /** Runs on a caller-owned pool (e.g. ForkJoinPool.commonPool()) instead. */
+        public Builder<R> pool(ForkJoinPool pool) {
+            this.pool = Objects.requireNonNull(pool);
+            return this;
+        }
+
+        public FileTreePipeline<R> build() {
+            return new FileTreePipeline<>(this);
+        }
+    }
+}
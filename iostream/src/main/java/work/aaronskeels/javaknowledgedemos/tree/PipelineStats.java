@@ -0,0 +1,39 @@
+package work.aaronskeels.javaknowledgedemos.tree;
+
+/**
+ * Point-in-time snapshot of a {@link FileTreePipeline}'s counters, per stage: walk (directories and files visited), read (files
+ * and bytes read, how many of them mapped) and process. Times are summed over all threads, so the per-stage rates are per busy
+ * thread; compare them to see which stage bounds a run. Subtract two snapshots with {@link #minus(PipelineStats)} to get one run.
+ */
+public record PipelineStats(long directoriesWalked, long filesWalked, long walkNanos, long filesRead, long bytesRead,
+        long filesMapped, long readNanos, long filesProcessed, long processNanos) {
+
+    public double walkFilesPerSecond() {
+        return rate(filesWalked, walkNanos);
+    }
+
+    public double readBytesPerSecond() {
+        return rate(bytesRead, readNanos);
+    }
+
+    public double processFilesPerSecond() {
+        return rate(filesProcessed, processNanos);
+    }
+
+    private static double rate(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    public PipelineStats minus(PipelineStats other) {
+        return new PipelineStats(
+                Math.max(0, directoriesWalked - other.directoriesWalked),
+                Math.max(0, filesWalked - other.filesWalked),
+                Math.max(0, walkNanos - other.walkNanos),
+                Math.max(0, filesRead - other.filesRead),
+                Math.max(0, bytesRead - other.bytesRead),
+                Math.max(0, filesMapped - other.filesMapped),
+                Math.max(0, readNanos - other.readNanos),
+                Math.max(0, filesProcessed - other.filesProcessed),
+                Math.max(0, processNanos - other.processNanos));
+    }
+}
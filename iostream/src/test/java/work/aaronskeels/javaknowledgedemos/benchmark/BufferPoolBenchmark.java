@@ -0,0 +1,94 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.pool.BufferPool;
+import work.aaronskeels.javaknowledgedemos.pool.PooledBuffer;
+
+/**
+ * One simulated I/O request per operation: get a "size" byte buffer, write a 256 byte message into it and read it back, either
+ * allocating the buffer (heap or direct) or borrowing it from a BufferPool, with and without thread caches. Scores are ns per
+ * request; run with the GC profiler (as main() does) to compare gc.alloc.rate.norm, the heap bytes allocated per request. For
+ * direct buffers that only counts the ByteBuffer object and its Cleaner, not the native memory, so teardown prints the pool's
+ * metrics as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BufferPoolBenchmark {
+    private static final int MESSAGE_LONGS = 32;
+
+    @Param({"4096", "65536", "1048576"})
+    public int size;
+
+    private final BufferPool pool = BufferPool.newBuilder().build();
+    private final BufferPool arenaOnlyPool = BufferPool.newBuilder().threadCacheSize(0).build();
+
+    @TearDown
+    public void printMetrics() {
+        System.out.println("\nPool: " + pool.metrics() + "\nArena-only pool: " + arenaOnlyPool.metrics());
+    }
+
+    @Benchmark
+    public long allocateHeap() {
+        return roundTrip(ByteBuffer.allocate(size));
+    }
+
+    @Benchmark
+    public long allocateDirect() {
+        return roundTrip(ByteBuffer.allocateDirect(size));
+    }
+
+    @Benchmark
+    public long pooled() {
+        try (PooledBuffer buffer = pool.acquire(size)) {
+            return roundTrip(buffer.buffer());
+        }
+    }
+
+    @Benchmark
+    public long pooledArenaOnly() {
+        try (PooledBuffer buffer = arenaOnlyPool.acquire(size)) {
+            return roundTrip(buffer.buffer());
+        }
+    }
+
+    private static long roundTrip(ByteBuffer buffer) {
+        for (int i = 0; i < MESSAGE_LONGS; i++) {
+            buffer.putLong(i * 0x9E3779B97F4A7C15L);
+        }
+        buffer.flip();
+        long sum = 0;
+        while (buffer.hasRemaining()) {
+            sum += buffer.getLong();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BufferPoolBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.concat.Chunk;
+import work.aaronskeels.javaknowledgedemos.concat.ChunkReader;
+import work.aaronskeels.javaknowledgedemos.concat.PrefetchingSequenceInputStream;
+import work.aaronskeels.javaknowledgedemos.concat.StreamSource;
+
+/**
+ * Reads 16 sources of 1 MiB each whose open() takes "latencyMillis" and whose every 64 KiB read takes a tenth of that, standing
+ * in for cold files on a network or object store (the page cache makes local files useless here: they cost nothing to open).
+ * - sequenceInputStream: SequenceInputStream over lazily opened sources; every latency is paid in series.
+ * - prefetching: PrefetchingSequenceInputStream reading 4 sources ahead.
+ * - chunkReader: ChunkReader with parallelism 4, drained by the benchmark thread.
+ * Scores are ms per pass over all 16 sources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcatenationBenchmark {
+    private static final int SOURCES = 16;
+
+    @Param({"2", "10"})
+    public int latencyMillis;
+
+    private final byte[] data = new byte[1 << 20];
+    private final byte[] buffer = new byte[64 << 10];
+    private List<StreamSource> sources;
+
+    @Setup
+    public void setup() {
+        sources = new ArrayList<>();
+        for (int i = 0; i < SOURCES; i++) {
+            sources.add(this::openSlowly);
+        }
+    }
+
+    private InputStream openSlowly() throws IOException {
+        pause(latencyMillis * 10);
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                pause(latencyMillis);
+                return super.read(b, off, Math.min(len, 64 << 10));
+            }
+        };
+    }
+
+    /** Sleeps for "tenths" tenths of a millisecond. */
+    private static void pause(int tenths) throws IOException {
+        try {
+            Thread.sleep(tenths / 10, tenths % 10 * 100_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private long drain(InputStream in) throws IOException {
+        try (in) {
+            long total = 0;
+            int count;
+            while ((count = in.read(buffer)) >= 0) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    public long sequenceInputStream() throws IOException {
+        // Opened on demand through the Enumeration, as SequenceInputStream would have them
+        return drain(new SequenceInputStream(new Enumeration<InputStream>() {
+            private int next;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < SOURCES;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return sources.get(next++).open();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }));
+    }
+
+    @Benchmark
+    public long prefetching() throws IOException {
+        return drain(PrefetchingSequenceInputStream.newBuilder(sources).prefetch(4).build());
+    }
+
+    @Benchmark
+    public long chunkReader() throws IOException {
+        try (ChunkReader reader = ChunkReader.newBuilder(sources).parallelism(4).build()) {
+            long total = 0;
+            Chunk chunk;
+            while ((chunk = reader.next()) != null) {
+                total += chunk.length();
+            }
+            return total;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConcatenationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.csv.CsvParser;
+import work.aaronskeels.javaknowledgedemos.csv.CsvRecord;
+import work.aaronskeels.javaknowledgedemos.csv.RecordVisitor;
+
+/**
+ * Sums the numeric columns of a 1,000,000 record (~45 MB) "id,quantity,price,\"name\"" file, read from a warm page cache, with
+ * each of App's approaches and with CsvParser. Scores are ms per file. parallel* runs CsvParser.parseParallel() with 4 threads;
+ * it only helps with that many cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParserBenchmark {
+    private static final int RECORDS = 1_000_000;
+
+    private Path directory;
+    private Path path;
+    private final CsvParser parser = CsvParser.newBuilder().build();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("csv-parser-benchmark");
+        path = directory.resolve("orders.csv");
+        Random random = new Random(1);
+        StringBuilder text = new StringBuilder(RECORDS * 48);
+        for (int i = 0; i < RECORDS; i++) {
+            text.append(1_000_000_000L + i).append(',').append(random.nextInt(100)).append(',')
+                    .append(random.nextInt(100_000) / 100.0).append(",\"item ").append(random.nextInt(5000)).append("\"\n");
+        }
+        Files.write(path, text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public double scanner() throws IOException {
+        double sum = 0;
+        try (Scanner scanner = new Scanner(path, StandardCharsets.US_ASCII)) {
+            scanner.useDelimiter("[,\n]").useLocale(Locale.ROOT);
+            while (scanner.hasNext()) {
+                sum += scanner.nextLong() + scanner.nextInt() + scanner.nextDouble();
+                scanner.next(); // Quoted name
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double bufferedReaderSplit() throws IOException {
+        double sum = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                sum += Long.parseLong(fields[0]) + Integer.parseInt(fields[1]) + Double.parseDouble(fields[2]);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double csvParser() throws IOException {
+        Summer summer = new Summer();
+        parser.parse(path, summer);
+        return summer.sum;
+    }
+
+    @Benchmark
+    public double csvParserParallel() throws IOException {
+        double sum = 0;
+        for (Summer part : parser.parseParallel(path, 4, Summer::new)) {
+            sum += part.sum;
+        }
+        return sum;
+    }
+
+    private static final class Summer implements RecordVisitor {
+        double sum;
+
+        @Override
+        public void record(CsvRecord record) {
+            sum += record.getLong(0) + record.getInt(1) + record.getDouble(2);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CsvParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
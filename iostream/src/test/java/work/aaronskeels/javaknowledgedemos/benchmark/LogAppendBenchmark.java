@@ -0,0 +1,76 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.log.SegmentedLog;
+import work.aaronskeels.javaknowledgedemos.log.SyncPolicy;
+
+/**
+ * 8 threads appending 128 byte records to one SegmentedLog under each SyncPolicy. Scores are appends per second in total.
+ * EVERY_APPEND and GROUP_COMMIT are both durable on return, so the gap between them is what group commit buys; it depends on
+ * the device's fsync latency (a laptop SSD, a cloud volume and tmpfs differ by orders of magnitude), so run it on the storage
+ * the log will live on (java.io.tmpdir by default).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LogAppendBenchmark {
+    @Param({"NONE", "EVERY_APPEND", "GROUP_COMMIT", "INTERVAL"})
+    public SyncPolicy syncPolicy;
+
+    private final byte[] record = new byte[128];
+    private Path directory;
+    private SegmentedLog log;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        new Random(1).nextBytes(record);
+        directory = Files.createTempDirectory("log-append-benchmark");
+        log = SegmentedLog.newBuilder(directory).syncPolicy(syncPolicy).retentionBytes(512 << 20).open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        return log.append(record);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LogAppendBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,193 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.mmap.MappedFile;
+import work.aaronskeels.javaknowledgedemos.mmap.MappedFileReader;
+import work.aaronskeels.javaknowledgedemos.mmap.MappedFileWriter;
+
+/**
+ * MappedFile against the stream/RandomAccessFile approaches listed in App, over a file of "fileMegabytes" MiB of longs:
+ * - sequential*: read every long once (ms per whole-file pass)
+ * - random*: read one long at a random 8-byte aligned position (ns per read)
+ * - write*: write a fresh file of the same size, including close()
+ * The file is read once in setup, so reads are served from a warm page cache; that is the case where the per-call system call
+ * overhead of the stream approaches dominates. The 1 GiB case needs that much free disk and page cache.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappedFileBenchmark {
+    @Param({"64", "1024"})
+    public int fileMegabytes;
+
+    private Path directory;
+    private Path path;
+    private long longs;
+    private MappedFile mapped;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(Long.BYTES);
+    private long random = 0x9E3779B97F4A7C15L;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("mapped-file-benchmark");
+        path = directory.resolve("longs.bin");
+        longs = (long) fileMegabytes << 17;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            for (long i = 0; i < longs; i++) {
+                out.writeLong(i);
+            }
+        }
+        mapped = MappedFile.newBuilder(path).open();
+        randomAccessFile = new RandomAccessFile(path.toFile(), "r");
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        sequentialMappedFile(); // Warm the page cache and the mapping
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mapped.close();
+        randomAccessFile.close();
+        channel.close();
+        Files.deleteIfExists(directory.resolve("written.bin"));
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(directory);
+    }
+
+    private long nextPosition() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (random & (longs - 1)) * Long.BYTES;
+    }
+
+    // ---- Sequential reads ----
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long sequentialBufferedStream() throws IOException {
+        long sum = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            for (long i = 0; i < longs; i++) {
+                sum += in.readLong();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long sequentialMappedFile() {
+        long sum = 0;
+        long end = longs * Long.BYTES;
+        for (long position = 0; position < end; position += Long.BYTES) {
+            sum += mapped.getLong(position);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long sequentialMappedFileReader() throws IOException {
+        long sum = 0;
+        MappedFileReader reader = mapped.reader(0);
+        for (long i = 0; i < longs; i++) {
+            sum += reader.readLong();
+        }
+        return sum;
+    }
+
+    // ---- Random reads ----
+
+    /** seek() + readLong(), which RandomAccessFile implements as eight single-byte read() system calls. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long randomRandomAccessFile() throws IOException {
+        randomAccessFile.seek(nextPosition());
+        return randomAccessFile.readLong();
+    }
+
+    /** The best a read() based approach gets: one positional system call per value. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long randomFileChannel() throws IOException {
+        buffer.clear();
+        channel.read(buffer, nextPosition());
+        return buffer.getLong(0);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long randomMappedFile() {
+        return mapped.getLong(nextPosition());
+    }
+
+    // ---- Sequential writes ----
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void writeBufferedStream() throws IOException {
+        Path target = directory.resolve("written.bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 1 << 16))) {
+            for (long i = 0; i < longs; i++) {
+                out.writeLong(i);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void writeMappedFileWriter() throws IOException {
+        Path target = directory.resolve("written.bin");
+        Files.deleteIfExists(target);
+        try (MappedFile file = MappedFile.newBuilder(target).writable(true).open()) {
+            MappedFileWriter writer = file.writer(0);
+            for (long i = 0; i < longs; i++) {
+                writer.writeLong(i);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MappedFileBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,136 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.compress.ParallelDeflaterOutputStream;
+import work.aaronskeels.javaknowledgedemos.compress.ParallelGzipInputStream;
+
+/**
+ * Parallel gzip against GZIPOutputStream/GZIPInputStream on 64 MiB of synthetic log lines (compresses ~3.5:1), per "threads".
+ * Scores are ms per 64 MiB, so MB/s = 64 * 1000 / score. The JDK baselines ignore "threads"; run them once, or read them off the
+ * threads=1 rows. Scaling stops at the machine's core count, and at the reading thread's copy/CRC speed beyond that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelGzipBenchmark {
+    private static final int SIZE = 64 << 20;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private byte[] data;
+    private byte[] singleMember;
+    private byte[] independentMembers;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(11);
+        String[] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+        StringBuilder text = new StringBuilder(SIZE + 200);
+        while (text.length() < SIZE) {
+            text.append("2024-05-0").append(1 + random.nextInt(9)).append(" 12:").append(10 + random.nextInt(50)).append(' ')
+                    .append(levels[random.nextInt(4)]).append(" worker-").append(random.nextInt(16)).append(" request ")
+                    .append(Long.toHexString(random.nextLong())).append(" took ").append(random.nextInt(1000)).append("ms\n");
+        }
+        data = text.substring(0, SIZE).getBytes(StandardCharsets.US_ASCII);
+        singleMember = compress(false);
+        independentMembers = compress(true);
+    }
+
+    private byte[] compress(boolean independent) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(SIZE / 2);
+        try (OutputStream out = ParallelDeflaterOutputStream.newBuilder(bytes).threads(threads).independentBlocks(independent)
+                .build()) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    // ---- Compression ----
+
+    @Benchmark
+    public void compressGzipOutputStream() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(OutputStream.nullOutputStream(), 1 << 16)) {
+            out.write(data);
+        }
+    }
+
+    @Benchmark
+    public void compressParallelSingleMember() throws IOException {
+        try (OutputStream out = ParallelDeflaterOutputStream.newBuilder(OutputStream.nullOutputStream()).threads(threads)
+                .build()) {
+            out.write(data);
+        }
+    }
+
+    @Benchmark
+    public void compressParallelIndependentMembers() throws IOException {
+        try (OutputStream out = ParallelDeflaterOutputStream.newBuilder(OutputStream.nullOutputStream()).threads(threads)
+                .independentBlocks(true).build()) {
+            out.write(data);
+        }
+    }
+
+    // ---- Decompression ----
+
+    @Benchmark
+    public long decompressGzipInputStream() throws IOException {
+        return drain(new GZIPInputStream(new ByteArrayInputStream(independentMembers), 1 << 16));
+    }
+
+    /** A single member has nothing to split, so this is the sequential fallback: should match GZIPInputStream. */
+    @Benchmark
+    public long decompressParallelSingleMember() throws IOException {
+        return drain(ParallelGzipInputStream.newBuilder(new ByteArrayInputStream(singleMember)).threads(threads).build());
+    }
+
+    @Benchmark
+    public long decompressParallelIndependentMembers() throws IOException {
+        return drain(ParallelGzipInputStream.newBuilder(new ByteArrayInputStream(independentMembers)).threads(threads).build());
+    }
+
+    private static long drain(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[1 << 16];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                total += read;
+            }
+            return total;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParallelGzipBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,144 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.pipe.BytePipe;
+import work.aaronskeels.javaknowledgedemos.pipe.WaitStrategy;
+
+/**
+ * Moves 16 MiB from a writer thread to the benchmark thread, "chunk" bytes per write()/read() call, through:
+ * - pipedStreams: PipedOutputStream -> PipedInputStream with the default 1 KiB buffer.
+ * - pipedStreams64K: The same with a 64 KiB buffer (the PipedInputStream(src, pipeSize) constructor).
+ * - bytePipeStreams: BytePipe's OutputStream/InputStream views, 64 KiB, PARK (the default).
+ * - bytePipeStreamsYield: The same with the YIELD wait strategy.
+ * - bytePipeBuffers: BytePipe's ByteBuffer API with direct buffers on both ends.
+ * Scores are ms per 16 MiB. Needs at least 2 free cores to be meaningful (SPIN isn't measured: with fewer cores than threads
+ * it is pathological).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipeBenchmark {
+    private static final int TOTAL = 16 << 20;
+
+    @Param({"64", "8192"})
+    public int chunk;
+
+    private ExecutorService writer;
+    private byte[] writeChunk;
+    private byte[] readChunk;
+    private ByteBuffer writeBuffer;
+    private ByteBuffer readBuffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        writer = Executors.newSingleThreadExecutor();
+        writeChunk = new byte[chunk];
+        readChunk = new byte[chunk];
+        writeBuffer = ByteBuffer.allocateDirect(chunk);
+        readBuffer = ByteBuffer.allocateDirect(chunk);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writer.shutdownNow();
+    }
+
+    private long drain(InputStream in, Future<?> written) throws IOException, InterruptedException, ExecutionException {
+        long total = 0;
+        int n;
+        while ((n = in.read(readChunk)) >= 0) {
+            total += n;
+        }
+        written.get();
+        return total;
+    }
+
+    private Future<?> writeAll(OutputStream out) {
+        return writer.submit(() -> {
+            try (out) {
+                for (int written = 0; written < TOTAL; written += chunk) {
+                    out.write(writeChunk);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public long pipedStreams() throws Exception {
+        PipedInputStream in = new PipedInputStream();
+        return drain(in, writeAll(new PipedOutputStream(in)));
+    }
+
+    @Benchmark
+    public long pipedStreams64K() throws Exception {
+        PipedInputStream in = new PipedInputStream(BytePipe.DEFAULT_CAPACITY);
+        return drain(in, writeAll(new PipedOutputStream(in)));
+    }
+
+    @Benchmark
+    public long bytePipeStreams() throws Exception {
+        BytePipe pipe = BytePipe.newBuilder().build();
+        return drain(pipe.inputStream(), writeAll(pipe.outputStream()));
+    }
+
+    @Benchmark
+    public long bytePipeStreamsYield() throws Exception {
+        BytePipe pipe = BytePipe.newBuilder().waitStrategy(WaitStrategy.YIELD).build();
+        return drain(pipe.inputStream(), writeAll(pipe.outputStream()));
+    }
+
+    @Benchmark
+    public long bytePipeBuffers() throws Exception {
+        BytePipe pipe = BytePipe.newBuilder().build();
+        Future<?> written = writer.submit(() -> {
+            for (int total = 0; total < TOTAL; total += chunk) {
+                pipe.write(writeBuffer.clear());
+            }
+            pipe.closeWrite();
+            return null;
+        });
+        long total = 0;
+        int n;
+        while ((n = pipe.read(readBuffer.clear())) >= 0) {
+            total += n;
+        }
+        written.get();
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PipeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
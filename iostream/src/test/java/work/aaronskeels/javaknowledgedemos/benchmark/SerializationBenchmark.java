@@ -0,0 +1,144 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.serial.Schema;
+import work.aaronskeels.javaknowledgedemos.serial.SchemaRegistry;
+
+/**
+ * Writes and reads back an order (customer, address record, enum status, "lines" order lines of sku/quantity/price) with
+ * ObjectOutputStream/ObjectInputStream and with a SchemaRegistry, to a byte[] and into a reused direct ByteBuffer. Scores are
+ * microseconds per order; setup prints each encoding's size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    public enum Status { NEW, PAID, SHIPPED }
+
+    public record Address(String street, String city, String country, int zip) implements Serializable {
+    }
+
+    public static class Line implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String sku;
+        int quantity;
+        double price;
+    }
+
+    public static class Order implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        long id;
+        long createdMillis;
+        String customer;
+        Status status;
+        Address shipTo;
+        List<Line> lines = new ArrayList<>();
+    }
+
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    private final SchemaRegistry registry = SchemaRegistry.newBuilder()
+            .register(Schema.newBuilder(Order.class).field(1, "id").field(2, "createdMillis").field(3, "customer")
+                    .field(4, "status").field(5, "shipTo").field(6, "lines").build())
+            .register(Schema.newBuilder(Line.class).field(1, "sku").field(2, "quantity").field(3, "price").build())
+            .register(Schema.newBuilder(Address.class).field(1, "street").field(2, "city").field(3, "country").field(4, "zip")
+                    .build())
+            .build();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private Order order;
+    private byte[] javaBytes;
+    private byte[] schemaBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(1);
+        order = new Order();
+        order.id = 1_000_000_000L + random.nextInt(1_000_000);
+        order.createdMillis = 1_700_000_000_000L + random.nextInt(1_000_000_000);
+        order.customer = "customer-" + random.nextInt(100_000);
+        order.status = Status.PAID;
+        order.shipTo = new Address(random.nextInt(1000) + " Main Street", "Springfield", "US", 10_000 + random.nextInt(90_000));
+        for (int i = 0; i < lines; i++) {
+            Line line = new Line();
+            line.sku = "SKU-" + random.nextInt(50_000);
+            line.quantity = 1 + random.nextInt(10);
+            line.price = random.nextInt(100_000) / 100.0;
+            order.lines.add(line);
+        }
+        javaBytes = javaWrite();
+        schemaBytes = registry.toBytes(order);
+        System.out.println("\nJava serialization: " + javaBytes.length + " bytes, SchemaRegistry: " + schemaBytes.length
+                + " bytes");
+    }
+
+    @Benchmark
+    public byte[] javaWrite() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(order);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaRead() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(javaBytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] schemaWrite() {
+        return registry.toBytes(order);
+    }
+
+    @Benchmark
+    public Order schemaRead() {
+        return registry.fromBytes(Order.class, schemaBytes);
+    }
+
+    @Benchmark
+    public Order schemaBufferRoundTrip() {
+        buffer.clear();
+        registry.write(order, buffer);
+        buffer.flip();
+        return registry.read(Order.class, buffer);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
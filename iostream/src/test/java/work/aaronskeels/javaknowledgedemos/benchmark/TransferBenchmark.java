@@ -0,0 +1,154 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import work.aaronskeels.javaknowledgedemos.transfer.ChannelTransfer;
+
+/**
+ * ChannelTransfer against the classic buffered-stream copy loop, for a file of "fileMegabytes" MiB:
+ * - file*: copy to another file on the same file system
+ * - socket*: send over one long-lived loopback TCP connection to a thread that discards what it reads
+ * The source is read once in setup, so it comes from a warm page cache and the difference is copies and system calls rather
+ * than the disk. The 10 GiB case needs 20 GiB of free disk and takes a while to set up; trim the @Param list for a quick run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+    private static final int STREAM_BUFFER = 8192;
+
+    @Param({"1", "64", "1024", "10240"})
+    public int fileMegabytes;
+
+    private Path directory;
+    private Path source;
+    private Path target;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private Thread sink;
+    private final ChannelTransfer transfer = ChannelTransfer.newBuilder().build();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("transfer-benchmark");
+        source = directory.resolve("source.bin");
+        target = directory.resolve("target.bin");
+        byte[] block = new byte[1 << 20];
+        new Random(42).nextBytes(block);
+        try (FileChannel out = FileChannel.open(source, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < fileMegabytes; i++) {
+                out.write(ByteBuffer.wrap(block));
+            }
+        }
+
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        sink = new Thread(() -> {
+            ByteBuffer discard = ByteBuffer.allocateDirect(1 << 20);
+            try (SocketChannel accepted = server.accept()) {
+                while (accepted.read(discard) >= 0) {
+                    discard.clear();
+                }
+            } catch (IOException e) {
+                // Closed in tearDown
+            }
+        }, "transfer-benchmark-sink");
+        sink.setDaemon(true);
+        sink.start();
+        client = SocketChannel.open(server.getLocalAddress());
+
+        fileStreamCopy(); // Warm the page cache for the source and allocate the target's blocks
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        client.close();
+        sink.join();
+        server.close();
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(directory);
+    }
+
+    // ---- File to file ----
+
+    @Benchmark
+    public long fileStreamCopy() throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source), STREAM_BUFFER);
+                OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), STREAM_BUFFER)) {
+            return copy(in, out);
+        }
+    }
+
+    @Benchmark
+    public long fileZeroCopy() throws IOException {
+        return transfer.copy(source, target);
+    }
+
+    // ---- File to loopback socket ----
+
+    @Benchmark
+    public long socketStreamCopy() throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source), STREAM_BUFFER)) {
+            OutputStream out = new BufferedOutputStream(client.socket().getOutputStream(), STREAM_BUFFER);
+            long copied = copy(in, out);
+            out.flush();
+            return copied;
+        }
+    }
+
+    @Benchmark
+    public long socketZeroCopy() throws IOException {
+        return transfer.send(source, client);
+    }
+
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER];
+        long copied = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransferBenchmark.class.getSimpleName()).build()).run();
+    }
+}
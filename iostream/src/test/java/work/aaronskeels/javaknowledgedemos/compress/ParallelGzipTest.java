@@ -0,0 +1,156 @@
+package work.aaronskeels.javaknowledgedemos.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.Test;
+
+public class ParallelGzipTest
+{
+    private static final int BLOCK = 32 << 10;
+
+    /** Log-like text: compressible, with repeats far enough apart to cross block boundaries. */
+    private static byte[] logLines(int bytes)
+    {
+        Random random = new Random(3);
+        String[] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+        StringBuilder text = new StringBuilder();
+        while (text.length() < bytes) {
+            text.append("2024-05-0").append(1 + random.nextInt(9)).append(" 12:").append(10 + random.nextInt(50)).append(' ')
+                    .append(levels[random.nextInt(4)]).append(" worker-").append(random.nextInt(16)).append(" request ")
+                    .append(Long.toHexString(random.nextLong())).append(" took ").append(random.nextInt(1000)).append("ms\n");
+        }
+        return text.substring(0, bytes).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] compress(byte[] data, boolean independent, int threads) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ParallelDeflaterOutputStream out = ParallelDeflaterOutputStream.newBuilder(bytes).blockSize(BLOCK).threads(threads)
+                .independentBlocks(independent).build()) {
+            // Uneven writes, so blocks fill from several calls
+            for (int at = 0; at < data.length;) {
+                int count = Math.min(data.length - at, 1 + at % 5000);
+                out.write(data, at, count);
+                at += count;
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException
+    {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** Both layouts are plain gzip to the JDK, and the dictionary keeps the single-member ratio close to GZIPOutputStream's. */
+    @Test
+    public void gzipInputStreamReadsBothLayouts() throws IOException
+    {
+        byte[] data = logLines(20 * BLOCK + 77);
+        byte[] single = compress(data, false, 4);
+        byte[] members = compress(data, true, 4);
+        assertArrayEquals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(single))));
+        assertArrayEquals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(members))));
+
+        ByteArrayOutputStream reference = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(reference)) {
+            out.write(data);
+        }
+        assertTrue(single.length + " vs " + reference.size(), single.length < reference.size() * 1.01);
+        assertTrue(members.length > single.length);
+    }
+
+    @Test
+    public void parallelReaderHandlesEveryKindOfMember() throws IOException
+    {
+        byte[] data = logLines(9 * BLOCK + 5);
+        for (boolean independent : new boolean[] {false, true}) {
+            byte[] compressed = compress(data, independent, 3);
+            assertArrayEquals(data, readAll(ParallelGzipInputStream.newBuilder(new ByteArrayInputStream(compressed)).threads(2)
+                    .bufferSize(1000).build()));
+        }
+
+        // Plain GZIPOutputStream members (with a file name) between indexed ones
+        ByteArrayOutputStream mixed = new ByteArrayOutputStream();
+        mixed.write(compress(data, true, 2));
+        mixed.write(new byte[] {0x1f, (byte) 0x8b, 8, 8, 0, 0, 0, 0, 0, 3});
+        mixed.write("name.log\0".getBytes(StandardCharsets.US_ASCII));
+        byte[] plain = compressPlain(data);
+        mixed.write(plain, 10, plain.length - 10); // Its body, after the header without a name
+        mixed.write(compress(new byte[0], true, 1));
+        mixed.write(compress(data, false, 2));
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(data);
+        expected.write(data);
+        expected.write(data);
+
+        byte[] read;
+        try (ParallelGzipInputStream in = ParallelGzipInputStream.newBuilder(new ByteArrayInputStream(mixed.toByteArray()))
+                .threads(2).build()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int b;
+            for (int i = 0; i < 100 && (b = in.read()) >= 0; i++) {
+                out.write(b); // A few single-byte reads first
+            }
+            out.write(in.readAllBytes());
+            read = out.toByteArray();
+        }
+        assertArrayEquals(expected.toByteArray(), read);
+        assertArrayEquals(expected.toByteArray(), readAll(new GZIPInputStream(new ByteArrayInputStream(mixed.toByteArray()))));
+    }
+
+    private static byte[] compressPlain(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** flush() makes everything written so far decodable; the empty stream is still a valid gzip file. */
+    @Test
+    public void flushAndEmptyStreams() throws IOException
+    {
+        for (boolean independent : new boolean[] {false, true}) {
+            assertEquals(0, readAll(new GZIPInputStream(new ByteArrayInputStream(compress(new byte[0], independent, 1)))).length);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ParallelDeflaterOutputStream out = ParallelDeflaterOutputStream.newBuilder(bytes).threads(2)
+                    .independentBlocks(independent).build();
+            out.write("hello ".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            byte[] partial = bytes.toByteArray();
+            InputStream in = new GZIPInputStream(new ByteArrayInputStream(partial));
+            byte[] prefix = new byte[6];
+            assertEquals(6, in.readNBytes(prefix, 0, 6));
+            assertEquals("hello ", new String(prefix, StandardCharsets.US_ASCII));
+            out.write("world".getBytes(StandardCharsets.US_ASCII));
+            out.close();
+            assertEquals("hello world", new String(readAll(ParallelGzipInputStream.newBuilder(
+                    new ByteArrayInputStream(bytes.toByteArray())).threads(1).build()), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void corruptMemberIsDetected() throws IOException
+    {
+        byte[] compressed = compress(logLines(4 * BLOCK), true, 2);
+        compressed[compressed.length - 5] ^= 1; // Last member's CRC
+        readAll(ParallelGzipInputStream.newBuilder(new ByteArrayInputStream(compressed)).threads(2).build());
+    }
+}
@@ -0,0 +1,223 @@
+package work.aaronskeels.javaknowledgedemos.concat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class PrefetchingSequenceInputStreamTest
+{
+    private final AtomicInteger openSources = new AtomicInteger();
+
+    private static byte[] data(int source)
+    {
+        byte[] data = new byte[source * 10_007 % 200_000];
+        new Random(source).nextBytes(data);
+        return data;
+    }
+
+    /** A source over data(i) that counts how many of its streams are open. */
+    private StreamSource source(int i)
+    {
+        return () -> {
+            openSources.incrementAndGet();
+            return new FilterInputStream(new ByteArrayInputStream(data(i))) {
+                @Override
+                public void close()
+                {
+                    openSources.decrementAndGet();
+                }
+            };
+        };
+    }
+
+    private List<StreamSource> sources(int count)
+    {
+        List<StreamSource> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sources.add(source(i));
+        }
+        return sources;
+    }
+
+    private static void awaitNoneOpen(AtomicInteger open) throws InterruptedException
+    {
+        for (int i = 0; i < 500 && open.get() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, open.get());
+    }
+
+    @Test
+    public void bytesComeOutInSourceOrder() throws Exception
+    {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 40; i++) {
+            expected.write(data(i));
+        }
+        try (InputStream in = PrefetchingSequenceInputStream.newBuilder(sources(40)).prefetch(3).bufferSize(4096).build()) {
+            assertArrayEquals(expected.toByteArray(), in.readAllBytes());
+            assertEquals(-1, in.read());
+        }
+        awaitNoneOpen(openSources);
+    }
+
+    @Test
+    public void aFailingSourceFailsAtItsTurn() throws Exception
+    {
+        List<StreamSource> sources = sources(3);
+        sources.add(1, () -> new InputStream() {
+            @Override
+            public int read() throws IOException
+            {
+                throw new IOException("Disk on fire");
+            }
+        });
+        try (InputStream in = PrefetchingSequenceInputStream.newBuilder(sources).build()) {
+            assertEquals(0, data(0).length);
+            in.readAllBytes();
+            fail("Source 1 should fail");
+        } catch (IOException e) {
+            assertEquals("Disk on fire", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void closeCancelsPrefetchingAndClosesSources() throws Exception
+    {
+        // Sources far larger than their buffers, so every prefetch task is blocked on a full pipe
+        List<StreamSource> sources = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sources.add(() -> {
+                openSources.incrementAndGet();
+                return new FilterInputStream(new ByteArrayInputStream(new byte[1 << 20])) {
+                    @Override
+                    public void close()
+                    {
+                        openSources.decrementAndGet();
+                    }
+                };
+            });
+        }
+        InputStream in = PrefetchingSequenceInputStream.newBuilder(sources).prefetch(4).bufferSize(4096).build();
+        assertEquals(100, in.readNBytes(100).length);
+        assertTrue(openSources.get() <= 5);
+        in.close();
+        awaitNoneOpen(openSources);
+    }
+
+    @Test
+    public void chunksFromEverySourceReachParallelConsumers() throws Exception
+    {
+        int sourceCount = 30;
+        ExecutorService consumers = Executors.newFixedThreadPool(3);
+        try (ChunkReader reader = ChunkReader.newBuilder(sources(sourceCount)).parallelism(3).chunkSize(8192).build()) {
+            byte[][] received = new byte[sourceCount][];
+            AtomicInteger lastChunks = new AtomicInteger();
+            for (int i = 0; i < sourceCount; i++) {
+                received[i] = new byte[data(i).length];
+            }
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                results.add(consumers.submit(() -> {
+                    Chunk chunk;
+                    while ((chunk = reader.next()) != null) {
+                        System.arraycopy(chunk.bytes(), 0, received[chunk.source()], (int) chunk.position(), chunk.length());
+                        if (chunk.last()) {
+                            lastChunks.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            assertEquals(sourceCount, lastChunks.get());
+            for (int i = 0; i < sourceCount; i++) {
+                assertArrayEquals(data(i), received[i]);
+            }
+            assertNull(reader.next());
+        } finally {
+            consumers.shutdown();
+        }
+        awaitNoneOpen(openSources);
+    }
+
+    @Test
+    public void aFailingSourceStopsTheChunkReader() throws Exception
+    {
+        List<StreamSource> sources = sources(20);
+        sources.set(5, () -> {
+            throw new IOException("Gone");
+        });
+        try (ChunkReader reader = ChunkReader.newBuilder(sources).parallelism(2).queueCapacity(2).build()) {
+            while (reader.next() != null) {
+                // Drain until the failure arrives
+            }
+            fail("Source 5 should fail");
+        } catch (IOException e) {
+            assertEquals("Gone", e.getCause().getCause().getMessage());
+        }
+        awaitNoneOpen(openSources);
+    }
+
+    @Test
+    public void closeWakesConsumersWaitingForAChunk() throws Exception
+    {
+        CountDownLatch never = new CountDownLatch(1);
+        List<StreamSource> sources = List.of(() -> new InputStream() {
+            @Override
+            public int read() throws IOException
+            {
+                try {
+                    never.await(); // A source that stalls until interrupted
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("Cancelled");
+                }
+                return -1;
+            }
+        });
+        ExecutorService consumers = Executors.newFixedThreadPool(2);
+        ChunkReader reader = ChunkReader.newBuilder(sources).build();
+        try {
+            List<Future<Chunk>> results = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                results.add(consumers.submit(reader::next));
+            }
+            Thread.sleep(100); // Both consumers are blocked in next()
+            reader.close();
+            for (Future<Chunk> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    fail("next() should fail once the reader is closed");
+                } catch (ExecutionException e) {
+                    assertEquals("Reader closed", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            reader.close(); // Already closed unless an assertion failed first
+            consumers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package work.aaronskeels.javaknowledgedemos.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CsvParserTest
+{
+    /** Every record as its list of decoded fields. */
+    private static List<List<String>> strings(String text, int windowSize) throws IOException
+    {
+        List<List<String>> records = new ArrayList<>();
+        RecordVisitor collect = record -> {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < record.size(); i++) {
+                fields.add(record.getString(i));
+            }
+            records.add(fields);
+        };
+        CsvParser.newBuilder().windowSize(windowSize).build()
+                .parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), collect);
+        return records;
+    }
+
+    @Test
+    public void quotingAndLineEndings() throws IOException
+    {
+        String text = "a,b,c\r\n" + "\"x, y\",\"say \"\"hi\"\"\",\n" + "\n" + "\"multi\nline\",caf\u00e9,\"\"\r\n" + "last,,end";
+        List<List<String>> expected = List.of(List.of("a", "b", "c"), List.of("x, y", "say \"hi\"", ""),
+                List.of("multi\nline", "caf\u00e9", ""), List.of("last", "", "end"));
+        // Tiny windows split records, quotes and \r\n pairs at every possible position
+        for (int windowSize = 16; windowSize <= 64; windowSize++) {
+            assertEquals("window " + windowSize, expected, strings(text, windowSize));
+        }
+        assertEquals(List.of(List.of("a", "")), strings("a,", 16));
+        assertEquals(List.of(List.of("x")), strings("x\r", 16));
+    }
+
+    @Test
+    public void numbersParseWithoutStrings() throws IOException
+    {
+        String text = "9223372036854775807,-9223372036854775808,-42,+7\n"
+                + "1.5,-0.001,6.02214076e23,123456789012345678\n"
+                + "0.1,1e-7,NaN,-0\n";
+        long[] longs = new long[4];
+        double[][] doubles = new double[2][];
+        CsvParser.newBuilder().build().parse(text.getBytes(StandardCharsets.US_ASCII), 0, text.length(), record -> {
+            if (record.number() == 0) {
+                for (int i = 0; i < 4; i++) {
+                    longs[i] = record.getLong(i);
+                }
+                assertEquals(-42, record.getInt(2));
+            } else {
+                double[] values = new double[4];
+                for (int i = 0; i < 4; i++) {
+                    values[i] = record.getDouble(i);
+                }
+                doubles[(int) record.number() - 1] = values;
+            }
+        });
+        assertEquals(Long.MAX_VALUE, longs[0]);
+        assertEquals(Long.MIN_VALUE, longs[1]);
+        assertEquals(7, longs[3]);
+        assertEquals(1.5, doubles[0][0], 0);
+        assertEquals(-0.001, doubles[0][1], 0);
+        assertEquals(6.02214076e23, doubles[0][2], 0);
+        assertEquals(123456789012345678d, doubles[0][3], 0);
+        assertEquals(0.1, doubles[1][0], 0);
+        assertEquals(1e-7, doubles[1][1], 0);
+        assertTrue(Double.isNaN(doubles[1][2]));
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(doubles[1][3]));
+
+        // The fast path agrees with Double.parseDouble() bit for bit
+        Random random = new Random(5);
+        StringBuilder many = new StringBuilder();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String exponent = i % 3 == 0 ? "e" + (random.nextInt(40) - 20) : "";
+            String value = random.nextInt(1_000_000) + "." + random.nextInt(100_000) + exponent;
+            values.add(value);
+            many.append(value).append('\n');
+        }
+        int[] index = {0};
+        CsvParser.newBuilder().build().parse(ByteBuffer.wrap(many.toString().getBytes(StandardCharsets.US_ASCII)), record -> {
+            String value = values.get(index[0]++);
+            assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)), Double.doubleToLongBits(record.getDouble(0)));
+        });
+        assertEquals(values.size(), index[0]);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void longOverflowIsRejected() throws IOException
+    {
+        CsvParser.newBuilder().build().parse(new ByteArrayInputStream("9223372036854775808".getBytes(StandardCharsets.US_ASCII)),
+                record -> record.getLong(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void unterminatedQuoteIsAnError() throws IOException
+    {
+        strings("a,\"never closed\nb,c\n", 1024);
+    }
+
+    @Test
+    public void headerTabsAndFieldHelpers() throws IOException
+    {
+        CsvParser parser = CsvParser.newBuilder().delimiter('\t').header(true).build();
+        byte[] copy = new byte[16];
+        List<String> seen = new ArrayList<>();
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.put("id\tname\n1\t\"a\"\"b\"\n2\t\n".getBytes(StandardCharsets.US_ASCII)).flip();
+        assertEquals(2, parser.parse(direct, record -> {
+            seen.add(record.number() + ":" + record.getLong(0));
+            if (record.number() == 0) {
+                assertTrue(record.contentEquals(1, "a\"b"));
+                assertFalse(record.contentEquals(1, "a\"\"b"));
+                assertEquals(3, record.length(1));
+                assertEquals(3, record.copy(1, copy, 0));
+                assertEquals("a\"b", new String(copy, 0, 3, StandardCharsets.US_ASCII));
+            } else {
+                assertTrue(record.isEmpty(1));
+            }
+        }));
+        assertEquals(List.of("0:1", "1:2"), seen);
+    }
+
+    /** Per-part visitors cover every record exactly once, whatever the split points land on. */
+    @Test
+    public void parallelPartsCoverTheFile() throws IOException
+    {
+        Path directory = Files.createTempDirectory("csv-parser-test");
+        Path file = directory.resolve("data.csv");
+        try {
+            StringBuilder text = new StringBuilder("id,amount\n");
+            long expectedSum = 0;
+            for (int i = 0; i < 10_000; i++) {
+                text.append(i).append(',').append(i % 7 == 0 ? "\"" + i * 3 + "\"" : String.valueOf(i * 3)).append('\n');
+                expectedSum += i * 3;
+            }
+            Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+            CsvParser parser = CsvParser.newBuilder().header(true).windowSize(100).build();
+            for (int threads : new int[] {1, 3, 8, 64}) {
+                List<Summer> parts = parser.parseParallel(file, threads, Summer::new);
+                assertEquals(threads, parts.size());
+                long sum = 0;
+                long count = 0;
+                long nextId = 0;
+                for (Summer part : parts) {
+                    sum += part.sum;
+                    count += part.count;
+                    if (part.count > 0) {
+                        assertEquals(nextId, part.firstId);
+                        nextId = part.firstId + part.count;
+                    }
+                }
+                assertEquals(expectedSum, sum);
+                assertEquals(10_000, count);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static final class Summer implements RecordVisitor
+    {
+        long sum;
+        long count;
+        long firstId = -1;
+
+        @Override
+        public void record(CsvRecord record)
+        {
+            if (firstId < 0) {
+                firstId = record.getLong(0);
+            }
+            sum += record.getLong(1);
+            count++;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package work.aaronskeels.javaknowledgedemos.log;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentedLogTest
+{
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException
+    {
+        directory = Files.createTempDirectory("segmented-log-test");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private SegmentedLog.Builder builder()
+    {
+        return SegmentedLog.newBuilder(directory).segmentSize(4096).indexInterval(256).syncPolicy(SyncPolicy.NONE);
+    }
+
+    private static byte[] record(long offset)
+    {
+        byte[] record = new byte[(int) (offset * 7 % 200)];
+        new Random(offset).nextBytes(record);
+        return record;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void recordsAreFoundByOffsetAcrossSegments() throws IOException
+    {
+        try (SegmentedLog log = builder().open()) {
+            for (long i = 0; i < 1000; i++) {
+                assertEquals(i, log.append(record(i)));
+            }
+            assertTrue(log.segmentCount() > 10);
+            Random random = new Random(3);
+            for (int i = 0; i < 300; i++) {
+                long offset = random.nextInt(1000);
+                assertArrayEquals(record(offset), log.read(offset));
+            }
+            assertNull(log.read(1000));
+
+            LogReader reader = log.reader(0);
+            for (long i = 0; i < 1000; i++) {
+                assertTrue(reader.next());
+                assertEquals(i, reader.offset());
+                assertArrayEquals(record(i), bytes(reader.payload()));
+            }
+            assertFalse(reader.next());
+            // Tailing: records appended later show up
+            log.append(record(1000));
+            assertTrue(reader.next());
+            assertEquals(1000, reader.offset());
+
+            reader = log.reader(777);
+            assertTrue(reader.next());
+            assertEquals(777, reader.offset());
+        }
+    }
+
+    @Test
+    public void openingRecoversATornTailAndMissingIndexes() throws IOException
+    {
+        try (SegmentedLog log = builder().open()) {
+            for (long i = 0; i < 300; i++) {
+                log.append(record(i));
+            }
+        }
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.toString().endsWith(".log")).sorted().forEach(segments::add);
+        }
+        Path last = segments.get(segments.size() - 1);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5); // The last record loses its end
+        }
+        Files.delete(Path.of(segments.get(1).toString().replace(".log", ".index")));
+
+        try (SegmentedLog log = builder().open()) {
+            assertEquals(299, log.nextOffset());
+            assertNull(log.read(299));
+            for (long i = 0; i < 299; i++) {
+                assertArrayEquals(record(i), log.read(i));
+            }
+            assertEquals(299, log.append(record(299)));
+            assertArrayEquals(record(299), log.read(299));
+        }
+    }
+
+    @Test
+    public void aTornRecordAtAnIndexEntryKeepsTheOffsetsBeforeIt() throws IOException
+    {
+        byte[] payload = new byte[64];
+        try (SegmentedLog log = builder().indexInterval(50).open()) { // Every record gets an index entry
+            for (int i = 0; i < 9; i++) {
+                payload[0] = (byte) i;
+                log.append(payload);
+            }
+        }
+        Path segment = directory.resolve(LogSegment.fileName(0) + LogSegment.LOG_SUFFIX);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        try (SegmentedLog log = builder().indexInterval(50).open()) {
+            assertEquals(8, log.nextOffset());
+            assertNull(log.read(8));
+            for (int i = 0; i < 8; i++) {
+                assertEquals(i, log.read(i)[0]);
+            }
+            payload[0] = 42;
+            assertEquals(8, log.append(payload));
+            assertEquals(0, log.read(0)[0]);
+            assertEquals(42, log.read(8)[0]);
+        }
+        try (SegmentedLog log = builder().indexInterval(50).open()) {
+            assertEquals(9, log.nextOffset());
+        }
+    }
+
+    @Test
+    public void groupCommitSharesSyncsBetweenAppenders() throws Exception
+    {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try (SegmentedLog log = builder().syncPolicy(SyncPolicy.GROUP_COMMIT).open()) {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(threads.submit(() -> {
+                    List<Long> offsets = new ArrayList<>();
+                    for (int i = 0; i < 100; i++) {
+                        offsets.add(log.append("record".getBytes(StandardCharsets.US_ASCII)));
+                    }
+                    return offsets;
+                }));
+            }
+            Set<Long> offsets = new HashSet<>();
+            for (Future<List<Long>> result : results) {
+                offsets.addAll(result.get());
+            }
+            assertEquals(400, offsets.size());
+            assertEquals(400, log.nextOffset());
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    private static byte[] keyed(long offset)
+    {
+        return ("key" + offset % 8 + "=" + offset).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Retention and compaction close segments that reads may still be using; those reads must neither crash nor misread. */
+    @Test
+    public void readsRaceRetentionAndCompaction() throws Exception
+    {
+        ExecutorService threads = Executors.newFixedThreadPool(6);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try (SegmentedLog log = builder().segmentSize(1024).indexInterval(64).retentionBytes(4096).open()) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(threads.submit((Callable<Void>) () -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (writing.get()) {
+                        long offset = random.nextLong(log.firstOffset(), log.nextOffset() + 1);
+                        byte[] record = log.read(offset);
+                        if (record != null) { // Null once retention or compaction removed it
+                            assertArrayEquals(keyed(offset), record);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            results.add(threads.submit((Callable<Void>) () -> {
+                LogReader reader = log.reader(0);
+                long previous = -1;
+                while (writing.get()) {
+                    while (reader.next()) {
+                        assertTrue(reader.offset() > previous);
+                        previous = reader.offset();
+                        assertArrayEquals(keyed(previous), bytes(reader.payload()));
+                    }
+                }
+                return null;
+            }));
+            results.add(threads.submit((Callable<Void>) () -> {
+                try {
+                    for (long i = 0; i < 20_000; i++) {
+                        log.append(keyed(i));
+                        if (i % 500 == 499) {
+                            log.compact(payload -> {
+                                String text = StandardCharsets.US_ASCII.decode(payload).toString();
+                                return text.substring(0, text.indexOf('='));
+                            });
+                        }
+                    }
+                } finally {
+                    writing.set(false);
+                }
+                return null;
+            }));
+            for (Future<?> result : results) {
+                result.get();
+            }
+            assertEquals(20_000, log.nextOffset());
+            assertArrayEquals(keyed(19_999), log.read(19_999));
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void oldSegmentsAreDeleted() throws IOException
+    {
+        try (SegmentedLog log = builder().retentionBytes(10_000).open()) {
+            for (long i = 0; i < 1000; i++) {
+                log.append(record(i));
+            }
+            assertTrue(log.size() <= 10_000 + 4096);
+            assertTrue(log.firstOffset() > 0);
+            assertNull(log.read(0));
+            assertEquals(log.firstOffset(), positionedAt(log, 0));
+
+            int before = log.segmentCount();
+            assertTrue(log.deleteBefore(log.nextOffset()) > 0);
+            assertEquals(1, log.segmentCount());
+            assertTrue(before > 1);
+            assertArrayEquals(record(999), log.read(999));
+        }
+    }
+
+    private static long positionedAt(SegmentedLog log, long offset) throws IOException
+    {
+        LogReader reader = log.reader(offset);
+        assertTrue(reader.next());
+        return reader.offset();
+    }
+
+    @Test
+    public void compactionKeepsTheLatestRecordPerKey() throws IOException
+    {
+        try (SegmentedLog log = builder().open()) {
+            for (int i = 0; i < 500; i++) {
+                log.append(("key" + i % 10 + "=" + i + "-".repeat(40)).getBytes(StandardCharsets.US_ASCII));
+            }
+            int segments = log.segmentCount();
+            log.compact(payload -> {
+                String text = StandardCharsets.US_ASCII.decode(payload).toString();
+                return text.substring(0, text.indexOf('='));
+            });
+            assertTrue(log.segmentCount() < segments);
+            // Each key's latest record survives at its offset; the active segment is never compacted
+            for (int i = 490; i < 500; i++) {
+                assertTrue(new String(log.read(i), StandardCharsets.US_ASCII).startsWith("key" + i % 10 + "=" + i + "-"));
+            }
+            assertNull(log.read(0));
+            LogReader reader = log.reader(0);
+            long previous = -1;
+            int count = 0;
+            while (reader.next()) {
+                assertTrue(reader.offset() > previous);
+                previous = reader.offset();
+                count++;
+            }
+            assertEquals(499, previous);
+            assertTrue(count < 500);
+        }
+        try (SegmentedLog log = builder().open()) {
+            assertEquals(500, log.nextOffset());
+            assertArrayEquals(("key9=499" + "-".repeat(40)).getBytes(StandardCharsets.US_ASCII), log.read(499));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recordsMustFitInASegment() throws IOException
+    {
+        try (SegmentedLog log = builder().open()) {
+            log.append(new byte[4096]);
+        }
+    }
+}
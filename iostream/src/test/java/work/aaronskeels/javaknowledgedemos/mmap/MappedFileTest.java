@@ -0,0 +1,185 @@
+package work.aaronskeels.javaknowledgedemos.mmap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedFileTest
+{
+    private static final int WINDOW = 4096;
+
+    private Path directory;
+    private Path path;
+
+    @Before
+    public void createDirectory() throws IOException
+    {
+        directory = Files.createTempDirectory("mapped-file-test");
+        path = directory.resolve("data.bin");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private MappedFile open(boolean writable) throws IOException
+    {
+        return MappedFile.newBuilder(path).windowSize(WINDOW).writable(writable).open();
+    }
+
+    /** Values placed right on window boundaries read back intact, from the same mapping and after reopening read-only. */
+    @Test
+    public void typedValuesAcrossWindows() throws IOException
+    {
+        try (MappedFile file = open(true)) {
+            assertEquals(0, file.size());
+            file.putLong(WINDOW - 4, 0x0102030405060708L);
+            file.putInt(2 * WINDOW - 2, -42);
+            file.putDouble(3 * WINDOW - 1, Math.PI);
+            file.putShort(10, (short) 0xBEEF);
+            file.putChar(12, 'x');
+            file.putFloat(14, 1.5f);
+            file.putByte(18, (byte) 7);
+            assertEquals(3 * WINDOW + 7, file.size());
+            assertEquals(0x0102030405060708L, file.getLong(WINDOW - 4));
+        }
+        assertEquals(3 * WINDOW + 7, Files.size(path)); // Trimmed back from the last window's mapping
+        try (MappedFile file = open(false)) {
+            assertEquals(0x0102030405060708L, file.getLong(WINDOW - 4));
+            assertEquals(0x05060708, file.getInt(WINDOW));
+            assertEquals(-42, file.getInt(2 * WINDOW - 2));
+            assertEquals(Math.PI, file.getDouble(3 * WINDOW - 1), 0);
+            assertEquals((short) 0xBEEF, file.getShort(10));
+            assertEquals('x', file.getChar(12));
+            assertEquals(1.5f, file.getFloat(14), 0);
+            assertEquals(7, file.getByte(18));
+            assertEquals(0, file.getByte(100)); // Never written: a hole reads as zeros
+        }
+    }
+
+    @Test
+    public void bulkCopiesSpanWindows() throws IOException
+    {
+        byte[] data = new byte[5 * WINDOW + 123];
+        new Random(1).nextBytes(data);
+        try (MappedFile file = open(true)) {
+            file.put(WINDOW / 2, data, 0, data.length);
+        }
+        byte[] expected = new byte[WINDOW / 2 + data.length];
+        System.arraycopy(data, 0, expected, WINDOW / 2, data.length);
+        assertArrayEquals(expected, Files.readAllBytes(path));
+
+        try (MappedFile file = open(false)) {
+            byte[] copy = new byte[data.length];
+            file.get(WINDOW / 2, copy, 0, copy.length);
+            assertArrayEquals(data, copy);
+        }
+    }
+
+    /** The reader/writer pair is byte-for-byte compatible with DataInputStream/DataOutputStream. */
+    @Test
+    public void readerAndWriterMatchDataStreams() throws IOException
+    {
+        String text = "caf\u00e9 \u2603 \u0000 end";
+        try (MappedFile file = open(true)) {
+            MappedFileWriter writer = file.writer(0);
+            writer.writeBoolean(true);
+            writer.writeInt(123_456);
+            writer.writeLong(-1L);
+            writer.writeUTF(text);
+            writer.writeChars("ab");
+            writer.writeBytes("line one\r\nline two\n");
+            writer.writeDouble(2.5);
+
+            MappedFileReader reader = file.reader(0);
+            assertTrue(reader.readBoolean());
+            assertEquals(123_456, reader.readInt());
+            assertEquals(-1L, reader.readLong());
+            assertEquals(text, reader.readUTF());
+            assertEquals('a', reader.readChar());
+            assertEquals('b', reader.readChar());
+            assertEquals("line one", reader.readLine());
+            assertEquals("line two", reader.readLine());
+            assertEquals(2.5, reader.readDouble(), 0);
+            assertEquals(-1, reader.read());
+            assertNull(reader.readLine());
+            try {
+                reader.readInt();
+                throw new AssertionError("Expected EOFException");
+            } catch (EOFException expected) {
+                // Past the end
+            }
+        }
+
+        Path streamed = directory.resolve("streamed.bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(streamed)))) {
+            out.writeBoolean(true);
+            out.writeInt(123_456);
+            out.writeLong(-1L);
+            out.writeUTF(text);
+            out.writeChars("ab");
+            out.writeBytes("line one\r\nline two\n");
+            out.writeDouble(2.5);
+        }
+        byte[] mapped = Files.readAllBytes(path);
+        assertArrayEquals(Files.readAllBytes(streamed), mapped);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(mapped, 13, mapped.length - 13));
+        assertEquals(text, in.readUTF());
+    }
+
+    @Test
+    public void littleEndianOrder() throws IOException
+    {
+        try (MappedFile file = MappedFile.newBuilder(path).writable(true).order(ByteOrder.LITTLE_ENDIAN).open()) {
+            file.putInt(0, 0x01020304);
+            assertEquals(0x04, file.getByte(0));
+        }
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void readOnlyRejectsWrites() throws IOException
+    {
+        Files.write(path, new byte[16]);
+        try (MappedFile file = open(false)) {
+            file.putInt(0, 1);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void readsStopAtSize() throws IOException
+    {
+        Files.write(path, new byte[16]);
+        try (MappedFile file = open(false)) {
+            file.getLong(9);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowSizeMustBePowerOfTwo()
+    {
+        MappedFile.newBuilder(path).windowSize(5000);
+    }
+}
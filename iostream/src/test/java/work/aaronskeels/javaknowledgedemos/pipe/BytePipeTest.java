@@ -0,0 +1,169 @@
+package work.aaronskeels.javaknowledgedemos.pipe;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BytePipeTest
+{
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutdown()
+    {
+        writer.shutdownNow();
+    }
+
+    private static byte[] data(int size)
+    {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void streamsCarryEveryByteInOrderUnderEachWaitStrategy() throws Exception
+    {
+        byte[] data = data(1 << 20);
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            BytePipe pipe = BytePipe.newBuilder().capacity(1000).waitStrategy(waitStrategy).build();
+            assertEquals(1024, pipe.capacity());
+            Future<?> written = writer.submit(() -> {
+                // Odd chunk sizes so copies straddle the wrap-around
+                try (OutputStream out = pipe.outputStream()) {
+                    Random random = new Random(1);
+                    int position = 0;
+                    while (position < data.length) {
+                        int n = Math.min(random.nextInt(3000), data.length - position);
+                        if (n == 0) {
+                            out.write(data[position++]);
+                        } else {
+                            out.write(data, position, n);
+                            position += n;
+                        }
+                    }
+                }
+                return null;
+            });
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            try (InputStream in = pipe.inputStream()) {
+                byte[] chunk = new byte[777];
+                int n;
+                while ((n = in.read(chunk)) >= 0) {
+                    received.write(chunk, 0, n);
+                    int b = in.read();
+                    if (b >= 0) {
+                        received.write(b);
+                    }
+                }
+            }
+            written.get();
+            assertArrayEquals(data, received.toByteArray());
+        }
+    }
+
+    @Test
+    public void byteBufferApiMovesBulkRuns() throws Exception
+    {
+        byte[] data = data(300_000);
+        BytePipe pipe = BytePipe.newBuilder().capacity(4096).build();
+        Future<?> written = writer.submit(() -> {
+            ByteBuffer direct = ByteBuffer.allocateDirect(10_000);
+            for (int position = 0; position < data.length; position += direct.capacity()) {
+                direct.clear();
+                direct.put(data, position, Math.min(direct.capacity(), data.length - position)).flip();
+                pipe.write(direct);
+                assertEquals(0, direct.remaining());
+            }
+            pipe.closeWrite();
+            return null;
+        });
+        ByteBuffer received = ByteBuffer.allocate(data.length);
+        ByteBuffer chunk = ByteBuffer.allocateDirect(5000);
+        while (pipe.read(chunk.clear()) >= 0) {
+            received.put(chunk.flip());
+        }
+        written.get();
+        assertArrayEquals(data, received.array());
+    }
+
+    @Test
+    public void tryMethodsNeverWait() throws IOException
+    {
+        BytePipe pipe = BytePipe.newBuilder().capacity(16).build();
+        ByteBuffer in = ByteBuffer.wrap(data(20));
+        assertEquals(16, pipe.tryWrite(in));
+        assertEquals(0, pipe.tryWrite(in));
+        assertEquals(16, pipe.available());
+
+        ByteBuffer out = ByteBuffer.allocate(20);
+        assertEquals(10, pipe.tryRead(out.limit(10)));
+        assertEquals(4, pipe.tryWrite(in)); // Wraps around
+        assertEquals(10, pipe.tryRead(out.limit(20)));
+        assertEquals(0, pipe.tryRead(out));
+        pipe.closeWrite();
+        assertEquals(-1, pipe.tryRead(out));
+        assertArrayEquals(data(20), out.array());
+    }
+
+    @Test
+    public void closingTheReadEndFailsTheWriter() throws Exception
+    {
+        BytePipe pipe = BytePipe.newBuilder().capacity(16).build();
+        Future<?> written = writer.submit(() -> {
+            pipe.outputStream().write(new byte[100]); // Blocks once the pipe is full
+            return null;
+        });
+        while (pipe.available() < 16) {
+            Thread.onSpinWait();
+        }
+        pipe.inputStream().close();
+        try {
+            written.get();
+            fail("The writer should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        try {
+            pipe.read(new byte[1], 0, 1);
+            fail("The closed read end should fail");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void aWaitingReaderCanBeInterrupted() throws Exception
+    {
+        BytePipe pipe = BytePipe.newBuilder().build();
+        Thread.currentThread().interrupt();
+        try {
+            pipe.read(ByteBuffer.allocate(1));
+            fail("The read should be interrupted");
+        } catch (InterruptedIOException expected) {
+        }
+        pipe.write(ByteBuffer.wrap(new byte[] {42}));
+        assertEquals(42, pipe.inputStream().read());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityIsBounded()
+    {
+        BytePipe.newBuilder().capacity(8);
+    }
+}
@@ -0,0 +1,145 @@
+package work.aaronskeels.javaknowledgedemos.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BufferPoolTest
+{
+    @Test
+    public void requestsAreRoundedToSizeClassesAndReused()
+    {
+        BufferPool pool = BufferPool.newBuilder().minSize(1024).maxSize(64 << 10).build();
+        PooledBuffer first = pool.acquire(3000);
+        ByteBuffer buffer = first.buffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(4096, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(3000, buffer.limit());
+        buffer.putInt(42);
+        assertTrue(first.release());
+
+        try (PooledBuffer second = pool.acquire(4096)) {
+            assertSame(buffer, second.buffer());
+            assertEquals(0, second.buffer().position());
+            assertEquals(4096, second.buffer().limit());
+        }
+        try (PooledBuffer small = pool.acquire(1)) {
+            assertEquals(1024, small.buffer().capacity());
+        }
+        try (PooledBuffer large = pool.acquire((64 << 10) + 1)) {
+            assertEquals((64 << 10) + 1, large.buffer().capacity());
+        }
+
+        BufferPoolMetrics metrics = pool.metrics();
+        assertEquals(4, metrics.acquireCount());
+        assertEquals(1, metrics.threadCacheHitCount());
+        assertEquals(3, metrics.allocationCount());
+        assertEquals(4096 + 1024 + (64 << 10) + 1, metrics.allocatedBytes());
+        assertEquals(1, metrics.unpooledCount());
+        assertEquals(0, metrics.inUseBytes());
+        assertEquals(1.0 / 3, metrics.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void lastReleaseReturnsTheBuffer()
+    {
+        BufferPool pool = BufferPool.newBuilder().build();
+        PooledBuffer buffer = pool.acquire(100);
+        assertSame(buffer, buffer.retain());
+        assertEquals(2, buffer.referenceCount());
+        assertEquals(512, pool.metrics().inUseBytes());
+        assertFalse(buffer.release());
+        buffer.buffer().put((byte) 1);
+        assertTrue(buffer.release());
+        assertEquals(0, buffer.referenceCount());
+        assertEquals(0, pool.metrics().inUseBytes());
+        for (Runnable misuse : List.<Runnable>of(buffer::release, buffer::retain, buffer::buffer)) {
+            try {
+                misuse.run();
+                throw new AssertionError("Expected IllegalStateException");
+            } catch (IllegalStateException expected) {
+                // Already released
+            }
+        }
+    }
+
+    /** Buffers released by one thread are found by another through the arena, and the arena's capacity is respected. */
+    @Test
+    public void threadCachesShareThroughTheArena() throws InterruptedException
+    {
+        BufferPool pool = BufferPool.newBuilder().minSize(1024).maxSize(1024).threadCacheSize(4).arenaCapacity(4 * 1024).build();
+        List<PooledBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            buffers.add(pool.acquire(1024));
+        }
+        Thread releaser = new Thread(() -> buffers.forEach(PooledBuffer::release));
+        releaser.start();
+        releaser.join();
+        // 16 released by a cache of 4: spilled 2 at a time, the arena keeping 4 and dropping 8
+        assertEquals(4 * 1024, pool.metrics().arenaBytes());
+
+        BufferPoolMetrics before = pool.metrics();
+        for (int i = 0; i < 6; i++) {
+            buffers.set(i, pool.acquire(1024));
+        }
+        BufferPoolMetrics delta = pool.metrics().minus(before);
+        assertEquals(2, delta.arenaHitCount()); // Refills of 2
+        assertEquals(2, delta.threadCacheHitCount());
+        assertEquals(2, delta.allocationCount());
+        assertEquals(0, delta.arenaBytes());
+        assertEquals(6 * 1024, delta.inUseBytes());
+    }
+
+    @Test
+    public void withoutThreadCachesEverythingGoesThroughTheArena()
+    {
+        BufferPool pool = BufferPool.newBuilder().threadCacheSize(0).direct(false).build();
+        PooledBuffer buffer = pool.acquire(600);
+        ByteBuffer heap = buffer.buffer();
+        assertFalse(heap.isDirect());
+        buffer.release();
+        assertEquals(1024, pool.metrics().arenaBytes());
+        try (PooledBuffer again = pool.acquire(1000); PooledBuffer other = pool.acquire(1000)) {
+            assertSame(heap, again.buffer());
+            assertNotSame(heap, other.buffer());
+        }
+        assertEquals(1, pool.metrics().arenaHitCount());
+        assertEquals(2, pool.metrics().allocationCount());
+        assertEquals(2048, pool.metrics().arenaBytes());
+    }
+
+    @Test
+    public void unreleasedBuffersAreReportedAsLeaks() throws InterruptedException
+    {
+        BufferPool pool = BufferPool.newBuilder().leakDetection(true).build();
+        pool.acquire(2048).release();
+        acquireAndForget(pool);
+        for (int i = 0; i < 100 && pool.metrics().leakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        BufferPoolMetrics metrics = pool.metrics();
+        assertEquals(1, metrics.leakCount());
+        assertEquals(0, metrics.inUseBytes());
+    }
+
+    private static void acquireAndForget(BufferPool pool)
+    {
+        pool.acquire(1000).buffer().putLong(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizesMustBePowersOfTwo()
+    {
+        BufferPool.newBuilder().minSize(1000);
+    }
+}
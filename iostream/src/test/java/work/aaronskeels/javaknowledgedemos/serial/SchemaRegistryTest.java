@@ -0,0 +1,212 @@
+package work.aaronskeels.javaknowledgedemos.serial;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SchemaRegistryTest
+{
+    enum Status { NEW, SHIPPED }
+
+    record Address(String street, String city, int zip) implements Serializable
+    {
+    }
+
+    static class Line implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private String sku;
+        private int quantity;
+        private double price;
+
+        Line()
+        {
+        }
+
+        Line(String sku, int quantity, double price)
+        {
+            this.sku = sku;
+            this.quantity = quantity;
+            this.price = price;
+        }
+    }
+
+    static class Order implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private long id;
+        private String customer;
+        private Status status;
+        private Address shipTo;
+        private List<Line> lines = new ArrayList<>();
+        private List<String> tags;
+        private boolean gift;
+        private char grade;
+        private byte priority;
+        private short region;
+        private float discount;
+        private Long reference;
+        private byte[] signature;
+        private int retries = 3;
+    }
+
+    private static final SchemaRegistry REGISTRY = SchemaRegistry.newBuilder()
+            .register(Schema.newBuilder(Order.class).field(1, "id").field(2, "customer").field(3, "status").field(4, "shipTo")
+                    .field(5, "lines").field(6, "tags").field(7, "gift").field(8, "grade").field(9, "priority")
+                    .field(10, "region").field(11, "discount").field(12, "reference").field(13, "signature")
+                    .field(14, "retries").build())
+            .register(Schema.newBuilder(Line.class).field(1, "sku").field(2, "quantity").field(3, "price").build())
+            .register(Schema.newBuilder(Address.class).field(1, "street").field(2, "city").field(3, "zip").build())
+            .build();
+
+    private static Order order()
+    {
+        Order order = new Order();
+        order.id = -123_456_789_012L;
+        order.customer = "Zo\u00eb's \u2603 shop";
+        order.status = Status.SHIPPED;
+        order.shipTo = new Address("1 Main St", "Springfield", 12345);
+        for (int i = 0; i < 20; i++) {
+            order.lines.add(new Line("SKU-" + i, i, i * 1.25));
+        }
+        order.tags = List.of("a", "", "c");
+        order.gift = true;
+        order.grade = 'B';
+        order.priority = -3;
+        order.region = 300;
+        order.discount = 0.15f;
+        order.reference = 77L;
+        order.signature = new byte[] {1, 2, 3};
+        order.retries = 0;
+        return order;
+    }
+
+    private static void assertSameOrder(Order expected, Order actual)
+    {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.customer, actual.customer);
+        assertEquals(expected.status, actual.status);
+        assertEquals(expected.shipTo, actual.shipTo);
+        assertEquals(expected.lines.size(), actual.lines.size());
+        for (int i = 0; i < expected.lines.size(); i++) {
+            assertEquals(expected.lines.get(i).sku, actual.lines.get(i).sku);
+            assertEquals(expected.lines.get(i).quantity, actual.lines.get(i).quantity);
+            assertEquals(expected.lines.get(i).price, actual.lines.get(i).price, 0);
+        }
+        assertEquals(expected.tags, actual.tags);
+        assertEquals(expected.gift, actual.gift);
+        assertEquals(expected.grade, actual.grade);
+        assertEquals(expected.priority, actual.priority);
+        assertEquals(expected.region, actual.region);
+        assertEquals(expected.discount, actual.discount, 0);
+        assertEquals(expected.reference, actual.reference);
+        assertArrayEquals(expected.signature, actual.signature);
+        assertEquals(expected.retries, actual.retries);
+    }
+
+    /** Every supported field kind survives a round trip, and the result is far smaller than Java serialization's. */
+    @Test
+    public void roundTripIsCompact() throws IOException
+    {
+        Order order = order();
+        byte[] bytes = REGISTRY.toBytes(order);
+        assertSameOrder(order, REGISTRY.fromBytes(Order.class, bytes));
+
+        ByteArrayOutputStream java = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(java)) {
+            out.writeObject(order);
+        }
+        assertTrue(bytes.length + " vs " + java.size(), bytes.length * 3 < java.size());
+    }
+
+    /** Length-prefixed values concatenate in one buffer, heap or direct; a full fixed buffer overflows. */
+    @Test
+    public void valuesStreamThroughByteBuffers()
+    {
+        for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.allocate(4096), ByteBuffer.allocateDirect(4096)}) {
+            Order order = order();
+            REGISTRY.write(order, buffer);
+            REGISTRY.write(new Address("x", null, -1), buffer);
+            REGISTRY.write(order, buffer);
+            buffer.flip();
+            assertSameOrder(order, REGISTRY.read(Order.class, buffer));
+            Address address = REGISTRY.read(Address.class, buffer);
+            assertEquals("x", address.street());
+            assertNull(address.city());
+            assertEquals(-1, address.zip());
+            assertSameOrder(order, REGISTRY.read(Order.class, buffer));
+            assertTrue(!buffer.hasRemaining());
+        }
+        try {
+            REGISTRY.write(order(), ByteBuffer.allocate(64));
+            throw new AssertionError("Expected BufferOverflowException");
+        } catch (BufferOverflowException expected) {
+            // Too small
+        }
+    }
+
+    static class LineV2
+    {
+        private String code;
+        private int quantity;
+        private String warehouse = "default";
+    }
+
+    /** Fields are matched by tag: renamed fields follow, unknown ones are skipped, missing ones keep their defaults. */
+    @Test
+    public void schemasEvolveByTag()
+    {
+        SchemaRegistry newer = SchemaRegistry.newBuilder()
+                .register(Schema.newBuilder(LineV2.class).field(1, "code").field(2, "quantity").field(4, "warehouse").build())
+                .build();
+        // Written by the old schema: tag 3 (price) is unknown to the new one, tag 4 absent
+        LineV2 upgraded = newer.fromBytes(LineV2.class, REGISTRY.toBytes(new Line("S-1", 5, 9.99)));
+        assertEquals("S-1", upgraded.code);
+        assertEquals(5, upgraded.quantity);
+        assertEquals("default", upgraded.warehouse);
+
+        LineV2 line = new LineV2();
+        line.code = "S-2";
+        line.quantity = 7;
+        line.warehouse = "east";
+        Line downgraded = REGISTRY.fromBytes(Line.class, newer.toBytes(line));
+        assertEquals("S-2", downgraded.sku);
+        assertEquals(7, downgraded.quantity);
+        assertEquals(0, downgraded.price, 0);
+    }
+
+    static class Node
+    {
+        private Node next;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cyclesAreRejected()
+    {
+        SchemaRegistry registry = SchemaRegistry.newBuilder().register(Schema.newBuilder(Node.class).field(1, "next").build())
+                .build();
+        Node node = new Node();
+        node.next = node;
+        registry.toBytes(node);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unregisteredFieldTypesAreRejected()
+    {
+        SchemaRegistry.newBuilder().register(Schema.newBuilder(Order.class).field(4, "shipTo").build()).build();
+    }
+}
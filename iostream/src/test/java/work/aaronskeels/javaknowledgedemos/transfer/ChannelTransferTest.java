@@ -0,0 +1,198 @@
+package work.aaronskeels.javaknowledgedemos.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChannelTransferTest
+{
+    private static final int CHUNK = 64 << 10;
+
+    private Path directory;
+    private Path source;
+    private byte[] data;
+
+    @Before
+    public void createSource() throws IOException
+    {
+        directory = Files.createTempDirectory("channel-transfer-test");
+        source = directory.resolve("source.bin");
+        data = new byte[10 * CHUNK + 1234];
+        new Random(7).nextBytes(data);
+        Files.write(source, data);
+    }
+
+    @After
+    public void deleteDirectory() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /** Progress arrives once per chunk, increasing, against the file size, ending at the total. */
+    @Test
+    public void fileCopyReportsEveryChunk() throws IOException
+    {
+        List<long[]> progress = new ArrayList<>();
+        ChannelTransfer transfer = ChannelTransfer.newBuilder().chunkSize(CHUNK)
+                .listener((transferred, total) -> progress.add(new long[] {transferred, total})).build();
+        Path target = directory.resolve("target.bin");
+        Files.write(target, new byte[data.length * 2]); // Replaced, not overwritten in place
+
+        assertEquals(data.length, transfer.copy(source, target));
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(11, progress.size());
+        for (int i = 0; i < progress.size(); i++) {
+            assertEquals(Math.min((long) (i + 1) * CHUNK, data.length), progress.get(i)[0]);
+            assertEquals(data.length, progress.get(i)[1]);
+        }
+    }
+
+    /** A complete zero-copy transfer needs no buffer; one for the rest only comes in if transferTo() stops short. */
+    @Test
+    public void zeroCopyAllocatesNoDirectBuffer() throws IOException
+    {
+        BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct")).findFirst().orElseThrow();
+        ChannelTransfer transfer = ChannelTransfer.newBuilder().chunkSize(CHUNK).build();
+        Path target = directory.resolve("target.bin");
+        transfer.copy(source, target); // Anything the JDK sets up once
+        long count = direct.getCount();
+        long used = direct.getMemoryUsed();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(data.length, transfer.copy(source, target));
+            try (FileChannel in = FileChannel.open(source);
+                    FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                assertEquals(data.length, transfer.transfer(in, out));
+            }
+        }
+        assertEquals(count, direct.getCount());
+        assertEquals(used, direct.getMemoryUsed());
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void sendsRangeOverLoopbackSocket() throws Exception
+    {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            CompletableFuture<byte[]> received = CompletableFuture.supplyAsync(() -> {
+                try (SocketChannel accepted = server.accept(); InputStream in = Channels.newInputStream(accepted)) {
+                    return in.readAllBytes();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress());
+                    FileChannel file = FileChannel.open(source, StandardOpenOption.READ)) {
+                ChannelTransfer transfer = ChannelTransfer.newBuilder().chunkSize(CHUNK).build();
+                assertEquals(3 * CHUNK, transfer.send(file, 100, 3 * CHUNK, client));
+                assertEquals(0, file.position()); // Positional send leaves the source alone
+            }
+            byte[] expected = new byte[3 * CHUNK];
+            System.arraycopy(data, 100, expected, 0, expected.length);
+            assertArrayEquals(expected, received.get());
+        }
+    }
+
+    @Test
+    public void receivesFromSocketUntilEndOfStream() throws Exception
+    {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            CompletableFuture<Long> sent = CompletableFuture.supplyAsync(() -> {
+                try (SocketChannel client = SocketChannel.open(server.getLocalAddress())) {
+                    return ChannelTransfer.newBuilder().build().send(source, client);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Path target = directory.resolve("received.bin");
+            try (SocketChannel accepted = server.accept();
+                    FileChannel file = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                file.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+                assertEquals(data.length, ChannelTransfer.newBuilder().chunkSize(CHUNK).build().transfer(accepted, file));
+                assertEquals(3 + data.length, file.position());
+            }
+            assertEquals(data.length, (long) sent.get());
+            byte[] written = Files.readAllBytes(target);
+            assertEquals(3, written[2]);
+            assertArrayEquals(data, Arrays.copyOfRange(written, 3, written.length));
+        }
+    }
+
+    /** File streams are upgraded to channel transfers and left positioned after the copied bytes; others use a buffer loop. */
+    @Test
+    public void streamsFallBackOrUpgrade() throws IOException
+    {
+        long[] last = new long[2];
+        ChannelTransfer transfer = ChannelTransfer.newBuilder().chunkSize(CHUNK).listener((transferred, total) -> {
+            assertTrue(transferred > last[0]);
+            last[0] = transferred;
+            last[1] = total;
+        }).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length, transfer.transfer(new ByteArrayInputStream(data), out));
+        assertArrayEquals(data, out.toByteArray());
+        assertEquals(data.length, last[0]);
+        assertEquals(-1, last[1]);
+
+        Path target = directory.resolve("streamed.bin");
+        try (FileInputStream in = new FileInputStream(source.toFile());
+                FileOutputStream fileOut = new FileOutputStream(target.toFile())) {
+            assertEquals(10, in.skip(10));
+            fileOut.write(new byte[] {9});
+            last[0] = 0;
+            assertEquals(data.length - 10, transfer.transfer(in, fileOut));
+            assertEquals(-1, in.read());
+            fileOut.write(new byte[] {9});
+        }
+        byte[] written = Files.readAllBytes(target);
+        assertEquals(data.length - 10 + 2, written.length);
+        assertEquals(data[10], written[1]);
+        assertEquals(9, written[written.length - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonBlockingTarget() throws IOException
+    {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress())) {
+                client.configureBlocking(false);
+                ChannelTransfer.newBuilder().build().send(source, client);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package work.aaronskeels.javaknowledgedemos.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileTreePipelineTest
+{
+    private Path root;
+    private long expectedBytes;
+    private long expectedChecksums;
+
+    @Before
+    public void createTree() throws IOException
+    {
+        root = Files.createTempDirectory("file-tree-pipeline-test");
+        Random random = new Random(1);
+        for (int d = 0; d < 5; d++) {
+            Path directory = Files.createDirectories(root.resolve("d" + d).resolve("nested"));
+            for (int f = 0; f < 60; f++) {
+                // Every 20th file is past the mapping threshold
+                byte[] data = new byte[f % 20 == 0 ? 20_000 + random.nextInt(5000) : random.nextInt(3000)];
+                random.nextBytes(data);
+                Files.write((f % 2 == 0 ? directory : directory.getParent()).resolve(f + ".bin"), data);
+                expectedBytes += data.length;
+                expectedChecksums += checksum(ByteBuffer.wrap(data));
+            }
+        }
+        Files.writeString(root.resolve("top.txt"), "top");
+    }
+
+    @After
+    public void deleteTree() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private static long checksum(ByteBuffer contents)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+        return crc.getValue();
+    }
+
+    /** Totals {bytes, sum of CRCs} of the .bin files. */
+    private FileTreePipeline.Builder<long[]> builder()
+    {
+        return FileTreePipeline.newBuilder(root,
+                (file, contents) -> new long[] {contents.remaining(), checksum(contents)},
+                (a, b) -> new long[] {a[0] + b[0], a[1] + b[1]},
+                new long[2])
+                .filter(file -> file.toString().endsWith(".bin"))
+                .batchSize(16)
+                .mappedThreshold(16_384)
+                .parallelism(3);
+    }
+
+    @Test
+    public void everyFileIsProcessedOnceAndCombined() throws IOException
+    {
+        try (FileTreePipeline<long[]> pipeline = builder().build()) {
+            long[] totals = pipeline.run();
+            assertEquals(expectedBytes, totals[0]);
+            assertEquals(expectedChecksums, totals[1]);
+
+            PipelineStats stats = pipeline.stats();
+            assertEquals(11, stats.directoriesWalked());
+            assertEquals(300, stats.filesWalked());
+            assertEquals(300, stats.filesRead());
+            assertEquals(300, stats.filesProcessed());
+            assertEquals(15, stats.filesMapped());
+            assertEquals(expectedBytes, stats.bytesRead());
+            assertTrue(stats.readBytesPerSecond() > 0);
+            assertTrue(stats.processFilesPerSecond() > 0);
+
+            // Reusable; stats are cumulative
+            assertEquals(expectedChecksums, pipeline.run()[1]);
+            assertEquals(300, pipeline.stats().minus(stats).filesProcessed());
+        }
+    }
+
+    @Test
+    public void depthAndFilterLimitTheWalk() throws IOException
+    {
+        try (FileTreePipeline<Long> pipeline = FileTreePipeline
+                .newBuilder(root, (file, contents) -> 1L, Long::sum, 0L).maxDepth(2).build()) {
+            // top.txt plus the odd-numbered files directly under each d*
+            assertEquals(1 + 5 * 30, (long) pipeline.run());
+        }
+        try (FileTreePipeline<Long> pipeline = FileTreePipeline
+                .newBuilder(root, (file, contents) -> 1L, Long::sum, 0L).filter(file -> false).build()) {
+            assertEquals(0, (long) pipeline.run());
+        }
+    }
+
+    @Test
+    public void aFailingFileFailsTheRun()
+    {
+        try (FileTreePipeline<Long> pipeline = FileTreePipeline.newBuilder(root, (file, contents) -> {
+            if (file.getFileName().toString().equals("41.bin")) {
+                throw new IOException("Bad file: " + file);
+            }
+            return 1L;
+        }, Long::sum, 0L).build()) {
+            pipeline.run();
+            fail("41.bin should fail the run");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Bad file: "));
+        }
+    }
+
+    @Test
+    public void aFailureSkipsTheFilesNotYetStarted() throws IOException
+    {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        AtomicInteger processed = new AtomicInteger();
+        try (FileTreePipeline<Long> pipeline = FileTreePipeline.newBuilder(root, (file, contents) -> {
+            if (processed.incrementAndGet() == 1) {
+                throw new IOException("Bad file: " + file);
+            }
+            return 1L;
+        }, Long::sum, 0L).batchSize(1_000).pool(pool).build()) {
+            pipeline.run();
+            fail("The first file should fail the run");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Bad file: "));
+        }
+        // The batch's forked halves are still queued after run() has thrown
+        assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(1, processed.get());
+    }
+
+    /** A directory failing mid-walk stops the batches already submitted, as a failing file does. */
+    @Test
+    public void anUnreadableDirectorySkipsTheFilesNotYetStarted() throws Exception
+    {
+        Path probe = Files.createDirectory(root.resolve("probe"));
+        Files.setPosixFilePermissions(probe, Set.of());
+        Assume.assumeFalse("Permissions aren't enforced (running as root?)", Files.isReadable(probe));
+        Files.setPosixFilePermissions(probe, Set.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+                PosixFilePermission.OWNER_EXECUTE));
+        Files.delete(probe);
+
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch walkFailed = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger filtered = new AtomicInteger();
+        Path[] locked = new Path[1];
+        try (FileTreePipeline<Long> pipeline = FileTreePipeline.newBuilder(root, (file, contents) -> {
+            if (processed.incrementAndGet() == 1) {
+                try {
+                    walkFailed.await(); // Holds the one worker mid-batch until the walk has failed
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return 1L;
+        }, Long::sum, 0L).filter(file -> {
+            if (filtered.incrementAndGet() == 20) {
+                // Lock a top-level directory the walk hasn't entered: none of the 20 files seen so far is in it
+                for (int d = 0; d < 5 && locked[0] == null; d++) {
+                    Path directory = root.resolve("d" + d);
+                    if (!file.startsWith(directory)) {
+                        try {
+                            Files.setPosixFilePermissions(directory, Set.of());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        locked[0] = directory;
+                    }
+                }
+            }
+            return true;
+        }).batchSize(10).pool(pool).build()) {
+            pipeline.run();
+            fail("The locked directory should fail the run");
+        } catch (AccessDeniedException expected) {
+            // The walk's own failure
+        } finally {
+            walkFailed.countDown();
+            if (locked[0] != null) {
+                Files.setPosixFilePermissions(locked[0], Set.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+                        PosixFilePermission.OWNER_EXECUTE));
+            }
+        }
+        assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue(filtered.get() >= 20);
+        assertEquals(1, processed.get());
+    }
+}
@@ -22,6 +22,30 @@ public class App
          *  - executeQuery() seems to be for reading, executeUpdate() seems to be for ALL write operations (including non-"updates")
          *  - JDBC is basically SQLite but more intrinsically tied to Java, with in-memory databases, and with more advanced functionality
          *  - Topics to keep in mind but not necessarily are worth exemplifying are batch processing/procedures/transactions and database metadata retrieval
+         *
+         * Batch Writes (see "batch" package):
+         * - One executeUpdate() per row (as below) is one round trip and, with autocommit on, one commit per row.
+         * - BatchWriter: addBatch()/executeBatch() in chunks of batchSize rows with autocommit off, committing every batchesPerCommit
+         *   batches; a failed batch is rolled back to a savepoint and replayed row by row, so bad rows become RowFailures while
+         *   the rest are still written.
+         * - Benchmarked in BatchInsertBenchmark: 1,000,000 rows into USERS on in-memory H2 via HikariCP, per-row vs batches of
+         *   100/1000/10000.
+         *
+         * Statement Caching (see "statements" package):
+         * - prepareStatement() makes the driver parse and plan the SQL (and, on a server database, allocate a server-side handle)
+         *   every time, even though a pool hands back the same few physical connections over and over.
+         * - StatementCachingDataSource wraps the pool and keeps an LRU cache of prepared statements per physical connection;
+         *   close() on a statement (or on the connection) hands it back for the next borrower instead of closing it. It's opt-in
+         *   (the examples below use the pool as is): first check for the driver's own cache (e.g. PostgreSQL's
+         *   preparedStatementCacheQueries, MySQL's cachePrepStmts), which needs no wrapper.
+         * - Benchmarked in StatementCacheBenchmark: the select below from 8 threads, through the bare pool vs the caching wrapper.
+         *
+         * Streaming Queries (see "query" package):
+         * - The while (resultSet.next()) loops below are fine for a handful of rows, but many drivers read the whole result into
+         *   memory before the first next() returns, which doesn't end well on a large table.
+         * - StreamingQuery: a forward-only, read-only statement with a fetch size, its rows mapped by a RowMapper and handed out
+         *   as a lazy Stream (closing it releases the connection) or to a callback.
+         * - Benchmarked in StreamingQueryBenchmark: a 10,000,000 row table scanned with a 128 MiB heap.
          */
         exemplifyQuickDirtyConnection();
         exemplifyProperConnectionPool();
@@ -0,0 +1,266 @@
+package work.aaronskeels.javaknowledgedemos.batch;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+/**
+ * Writes many rows through one PreparedStatement in batches instead of one executeUpdate() round trip (and, with autocommit on,
+ * one commit) per row.
+ *
+ * Rows passed to add() are bound and addBatch()ed right away; every batchSize rows they go to the database in one
+ * executeBatch(), and every batchesPerCommit batches the transaction is committed (autocommit is off while the writer is open).
+ * Smaller transactions hold locks and undo space for less time and lose less work to a failure; larger ones commit less often.
+ *
+ * A rejected row doesn't fail the write. When executeBatch() throws a BatchUpdateException the batch is rolled back (to a
+ * savepoint, so earlier batches of the same transaction survive) and replayed one row at a time, each under its own savepoint:
+ * good rows are written, bad ones are reported as {@link RowFailure}s. Drivers disagree on what BatchUpdateException's update
+ * counts mean (some stop at the first failure, some carry on), so the replay doesn't rely on them. Any other SQLException (a
+ * lost connection, say) rolls back the open transaction and is thrown.
+ *
+ * A writer holds one pooled connection from open() to close() and, like a Connection, is for one thread at a time.
+ */
+public final class BatchWriter<T> implements AutoCloseable {
+    private final Connection connection;
+    private final boolean autoCommit;
+    private final PreparedStatement statement;
+    private final RowBinder<? super T> binder;
+    private final int batchSize;
+    private final int batchesPerCommit;
+    private final List<T> batch;
+    private final List<RowFailure<T>> failures = new ArrayList<>();
+    private long rowsAdded;
+    private long rowsWritten;
+    private long uncommittedRows;
+    private long batchesExecuted;
+    private long commits;
+    private int uncommittedBatches;
+    private boolean closed;
+
+    private BatchWriter(Builder<T> builder) throws SQLException {
+        this.binder = builder.binder;
+        this.batchSize = builder.batchSize;
+        this.batchesPerCommit = builder.batchesPerCommit;
+        this.batch = new ArrayList<>(batchSize);
+        this.connection = builder.dataSource.getConnection();
+        try {
+            this.autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            this.statement = connection.prepareStatement(builder.sql);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param sql An insert, update or delete with "?" parameters, e.g. "insert into USERS (name) values (?)".
+     * @param binder Sets a row's values as that statement's parameters.
+     */
+    public static <T> Builder<T> newBuilder(DataSource dataSource, String sql, RowBinder<? super T> binder) {
+        return new Builder<>(dataSource, sql, binder);
+    }
+
+    /** Queues a row, executing the batch once it has batchSize rows. */
+    public void add(T row) throws SQLException {
+        if (closed) {
+            throw new SQLException("Writer closed");
+        }
+        binder.bind(statement, row);
+        statement.addBatch();
+        batch.add(row);
+        rowsAdded++;
+        if (batch.size() == batchSize) {
+            executeBatch();
+        }
+    }
+
+    public void addAll(Iterable<? extends T> rows) throws SQLException {
+        for (T row : rows) {
+            add(row);
+        }
+    }
+
+    /** Executes the rows queued so far and commits. */
+    public void flush() throws SQLException {
+        if (closed) {
+            throw new SQLException("Writer closed");
+        }
+        executeBatch();
+        commit();
+    }
+
+    /** Flushes, then gives the connection back with its original autocommit mode. */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        SQLException failure = null;
+        try {
+            flush();
+        } catch (SQLException e) {
+            failure = e;
+            rollbackQuietly(e); // Turning autocommit back on would commit whatever is left
+        }
+        closed = true;
+        try (connection; statement) {
+            if (autoCommit) {
+                connection.setAutoCommit(true); // A pooled connection's next user expects it as it was
+            }
+        } catch (SQLException e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Rows the database rejected so far, in the order they were added. */
+    public List<RowFailure<T>> failures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public long rowsAdded() {
+        return rowsAdded;
+    }
+
+    /** Rows committed so far. */
+    public long rowsWritten() {
+        return rowsWritten;
+    }
+
+    public long batchesExecuted() {
+        return batchesExecuted;
+    }
+
+    public long commits() {
+        return commits;
+    }
+
+    private void executeBatch() throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long firstIndex = rowsAdded - batch.size();
+        try {
+            Savepoint savepoint = batchesPerCommit > 1 ? connection.setSavepoint() : null;
+            try {
+                statement.executeBatch();
+                uncommittedRows += batch.size();
+            } catch (BatchUpdateException e) {
+                statement.clearBatch();
+                rollback(savepoint);
+                replayRowByRow(firstIndex);
+            }
+        } catch (SQLException e) {
+            rollbackQuietly(e);
+            throw e;
+        } finally {
+            batch.clear();
+        }
+        batchesExecuted++;
+        if (++uncommittedBatches == batchesPerCommit) {
+            commit();
+        }
+    }
+
+    /** Re-executes the rolled back batch one row at a time to find the rows that fail. */
+    private void replayRowByRow(long firstIndex) throws SQLException {
+        for (int i = 0; i < batch.size(); i++) {
+            T row = batch.get(i);
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                binder.bind(statement, row);
+                statement.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+                uncommittedRows++;
+            } catch (SQLException e) {
+                if (connection.isClosed()) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                failures.add(new RowFailure<>(firstIndex + i, row, e));
+            }
+        }
+    }
+
+    private void commit() throws SQLException {
+        if (uncommittedBatches > 0) {
+            connection.commit();
+            commits++;
+            rowsWritten += uncommittedRows;
+            uncommittedRows = 0;
+            uncommittedBatches = 0;
+        }
+    }
+
+    private void rollback(Savepoint savepoint) throws SQLException {
+        if (savepoint != null) {
+            connection.rollback(savepoint);
+        } else {
+            connection.rollback(); // Nothing else is uncommitted: batchesPerCommit is 1
+        }
+    }
+
+    /** Drops the whole open transaction after an error that is about to be thrown. */
+    private void rollbackQuietly(SQLException cause) {
+        uncommittedRows = 0;
+        uncommittedBatches = 0;
+        try {
+            statement.clearBatch();
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    public static final class Builder<T> {
+        private final DataSource dataSource;
+        private final String sql;
+        private final RowBinder<? super T> binder;
+        private int batchSize = 1000;
+        private int batchesPerCommit = 1;
+
+        private Builder(DataSource dataSource, String sql, RowBinder<? super T> binder) {
+            this.dataSource = Objects.requireNonNull(dataSource);
+            this.sql = Objects.requireNonNull(sql);
+            this.binder = Objects.requireNonNull(binder);
+        }
+
+        /** Rows per executeBatch() (default 1000). */
+        public Builder<T> batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be >= 1: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /** Batches per transaction (default 1: commit after every batch). */
+        public Builder<T> batchesPerCommit(int batchesPerCommit) {
+            if (batchesPerCommit < 1) {
+                throw new IllegalArgumentException("batchesPerCommit must be >= 1: " + batchesPerCommit);
+            }
+            this.batchesPerCommit = batchesPerCommit;
+            return this;
+        }
+
+        /** Takes a connection from the data source for the writer's lifetime. */
+        public BatchWriter<T> open() throws SQLException {
+            return new BatchWriter<>(this);
+        }
+    }
+}
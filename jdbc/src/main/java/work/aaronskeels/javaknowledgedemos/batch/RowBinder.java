@@ -0,0 +1,10 @@
+package work.aaronskeels.javaknowledgedemos.batch;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/** Sets one row's values on the writer's PreparedStatement (parameters start at 1). */
+@FunctionalInterface
+public interface RowBinder<T> {
+    void bind(PreparedStatement statement, T row) throws SQLException;
+}
@@ -0,0 +1,7 @@
+package work.aaronskeels.javaknowledgedemos.batch;
+
+import java.sql.SQLException;
+
+/** A row the database rejected: the "index"th row given to the writer (from 0), the row itself and the driver's error. */
+public record RowFailure<T>(long index, T row, SQLException error) {
+}
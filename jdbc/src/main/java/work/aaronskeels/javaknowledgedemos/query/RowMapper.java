@@ -0,0 +1,10 @@
+package work.aaronskeels.javaknowledgedemos.query;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/** Turns the ResultSet's current row into a T; it must not move the cursor (no next()) or keep the ResultSet. */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet resultSet) throws SQLException;
+}
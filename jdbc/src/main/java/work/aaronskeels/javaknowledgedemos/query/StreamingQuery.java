@@ -0,0 +1,231 @@
+package work.aaronskeels.javaknowledgedemos.query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+/**
+ * A query whose rows are read as they are consumed, fetchSize at a time, instead of the whole result being pulled into memory
+ * first; scanning a table of any size then takes as much heap as one fetch.
+ *
+ * - The statement is forward-only and read-only (TYPE_FORWARD_ONLY, CONCUR_READ_ONLY), the only kind most drivers can stream.
+ * - setFetchSize(fetchSize) tells the driver how many rows to fetch per round trip. Some drivers need more than that:
+ *   PostgreSQL only uses a cursor inside a transaction, so autocommit is off while the rows are read (and restored after);
+ *   MySQL Connector/J needs useCursorFetch=true in the URL; H2 materializes results unless LAZY_QUERY_EXECUTION=TRUE.
+ * - stream() holds a pooled connection until the stream is closed, so use it in try-with-resources. It is also released as
+ *   soon as the last row is read or a row fails. forEach() reads every row and always releases it before returning.
+ * - An SQLException while streaming is rethrown as an {@link UncheckedSQLException}.
+ *
+ * A StreamingQuery only holds the SQL and its parameters: it can be run any number of times, from any thread.
+ */
+public final class StreamingQuery<T> {
+    /** Rows per round trip unless set otherwise; drivers' own defaults range from 10 (Oracle) to everything (PostgreSQL). */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final RowMapper<? extends T> mapper;
+    private final Object[] parameters;
+    private final int fetchSize;
+
+    private StreamingQuery(Builder<T> builder) {
+        this.dataSource = builder.dataSource;
+        this.sql = builder.sql;
+        this.mapper = builder.mapper;
+        this.parameters = builder.parameters;
+        this.fetchSize = builder.fetchSize;
+    }
+
+    /**
+     * @param sql A select with "?" parameters, e.g. "select * from USERS where name like ?".
+     * @param mapper Turns each row into a T.
+     */
+    public static <T> Builder<T> newBuilder(DataSource dataSource, String sql, RowMapper<? extends T> mapper) {
+        return new Builder<>(dataSource, sql, mapper);
+    }
+
+    /** Executes the query; the rows are fetched as the (sequential) stream is consumed. Close the stream when done. */
+    public Stream<T> stream() throws SQLException {
+        Cursor<T> cursor = open();
+        return StreamSupport.stream(cursor, false).onClose(cursor::closeUnchecked);
+    }
+
+    /** Executes the query and hands each row to "action" as it is fetched; returns the number of rows. */
+    public long forEach(Consumer<? super T> action) throws SQLException {
+        Objects.requireNonNull(action);
+        try (Cursor<T> cursor = open()) {
+            long rows = 0;
+            while (cursor.resultSet.next()) {
+                action.accept(mapper.map(cursor.resultSet));
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    private Cursor<T> open() throws SQLException {
+        Cursor<T> cursor = new Cursor<>(dataSource.getConnection(), mapper);
+        try {
+            cursor.begin();
+            cursor.statement = cursor.connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            cursor.statement.setFetchSize(fetchSize);
+            for (int i = 0; i < parameters.length; i++) {
+                cursor.statement.setObject(i + 1, parameters[i]);
+            }
+            cursor.resultSet = cursor.statement.executeQuery();
+            cursor.resultSet.setFetchSize(fetchSize); // Some drivers only read it from the ResultSet
+            return cursor;
+        } catch (SQLException e) {
+            cursor.closeAfter(e);
+            throw e;
+        }
+    }
+
+    /** One execution: the connection, statement and result set it holds, released together. */
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+        final Connection connection;
+        private final RowMapper<? extends T> mapper;
+        PreparedStatement statement;
+        ResultSet resultSet;
+        private boolean restoreAutoCommit;
+        private boolean closed;
+
+        Cursor(Connection connection, RowMapper<? extends T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.connection = connection;
+            this.mapper = mapper;
+        }
+
+        void begin() throws SQLException {
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            T row;
+            try {
+                if (!resultSet.next()) {
+                    close();
+                    return false;
+                }
+                row = mapper.map(resultSet);
+            } catch (SQLException e) {
+                closeAfter(e);
+                throw new UncheckedSQLException(e);
+            }
+            action.accept(row);
+            return true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            SQLException failure = null;
+            try {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+            } catch (SQLException e) {
+                failure = e;
+            }
+            try {
+                if (statement != null) {
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                failure = chain(failure, e);
+            }
+            try {
+                if (restoreAutoCommit) {
+                    connection.rollback(); // Nothing was written: ends the read's transaction
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                failure = chain(failure, e);
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                failure = chain(failure, e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        void closeUnchecked() {
+            try {
+                close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        void closeAfter(SQLException cause) {
+            try {
+                close();
+            } catch (SQLException e) {
+                cause.addSuppressed(e);
+            }
+        }
+
+        private static SQLException chain(SQLException first, SQLException next) {
+            if (first == null) {
+                return next;
+            }
+            first.addSuppressed(next);
+            return first;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final DataSource dataSource;
+        private final String sql;
+        private final RowMapper<? extends T> mapper;
+        private Object[] parameters = new Object[0];
+        private int fetchSize = DEFAULT_FETCH_SIZE;
+
+        private Builder(DataSource dataSource, String sql, RowMapper<? extends T> mapper) {
+            this.dataSource = Objects.requireNonNull(dataSource);
+            this.sql = Objects.requireNonNull(sql);
+            this.mapper = Objects.requireNonNull(mapper);
+        }
+
+        /** Values for the "?" parameters, in order, set with setObject(). */
+        public Builder<T> parameters(Object... parameters) {
+            this.parameters = parameters.clone();
+            return this;
+        }
+
+        /** Rows fetched per round trip (default {@link #DEFAULT_FETCH_SIZE}; 0 leaves it to the driver). */
+        public Builder<T> fetchSize(int fetchSize) {
+            if (fetchSize < 0) {
+                throw new IllegalArgumentException("fetchSize must be >= 0: " + fetchSize);
+            }
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        public StreamingQuery<T> build() {
+            return new StreamingQuery<>(this);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package work.aaronskeels.javaknowledgedemos.query;
+
+import java.sql.SQLException;
+import java.util.Objects;
+
+/** An SQLException thrown out of a Stream, which can't throw checked exceptions; the JDBC counterpart of UncheckedIOException. */
+public class UncheckedSQLException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(Objects.requireNonNull(cause));
+    }
+
+    @Override
+    public SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
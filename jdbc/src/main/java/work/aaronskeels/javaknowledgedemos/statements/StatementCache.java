@@ -0,0 +1,117 @@
+package work.aaronskeels.javaknowledgedemos.statements;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The prepared statements of one physical connection, keyed by SQL text, least recently used first. Used by whichever thread
+ * currently borrows the connection, and pruned by others when the connection is gone, hence synchronized (never contended in
+ * practice).
+ */
+final class StatementCache {
+    private final Connection physical;
+    private final int capacity;
+    private final StatementCachingDataSource owner;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, StatementCachingDataSource owner) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.owner = owner;
+    }
+
+    /**
+     * The cached statement for "sql", now in use, preparing it on a miss; null if it is already in use (the same SQL prepared
+     * twice before the first one is closed), in which case the caller prepares a throwaway statement.
+     */
+    synchronized CachedStatement borrow(String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null) {
+            if (cached.inUse) {
+                owner.missed();
+                return null;
+            }
+            owner.hit();
+            cached.inUse = true;
+            return cached;
+        }
+        owner.missed();
+        cached = new CachedStatement(physical.prepareStatement(sql));
+        cached.inUse = true;
+        statements.put(sql, cached);
+        if (statements.size() > capacity) {
+            Iterator<CachedStatement> eldest = statements.values().iterator();
+            CachedStatement evicted = eldest.next();
+            eldest.remove();
+            owner.evicted();
+            evicted.evicted = true;
+            if (!evicted.inUse) {
+                closeQuietly(evicted.statement);
+            }
+        }
+        return cached;
+    }
+
+    /** Takes back a statement the caller is done with, ready for the next borrow (or closed, if it was evicted meanwhile). */
+    synchronized void giveBack(CachedStatement cached) {
+        cached.inUse = false;
+        if (cached.evicted) {
+            closeQuietly(cached.statement);
+            return;
+        }
+        try {
+            ResultSet resultSet = cached.statement.getResultSet();
+            if (resultSet != null) {
+                resultSet.close(); // Frees the cursor now rather than at the next execute
+            }
+            cached.statement.clearParameters();
+            cached.statement.clearWarnings();
+        } catch (SQLException e) {
+            // Unusable from now on: drop it
+            statements.values().remove(cached);
+            closeQuietly(cached.statement);
+        }
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    boolean isConnectionClosed() {
+        try {
+            return physical.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    synchronized void closeAll() {
+        for (Map.Entry<String, CachedStatement> entry : statements.entrySet()) {
+            closeQuietly(entry.getValue().statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Nothing left to release
+        }
+    }
+
+    static final class CachedStatement {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+}
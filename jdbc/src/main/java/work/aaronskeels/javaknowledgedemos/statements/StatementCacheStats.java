@@ -0,0 +1,23 @@
+package work.aaronskeels.javaknowledgedemos.statements;
+
+/**
+ * Point-in-time snapshot of a {@link StatementCachingDataSource}'s counters (cumulative) and cachedStatements (a gauge, over
+ * all pooled connections). Subtract two snapshots with {@link #minus(StatementCacheStats)} to get the counters for an interval.
+ */
+public record StatementCacheStats(long hitCount, long missCount, long evictionCount, long cachedStatements) {
+
+    /** Fraction of prepareStatement() calls served from the cache; 1.0 when there were none. */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /** Counters are subtracted; the gauge is this snapshot's. */
+    public StatementCacheStats minus(StatementCacheStats other) {
+        return new StatementCacheStats(
+                Math.max(0, hitCount - other.hitCount),
+                Math.max(0, missCount - other.missCount),
+                Math.max(0, evictionCount - other.evictionCount),
+                cachedStatements);
+    }
+}
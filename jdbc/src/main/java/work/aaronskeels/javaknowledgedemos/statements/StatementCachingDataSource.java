@@ -0,0 +1,316 @@
+package work.aaronskeels.javaknowledgedemos.statements;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import work.aaronskeels.javaknowledgedemos.statements.StatementCache.CachedStatement;
+
+/**
+ * Wraps a (pooling) DataSource so that prepareStatement(sql) on its connections reuses the statement prepared for the same SQL
+ * the last time that physical connection was borrowed, instead of having the driver parse and plan it again and allocate a new
+ * server-side handle.
+ *
+ * - Each physical connection has its own cache (statements belong to a connection), bounded to maxStatementsPerConnection and
+ *   evicting the least recently used; evicted statements are closed (once their current user is done).
+ * - close() on a cached statement hands it back instead of closing it; closing the connection hands back any its user forgot
+ *   (the App examples never close theirs), so forgetting no longer leaks a handle per call.
+ * - Statements are prepared on the physical connection unwrapped from the pool's proxy: HikariCP closes every statement
+ *   prepared through its proxy when the connection goes back to the pool, which would empty the cache on every borrow. So
+ *   the wrapper does what the pool's statement proxy would have, through the pool's connection: work a cached statement
+ *   executed with autocommit off and that isn't committed is rolled back on close(), and a connection whose statement fails
+ *   with a connection error (SQLState class 08) is evicted from the pool (HikariCP) and its cache dropped.
+ * - The caches of connections the pool has closed (idle timeout, max lifetime, failed validation) are dropped, and their
+ *   statements closed, on a later getConnection().
+ * Only prepareStatement(String) is cached; every other way of creating a statement goes straight to the pool's connection.
+ */
+public final class StatementCachingDataSource implements DataSource, AutoCloseable {
+    private final DataSource dataSource;
+    private final int maxStatementsPerConnection;
+    private final Map<Connection, StatementCache> caches = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public StatementCachingDataSource(DataSource dataSource, int maxStatementsPerConnection) {
+        if (maxStatementsPerConnection < 1) {
+            throw new IllegalArgumentException("maxStatementsPerConnection must be >= 1: " + maxStatementsPerConnection);
+        }
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(dataSource.getConnection(username, password));
+    }
+
+    public StatementCacheStats stats() {
+        long cached = 0;
+        for (StatementCache cache : caches.values()) {
+            cached += cache.size();
+        }
+        return new StatementCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), cached);
+    }
+
+    /** Closes every cached statement; the wrapped DataSource is the caller's to close. */
+    @Override
+    public void close() {
+        for (Iterator<StatementCache> iterator = caches.values().iterator(); iterator.hasNext(); ) {
+            iterator.next().closeAll();
+            iterator.remove();
+        }
+    }
+
+    void hit() {
+        hitCount.increment();
+    }
+
+    void missed() {
+        missCount.increment();
+    }
+
+    void evicted() {
+        evictionCount.increment();
+    }
+
+    private Connection wrap(Connection logical) throws SQLException {
+        pruneClosedConnections();
+        Connection physical = logical.isWrapperFor(Connection.class) ? logical.unwrap(Connection.class) : logical;
+        StatementCache cache = caches.computeIfAbsent(physical,
+                connection -> new StatementCache(connection, maxStatementsPerConnection, this));
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                new ConnectionHandler(logical, cache, this));
+    }
+
+    /** After a cached statement failed with "e": if the connection is gone, drops its cache and has the pool evict it. */
+    void checkException(SQLException e, Connection logical, StatementCache cache) {
+        if (!isConnectionBroken(e)) {
+            return;
+        }
+        caches.values().remove(cache);
+        cache.closeAll();
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                dataSource.unwrap(HikariDataSource.class).evictConnection(logical);
+            }
+        } catch (SQLException ignored) {
+            // Other pools find out when they next validate the connection
+        }
+    }
+
+    private static boolean isConnectionBroken(SQLException e) {
+        String sqlState = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException || e instanceof SQLRecoverableException
+                || (sqlState != null && sqlState.startsWith("08"));
+    }
+
+    private void pruneClosedConnections() {
+        for (Iterator<StatementCache> iterator = caches.values().iterator(); iterator.hasNext(); ) {
+            StatementCache cache = iterator.next();
+            if (cache.isConnectionClosed()) {
+                cache.closeAll();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** A borrowed connection: caches prepareStatement(String), hands back its statements on close(). */
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection logical;
+        private final StatementCache cache;
+        private final StatementCachingDataSource dataSource;
+        private final List<StatementHandler> borrowed = new ArrayList<>();
+        /** A cached statement executed since the last commit or rollback (the pool can't tell: it never saw the statement). */
+        boolean dirty;
+        private boolean closed;
+
+        ConnectionHandler(Connection logical, StatementCache cache, StatementCachingDataSource dataSource) {
+            this.logical = logical;
+            this.cache = cache;
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    if (args.length == 1 && !closed) {
+                        return prepare((Connection) proxy, (String) args[0]);
+                    }
+                    break;
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        for (StatementHandler statement : borrowed) {
+                            statement.closed = true; // Whoever still holds it mustn't use it once someone else borrows it
+                            cache.giveBack(statement.cached);
+                        }
+                        borrowed.clear();
+                        try {
+                            if (dirty && !logical.isClosed() && !logical.getAutoCommit()) {
+                                logical.rollback(); // Uncommitted work mustn't reach the next borrower
+                            }
+                        } finally {
+                            logical.close();
+                        }
+                        return null;
+                    }
+                    break;
+                case "commit":
+                case "rollback":
+                case "setAutoCommit": // Commits, if it changes anything
+                    Object result = StatementCachingDataSource.invoke(logical, method, args);
+                    if (args == null || method.getName().equals("setAutoCommit")) { // Not rollback(Savepoint)
+                        dirty = false;
+                    }
+                    return result;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return StatementCachingDataSource.invoke(logical, method, args);
+        }
+
+        private PreparedStatement prepare(Connection proxy, String sql) throws SQLException {
+            CachedStatement cached = cache.borrow(sql);
+            if (cached == null) {
+                return logical.prepareStatement(sql);
+            }
+            StatementHandler statement = new StatementHandler(proxy, cached, this);
+            borrowed.add(statement);
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class}, statement);
+        }
+
+        void checkException(SQLException e) {
+            dataSource.checkException(e, logical, cache);
+        }
+
+        void giveBack(StatementHandler statement) {
+            if (borrowed.remove(statement)) {
+                cache.giveBack(statement.cached);
+            }
+        }
+    }
+
+    /** A cached statement as one borrower sees it: close() hands it back, and it acts closed from then on. */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Connection connection;
+        final CachedStatement cached;
+        private final ConnectionHandler owner;
+        boolean closed;
+
+        StatementHandler(Connection connection, CachedStatement cached, ConnectionHandler owner) {
+            this.connection = connection;
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        owner.giveBack(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "getConnection":
+                    return connection; // Not the physical one, which would bypass the pool
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement closed");
+                    }
+                    if (method.getName().startsWith("execute")) {
+                        owner.dirty = true;
+                    }
+                    try {
+                        return StatementCachingDataSource.invoke(cached.statement, method, args);
+                    } catch (SQLException e) {
+                        owner.checkException(e);
+                        throw e;
+                    }
+            }
+        }
+    }
+
+    // ---- Plain delegation ----
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
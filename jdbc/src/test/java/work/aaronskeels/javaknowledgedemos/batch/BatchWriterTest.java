@@ -0,0 +1,116 @@
+package work.aaronskeels.javaknowledgedemos.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class BatchWriterTest
+{
+    private HikariDataSource dataSource;
+
+    @Before
+    public void createTable() throws SQLException
+    {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:batch-writer-test;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:users.sql'");
+        }
+    }
+
+    @After
+    public void dropTable() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop table USERS");
+        }
+        dataSource.close();
+    }
+
+    private long countUsers() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("select count(*) from USERS")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private BatchWriter.Builder<String> builder()
+    {
+        return BatchWriter.<String>newBuilder(dataSource, "insert into USERS (name) values (?)",
+                (statement, name) -> statement.setString(1, name));
+    }
+
+    @Test
+    public void rowsAreWrittenInBatchesAndCommittedPerChunk() throws SQLException
+    {
+        try (BatchWriter<String> writer = builder().batchSize(100).batchesPerCommit(3).open()) {
+            for (int i = 0; i < 1050; i++) {
+                writer.add("user" + i);
+            }
+            assertEquals(10, writer.batchesExecuted());
+            assertEquals(3, writer.commits());
+            assertEquals(900, writer.rowsWritten());
+            assertEquals(2 + 900, countUsers()); // users.sql inserts 2; the rest is uncommitted
+            writer.flush();
+            assertEquals(11, writer.batchesExecuted());
+            assertEquals(4, writer.commits());
+            assertEquals(1050, writer.rowsWritten());
+        }
+        assertEquals(2 + 1050, countUsers());
+    }
+
+    @Test
+    public void rejectedRowsAreReportedAndTheRestWritten() throws SQLException
+    {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            names.add(i == 7 || i == 250 || i == 251 ? null : "user" + i); // NAME is NOT NULL
+        }
+        BatchWriter<String> writer = builder().batchSize(100).batchesPerCommit(2).open();
+        try (writer) {
+            writer.addAll(names);
+        }
+        List<RowFailure<String>> failures = writer.failures();
+        assertEquals(3, failures.size());
+        assertEquals(7, failures.get(0).index());
+        assertEquals(250, failures.get(1).index());
+        assertEquals(251, failures.get(2).index());
+        assertTrue(failures.get(0).error() != null);
+        assertEquals(497, writer.rowsWritten());
+        assertEquals(2 + 497, countUsers());
+    }
+
+    @Test
+    public void theConnectionGoesBackInAutocommitMode() throws SQLException
+    {
+        try (BatchWriter<String> writer = builder().open()) {
+            writer.add("user");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void aClosedWriterRejectsRows() throws SQLException
+    {
+        BatchWriter<String> writer = builder().open();
+        writer.close();
+        writer.add("user");
+    }
+}
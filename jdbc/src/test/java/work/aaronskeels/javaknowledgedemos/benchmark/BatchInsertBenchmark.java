@@ -0,0 +1,109 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import work.aaronskeels.javaknowledgedemos.batch.BatchWriter;
+
+/**
+ * Inserts 1,000,000 rows into USERS (users.sql) in an in-memory H2 database behind HikariCP:
+ * - perRow: App's path, one executeUpdate() per row with autocommit on.
+ * - batchedN: BatchWriter with batches of N rows, committing after each batch.
+ * Each measurement is one pass (single shot) into a freshly truncated table. H2 in memory has no network round trip or fsync,
+ * so this understates the gap: against a server database every executeUpdate() and commit is a round trip, and every commit a
+ * log flush.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchInsertBenchmark {
+    private static final int ROWS = 1_000_000;
+    private static final String INSERT = "insert into USERS (name) values (?)";
+
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:batch-insert-benchmark;DB_CLOSE_DELAY=-1");
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:users.sql'"); // Creates USERS if needed and truncates it
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int perRow() throws SQLException {
+        int inserted = 0;
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement insertPS = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < ROWS; i++) {
+                insertPS.setString(1, "user" + i);
+                inserted += insertPS.executeUpdate();
+            }
+        }
+        return inserted;
+    }
+
+    private long batched(int batchSize) throws SQLException {
+        try (BatchWriter<String> writer = BatchWriter.<String>newBuilder(dataSource, INSERT,
+                (statement, name) -> statement.setString(1, name)).batchSize(batchSize).open()) {
+            for (int i = 0; i < ROWS; i++) {
+                writer.add("user" + i);
+            }
+            writer.flush();
+            return writer.rowsWritten();
+        }
+    }
+
+    @Benchmark
+    public long batched100() throws SQLException {
+        return batched(100);
+    }
+
+    @Benchmark
+    public long batched1000() throws SQLException {
+        return batched(1000);
+    }
+
+    @Benchmark
+    public long batched10000() throws SQLException {
+        return batched(10_000);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
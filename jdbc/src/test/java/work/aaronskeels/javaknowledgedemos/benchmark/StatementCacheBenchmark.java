@@ -0,0 +1,96 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import work.aaronskeels.javaknowledgedemos.statements.StatementCachingDataSource;
+
+/**
+ * 8 threads running App's "select * from USERS where name = ?" against in-memory H2 through a HikariCP pool of 8, each call
+ * borrowing a connection, preparing, executing, reading the row and closing everything:
+ * - uncached: straight from the pool, so every call prepares (parses and plans) anew.
+ * - cached: through StatementCachingDataSource, so each pooled connection prepares it once.
+ * Scores are microseconds per call. H2 keeps a small parsed-query cache per session of its own, which narrows the gap; against
+ * a server database an uncached prepare is also a network round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StatementCacheBenchmark {
+    private static final String SELECT = "select * from USERS where name = ?";
+
+    private HikariDataSource pool;
+    private StatementCachingDataSource cachingDataSource;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:statement-cache-benchmark;DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(8);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:users.sql'");
+        }
+        cachingDataSource = new StatementCachingDataSource(pool, 64);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println();
+        System.out.println(cachingDataSource.stats());
+        cachingDataSource.close();
+        pool.close();
+    }
+
+    private static int select(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement selectPS = connection.prepareStatement(SELECT)) {
+            selectPS.setString(1, "Marco");
+            try (ResultSet resultSet = selectPS.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("id") : -1;
+            }
+        }
+    }
+
+    @Benchmark
+    public int uncached() throws SQLException {
+        return select(pool);
+    }
+
+    @Benchmark
+    public int cached() throws SQLException {
+        return select(cachingDataSource);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StatementCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
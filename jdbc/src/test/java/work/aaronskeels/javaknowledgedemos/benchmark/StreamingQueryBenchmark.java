@@ -0,0 +1,122 @@
+package work.aaronskeels.javaknowledgedemos.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import work.aaronskeels.javaknowledgedemos.query.StreamingQuery;
+
+/**
+ * Scans a 10,000,000 row USERS table (users.sql, in an H2 database on disk) with StreamingQuery, summing the lengths of the
+ * names:
+ * - stream: through stream().
+ * - callback: through forEach().
+ * The fork runs with a 128 MiB heap, a fraction of what the rows take as objects (around 10x that), so a scan only completes if
+ * memory stays constant; the peak heap use of each pass is printed after it. Reading the same rows into a List, as App's
+ * while (resultSet.next()) loops would, fails with an OutOfMemoryError here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx128m")
+public class StreamingQueryBenchmark {
+    private static final int ROWS = 10_000_000;
+    private static final int ROWS_PER_INSERT = 1_000_000;
+    private static final String SELECT = "select id, name from USERS";
+
+    private Path directory;
+    private HikariDataSource dataSource;
+    private StreamingQuery<String> names;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        directory = Files.createTempDirectory("streaming-query-benchmark");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:file:" + directory.resolve("users") + ";LAZY_QUERY_EXECUTION=TRUE");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:users.sql'");
+            statement.execute("truncate table USERS");
+            for (int from = 1; from <= ROWS; from += ROWS_PER_INSERT) {
+                statement.executeUpdate("insert into USERS (name) select 'user' || X from SYSTEM_RANGE(" + from + ", "
+                        + (from + ROWS_PER_INSERT - 1) + ")");
+            }
+        }
+        names = StreamingQuery.<String>newBuilder(dataSource, SELECT, resultSet -> resultSet.getString("name")).build();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.println();
+        System.out.println("Peak heap used: " + (peak >> 20) + " MiB");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataSource.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long stream() throws SQLException {
+        try (Stream<String> rows = names.stream()) {
+            return rows.mapToLong(String::length).sum();
+        }
+    }
+
+    @Benchmark
+    public long callback() throws SQLException {
+        LongAdder length = new LongAdder();
+        names.forEach(name -> length.add(name.length()));
+        return length.sum();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StreamingQueryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package work.aaronskeels.javaknowledgedemos.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class StreamingQueryTest
+{
+    private HikariDataSource pool;
+
+    @Before
+    public void createPool() throws SQLException
+    {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:streaming-query-test;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=TRUE");
+        pool.setMaximumPoolSize(1); // A connection that isn't released makes the next borrow time out
+        pool.setConnectionTimeout(1000);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:users.sql'");
+        }
+    }
+
+    @After
+    public void closePool()
+    {
+        pool.close();
+    }
+
+    private void assertConnectionReleased() throws SQLException
+    {
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void rowsAreMappedAsTheStreamIsConsumed() throws SQLException
+    {
+        AtomicInteger mapped = new AtomicInteger();
+        StreamingQuery<Long> query = StreamingQuery.<Long>newBuilder(pool, "select X from SYSTEM_RANGE(1, 10000000)",
+                resultSet -> {
+                    mapped.incrementAndGet();
+                    return resultSet.getLong(1);
+                }).fetchSize(100).build();
+        try (Stream<Long> rows = query.stream()) {
+            assertEquals(55, rows.limit(10).mapToLong(Long::longValue).sum());
+        }
+        assertEquals(10, mapped.get());
+        assertConnectionReleased();
+    }
+
+    @Test
+    public void theCursorIsForwardOnlyReadOnlyWithTheFetchSize() throws SQLException
+    {
+        AtomicReference<Statement> statement = new AtomicReference<>();
+        List<String> names = new ArrayList<>();
+        long rows = StreamingQuery.<String>newBuilder(pool, "select * from USERS where name like ? order by id", resultSet -> {
+            assertEquals(ResultSet.TYPE_FORWARD_ONLY, resultSet.getType());
+            assertEquals(ResultSet.CONCUR_READ_ONLY, resultSet.getConcurrency());
+            assertEquals(250, resultSet.getStatement().getFetchSize());
+            assertFalse(resultSet.getStatement().getConnection().getAutoCommit());
+            statement.set(resultSet.getStatement());
+            return resultSet.getString("name");
+        }).parameters("%a%").fetchSize(250).build().forEach(names::add);
+        assertEquals(2, rows);
+        assertEquals(List.of("Marco", "Lisa"), names);
+        assertTrue(statement.get().isClosed());
+        assertConnectionReleased();
+    }
+
+    @Test
+    public void exhaustingTheStreamReleasesTheConnectionAndTheQueryCanRunAgain() throws SQLException
+    {
+        StreamingQuery<String> query = StreamingQuery.<String>newBuilder(pool, "select name from USERS order by id",
+                resultSet -> resultSet.getString(1)).build();
+        for (int i = 0; i < 3; i++) {
+            Stream<String> rows = query.stream(); // Not closed: reading the last row releases the connection
+            assertEquals("Marco,Lisa", rows.collect(Collectors.joining(",")));
+            assertConnectionReleased();
+        }
+    }
+
+    @Test
+    public void aFailingRowSurfacesAsUncheckedAndReleasesTheConnection() throws SQLException
+    {
+        StreamingQuery<String> query = StreamingQuery.<String>newBuilder(pool, "select name from USERS order by id",
+                resultSet -> resultSet.getString("missing")).build();
+        try (Stream<String> rows = query.stream()) {
+            rows.forEach(name -> fail("No row should map: " + name));
+            fail("Expected an UncheckedSQLException");
+        } catch (UncheckedSQLException expected) {
+            assertTrue(expected.getCause() instanceof SQLException);
+        }
+        assertConnectionReleased();
+        try {
+            query.forEach(name -> fail("No row should map: " + name));
+            fail("Expected an SQLException");
+        } catch (SQLException expected) {
+        }
+        assertConnectionReleased();
+    }
+}
@@ -0,0 +1,155 @@
+package work.aaronskeels.javaknowledgedemos.statements;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class StatementCachingDataSourceTest
+{
+    private static final String SELECT = "select * from USERS where name = ?";
+
+    private HikariDataSource pool;
+    private StatementCachingDataSource dataSource;
+
+    @Before
+    public void createPool() throws SQLException
+    {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:statement-cache-test;DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(1); // Every borrow gets the same physical connection
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:users.sql'");
+        }
+        dataSource = new StatementCachingDataSource(pool, 2);
+    }
+
+    @After
+    public void closePool()
+    {
+        dataSource.close();
+        pool.close();
+    }
+
+    private static int countNamed(Connection connection, String name) throws SQLException
+    {
+        try (PreparedStatement selectPS = connection.prepareStatement(SELECT)) {
+            selectPS.setString(1, name);
+            try (ResultSet resultSet = selectPS.executeQuery()) {
+                int count = 0;
+                while (resultSet.next()) {
+                    count++;
+                }
+                return count;
+            }
+        }
+    }
+
+    @Test
+    public void statementsAreReusedAcrossBorrows() throws SQLException
+    {
+        for (int i = 0; i < 10; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertEquals(1, countNamed(connection, "Marco"));
+                assertEquals(0, countNamed(connection, "Nobody"));
+            }
+        }
+        StatementCacheStats stats = dataSource.stats();
+        assertEquals(1, stats.missCount());
+        assertEquals(19, stats.hitCount());
+        assertEquals(0.95, stats.hitRate(), 1e-9);
+        assertEquals(1, stats.cachedStatements());
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementsAreEvictedAndClosed() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("select 1");
+            PreparedStatement physical = first.unwrap(PreparedStatement.class);
+            first.close();
+            connection.prepareStatement("select 2").close();
+            connection.prepareStatement("select 3").close();
+            assertTrue(physical.isClosed());
+        }
+        StatementCacheStats stats = dataSource.stats();
+        assertEquals(1, stats.evictionCount());
+        assertEquals(2, stats.cachedStatements());
+    }
+
+    @Test
+    public void forgottenStatementsAreHandedBackWithTheConnection() throws SQLException
+    {
+        PreparedStatement forgotten;
+        try (Connection connection = dataSource.getConnection()) {
+            forgotten = connection.prepareStatement(SELECT); // Never closed, like the App examples
+            forgotten.setString(1, "Lisa");
+            forgotten.executeQuery();
+        }
+        assertTrue(forgotten.isClosed());
+        try {
+            forgotten.executeQuery();
+            fail("A handed back statement should act closed");
+        } catch (SQLException expected) {
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(1, countNamed(connection, "Lisa"));
+        }
+        assertEquals(1, dataSource.stats().hitCount());
+    }
+
+    @Test
+    public void uncommittedWorkOfCachedStatementsIsRolledBackOnClose() throws SQLException
+    {
+        for (String name : new String[] {"Uncommitted", "Committed"}) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement insertPS = connection.prepareStatement("insert into USERS (name) values (?)")) {
+                    insertPS.setString(1, name);
+                    assertEquals(1, insertPS.executeUpdate());
+                }
+                if (name.equals("Committed")) {
+                    connection.commit();
+                }
+            } // The pool sets autocommit back on, which would commit whatever is left
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+            assertEquals(0, countNamed(connection, "Uncommitted"));
+            assertEquals(1, countNamed(connection, "Committed"));
+        }
+        assertEquals(2, dataSource.stats().hitCount()); // The second insert and the second select were cached
+    }
+
+    @Test
+    public void theSameSqlTwiceAtOnceGetsAnUncachedSecondStatement() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement outer = connection.prepareStatement(SELECT);
+                PreparedStatement inner = connection.prepareStatement(SELECT)) {
+            assertFalse(outer.unwrap(PreparedStatement.class) == inner.unwrap(PreparedStatement.class));
+            outer.setString(1, "Marco");
+            inner.setString(1, "Lisa");
+            try (ResultSet marco = outer.executeQuery(); ResultSet lisa = inner.executeQuery()) {
+                assertTrue(marco.next());
+                assertTrue(lisa.next());
+                assertEquals("Marco", marco.getString("name"));
+                assertEquals("Lisa", lisa.getString("name"));
+            }
+        }
+        assertEquals(2, dataSource.stats().missCount());
+        assertEquals(1, dataSource.stats().cachedStatements());
+    }
+}